@@ -10,6 +10,7 @@ import simpledb.file.*;
 class BasicBufferMgr {
    private Buffer[] bufferpool;
    private int numAvailable;
+   private long pins = 0, hits = 0;  //CS4432: for EXPLAIN ANALYZE
    
    /**
     * Creates a buffer manager having the specified number 
@@ -58,6 +59,9 @@ class BasicBufferMgr {
             return null;
          buff.assignToBlock(blk);
       }
+      else
+         hits++;
+      pins++;
       if (!buff.isPinned())
          numAvailable--;
       buff.pin();
@@ -78,6 +82,7 @@ class BasicBufferMgr {
       if (buff == null)
          return null;
       buff.assignToNew(filename, fmtr);
+      pins++;
       numAvailable--;
       buff.pin();
       return buff;
@@ -101,6 +106,23 @@ class BasicBufferMgr {
       return numAvailable;
    }
    
+   /**
+    * CS4432: Returns the number of times a block has been pinned.
+    * @return the number of pins
+    */
+   synchronized long pins() {
+      return pins;
+   }
+   
+   /**
+    * CS4432: Returns the number of times a block was pinned
+    * that was already in a buffer.
+    * @return the number of buffer hits
+    */
+   synchronized long hits() {
+      return hits;
+   }
+   
    private Buffer findExistingBuffer(Block blk) {
       for (Buffer buff : bufferpool) {
          Block b = buff.block();
@@ -118,6 +118,24 @@ public class BufferMgr {
       return bufferMgr.available();
    }
    
+   /**
+    * CS4432: Returns the number of times a block has been pinned
+    * since the buffer manager was created, including new blocks.
+    * @return the number of pins
+    */
+   public long pins() {
+      return bufferMgr.pins();
+   }
+   
+   /**
+    * CS4432: Returns the number of pins that found
+    * their block already in a buffer, and so did not read it.
+    * @return the number of buffer hits
+    */
+   public long hits() {
+      return bufferMgr.hits();
+   }
+   
    private boolean waitingTooLong(long starttime) {
       return System.currentTimeMillis() - starttime > MAX_TIME;
    }
@@ -25,6 +25,7 @@ public class FileMgr {
    private File dbDirectory;
    private boolean isNew;
    private Map<String,FileChannel> openFiles = new HashMap<String,FileChannel>();
+   private long blocksRead = 0, blocksWritten = 0;  //CS4432: for EXPLAIN ANALYZE
 
    /**
     * Creates a file manager for the specified database.
@@ -60,6 +61,7 @@ public class FileMgr {
          bb.clear();
          FileChannel fc = getFile(blk.fileName());
          fc.read(bb, blk.number() * BLOCK_SIZE);
+         blocksRead++;
       }
       catch (IOException e) {
          throw new RuntimeException("cannot read block " + blk);
@@ -76,6 +78,7 @@ public class FileMgr {
          bb.rewind();
          FileChannel fc = getFile(blk.fileName());
          fc.write(bb, blk.number() * BLOCK_SIZE);
+         blocksWritten++;
       }
       catch (IOException e) {
          throw new RuntimeException("cannot write block" + blk);
@@ -111,6 +114,24 @@ public class FileMgr {
       }
    }
 
+   /**
+    * CS4432: Returns the number of blocks read from disk
+    * since the file manager was created.
+    * @return the number of blocks read
+    */
+   public synchronized long blocksRead() {
+      return blocksRead;
+   }
+
+   /**
+    * CS4432: Returns the number of blocks written to disk
+    * (including appended blocks) since the file manager was created.
+    * @return the number of blocks written
+    */
+   public synchronized long blocksWritten() {
+      return blocksWritten;
+   }
+
    /**
     * Returns a boolean indicating whether the file manager
     * had to create a new database directory.
@@ -31,6 +31,15 @@ public interface Index {
     */
    public RID     getDataRid();
    
+   /**
+    * Returns the dataval stored in the current index record.
+    * Since the dataval is a copy of the indexed field,
+    * a query that needs no other field of the record
+    * can be answered without reading the data record.
+    * @return the dataval stored in the current index record.
+    */
+   public Constant getDataVal();
+   
    /**
     * Inserts an index record having the specified
     * dataval and dataRID values.
@@ -0,0 +1,79 @@
+package simpledb.index;
+
+import java.util.*;
+import simpledb.record.Schema;
+import simpledb.query.*;
+
+/**
+ * Static methods for handling the key fields of index records.
+ * The first indexed field is stored in the field <i>dataval</i>,
+ * as it always has been; the fields of a multi-column index
+ * after the first are stored in <i>dataval1</i>, <i>dataval2</i>, etc.
+ * The key of a multi-column index is a {@link CompositeConstant}.
+ * @author Edward Sciore
+ */
+public class IndexKey {
+   
+   /**
+    * Returns the name of the index record field holding
+    * the specified key position.
+    * @param pos the position of the field in the key
+    * @return the name of the index record field
+    */
+   public static String fieldName(int pos) {
+      return (pos == 0) ? "dataval" : "dataval" + pos;
+   }
+   
+   /**
+    * Returns the number of key fields in an index record
+    * having the specified schema.
+    * @param sch the schema of the index records
+    * @return the number of key fields
+    */
+   public static int arity(Schema sch) {
+      int n = 1;
+      while (sch.hasField(fieldName(n)))
+         n++;
+      return n;
+   }
+   
+   /**
+    * Reads the key of the current index record of the specified scan.
+    * @param s a scan of index records
+    * @param arity the number of key fields
+    * @return the key of the current index record
+    */
+   public static Constant read(Scan s, int arity) {
+      if (arity == 1)
+         return s.getVal(fieldName(0));
+      List<Constant> vals = new ArrayList<Constant>();
+      for (int i=0; i<arity; i++)
+         vals.add(s.getVal(fieldName(i)));
+      return new CompositeConstant(vals);
+   }
+   
+   /**
+    * Writes the specified key into the current index record
+    * of the specified scan.
+    * @param s a scan of index records
+    * @param key the key
+    * @param arity the number of key fields
+    */
+   public static void write(UpdateScan s, Constant key, int arity) {
+      for (int i=0; i<arity; i++)
+         s.setVal(fieldName(i), component(key, i, arity));
+   }
+   
+   /**
+    * Returns the constant at the specified position of a key.
+    * @param key the key
+    * @param pos the position in the key
+    * @param arity the number of key fields
+    * @return the constant at that position
+    */
+   public static Constant component(Constant key, int pos, int arity) {
+      if (arity == 1)
+         return key;
+      return ((CompositeConstant) key).get(pos);
+   }
+}
@@ -109,7 +109,9 @@ public class BTreeDir {
 
    private Block findChildBlock(Constant searchkey) {
       int slot = contents.findSlotBefore(searchkey);
-      if (contents.getDataVal(slot+1).equals(searchkey))
+      // the slot after the last record may hold a stale entry
+      // left behind by a split, so it must not be examined
+      if (slot+1 < contents.getNumRecs() && contents.getDataVal(slot+1).equals(searchkey))
          slot++;
       int blknum = contents.getChildNum(slot);
       return new Block(filename, blknum);
@@ -6,6 +6,8 @@ import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.query.*;
 import simpledb.index.Index;
+import simpledb.index.IndexKey;
+import java.util.*;
 
 /**
  * A B-tree implementation of the Index interface.
@@ -16,6 +18,7 @@ public class BTreeIndex implements Index {
    private TableInfo dirTi, leafTi;
    private BTreeLeaf leaf = null;
    private Block rootblk;
+   private int arity;
 
    /**
     * Opens a B-tree index for the specified index.
@@ -28,6 +31,7 @@ public class BTreeIndex implements Index {
     */
    public BTreeIndex(String idxname, Schema leafsch, Transaction tx) {
       this.tx = tx;
+      arity = IndexKey.arity(leafsch);
       // deal with the leaves
       String leaftbl = idxname + "leaf";
       leafTi = new TableInfo(leaftbl, leafsch);
@@ -37,7 +41,8 @@ public class BTreeIndex implements Index {
       // deal with the directory
       Schema dirsch = new Schema();
       dirsch.add("block",   leafsch);
-      dirsch.add("dataval", leafsch);
+      for (int i=0; i<arity; i++)
+         dirsch.add(IndexKey.fieldName(i), leafsch);
       String dirtbl = idxname + "dir";
       dirTi = new TableInfo(dirtbl, dirsch);
       rootblk = new Block(dirTi.fileName(), 0);
@@ -47,10 +52,14 @@ public class BTreeIndex implements Index {
       BTreePage page = new BTreePage(rootblk, dirTi, tx);
       if (page.getNumRecs() == 0) {
 			// insert initial directory entry
-         int fldtype = dirsch.type("dataval");
-         Constant minval = (fldtype == INTEGER) ?
-            new IntConstant(Integer.MIN_VALUE) :
-            new StringConstant("");
+         List<Constant> minvals = new ArrayList<Constant>();
+         for (int i=0; i<arity; i++) {
+            int fldtype = dirsch.type(IndexKey.fieldName(i));
+            minvals.add((fldtype == INTEGER) ?
+               new IntConstant(Integer.MIN_VALUE) :
+               new StringConstant(""));
+         }
+         Constant minval = (arity == 1) ? minvals.get(0) : new CompositeConstant(minvals);
          page.insertDir(0, minval, 0);
 		}
       page.close();
@@ -64,9 +73,18 @@ public class BTreeIndex implements Index {
     * having that search key.
     * The leaf page is kept open, for use by the methods next
     * and getDataRid.
+    * <P>
+    * For a multi-column index, the search key may specify 
+    * just the leading fields of the key.
+    * The matching records can then lie in several leaves,
+    * and so the search is done as a range scan.
     * @see simpledb.index.Index#beforeFirst(simpledb.query.Constant)
     */
    public void beforeFirst(Constant searchkey) {
+      if (arity > 1 && ((CompositeConstant) searchkey).size() < arity) {
+         beforeFirst(new ConstantRange(searchkey, true, searchkey, true));
+         return;
+      }
       close();
       BTreeDir root = new BTreeDir(rootblk, dirTi, tx);
       int blknum = root.search(searchkey);
@@ -75,9 +93,35 @@ public class BTreeIndex implements Index {
       leaf = new BTreeLeaf(leafblk, leafTi, searchkey, tx);
    }
 
+   /**
+    * Positions the index before the first leaf record
+    * whose dataval lies in the specified range.
+    * If the range has a lower bound, then the directory
+    * is traversed to find the leaf containing that bound;
+    * otherwise the scan starts at leaf block 0, 
+    * which always holds the smallest keys
+    * (splits only ever move records to the right).
+    * Subsequent calls to next will then move through
+    * the sibling-linked leaves in key order,
+    * stopping at the end of the range.
+    * @param range the range of desired search keys
+    */
+   public void beforeFirst(ConstantRange range) {
+      close();
+      int blknum = 0;
+      if (range.low() != null) {
+         BTreeDir root = new BTreeDir(rootblk, dirTi, tx);
+         blknum = root.search(range.low());
+         root.close();
+      }
+      Block leafblk = new Block(leafTi.fileName(), blknum);
+      leaf = new BTreeLeaf(leafblk, leafTi, range, tx);
+   }
+
    /**
     * Moves to the next leaf record having the
-    * previously-specified search key.
+    * previously-specified search key
+    * (or lying in the previously-specified range).
     * Returns false if there are no more such leaf records.
     * @see simpledb.index.Index#next()
     */
@@ -85,6 +129,14 @@ public class BTreeIndex implements Index {
       return leaf.next();
    }
 
+   /**
+    * Returns the dataval of the current leaf record.
+    * @see simpledb.index.Index#getDataVal()
+    */
+   public Constant getDataVal() {
+      return leaf.getDataVal();
+   }
+
    /**
     * Returns the dataRID value from the current leaf record.
     * @see simpledb.index.Index#getDataRid()
@@ -149,6 +201,6 @@ public class BTreeIndex implements Index {
     * @return the estimated traversal cost
     */
    public static int searchCost(int numblocks, int rpb) {
-      return 1 + (int)(Math.log(numblocks) / Math.log(rpb));
+      return 1 + (int)(Math.log(Math.max(1, numblocks)) / Math.log(rpb)); //CS4432: an index smaller than a block has no directory levels
    }
 }
@@ -4,6 +4,7 @@ import simpledb.file.Block;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.query.Constant;
+import simpledb.query.ConstantRange;
 
 /**
  * An object that holds the contents of a B-tree leaf block.
@@ -15,6 +16,10 @@ public class BTreeLeaf {
    private Constant searchkey;
    private BTreePage contents;
    private int currentslot;
+   private ConstantRange range = null;
+   private Block primaryblk;
+   private int resumeslot;
+   private boolean inOverflow, overflowDone;
    
    /**
     * Opens a page to hold the specified leaf block.
@@ -33,6 +38,30 @@ public class BTreeLeaf {
       currentslot = contents.findSlotBefore(searchkey);
    }
    
+   /**
+    * Opens a page to hold the specified leaf block,
+    * in preparation for a scan of the index records whose
+    * datavals lie in the specified range.
+    * The page is positioned immediately before the first record
+    * that could be in the range.
+    * Unlike the single-key scan, a range scan is not confined
+    * to one page: when the page is exhausted, the scan
+    * follows the sibling pointer to the next leaf.
+    * @param blk a reference to the disk block
+    * @param ti the metadata of the B-tree leaf file
+    * @param range the range of desired search keys
+    * @param tx the calling transaction
+    */
+   public BTreeLeaf(Block blk, TableInfo ti, ConstantRange range, Transaction tx) {
+      this.ti = ti;
+      this.tx = tx;
+      this.range = range;
+      searchkey = range.low();
+      contents = new BTreePage(blk, ti, tx);
+      currentslot = (searchkey == null) ? -1 : contents.findSlotBefore(searchkey);
+      enterPrimary(blk);
+   }
+   
    /**
     * Closes the leaf page.
     */
@@ -47,6 +76,8 @@ public class BTreeLeaf {
     * @return false if there are no more leaf records for the search key
     */
    public boolean next() {
+      if (range != null)
+         return nextInRange();
       currentslot++;
       if (currentslot >= contents.getNumRecs()) 
          return tryOverflow();
@@ -56,6 +87,14 @@ public class BTreeLeaf {
          return tryOverflow();
    }
    
+   /**
+    * Returns the dataval of the current leaf record.
+    * @return the dataval of the current record
+    */
+   public Constant getDataVal() {
+      return contents.getDataVal(currentslot);
+   }
+   
    /**
     * Returns the dataRID value of the current leaf record.
     * @return the dataRID of the current record
@@ -97,6 +136,7 @@ public class BTreeLeaf {
    	if (contents.getFlag() >= 0 && contents.getDataVal(0).compareTo(searchkey) > 0) {
    		Constant firstval = contents.getDataVal(0);
    		Block newblk = contents.split(0, contents.getFlag());
+   		linkSibling(newblk);
    		currentslot = 0;
    		contents.setFlag(-1);
    		contents.insertLeaf(currentslot, searchkey, datarid); 
@@ -131,10 +171,93 @@ public class BTreeLeaf {
                splitpos--;
          }
          Block newblk = contents.split(splitpos, -1);
+         linkSibling(newblk);
          return new DirEntry(splitkey, newblk.number());
       }
    }
    
+   /**
+    * Inserts the newly-split block into the sibling chain,
+    * immediately to the right of this page.
+    * (Overflow blocks are not leaves in their own right,
+    * and so are never linked into the chain.)
+    */
+   private void linkSibling(Block newblk) {
+      BTreePage newpage = new BTreePage(newblk, ti, tx);
+      newpage.setSibling(contents.getSibling());
+      newpage.close();
+      contents.setSibling(newblk.number());
+   }
+   
+   /**
+    * Moves to the next leaf record in the range.
+    * The records of a leaf are in key order, except that
+    * the page's overflow chain (if any) holds additional
+    * records for the page's first key.
+    * The chain is therefore visited when the scan leaves 
+    * the run of first-key records in the primary page.
+    * Once a key above the range is seen, no later record
+    * can qualify, and the scan stops.
+    */
+   private boolean nextInRange() {
+      while (true) {
+         currentslot++;
+         if (!inOverflow && !overflowDone
+               && (currentslot >= contents.getNumRecs()
+                   || !contents.getDataVal(currentslot).equals(contents.getDataVal(0)))) {
+            // detour through the overflow chain of the first key
+            overflowDone = true;
+            resumeslot = currentslot;
+            inOverflow = true;
+            moveTo(new Block(ti.fileName(), contents.getFlag()));
+            continue;
+         }
+         if (currentslot >= contents.getNumRecs()) {
+            if (inOverflow && contents.getFlag() >= 0) {
+               moveTo(new Block(ti.fileName(), contents.getFlag()));
+            }
+            else if (inOverflow) {
+               // the chain is exhausted, so resume the primary page
+               inOverflow = false;
+               moveTo(primaryblk);
+               currentslot = resumeslot - 1;
+            }
+            else {
+               int sibling = contents.getSibling();
+               if (sibling < 0)
+                  return false;
+               Block nextblk = new Block(ti.fileName(), sibling);
+               moveTo(nextblk);
+               enterPrimary(nextblk);
+            }
+            continue;
+         }
+         Constant val = contents.getDataVal(currentslot);
+         if (range.isAbove(val))
+            return false;
+         if (!range.isBelow(val))
+            return true;
+      }
+   }
+   
+   /**
+    * Records that the scan is now at the start of a primary leaf page.
+    * The page's overflow chain needs to be visited only if
+    * the page has one and its key can be in the range.
+    */
+   private void enterPrimary(Block blk) {
+      primaryblk = blk;
+      inOverflow = false;
+      overflowDone = contents.getFlag() < 0 || contents.getNumRecs() == 0
+            || !range.contains(contents.getDataVal(0));
+   }
+   
+   private void moveTo(Block blk) {
+      contents.close();
+      contents = new BTreePage(blk, ti, tx);
+      currentslot = -1;
+   }
+   
    private boolean tryOverflow() {
       Constant firstkey = contents.getDataVal(0);
       int flag = contents.getFlag();
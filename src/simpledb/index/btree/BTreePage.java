@@ -6,19 +6,36 @@ import simpledb.file.Block;
 import simpledb.record.*;
 import simpledb.query.*;
 import simpledb.tx.Transaction;
+import simpledb.index.IndexKey;
+import java.util.*;
 
 /**
  * B-tree directory and leaf pages have many commonalities:
  * in particular, their records are stored in sorted order, 
  * and pages split when full.
  * A BTreePage object contains this common functionality.
+ * <P>
+ * Each page begins with a three-integer header:
+ * the flag, the number of records, and the block number
+ * of the page's right sibling (or -1 if there is none).
+ * Only leaf pages use the sibling field; it chains the 
+ * leaves together in key order so that range scans
+ * can move from one leaf to the next without
+ * going back through the directory.
  * @author Edward Sciore
  */
 public class BTreePage {
+   /**
+    * The number of bytes in the page header
+    * (the flag, the record count and the sibling pointer).
+    */
+   public static final int HEADER_SIZE = 3 * INT_SIZE;
+   
    private Block currentblk;
    private TableInfo ti;
    private Transaction tx;
    private int slotsize;
+   private int arity;
    
    /**
     * Opens a page for the specified B-tree block.
@@ -31,6 +48,7 @@ public class BTreePage {
       this.ti = ti;
       this.tx = tx;
       slotsize = ti.recordLength();
+      arity = IndexKey.arity(ti.schema());
       tx.pin(currentblk);
    }
    
@@ -84,11 +102,18 @@ public class BTreePage {
    
    /**
     * Returns the dataval of the record at the specified slot.
+    * For a multi-column index, the dataval is the 
+    * composite of the record's key fields.
     * @param slot the integer slot of an index record
     * @return the dataval of the record at that slot
     */
    public Constant getDataVal(int slot) {
-      return getVal(slot, "dataval");
+      if (arity == 1)
+         return getVal(slot, "dataval");
+      List<Constant> vals = new ArrayList<Constant>();
+      for (int i=0; i<arity; i++)
+         vals.add(getVal(slot, IndexKey.fieldName(i)));
+      return new CompositeConstant(vals);
    }
    
    /**
@@ -117,6 +142,23 @@ public class BTreePage {
       return tx.append(ti.fileName(), new BTPageFormatter(ti, flag));
    }
    
+   /**
+    * Returns the block number of the page's right sibling,
+    * or -1 if the page is the rightmost page of its level.
+    * @return the block number of the right sibling
+    */
+   public int getSibling() {
+      return tx.getInt(currentblk, 2*INT_SIZE);
+   }
+   
+   /**
+    * Sets the block number of the page's right sibling.
+    * @param blknum the block number of the new right sibling
+    */
+   public void setSibling(int blknum) {
+      tx.setInt(currentblk, 2*INT_SIZE, blknum);
+   }
+   
    // Methods called only by BTreeDir
    
    /**
@@ -137,7 +179,7 @@ public class BTreePage {
     */
    public void insertDir(int slot, Constant val, int blknum) {
       insert(slot);
-      setVal(slot, "dataval", val);
+      setDataVal(slot, val);
       setInt(slot, "block", blknum);
    }
    
@@ -160,7 +202,7 @@ public class BTreePage {
     */
    public void insertLeaf(int slot, Constant val, RID rid) {
       insert(slot);
-      setVal(slot, "dataval", val);
+      setDataVal(slot, val);
       setInt(slot, "block", rid.blockNumber());
       setInt(slot, "id", rid.id());
    }
@@ -222,6 +264,11 @@ public class BTreePage {
          setString(slot, fldname, (String)val.asJavaVal());
    }
    
+   private void setDataVal(int slot, Constant val) {
+      for (int i=0; i<arity; i++)
+         setVal(slot, IndexKey.fieldName(i), IndexKey.component(val, i, arity));
+   }
+   
    private void setNumRecs(int n) {
       tx.setInt(currentblk, INT_SIZE, n);
    }
@@ -256,6 +303,6 @@ public class BTreePage {
    }
    
    private int slotpos(int slot) {
-      return INT_SIZE + INT_SIZE + (slot * slotsize);
+      return HEADER_SIZE + (slot * slotsize);
    }
 }
@@ -0,0 +1,261 @@
+package simpledb.index.exhash;
+
+import static simpledb.file.Page.*;
+import simpledb.file.Block;
+import simpledb.file.Page;
+import simpledb.buffer.PageFormatter;
+import simpledb.tx.Transaction;
+
+import java.util.HashMap;
+import java.util.Map;
+
+//CS4432: Added class to hold the directory of an extensible hash index
+
+/**
+ * The directory of an extensible hash index.
+ * The directory is an array of 2^(global depth) entries,
+ * each holding the bucket for that hash value
+ * (the block number of the bucket's primary page)
+ * and the local depth of that bucket.
+ * <P>
+ * The directory is stored in its own file.
+ * Block 0 is a header holding a version stamp, the global depth,
+ * and the number of buckets allocated so far;
+ * the entries are packed into the following blocks.
+ * <P>
+ * Since the directory is needed on every lookup,
+ * it is cached in memory, one copy per index.
+ * A cached copy is used only if its version stamp matches
+ * the one in the header block. Every change to the directory
+ * writes a fresh stamp, so a copy made stale by
+ * a rollback (or by anything else) is simply reloaded.
+ * Reading the stamp through the transaction also acquires
+ * the header's slock, which serializes lookups with splits.
+ * @author Edward Sciore
+ */
+public class ExHashDirectory {
+    private static final int VERSION_POS = 0;
+    private static final int DEPTH_POS = INT_SIZE;
+    private static final int NUMBUCKETS_POS = 2 * INT_SIZE;
+    private static final int ENTRY_SIZE = 2 * INT_SIZE;
+    private static final int ENTRIES_PER_BLOCK = BLOCK_SIZE / ENTRY_SIZE;
+
+    /**
+     * The largest global depth the directory may grow to.
+     * A bucket that still overflows at this depth
+     * is given overflow pages instead of being split.
+     */
+    public static final int MAX_DEPTH = 20;
+
+    private static Map<String,ExHashDirectory> cache = new HashMap<String,ExHashDirectory>();
+    private static int lastVersion = 0;
+
+    private String filename;
+    private int version, globalDepth, numBuckets;
+    private int[] buckets, depths;
+
+    /**
+     * Returns the directory of the specified index,
+     * creating it if it does not yet exist.
+     * The directory of a new index has global depth 1
+     * and two buckets, in blocks 0 and 1 of the bucket file.
+     * The cached copy is returned if it is still current;
+     * otherwise the directory is read from disk.
+     * @param idxname the name of the index
+     * @param tx the calling transaction
+     * @return the directory of the index
+     */
+    public static synchronized ExHashDirectory open(String idxname, Transaction tx) {
+        String filename = idxname + "dir.tbl";
+        if (tx.size(filename) == 0)
+            create(filename, tx);
+        Block hdr = new Block(filename, 0);
+        tx.pin(hdr);
+        int version = tx.getInt(hdr, VERSION_POS);
+        tx.unpin(hdr);
+        ExHashDirectory dir = cache.get(filename);
+        if (dir == null || dir.version != version) {
+            dir = new ExHashDirectory(filename, tx);
+            cache.put(filename, dir);
+        }
+        return dir;
+    }
+
+    private ExHashDirectory(String filename, Transaction tx) {
+        this.filename = filename;
+        Block hdr = new Block(filename, 0);
+        tx.pin(hdr);
+        version = tx.getInt(hdr, VERSION_POS);
+        globalDepth = tx.getInt(hdr, DEPTH_POS);
+        numBuckets = tx.getInt(hdr, NUMBUCKETS_POS);
+        tx.unpin(hdr);
+        int size = 1 << globalDepth;
+        buckets = new int[size];
+        depths = new int[size];
+        Block blk = null;
+        for (int i=0; i<size; i++) {
+            if (i % ENTRIES_PER_BLOCK == 0) {
+                if (blk != null)
+                    tx.unpin(blk);
+                blk = entryBlock(i);
+                tx.pin(blk);
+            }
+            buckets[i] = tx.getInt(blk, entryPos(i));
+            depths[i] = tx.getInt(blk, entryPos(i) + INT_SIZE);
+        }
+        tx.unpin(blk);
+    }
+
+    /**
+     * Returns the directory slot for the specified hash value,
+     * which is given by its low-order global-depth bits.
+     * @param hash the hash value of a search key
+     * @return the directory slot for that hash value
+     */
+    public int slot(int hash) {
+        return hash & ((1 << globalDepth) - 1);
+    }
+
+    /**
+     * Returns the bucket at the specified slot,
+     * that is, the block number of its primary page.
+     * @param slot a directory slot
+     * @return the bucket at that slot
+     */
+    public int bucket(int slot) {
+        return buckets[slot];
+    }
+
+    /**
+     * Returns the local depth of the bucket at the specified slot.
+     * @param slot a directory slot
+     * @return the local depth of the bucket at that slot
+     */
+    public int localDepth(int slot) {
+        return depths[slot];
+    }
+
+    /**
+     * Returns the global depth of the directory.
+     * @return the global depth
+     */
+    public int globalDepth() {
+        return globalDepth;
+    }
+
+    /**
+     * Returns true if the bucket at the specified slot
+     * can be split, which requires its local depth
+     * to be less than the maximum depth.
+     * @param slot a directory slot
+     * @return true if the bucket can be split
+     */
+    public boolean canSplit(int slot) {
+        return depths[slot] < MAX_DEPTH;
+    }
+
+    /**
+     * Splits the bucket at the specified slot.
+     * The directory is doubled first if the bucket's local depth
+     * equals the global depth.
+     * The directory entries of the bucket whose next hash bit is 1
+     * are pointed at the specified new bucket,
+     * and the local depth of both buckets is incremented.
+     * The new version stamp is written first, so that the split
+     * waits for any transaction still reading the directory.
+     * Allocating the new bucket and moving the records
+     * is up to the caller.
+     * @param slot a directory slot of the bucket to split
+     * @param newbucket the primary block of the new bucket
+     * @param tx the calling transaction
+     */
+    public synchronized void split(int slot, int newbucket, Transaction tx) {
+        Block hdr = new Block(filename, 0);
+        tx.pin(hdr);
+        version = newVersion(version);
+        tx.setInt(hdr, VERSION_POS, version);
+        int oldbucket = buckets[slot];
+        int ld = depths[slot];
+        if (ld == globalDepth)
+            doubleSize(tx);
+        numBuckets++;
+        for (int i=0; i<buckets.length; i++)
+            if (buckets[i] == oldbucket) {
+                if (((i >> ld) & 1) == 1)
+                    buckets[i] = newbucket;
+                depths[i] = ld + 1;
+                writeEntry(i, tx);
+            }
+        tx.setInt(hdr, DEPTH_POS, globalDepth);
+        tx.setInt(hdr, NUMBUCKETS_POS, numBuckets);
+        tx.unpin(hdr);
+    }
+
+    private void doubleSize(Transaction tx) {
+        int oldsize = buckets.length;
+        int[] newbuckets = new int[2 * oldsize];
+        int[] newdepths = new int[2 * oldsize];
+        for (int i=0; i<2*oldsize; i++) {
+            newbuckets[i] = buckets[i % oldsize];
+            newdepths[i] = depths[i % oldsize];
+        }
+        buckets = newbuckets;
+        depths = newdepths;
+        globalDepth++;
+        while (tx.size(filename) <= entryBlock(2*oldsize - 1).number())
+            tx.append(filename, new ExHashDirFormatter());
+        for (int i=oldsize; i<2*oldsize; i++)
+            writeEntry(i, tx);
+    }
+
+    private void writeEntry(int i, Transaction tx) {
+        Block blk = entryBlock(i);
+        tx.pin(blk);
+        tx.setInt(blk, entryPos(i), buckets[i]);
+        tx.setInt(blk, entryPos(i) + INT_SIZE, depths[i]);
+        tx.unpin(blk);
+    }
+
+    private Block entryBlock(int i) {
+        return new Block(filename, 1 + i / ENTRIES_PER_BLOCK);
+    }
+
+    private int entryPos(int i) {
+        return (i % ENTRIES_PER_BLOCK) * ENTRY_SIZE;
+    }
+
+    private static void create(String filename, Transaction tx) {
+        Block hdr = tx.append(filename, new ExHashDirFormatter());
+        Block blk = tx.append(filename, new ExHashDirFormatter());
+        tx.pin(hdr);
+        tx.setInt(hdr, VERSION_POS, newVersion(0));
+        tx.setInt(hdr, DEPTH_POS, 1);
+        tx.setInt(hdr, NUMBUCKETS_POS, 2);
+        tx.unpin(hdr);
+        tx.pin(blk);
+        for (int i=0; i<2; i++) {
+            tx.setInt(blk, i * ENTRY_SIZE, i);
+            tx.setInt(blk, i * ENTRY_SIZE + INT_SIZE, 1);
+        }
+        tx.unpin(blk);
+    }
+
+    /**
+     * Returns a version stamp that differs from every stamp
+     * handed out so far, including the current one.
+     */
+    private static synchronized int newVersion(int current) {
+        lastVersion = Math.max(lastVersion, current) + 1;
+        return lastVersion;
+    }
+
+    /**
+     * Formats a new directory block by zeroing it.
+     */
+    private static class ExHashDirFormatter implements PageFormatter {
+        public void format(Page page) {
+            for (int pos=0; pos+INT_SIZE<=BLOCK_SIZE; pos+=INT_SIZE)
+                page.setInt(pos, 0);
+        }
+    }
+}
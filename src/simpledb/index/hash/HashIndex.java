@@ -1,5 +1,9 @@
 package simpledb.index.hash;
 
+import static simpledb.file.Page.*;
+import simpledb.file.Block;
+import simpledb.file.Page;
+import simpledb.buffer.PageFormatter;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.query.*;
@@ -7,121 +11,210 @@ import simpledb.index.Index;
 
 /**
  * A static hash implementation of the Index interface.
- * A fixed number of buckets is allocated (currently, 100),
- * and each bucket is implemented as a file of index records.
+ * A fixed number of buckets is allocated when the index
+ * is created (by default, 100).
+ * The index is kept in a single file: block 0 is a header
+ * holding the number of buckets, and bucket <i>b</i> is the
+ * {@link HashPage} in block <i>b</i>+1, followed by a chain
+ * of overflow pages if it outgrows that page.
  * @author Edward Sciore
  */
 public class HashIndex implements Index {
 	public static int NUM_BUCKETS = 100;
-	private String idxname;
-	private Schema sch;
+	private TableInfo ti;
 	private Transaction tx;
+	private int numbuckets;
 	private Constant searchkey = null;
-	private TableScan ts = null;
+	private HashPage page = null;
+	private int currentslot;
 
 	/**
-	 * Opens a hash index for the specified index.
+	 * Opens a hash index for the specified index,
+	 * which has the default number of buckets.
 	 * @param idxname the name of the index
 	 * @param sch the schema of the index records
 	 * @param tx the calling transaction
 	 */
 	public HashIndex(String idxname, Schema sch, Transaction tx) {
-		this.idxname = idxname;
-		this.sch = sch;
+		this(idxname, sch, NUM_BUCKETS, tx);
+	}
+
+	/**
+	 * Opens a hash index for the specified index.
+	 * If the index file does not exist, it is created
+	 * with the specified number of buckets;
+	 * otherwise, the number of buckets is read from its header.
+	 * @param idxname the name of the index
+	 * @param sch the schema of the index records
+	 * @param numbuckets the number of buckets of a new index
+	 * @param tx the calling transaction
+	 */
+	public HashIndex(String idxname, Schema sch, int numbuckets, Transaction tx) {
 		this.tx = tx;
+		ti = new TableInfo(idxname, sch);
+		if (tx.size(ti.fileName()) == 0) {
+			tx.append(ti.fileName(), new HashHeaderFormatter(numbuckets));
+			for (int i=0; i<numbuckets; i++)
+				tx.append(ti.fileName(), new HashPageFormatter(ti));
+		}
+		Block hdr = new Block(ti.fileName(), 0);
+		tx.pin(hdr);
+		this.numbuckets = tx.getInt(hdr, 0);
+		tx.unpin(hdr);
 	}
 
 	/**
 	 * Positions the index before the first index record
 	 * having the specified search key.
 	 * The method hashes the search key to determine the bucket,
-	 * and then opens a table scan on the file
-	 * corresponding to the bucket.
-	 * The table scan for the previous bucket (if any) is closed.
+	 * and then opens the bucket's primary page.
+	 * The page of the previous bucket (if any) is closed.
 	 * @see simpledb.index.Index#beforeFirst(simpledb.query.Constant)
 	 */
 	public void beforeFirst(Constant searchkey) {
 		close();
 		this.searchkey = searchkey;
-		int bucket = searchkey.hashCode() % NUM_BUCKETS;
-		String tblname = idxname + bucket;
-		TableInfo ti = new TableInfo(tblname, sch);
-		ts = new TableScan(ti, tx);
+		page = new HashPage(bucketBlock(searchkey), ti, tx);
+		currentslot = -1;
 	}
 
 	/**
 	 * Moves to the next record having the search key.
-	 * The method loops through the table scan for the bucket,
+	 * The method loops through the pages of the bucket,
 	 * looking for a matching record, and returning false
 	 * if there are no more such records.
 	 * @see simpledb.index.Index#next()
 	 */
 	public boolean next() {
-		while (ts.next())
-			if (ts.getVal("dataval").equals(searchkey))
+		while (true) {
+			currentslot++;
+			while (currentslot >= page.getNumRecs()) {
+				int overflow = page.getOverflow();
+				if (overflow < 0)
+					return false;
+				page.close();
+				page = new HashPage(new Block(ti.fileName(), overflow), ti, tx);
+				currentslot = 0;
+			}
+			if (page.getDataVal(currentslot).equals(searchkey))
 				return true;
-		return false;
+		}
 	}
 
 	/**
 	 * Retrieves the dataRID from the current record
-	 * in the table scan for the bucket.
+	 * in the bucket.
 	 * @see simpledb.index.Index#getDataRid()
 	 */
 	public RID getDataRid() {
-		int blknum = ts.getInt("block");
-		int id = ts.getInt("id");
-		return new RID(blknum, id);
+		return page.getDataRid(currentslot);
+	}
+
+	/**
+	 * Retrieves the dataval from the current record
+	 * in the bucket.
+	 * @see simpledb.index.Index#getDataVal()
+	 */
+	public Constant getDataVal() {
+		return page.getDataVal(currentslot);
 	}
 
 	/**
-	 * Inserts a new record into the table scan for the bucket.
+	 * Inserts a new record into the first page of the bucket
+	 * that has room for it.
+	 * If all of the bucket's pages are full,
+	 * a new overflow page is appended to the chain.
 	 * @see simpledb.index.Index#insert(simpledb.query.Constant, simpledb.record.RID)
 	 */
 	public void insert(Constant val, RID rid) {
-		beforeFirst(val);
-		ts.insert();
-		ts.setInt("block", rid.blockNumber());
-		ts.setInt("id", rid.id());
-		ts.setVal("dataval", val);
+		close();
+		HashPage p = new HashPage(bucketBlock(val), ti, tx);
+		while (p.isFull() && p.getOverflow() >= 0) {
+			int overflow = p.getOverflow();
+			p.close();
+			p = new HashPage(new Block(ti.fileName(), overflow), ti, tx);
+		}
+		if (p.isFull()) {
+			Block newblk = p.appendNew();
+			p.setOverflow(newblk.number());
+			p.close();
+			p = new HashPage(newblk, ti, tx);
+		}
+		p.insert(val, rid);
+		p.close();
 	}
 
 	/**
-	 * Deletes the specified record from the table scan for
-	 * the bucket.  The method starts at the beginning of the
-	 * scan, and loops through the records until the
-	 * specified record is found.
+	 * Deletes the specified record from the bucket.
+	 * The method loops through the records of the bucket
+	 * until the specified record is found.
 	 * @see simpledb.index.Index#delete(simpledb.query.Constant, simpledb.record.RID)
 	 */
 	public void delete(Constant val, RID rid) {
 		beforeFirst(val);
 		while(next())
 			if (getDataRid().equals(rid)) {
-				ts.delete();
+				page.delete(currentslot);
 				return;
 			}
 	}
 
 	/**
-	 * Closes the index by closing the current table scan.
+	 * Closes the index by closing the current bucket page.
 	 * @see simpledb.index.Index#close()
 	 */
 	public void close() {
-		if (ts != null)
-			ts.close();
+		if (page != null)
+			page.close();
+		page = null;
+	}
+
+	/**
+	 * Returns the cost of searching an index file having the
+	 * specified number of blocks and the default number of buckets.
+	 * @param numblocks the number of blocks of index records
+	 * @param rpb the number of records per block (not used here)
+	 * @return the cost of traversing the index
+	 */
+	public static int searchCost(int numblocks, int rpb){
+		return searchCost(numblocks, rpb, NUM_BUCKETS);
 	}
 
 	/**
 	 * Returns the cost of searching an index file having the
-	 * specified number of blocks.
+	 * specified number of blocks and buckets.
 	 * The method assumes that all buckets are about the
 	 * same size, and so the cost is simply the size of
-	 * the bucket.
+	 * the bucket, which is at least one page.
 	 * @param numblocks the number of blocks of index records
 	 * @param rpb the number of records per block (not used here)
+	 * @param numbuckets the number of buckets
 	 * @return the cost of traversing the index
 	 */
-	public static int searchCost(int numblocks, int rpb){
-		return numblocks / HashIndex.NUM_BUCKETS;
+	public static int searchCost(int numblocks, int rpb, int numbuckets){
+		return Math.max(1, numblocks / numbuckets);
+	}
+
+	private Block bucketBlock(Constant key) {
+		int bucket = (key.hashCode() & Integer.MAX_VALUE) % numbuckets;
+		return new Block(ti.fileName(), bucket + 1);
+	}
+
+	/**
+	 * Formats the header block of a new index,
+	 * which holds the number of buckets.
+	 */
+	private static class HashHeaderFormatter implements PageFormatter {
+		private int numbuckets;
+
+		public HashHeaderFormatter(int numbuckets) {
+			this.numbuckets = numbuckets;
+		}
+
+		public void format(Page page) {
+			page.setInt(0, numbuckets);
+			for (int pos=INT_SIZE; pos+INT_SIZE<=BLOCK_SIZE; pos+=INT_SIZE)
+				page.setInt(pos, 0);
+		}
 	}
 }
@@ -0,0 +1,197 @@
+package simpledb.index.hash;
+
+import static java.sql.Types.INTEGER;
+import static simpledb.file.Page.*;
+import simpledb.file.Block;
+import simpledb.record.*;
+import simpledb.query.*;
+import simpledb.tx.Transaction;
+import simpledb.index.IndexKey;
+import java.util.*;
+
+//CS4432: Added class to store the buckets of the hash indexes in pages
+
+/**
+ * A page of a hash bucket, as used by both the static
+ * and the extensible hash indexes.
+ * A bucket is a primary page, possibly followed by a chain
+ * of overflow pages; all of an index's bucket pages
+ * are kept in a single file.
+ * <P>
+ * Each page begins with a two-integer header:
+ * the block number of the next page of the bucket
+ * (or -1 if there is none), and the number of records.
+ * The records are unordered, so a record is inserted
+ * at the end of the page, and a deleted record is replaced
+ * by the last one.
+ * @author Edward Sciore
+ */
+public class HashPage {
+    /**
+     * The number of bytes in the page header
+     * (the overflow pointer and the record count).
+     */
+    public static final int HEADER_SIZE = 2 * INT_SIZE;
+
+    private Block currentblk;
+    private TableInfo ti;
+    private Transaction tx;
+    private int slotsize;
+    private int arity;
+
+    /**
+     * Opens a page for the specified bucket block.
+     * @param currentblk a reference to the bucket block
+     * @param ti the metadata for the bucket file
+     * @param tx the calling transaction
+     */
+    public HashPage(Block currentblk, TableInfo ti, Transaction tx) {
+        this.currentblk = currentblk;
+        this.ti = ti;
+        this.tx = tx;
+        slotsize = ti.recordLength();
+        arity = IndexKey.arity(ti.schema());
+        tx.pin(currentblk);
+    }
+
+    /**
+     * Closes the page by unpinning its buffer.
+     */
+    public void close() {
+        if (currentblk != null)
+            tx.unpin(currentblk);
+        currentblk = null;
+    }
+
+    /**
+     * Returns true if the page has no room for another record.
+     * @return true if the page is full
+     */
+    public boolean isFull() {
+        return slotpos(getNumRecs()+1) > BLOCK_SIZE;
+    }
+
+    /**
+     * Appends a new, empty page to the end of the bucket file.
+     * @return a reference to the newly-created block
+     */
+    public Block appendNew() {
+        return tx.append(ti.fileName(), new HashPageFormatter(ti));
+    }
+
+    /**
+     * Returns the block number of the next page of the bucket,
+     * or -1 if this is the last one.
+     * @return the block number of the overflow page
+     */
+    public int getOverflow() {
+        return tx.getInt(currentblk, 0);
+    }
+
+    /**
+     * Sets the block number of the next page of the bucket.
+     * @param blknum the block number of the overflow page
+     */
+    public void setOverflow(int blknum) {
+        tx.setInt(currentblk, 0, blknum);
+    }
+
+    /**
+     * Returns the number of index records in this page.
+     * @return the number of index records in this page
+     */
+    public int getNumRecs() {
+        return tx.getInt(currentblk, INT_SIZE);
+    }
+
+    /**
+     * Returns the dataval of the record at the specified slot.
+     * For a multi-column index, the dataval is the
+     * composite of the record's key fields.
+     * @param slot the integer slot of an index record
+     * @return the dataval of the record at that slot
+     */
+    public Constant getDataVal(int slot) {
+        if (arity == 1)
+            return getVal(slot, "dataval");
+        List<Constant> vals = new ArrayList<Constant>();
+        for (int i=0; i<arity; i++)
+            vals.add(getVal(slot, IndexKey.fieldName(i)));
+        return new CompositeConstant(vals);
+    }
+
+    /**
+     * Returns the dataRID value stored in the specified index record.
+     * @param slot the slot of the desired index record
+     * @return the dataRID value stored at that slot
+     */
+    public RID getDataRid(int slot) {
+        return new RID(getInt(slot, "block"), getInt(slot, "id"));
+    }
+
+    /**
+     * Inserts an index record at the end of the page.
+     * The caller must make sure that the page is not full.
+     * @param val the new dataval
+     * @param rid the new dataRID
+     */
+    public void insert(Constant val, RID rid) {
+        int slot = getNumRecs();
+        for (int i=0; i<arity; i++)
+            setVal(slot, IndexKey.fieldName(i), IndexKey.component(val, i, arity));
+        setInt(slot, "block", rid.blockNumber());
+        setInt(slot, "id", rid.id());
+        setNumRecs(slot+1);
+    }
+
+    /**
+     * Deletes the index record at the specified slot,
+     * by moving the last record of the page into it.
+     * @param slot the slot of the deleted index record
+     */
+    public void delete(int slot) {
+        int last = getNumRecs() - 1;
+        if (slot < last)
+            for (String fldname : ti.schema().fields())
+                setVal(slot, fldname, getVal(last, fldname));
+        setNumRecs(last);
+    }
+
+    // Private methods
+
+    private int getInt(int slot, String fldname) {
+        return tx.getInt(currentblk, fldpos(slot, fldname));
+    }
+
+    private Constant getVal(int slot, String fldname) {
+        int pos = fldpos(slot, fldname);
+        if (ti.schema().type(fldname) == INTEGER)
+            return new IntConstant(tx.getInt(currentblk, pos));
+        else
+            return new StringConstant(tx.getString(currentblk, pos));
+    }
+
+    private void setInt(int slot, String fldname, int val) {
+        tx.setInt(currentblk, fldpos(slot, fldname), val);
+    }
+
+    private void setVal(int slot, String fldname, Constant val) {
+        int pos = fldpos(slot, fldname);
+        if (ti.schema().type(fldname) == INTEGER)
+            tx.setInt(currentblk, pos, (Integer)val.asJavaVal());
+        else
+            tx.setString(currentblk, pos, (String)val.asJavaVal());
+    }
+
+    private void setNumRecs(int n) {
+        tx.setInt(currentblk, INT_SIZE, n);
+    }
+
+    private int fldpos(int slot, String fldname) {
+        return slotpos(slot) + ti.offset(fldname);
+    }
+
+    private int slotpos(int slot) {
+        return HEADER_SIZE + (slot * slotsize);
+    }
+}
@@ -0,0 +1,51 @@
+package simpledb.index.hash;
+
+import static simpledb.file.Page.*;
+import static java.sql.Types.INTEGER;
+import simpledb.file.Page;
+import simpledb.buffer.PageFormatter;
+import simpledb.record.TableInfo;
+
+//CS4432: Added class to format new hash bucket pages
+
+/**
+ * An object that can format a page to look like an
+ * empty hash bucket page.
+ * @author Edward Sciore
+ */
+public class HashPageFormatter implements PageFormatter {
+    private TableInfo ti;
+
+    /**
+     * Creates a formatter for a new bucket page
+     * of the specified index.
+     * @param ti the metadata of the bucket file
+     */
+    public HashPageFormatter(TableInfo ti) {
+        this.ti = ti;
+    }
+
+    /**
+     * Formats the page by initializing as many index-record slots
+     * as possible to have default values.
+     * The page is given no overflow page and no records.
+     * @see simpledb.buffer.PageFormatter#format(simpledb.file.Page)
+     */
+    public void format(Page page) {
+        page.setInt(0, -1);  // no overflow page
+        page.setInt(INT_SIZE, 0);  // #records = 0
+        int recsize = ti.recordLength();
+        for (int pos=HashPage.HEADER_SIZE; pos+recsize<=BLOCK_SIZE; pos += recsize)
+            makeDefaultRecord(page, pos);
+    }
+
+    private void makeDefaultRecord(Page page, int pos) {
+        for (String fldname : ti.schema().fields()) {
+            int offset = ti.offset(fldname);
+            if (ti.schema().type(fldname) == INTEGER)
+                page.setInt(pos + offset, 0);
+            else
+                page.setString(pos + offset, "");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package simpledb.index.linhash;
+
+import static simpledb.file.Page.*;
+import simpledb.file.Block;
+import simpledb.file.Page;
+import simpledb.buffer.PageFormatter;
+import simpledb.tx.Transaction;
+import simpledb.record.*;
+import simpledb.query.*;
+import simpledb.index.Index;
+import simpledb.index.hash.HashPage;
+import simpledb.index.hash.HashPageFormatter;
+
+//CS4432: Added class to implement linear hashing
+
+/**
+ * A linear hash implementation of the Index interface.
+ * The index starts with a few buckets and grows one bucket
+ * at a time, so there is no directory to double.
+ * <P>
+ * At level <i>i</i>, a key with hash value <i>h</i> belongs to
+ * bucket <i>h</i> mod (N * 2^<i>i</i>), where N is the initial
+ * number of buckets; if that bucket lies before the split pointer,
+ * it has already been split and the key belongs to bucket
+ * <i>h</i> mod (N * 2^(<i>i</i>+1)) instead.
+ * Whenever an insertion needs a new overflow page,
+ * the bucket at the split pointer is split and the pointer
+ * advances; once every bucket of the level has been split,
+ * the level increases and the pointer returns to 0.
+ * <P>
+ * The primary pages are kept in the file idxname.tbl: block 0 is
+ * a header holding the level and the split pointer, and
+ * bucket <i>b</i> is in block <i>b</i>+1.
+ * Overflow pages are kept in a separate file, idxname + "ovf.tbl",
+ * so that a new primary page can always be appended.
+ * @author Edward Sciore
+ */
+public class LinHashIndex implements Index {
+    /**
+     * The number of buckets of a new index.
+     */
+    public static final int INITIAL_BUCKETS = 4;
+
+    private static final int LEVEL_POS = 0;
+    private static final int NEXT_POS = INT_SIZE;
+
+    private TableInfo ti, ovfti;
+    private Transaction tx;
+    private Constant searchkey = null;
+    private HashPage page = null;
+    private int currentslot;
+
+    /**
+     * Opens a linear hash index for the specified index.
+     * If the index is new, its initial buckets are created.
+     * @param idxname the name of the index
+     * @param sch the schema of the index records
+     * @param tx the calling transaction
+     */
+    public LinHashIndex(String idxname, Schema sch, Transaction tx) {
+        this.tx = tx;
+        ti = new TableInfo(idxname, sch);
+        ovfti = new TableInfo(idxname + "ovf", sch);
+        if (tx.size(ti.fileName()) == 0) {
+            tx.append(ti.fileName(), new LinHashHeaderFormatter());
+            for (int i=0; i<INITIAL_BUCKETS; i++)
+                tx.append(ti.fileName(), new HashPageFormatter(ti));
+        }
+    }
+
+    /**
+     * Positions the index before the first index record
+     * having the specified search key.
+     * The method reads the level and split pointer
+     * to determine the bucket, and then opens the bucket's
+     * primary page.
+     * The page of the previous bucket (if any) is closed.
+     * @see simpledb.index.Index#beforeFirst(simpledb.query.Constant)
+     */
+    public void beforeFirst(Constant searchkey) {
+        close();
+        this.searchkey = searchkey;
+        page = new HashPage(primaryBlock(bucketOf(searchkey)), ti, tx);
+        currentslot = -1;
+    }
+
+    /**
+     * Moves to the next record having the search key.
+     * The method loops through the pages of the bucket,
+     * looking for a matching record, and returning false
+     * if there are no more such records.
+     * @see simpledb.index.Index#next()
+     */
+    public boolean next() {
+        while (true) {
+            currentslot++;
+            while (currentslot >= page.getNumRecs()) {
+                int overflow = page.getOverflow();
+                if (overflow < 0)
+                    return false;
+                page.close();
+                page = new HashPage(new Block(ovfti.fileName(), overflow), ovfti, tx);
+                currentslot = 0;
+            }
+            if (page.getDataVal(currentslot).equals(searchkey))
+                return true;
+        }
+    }
+
+    /**
+     * Retrieves the dataRID from the current record
+     * in the bucket.
+     * @see simpledb.index.Index#getDataRid()
+     */
+    public RID getDataRid() {
+        return page.getDataRid(currentslot);
+    }
+
+    /**
+     * Retrieves the dataval from the current record
+     * in the bucket.
+     * @see simpledb.index.Index#getDataVal()
+     */
+    public Constant getDataVal() {
+        return page.getDataVal(currentslot);
+    }
+
+    /**
+     * Inserts a new record into the first page of its bucket
+     * that has room for it.
+     * If all of the bucket's pages are full, an overflow page
+     * is added, and then the bucket at the split pointer is split.
+     * @see simpledb.index.Index#insert(simpledb.query.Constant, simpledb.record.RID)
+     */
+    public void insert(Constant val, RID rid) {
+        close();
+        boolean overflowed = insertInto(bucketOf(val), val, rid);
+        if (overflowed)
+            splitNext();
+    }
+
+    /**
+     * Deletes the specified record from the bucket.
+     * The method loops through the records of the bucket
+     * until the specified record is found.
+     * @see simpledb.index.Index#delete(simpledb.query.Constant, simpledb.record.RID)
+     */
+    public void delete(Constant val, RID rid) {
+        beforeFirst(val);
+        while(next())
+            if (getDataRid().equals(rid)) {
+                page.delete(currentslot);
+                return;
+            }
+    }
+
+    /**
+     * Closes the index by closing the current bucket page.
+     * @see simpledb.index.Index#close()
+     */
+    public void close() {
+        if (page != null)
+            page.close();
+        page = null;
+    }
+
+    /**
+     * Returns the cost of searching an index file having the
+     * specified number of blocks.
+     * A bucket is split as soon as it overflows,
+     * so buckets are normally a single page;
+     * the small header is assumed to stay in the buffer pool.
+     * @param numblocks the number of blocks of index records (not used here)
+     * @param rpb the number of records per block (not used here)
+     * @return the cost of traversing the index
+     */
+    public static int searchCost(int numblocks, int rpb) {
+        return 1;
+    }
+
+    /**
+     * Returns the bucket of the specified key, as determined
+     * by the current level and split pointer.
+     */
+    private int bucketOf(Constant key) {
+        Block hdr = new Block(ti.fileName(), 0);
+        tx.pin(hdr);
+        int level = tx.getInt(hdr, LEVEL_POS);
+        int next = tx.getInt(hdr, NEXT_POS);
+        tx.unpin(hdr);
+        int hash = key.hashCode() & Integer.MAX_VALUE;
+        int bucket = hash % (INITIAL_BUCKETS << level);
+        if (bucket < next)
+            bucket = hash % (INITIAL_BUCKETS << (level + 1));
+        return bucket;
+    }
+
+    /**
+     * Inserts a record into the specified bucket,
+     * adding an overflow page if necessary.
+     * @return true if an overflow page was added
+     */
+    private boolean insertInto(int bucket, Constant val, RID rid) {
+        HashPage p = new HashPage(primaryBlock(bucket), ti, tx);
+        while (p.isFull() && p.getOverflow() >= 0) {
+            int overflow = p.getOverflow();
+            p.close();
+            p = new HashPage(new Block(ovfti.fileName(), overflow), ovfti, tx);
+        }
+        boolean overflowed = p.isFull();
+        if (overflowed) {
+            Block newblk = tx.append(ovfti.fileName(), new HashPageFormatter(ovfti));
+            p.setOverflow(newblk.number());
+            p.close();
+            p = new HashPage(newblk, ovfti, tx);
+        }
+        p.insert(val, rid);
+        p.close();
+        return overflowed;
+    }
+
+    /**
+     * Splits the bucket at the split pointer.
+     * A new primary page is appended for its image bucket,
+     * the records that now hash to the image bucket are moved,
+     * and the split pointer advances.
+     * Overflow pages emptied by the split stay in the chain,
+     * where later insertions can reuse them.
+     */
+    private void splitNext() {
+        Block hdr = new Block(ti.fileName(), 0);
+        tx.pin(hdr);
+        int level = tx.getInt(hdr, LEVEL_POS);
+        int next = tx.getInt(hdr, NEXT_POS);
+        int size = INITIAL_BUCKETS << level;
+        int newbucket = next + size;
+        // the page may already exist, left behind by a split
+        // that was rolled back
+        if (tx.size(ti.fileName()) <= primaryBlock(newbucket).number())
+            tx.append(ti.fileName(), new HashPageFormatter(ti));
+
+        HashPage src = new HashPage(primaryBlock(next), ti, tx);
+        while (true) {
+            for (int i=src.getNumRecs()-1; i>=0; i--) {
+                Constant key = src.getDataVal(i);
+                int hash = key.hashCode() & Integer.MAX_VALUE;
+                if (hash % (2 * size) == newbucket) {
+                    insertInto(newbucket, key, src.getDataRid(i));
+                    src.delete(i);
+                }
+            }
+            int overflow = src.getOverflow();
+            src.close();
+            if (overflow < 0)
+                break;
+            src = new HashPage(new Block(ovfti.fileName(), overflow), ovfti, tx);
+        }
+
+        next++;
+        if (next == size) {
+            level++;
+            next = 0;
+        }
+        tx.setInt(hdr, LEVEL_POS, level);
+        tx.setInt(hdr, NEXT_POS, next);
+        tx.unpin(hdr);
+    }
+
+    private Block primaryBlock(int bucket) {
+        return new Block(ti.fileName(), bucket + 1);
+    }
+
+    /**
+     * Formats the header block of a new index,
+     * which starts at level 0 with the split pointer at bucket 0.
+     */
+    private static class LinHashHeaderFormatter implements PageFormatter {
+        public void format(Page page) {
+            for (int pos=0; pos+INT_SIZE<=BLOCK_SIZE; pos+=INT_SIZE)
+                page.setInt(pos, 0);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package simpledb.index.planner;
 
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 
 import simpledb.record.RID;
 import simpledb.server.SimpleDB;
@@ -29,20 +28,22 @@ public class IndexUpdatePlanner implements UpdatePlanner {
       s.insert();
       RID rid = s.getRid();
       
-      // then modify each field, inserting an index record if appropriate
-      Map<String,IndexInfo> indexes = SimpleDB.mdMgr().getIndexInfo(tblname, tx);
+      // then modify each field
       Iterator<Constant> valIter = data.vals().iterator();
       for (String fldname : data.fields()) {
          Constant val = valIter.next();
          System.out.println("Modify field " + fldname + " to val " + val);
          s.setVal(fldname, val);
-         
-         IndexInfo ii = indexes.get(fldname);
-         if (ii != null) {
-            Index idx = ii.open();
-            idx.insert(val, rid);
-            idx.close();
-         }
+      }
+      
+      // then insert an index record into each index
+      // (done last, since the key of a multi-column index
+      // needs the values of all its fields)
+      Map<String,IndexInfo> indexes = SimpleDB.mdMgr().getIndexInfo(tblname, tx);
+      for (IndexInfo ii : indexes.values()) {
+         Index idx = ii.open();
+         idx.insert(ii.keyOf(s), rid);
+         idx.close();
       }
       s.close();
       return 1;
@@ -59,10 +60,9 @@ public class IndexUpdatePlanner implements UpdatePlanner {
       while(s.next()) {
          // first, delete the record's RID from every index
          RID rid = s.getRid();
-         for (String fldname : indexes.keySet()) {
-            Constant val = s.getVal(fldname);
-            Index idx = indexes.get(fldname).open();
-            idx.delete(val, rid);
+         for (IndexInfo ii : indexes.values()) {
+            Index idx = ii.open();
+            idx.delete(ii.keyOf(s), rid);
             idx.close();
          }
          // then delete the record
@@ -79,26 +79,36 @@ public class IndexUpdatePlanner implements UpdatePlanner {
       Plan p = new TablePlan(tblname, tx);
       p = new SelectPlan(p, data.pred());
       
-      IndexInfo ii = SimpleDB.mdMgr().getIndexInfo(tblname, tx).get(fldname);
-      Index idx = (ii == null) ? null : ii.open();
+      // find the indexes that include the target field
+      List<IndexInfo> infos = new ArrayList<IndexInfo>();
+      List<Index> idxs = new ArrayList<Index>();
+      for (IndexInfo ii : SimpleDB.mdMgr().getIndexInfo(tblname, tx).values())
+         if (ii.fieldNames().contains(fldname)) {
+         infos.add(ii);
+         idxs.add(ii.open());
+      }
       
       UpdateScan s = (UpdateScan) p.open();
       int count = 0;
       while(s.next()) {
          // first, update the record
          Constant newval = data.newValue().evaluate(s);
-         Constant oldval = s.getVal(fldname);
+         List<Constant> oldkeys = new ArrayList<Constant>();
+         for (IndexInfo ii : infos)
+            oldkeys.add(ii.keyOf(s));
          s.setVal(data.targetField(), newval);
          
-         // then update the appropriate index, if it exists
-         if (idx != null) {
-            RID rid = s.getRid();
-            idx.delete(oldval, rid);
-            idx.insert(newval, rid);
+         // then update the appropriate indexes, if they exist
+         RID rid = s.getRid();
+         for (int i=0; i<idxs.size(); i++) {
+            Index idx = idxs.get(i);
+            idx.delete(oldkeys.get(i), rid);
+            idx.insert(infos.get(i).keyOf(s), rid);
          }
          count++;
       }
-      if (idx != null) idx.close();
+      for (Index idx : idxs)
+         idx.close();
       s.close();
       return count;
    }
@@ -115,9 +125,14 @@ public class IndexUpdatePlanner implements UpdatePlanner {
    
    public int executeCreateIndex(CreateIndexData data, Transaction tx) {
       //CS4432: creating index now also takes the index type
-      SimpleDB.mdMgr().createIndex(data.indexType(), data.indexName(), data.tableName(), data.fieldName(), tx);
+      SimpleDB.mdMgr().createIndex(data.indexType(), data.indexName(), data.tableName(), data.fieldNames(),
+                                   data.numBuckets(), tx);
       return 0;
    }
+   
+   public int executeAnalyze(AnalyzeData data, Transaction tx) {
+      return SimpleDB.mdMgr().analyze(data.tableName(), tx);
+   }
 
 
 }
@@ -5,6 +5,7 @@ import simpledb.record.Schema;
 import simpledb.metadata.IndexInfo;
 import simpledb.query.*;
 import simpledb.index.Index;
+import java.util.*;
 
 /** The Plan class corresponding to the <i>indexjoin</i>
   * relational algebra operator.
@@ -46,6 +47,34 @@ public class IndexJoinPlan implements Plan {
       return new IndexJoinScan(s, idx, joinfield, ts);
    }
    
+   /**
+    * CS4432: Instantiates the two underlying plans.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp1 = args.instantiate(p1, tx);
+      Plan newp2 = p2.instantiate(tx, args);  //CS4432: its scan must stay a TableScan
+      if (newp1 == null || newp2 == null)
+         return null;
+      return new IndexJoinPlan(newp1, newp2, new IndexInfo(ii, tx), joinfield, tx);
+   }
+   
+   /**
+    * CS4432: The inputs are the LHS query and the indexed table.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p1, p2);
+   }
+   
+   /**
+    * CS4432: Describes the join by its index and join field.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "IndexJoin " + ii.indexName() + " on " + ii.fieldNames() + " = " + joinfield;
+   }
+   
    /**
     * Estimates the number of block accesses to compute the join.
     * The formula is:
@@ -54,9 +83,10 @@ public class IndexJoinPlan implements Plan {
     * @see simpledb.query.Plan#blocksAccessed()
     */
    public int blocksAccessed() {
-      return p1.blocksAccessed() 
-         + (p1.recordsOutput() * ii.blocksAccessed())
-         + recordsOutput();
+      long blocks = p1.blocksAccessed() 
+         + ((long) p1.recordsOutput() * ii.blocksAccessed())
+         + recordsOutput();  //CS4432: avoid overflow
+      return (int) Math.min(Integer.MAX_VALUE, blocks);
    }
    
    /**
@@ -66,7 +96,7 @@ public class IndexJoinPlan implements Plan {
     * @see simpledb.query.Plan#recordsOutput()
     */
    public int recordsOutput() {
-      return p1.recordsOutput() * ii.recordsOutput();
+      return (int) Math.min(Integer.MAX_VALUE, (long) p1.recordsOutput() * ii.recordsOutput()); //CS4432: avoid overflow
    }
    
    /**
@@ -81,6 +111,18 @@ public class IndexJoinPlan implements Plan {
          return p2.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field
+    * as in the appropriate underlying query, for the same reason.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (p1.schema().hasField(fldname))
+         return p1.rangeReductionFactor(fldname, range);
+      else
+         return p2.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the index join.
     * @see simpledb.query.Plan#schema()
@@ -88,4 +130,14 @@ public class IndexJoinPlan implements Plan {
    public Schema schema() {
       return sch;
    }
+   
+   /**
+    * Returns the sort order of the LHS query,
+    * since each LHS record is joined in turn
+    * with its matching records.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return p1.sortOrder();
+   }
 }
@@ -16,6 +16,7 @@ public class IndexJoinScan implements Scan {
    private TableScan ts;  // the data table
    private Index idx;
    private String joinfield;
+   private int joinpos;
    
    /**
     * Creates an index join scan for the specified LHS scan and 
@@ -29,6 +30,7 @@ public class IndexJoinScan implements Scan {
       this.idx  = idx;
       this.joinfield = joinfield;
       this.ts = ts;
+      joinpos = s.fieldPos(joinfield);  //CS4432: resolved once, read for each LHS record
       beforeFirst();
    }
    
@@ -115,8 +117,43 @@ public class IndexJoinScan implements Scan {
       return ts.hasField(fldname) || s.hasField(fldname);
    }
    
+   /**
+    * CS4432: Returns a position that identifies both the
+    * scan that has the field and the field's position in it:
+    * the lowest bit is 0 for the data table and 1 for the LHS scan,
+    * and the remaining bits hold the position in that scan.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      if (ts.hasField(fldname))
+         return ts.fieldPos(fldname) << 1;
+      else
+         return (s.fieldPos(fldname) << 1) | 1;
+   }
+   
+   public Constant getVal(int pos) {
+      if ((pos & 1) == 0)
+         return ts.getVal(pos >>> 1);
+      else
+         return s.getVal(pos >>> 1);
+   }
+   
+   public int getInt(int pos) {
+      if ((pos & 1) == 0)
+         return ts.getInt(pos >>> 1);
+      else
+         return s.getInt(pos >>> 1);
+   }
+   
+   public String getString(int pos) {
+      if ((pos & 1) == 0)
+         return ts.getString(pos >>> 1);
+      else
+         return s.getString(pos >>> 1);
+   }
+   
    private void resetIndex() {
-      Constant searchkey = s.getVal(joinfield);
+      Constant searchkey = s.getVal(joinpos);
       idx.beforeFirst(searchkey);
    }
 }
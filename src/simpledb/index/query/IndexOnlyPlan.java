@@ -0,0 +1,147 @@
+package simpledb.index.query;
+
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import simpledb.metadata.IndexInfo;
+import simpledb.query.*;
+import java.util.*;
+
+/** The Plan class for an index-only (covering) scan.
+  * When a query needs no fields of a table other than 
+  * the indexed fields, the values can be read straight from the
+  * index records, and the data records never need to be fetched.
+  * The output consists of the indexed fields only.
+  * @author Edward Sciore
+  */
+public class IndexOnlyPlan implements Plan {
+   private Plan p;
+   private IndexInfo ii;
+   private ConstantRange range;
+   private Schema sch = new Schema();
+   
+   /**
+    * Creates a new index-only node in the query tree
+    * for the specified index and range of search keys.
+    * If the range is not a single search key, 
+    * then the index must be a B-tree.
+    * @param p the plan of the indexed table
+    * @param ii information about the index
+    * @param range the range of desired search keys
+    */
+   public IndexOnlyPlan(Plan p, IndexInfo ii, ConstantRange range) {
+      this.p = p;
+      this.ii = ii;
+      this.range = range;
+      for (String fldname : ii.fieldNames())
+         sch.add(fldname, p.schema());
+   }
+   
+   /** 
+    * Creates a new index-only scan for this query.
+    * The data table is not opened.
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      return new IndexOnlyScan(ii.open(), range, ii.fieldNames());
+   }
+   
+   /**
+    * CS4432: Instantiates the underlying plan, and
+    * replaces the ends of the range.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = p.instantiate(tx, args);  //CS4432: the table is never read, so it is not measured
+      if (newp == null)
+         return null;
+      return new IndexOnlyPlan(newp, new IndexInfo(ii, tx), args.bind(range));
+   }
+   
+   /**
+    * CS4432: The input is the indexed table, whose records are not read.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+   
+   /**
+    * CS4432: Describes the index-only scan by its index and range.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "IndexOnly " + ii.indexName() + " on " + ii.fieldNames() + " in " + range;
+   }
+   
+   /**
+    * Estimates the number of block accesses to compute the 
+    * index-only scan, which is just the cost of reading
+    * the matching index records.
+    * (The search cost of a hash index already
+    * includes reading the entire bucket.)
+    * @see simpledb.query.Plan#blocksAccessed()
+    */
+   public int blocksAccessed() {
+      if (range.isSingleton() && !ii.indexType().equals("bt"))
+         return ii.blocksAccessed();
+      else
+         return ii.rangeBlocksAccessed(recordsOutput());
+   }
+   
+   /**
+    * Estimates the number of output records,
+    * which is the number of index records in the range.
+    * @see simpledb.query.Plan#recordsOutput()
+    */
+   public int recordsOutput() {
+      return ii.rangeRecordsOutput(range);
+   }
+   
+   /** 
+    * Returns the distinct values of an indexed field,
+    * capped by the number of output records.
+    * @see simpledb.query.Plan#distinctValues(java.lang.String)
+    */
+   public int distinctValues(String fldname) {
+      if (range.isSingleton() && ii.recordsOutput() == recordsOutput())
+         return 1;
+      else
+         return Math.min(p.distinctValues(fldname), recordsOutput());
+   }
+   
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field.
+    * For a field of the index key, the part of the reduction
+    * that the range scan has already made is not counted again.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      int factor = p.rangeReductionFactor(fldname, range);
+      if (!ii.fieldNames().contains(fldname))
+         return factor;
+      int done = Math.max(1, p.recordsOutput() / Math.max(1, recordsOutput()));
+      return Math.max(1, factor / done);
+   }
+   
+   /**
+    * Returns the schema of the output,
+    * which consists of the indexed fields.
+    * @see simpledb.query.Plan#schema()
+    */
+   public Schema schema() {
+      return sch; 
+   }
+   
+   /**
+    * Returns the fields of the index key if the index
+    * is a B-tree, whose records are read in key order.
+    * The records of a hash bucket are in no particular order.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      if (ii.indexType().equals("bt"))
+         return ii.fieldNames();
+      else
+         return Collections.emptyList();
+   }
+}
@@ -0,0 +1,122 @@
+package simpledb.index.query;
+
+import java.util.List;
+import simpledb.query.*;
+import simpledb.index.Index;
+import simpledb.index.IndexKey;
+import simpledb.index.btree.BTreeIndex;
+
+/**
+ * The scan class corresponding to an index-only scan.
+ * Field values come from the current index record;
+ * the data records are never read.
+ * @author Edward Sciore
+ */
+public class IndexOnlyScan implements Scan {
+   private Index idx;
+   private ConstantRange range;
+   private List<String> fldnames;
+   
+   /**
+    * Creates an index-only scan for the specified
+    * index, range of search keys, and indexed fields.
+    * @param idx the index
+    * @param range the range of desired search keys
+    * @param fldnames the names of the indexed fields, in key order
+    */
+   public IndexOnlyScan(Index idx, ConstantRange range, List<String> fldnames) {
+      this.idx = idx;
+      this.range = range;
+      this.fldnames = fldnames;
+      beforeFirst();
+   }
+   
+   /**
+    * Positions the scan before the first index record in the range.
+    * A range consisting of a single search key is looked up
+    * like an index selection, and so works for any index type; 
+    * any other range requires a B-tree.
+    * @see simpledb.query.Scan#beforeFirst()
+    */
+   public void beforeFirst() {
+      if (range.isSingleton())
+         idx.beforeFirst(range.low());
+      else
+         // throws an exception if the index is not a B-tree.
+         ((BTreeIndex) idx).beforeFirst(range);
+   }
+   
+   /**
+    * Moves to the next index record in the range.
+    * @see simpledb.query.Scan#next()
+    */
+   public boolean next() {
+      return idx.next();
+   }
+   
+   /**
+    * Closes the scan by closing the index.
+    * @see simpledb.query.Scan#close()
+    */
+   public void close() {
+      idx.close();
+   }
+   
+   /**
+    * Returns the value of the field from the 
+    * dataval of the current index record.
+    * @see simpledb.query.Scan#getVal(java.lang.String)
+    */
+   public Constant getVal(String fldname) {
+      if (!hasField(fldname))
+         throw new RuntimeException("field " + fldname + " not found.");
+      int pos = fldnames.indexOf(fldname);
+      return IndexKey.component(idx.getDataVal(), pos, fldnames.size());
+   }
+   
+   /**
+    * Returns the value of the field from the current index record.
+    * @see simpledb.query.Scan#getInt(java.lang.String)
+    */
+   public int getInt(String fldname) {
+      return (Integer) getVal(fldname).asJavaVal();
+   }
+   
+   /**
+    * Returns the value of the field from the current index record.
+    * @see simpledb.query.Scan#getString(java.lang.String)
+    */
+   public String getString(String fldname) {
+      return (String) getVal(fldname).asJavaVal();
+   }
+   
+   /**
+    * Returns true if the specified field is an indexed field.
+    * @see simpledb.query.Scan#hasField(java.lang.String)
+    */
+   public boolean hasField(String fldname) {
+      return fldnames.contains(fldname);
+   }
+   
+   /**
+    * CS4432: Returns the position of the field in the index key.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      if (!hasField(fldname))
+         throw new RuntimeException("field " + fldname + " not found.");
+      return fldnames.indexOf(fldname);
+   }
+   
+   public Constant getVal(int pos) {
+      return IndexKey.component(idx.getDataVal(), pos, fldnames.size());
+   }
+   
+   public int getInt(int pos) {
+      return (Integer) getVal(pos).asJavaVal();
+   }
+   
+   public String getString(int pos) {
+      return (String) getVal(pos).asJavaVal();
+   }
+}
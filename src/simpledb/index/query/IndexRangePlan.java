@@ -0,0 +1,134 @@
+package simpledb.index.query;
+
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import simpledb.metadata.IndexInfo;
+import simpledb.query.*;
+import simpledb.index.btree.BTreeIndex;
+import java.util.*;
+
+/** The Plan class corresponding to an index range scan,
+  * which retrieves the records whose indexed field lies 
+  * in a given range, in index key order.
+  * Only B-tree indexes keep their keys in order,
+  * so the index must be a B-tree.
+  * @author Edward Sciore
+  */
+public class IndexRangePlan implements Plan {
+   private Plan p;
+   private IndexInfo ii;
+   private ConstantRange range;
+   
+   /**
+    * Creates a new indexrange node in the query tree
+    * for the specified index and range.
+    * @param p the input table
+    * @param ii information about the index
+    * @param range the range of desired search keys
+    */
+   public IndexRangePlan(Plan p, IndexInfo ii, ConstantRange range) {
+      this.p = p;
+      this.ii = ii;
+      this.range = range;
+   }
+   
+   /** 
+    * Creates a new indexrange scan for this query
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      // throws an exception if p is not a tableplan.
+      TableScan ts = (TableScan) p.open();
+      // throws an exception if the index is not a B-tree.
+      BTreeIndex idx = (BTreeIndex) ii.open();
+      return new IndexRangeScan(idx, range, ts);
+   }
+   
+   /**
+    * CS4432: Instantiates the underlying plan, and
+    * replaces the ends of the range.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = p.instantiate(tx, args);  //CS4432: its scan must stay a TableScan
+      if (newp == null)
+         return null;
+      return new IndexRangePlan(newp, new IndexInfo(ii, tx), args.bind(range));
+   }
+   
+   /**
+    * CS4432: The input is the indexed table.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+   
+   /**
+    * CS4432: Describes the range scan by its index and range.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "IndexRange " + ii.indexName() + " on " + ii.fieldNames() + " in " + range;
+   }
+   
+   /**
+    * Estimates the number of block accesses to compute the 
+    * range scan, which is the cost of reading the
+    * matching leaf records plus one block access 
+    * for each matching data record.
+    * @see simpledb.query.Plan#blocksAccessed()
+    */
+   public int blocksAccessed() {
+      int matches = recordsOutput();
+      return ii.rangeBlocksAccessed(matches) + matches;
+   }
+   
+   /**
+    * Estimates the number of output records in the range scan.
+    * @see simpledb.query.Plan#recordsOutput()
+    */
+   public int recordsOutput() {
+      return ii.rangeRecordsOutput(range);
+   }
+   
+   /** 
+    * Returns the distinct values of the data table,
+    * capped by the number of output records.
+    * @see simpledb.query.Plan#distinctValues(java.lang.String)
+    */
+   public int distinctValues(String fldname) {
+      return Math.min(p.distinctValues(fldname), recordsOutput());
+   }
+   
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field.
+    * For a field of the index key, the part of the reduction
+    * that the range scan has already made is not counted again.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      int factor = p.rangeReductionFactor(fldname, range);
+      if (!ii.fieldNames().contains(fldname))
+         return factor;
+      int done = Math.max(1, p.recordsOutput() / Math.max(1, recordsOutput()));
+      return Math.max(1, factor / done);
+   }
+   
+   /**
+    * Returns the schema of the data table.
+    * @see simpledb.query.Plan#schema()
+    */
+   public Schema schema() {
+      return p.schema(); 
+   }
+   
+   /**
+    * Returns the fields of the index key,
+    * since the records are retrieved in key order.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return ii.fieldNames();
+   }
+}
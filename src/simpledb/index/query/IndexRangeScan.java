@@ -0,0 +1,119 @@
+package simpledb.index.query;
+
+import simpledb.record.RID;
+import simpledb.query.*;
+import simpledb.index.btree.BTreeIndex;
+
+/**
+ * The scan class corresponding to an index range scan.
+ * The records are returned in the order of the indexed field.
+ * @author Edward Sciore
+ */
+public class IndexRangeScan implements Scan {
+   private BTreeIndex idx;
+   private ConstantRange range;
+   private TableScan ts;
+   
+   /**
+    * Creates an index range scan for the specified
+    * B-tree index and range.
+    * @param idx the index
+    * @param range the range of desired search keys
+    * @param ts the table scan of the data table
+    */
+   public IndexRangeScan(BTreeIndex idx, ConstantRange range, TableScan ts) {
+      this.idx = idx;
+      this.range = range;
+      this.ts  = ts;
+      beforeFirst();
+   }
+   
+   /**
+    * Positions the scan before the first record,
+    * which in this case means positioning the index
+    * before the first index record in the range.
+    * @see simpledb.query.Scan#beforeFirst()
+    */
+   public void beforeFirst() {
+      idx.beforeFirst(range);
+   }
+   
+   /**
+    * Moves to the next record, which in this case means
+    * moving the index to the next record in the range,
+    * and returning false if there are no more such index records.
+    * If there is a next record, the method moves the 
+    * tablescan to the corresponding data record.
+    * @see simpledb.query.Scan#next()
+    */
+   public boolean next() {
+      boolean ok = idx.next();
+      if (ok) {
+         RID rid = idx.getDataRid();
+         ts.moveToRid(rid);
+      }
+      return ok;
+   }
+   
+   /**
+    * Closes the scan by closing the index and the tablescan.
+    * @see simpledb.query.Scan#close()
+    */
+   public void close() {
+      idx.close();
+      ts.close();
+   }
+   
+   /**
+    * Returns the value of the field of the current data record.
+    * @see simpledb.query.Scan#getVal(java.lang.String)
+    */
+   public Constant getVal(String fldname) {
+      return ts.getVal(fldname);
+   }
+   
+   /**
+    * Returns the value of the field of the current data record.
+    * @see simpledb.query.Scan#getInt(java.lang.String)
+    */
+   public int getInt(String fldname) {
+      return ts.getInt(fldname);
+   }
+   
+   /**
+    * Returns the value of the field of the current data record.
+    * @see simpledb.query.Scan#getString(java.lang.String)
+    */
+   public String getString(String fldname) {
+      return ts.getString(fldname);
+   }
+   
+   /**
+    * Returns whether the data record has the specified field.
+    * @see simpledb.query.Scan#hasField(java.lang.String)
+    */
+   public boolean hasField(String fldname) {
+      return ts.hasField(fldname);
+   }
+   
+   /**
+    * CS4432: The records come from the data table,
+    * so the positions are those of the table scan.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      return ts.fieldPos(fldname);
+   }
+   
+   public Constant getVal(int pos) {
+      return ts.getVal(pos);
+   }
+   
+   public int getInt(int pos) {
+      return ts.getInt(pos);
+   }
+   
+   public String getString(int pos) {
+      return ts.getString(pos);
+   }
+}
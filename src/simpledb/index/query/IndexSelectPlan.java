@@ -4,6 +4,7 @@ import simpledb.tx.Transaction;
 import simpledb.record.Schema;
 import simpledb.metadata.IndexInfo;
 import simpledb.query.*;
+import java.util.*;
 import simpledb.index.Index;
 
 /** The Plan class corresponding to the <i>indexselect</i>
@@ -40,6 +41,34 @@ public class IndexSelectPlan implements Plan {
       return new IndexSelectScan(idx, val, ts);
    }
    
+   /**
+    * CS4432: Instantiates the underlying plan, and
+    * replaces the search key.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = p.instantiate(tx, args);  //CS4432: its scan must stay a TableScan
+      if (newp == null)
+         return null;
+      return new IndexSelectPlan(newp, new IndexInfo(ii, tx), args.bind(val), tx);
+   }
+   
+   /**
+    * CS4432: The input is the indexed table.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+   
+   /**
+    * CS4432: Describes the selection by its index and search key.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "IndexSelect " + ii.indexName() + " on " + ii.fieldNames() + " = " + val;
+   }
+   
    /**
     * Estimates the number of block accesses to compute the 
     * index selection, which is the same as the 
@@ -68,6 +97,19 @@ public class IndexSelectPlan implements Plan {
       return ii.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field.
+    * The output records all have the same key, so a range
+    * on a field of the key does not reduce them further.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (ii.fieldNames().contains(fldname))
+         return 1;
+      else
+         return p.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the data table.
     * @see simpledb.query.Plan#schema()
@@ -95,4 +95,25 @@ public class IndexSelectScan implements Scan {
    public boolean hasField(String fldname) {
       return ts.hasField(fldname);
    }
+   
+   /**
+    * CS4432: The records come from the data table,
+    * so the positions are those of the table scan.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      return ts.fieldPos(fldname);
+   }
+   
+   public Constant getVal(int pos) {
+      return ts.getVal(pos);
+   }
+   
+   public int getInt(int pos) {
+      return ts.getInt(pos);
+   }
+   
+   public String getString(int pos) {
+      return ts.getString(pos);
+   }
 }
@@ -1,6 +1,7 @@
 package simpledb.materialize;
 
 import simpledb.query.*;
+import simpledb.record.Schema;
 
 /**
  * The interface implemented by aggregation functions.
@@ -12,6 +13,9 @@ public interface AggregationFn {
    /**
     * Uses the current record of the specified scan
     * to be the first record in the group.
+    * CS4432: All records of a group come from the same scan,
+    * so a function can resolve the position of its field here
+    * and read the field by position in processNext.
     * @param s the scan to aggregate over.
     */
    void processFirst(Scan s);
@@ -23,15 +27,45 @@ public interface AggregationFn {
     */
    void processNext(Scan s);
    
+   /**
+    * CS4432: Makes the function aggregate an empty group.
+    * An aggregation without group fields outputs one record
+    * even if its input is empty, and this gives the value of the
+    * function for that record.  The count functions (count,
+    * count(distinct), and approxcount) of no records are 0.
+    * Since SimpleDB has no null values, sum and avg of no records
+    * are also 0, and min and max are 0 for an integer field
+    * and the empty string for a string field.
+    * @param inputsch the schema of the records being aggregated
+    */
+   void processEmpty(Schema inputsch);
+   
    /**
     * Returns the name of the new aggregation field.
     * @return the name of the new aggregation field
     */
    String fieldName();
    
+   /**
+    * CS4432: Adds the new aggregation field to the specified schema.
+    * The type of the field depends on the function
+    * (and possibly on the type of the aggregated field).
+    * @param sch the schema of the groupby output
+    * @param inputsch the schema of the records being aggregated
+    */
+   void addField(Schema sch, Schema inputsch);
+   
    /**
     * Returns the computed aggregation value.
     * @return the computed aggregation value
     */
    Constant value();
+   
+   /**
+    * CS4432: Returns a new aggregation function of the same kind
+    * on the same field, which aggregates a separate group.
+    * (Hash aggregation needs one function per group.)
+    * @return a new aggregation function
+    */
+   AggregationFn copy();
 }
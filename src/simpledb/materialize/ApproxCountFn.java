@@ -0,0 +1,100 @@
+package simpledb.materialize;
+
+import simpledb.query.*;
+import simpledb.record.Schema;
+
+/**
+ * CS4432: An aggregation function that estimates the
+ * number of distinct values of a field, using the
+ * HyperLogLog algorithm (see {@link HyperLogLog}).
+ * Unlike {@link CountDistinctFn}, the function uses the same
+ * small amount of memory however many distinct values there are;
+ * the estimate is typically within a few percent of the true count.
+ * @author Edward Sciore
+ */
+public class ApproxCountFn implements AggregationFn {
+   private String fldname;
+   private int pos;
+   private boolean isint;
+   private HyperLogLog sketch;
+   
+   /**
+    * Creates an approximate count distinct aggregation function
+    * for the specified field.
+    * @param fldname the name of the aggregated field
+    */
+   public ApproxCountFn(String fldname) {
+      this.fldname = fldname;
+   }
+   
+   /**
+    * Starts a new estimate, holding the
+    * field value in the current record.
+    * @see simpledb.materialize.AggregationFn#processFirst(simpledb.query.Scan)
+    */
+   public void processFirst(Scan s) {
+      pos = s.fieldPos(fldname);
+      sketch = new HyperLogLog();
+      Constant val = s.getVal(pos);
+      isint = val instanceof IntConstant;
+      if (isint)
+         sketch.add((Integer) val.asJavaVal());
+      else
+         sketch.add((String) val.asJavaVal());
+   }
+   
+   /**
+    * Adds the field value in the current record to the estimate.
+    * @see simpledb.materialize.AggregationFn#processNext(simpledb.query.Scan)
+    */
+   public void processNext(Scan s) {
+      if (isint)
+         sketch.add(s.getInt(pos));
+      else
+         sketch.add(s.getString(pos));
+   }
+   
+   /**
+    * CS4432: Starts an estimate of no records, which is 0.
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      sketch = new HyperLogLog();
+   }
+   
+   /**
+    * Returns the field's name, prepended by "approxcountof".
+    * @see simpledb.materialize.AggregationFn#fieldName()
+    */
+   public String fieldName() {
+      return "approxcountof" + fldname;
+   }
+   
+   /**
+    * Adds the estimate field, which is an integer field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addIntField(fieldName());
+   }
+   
+   /**
+    * Returns the estimated number of distinct values.
+    * @see simpledb.materialize.AggregationFn#value()
+    */
+   public Constant value() {
+      return new IntConstant(sketch.estimate());
+   }
+   
+   /**
+    * Returns a new estimate of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new ApproxCountFn(fldname);
+   }
+   
+   public String toString() {
+      return "approxcount(" + fldname + ")";
+   }
+}
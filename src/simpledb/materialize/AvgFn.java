@@ -0,0 +1,96 @@
+package simpledb.materialize;
+
+import simpledb.query.*;
+import simpledb.record.Schema;
+
+/**
+ * CS4432: The <i>avg</i> aggregation function.
+ * The field must be an integer field.
+ * Since SimpleDB has no decimal type,
+ * the average is rounded down to an integer.
+ * @author Edward Sciore
+ */
+public class AvgFn implements AggregationFn {
+   private String fldname;
+   private int pos;
+   private long sum;
+   private int count;
+   
+   /**
+    * Creates an average aggregation function for the specified field.
+    * @param fldname the name of the aggregated field
+    */
+   public AvgFn(String fldname) {
+      this.fldname = fldname;
+   }
+   
+   /**
+    * Starts a new sum and count from the
+    * field value in the current record.
+    * @see simpledb.materialize.AggregationFn#processFirst(simpledb.query.Scan)
+    */
+   public void processFirst(Scan s) {
+      pos = s.fieldPos(fldname);
+      sum = s.getInt(pos);
+      count = 1;
+   }
+   
+   /**
+    * Adds the field value in the current record to the sum,
+    * and increments the count.
+    * @see simpledb.materialize.AggregationFn#processNext(simpledb.query.Scan)
+    */
+   public void processNext(Scan s) {
+      sum += s.getInt(pos);
+      count++;
+   }
+   
+   /**
+    * CS4432: Starts an average of no records, which is 0
+    * (see {@link #value()}).
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      sum = 0;
+      count = 0;
+   }
+   
+   /**
+    * Returns the field's name, prepended by "avgof".
+    * @see simpledb.materialize.AggregationFn#fieldName()
+    */
+   public String fieldName() {
+      return "avgof" + fldname;
+   }
+   
+   /**
+    * Adds the average field, which is an integer field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addIntField(fieldName());
+   }
+   
+   /**
+    * Returns the current average,
+    * or (CS4432) 0 if there are no records.
+    * @see simpledb.materialize.AggregationFn#value()
+    */
+   public Constant value() {
+      if (count == 0)
+         return new IntConstant(0);
+      return new IntConstant((int) Math.floorDiv(sum, (long) count));
+   }
+   
+   /**
+    * Returns a new average of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new AvgFn(fldname);
+   }
+   
+   public String toString() {
+      return "avg(" + fldname + ")";
+   }
+}
@@ -0,0 +1,159 @@
+package simpledb.materialize;
+
+import simpledb.query.*;
+import simpledb.record.Schema;
+import java.util.*;
+
+/**
+ * CS4432: The <i>count distinct</i> aggregation function.
+ * The function keeps the set of values seen so far.
+ * The values of an integer field are read with {@link Scan#getInt}
+ * and kept in an open-addressing table of ints,
+ * so that adding a record creates no objects;
+ * the values of a string field are kept in a hash set.
+ * @author Edward Sciore
+ */
+public class CountDistinctFn implements AggregationFn {
+   private String fldname;
+   private int pos;
+   private boolean isint;
+   private int[] ints;
+   private int intcount;
+   private boolean haszero;
+   private Set<String> strings;
+   
+   /**
+    * Creates a count distinct aggregation function for the specified field.
+    * @param fldname the name of the aggregated field
+    */
+   public CountDistinctFn(String fldname) {
+      this.fldname = fldname;
+   }
+   
+   /**
+    * Starts a new set of values, holding the
+    * field value in the current record.
+    * @see simpledb.materialize.AggregationFn#processFirst(simpledb.query.Scan)
+    */
+   public void processFirst(Scan s) {
+      pos = s.fieldPos(fldname);
+      Constant val = s.getVal(pos);
+      isint = val instanceof IntConstant;
+      if (isint) {
+         ints = new int[16];
+         intcount = 0;
+         haszero = false;
+         addInt((Integer) val.asJavaVal());
+      }
+      else {
+         strings = new HashSet<String>();
+         strings.add((String) val.asJavaVal());
+      }
+   }
+   
+   /**
+    * Adds the field value in the current record
+    * to the set of values.
+    * @see simpledb.materialize.AggregationFn#processNext(simpledb.query.Scan)
+    */
+   public void processNext(Scan s) {
+      if (isint)
+         addInt(s.getInt(pos));
+      else
+         strings.add(s.getString(pos));
+   }
+   
+   /**
+    * CS4432: Starts a count of no records, which is 0.
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      isint = true;
+      ints = new int[16];
+      intcount = 0;
+      haszero = false;
+   }
+   
+   /**
+    * Returns the field's name, prepended by "countdistinctof".
+    * @see simpledb.materialize.AggregationFn#fieldName()
+    */
+   public String fieldName() {
+      return "countdistinctof" + fldname;
+   }
+   
+   /**
+    * Adds the count field, which is an integer field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addIntField(fieldName());
+   }
+   
+   /**
+    * Returns the number of distinct values.
+    * @see simpledb.materialize.AggregationFn#value()
+    */
+   public Constant value() {
+      if (isint)
+         return new IntConstant(haszero ? intcount+1 : intcount);
+      else
+         return new IntConstant(strings.size());
+   }
+   
+   /**
+    * Returns a new count distinct of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new CountDistinctFn(fldname);
+   }
+   
+   public String toString() {
+      return "count(distinct " + fldname + ")";
+   }
+   
+   /**
+    * Adds the value to the table of ints, which uses linear probing.
+    * Since an empty slot holds 0, the value 0 is recorded separately.
+    * The table is doubled when it becomes half full.
+    */
+   private void addInt(int val) {
+      if (val == 0) {
+         haszero = true;
+         return;
+      }
+      int mask = ints.length - 1;
+      int pos = mix(val) & mask;
+      while (ints[pos] != 0) {
+         if (ints[pos] == val)
+            return;
+         pos = (pos + 1) & mask;
+      }
+      ints[pos] = val;
+      intcount++;
+      if (2*intcount > ints.length)
+         grow();
+   }
+   
+   private void grow() {
+      int[] old = ints;
+      ints = new int[2*old.length];
+      int mask = ints.length - 1;
+      for (int val : old) {
+         if (val == 0)
+            continue;
+         int pos = mix(val) & mask;
+         while (ints[pos] != 0)
+            pos = (pos + 1) & mask;
+         ints[pos] = val;
+      }
+   }
+   
+   private static int mix(int h) {
+      h ^= h >>> 16;
+      h *= 0x85EBCA6B;
+      h ^= h >>> 13;
+      return h;
+   }
+}
@@ -1,6 +1,7 @@
 package simpledb.materialize;
 
 import simpledb.query.*;
+import simpledb.record.Schema;
 
 /**
  * The <i>count</i> aggregation function.
@@ -40,6 +41,14 @@ public class CountFn implements AggregationFn {
       count++;
    }
    
+   /**
+    * CS4432: Starts a count of no records, which is 0.
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      count = 0;
+   }
+   
    /**
     * Returns the field's name, prepended by "countof".
     * @see simpledb.materialize.AggregationFn#fieldName()
@@ -48,6 +57,14 @@ public class CountFn implements AggregationFn {
       return "countof" + fldname;
    }
    
+   /**
+    * Adds the count field, which is an integer field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addIntField(fieldName());
+   }
+   
    /**
     * Returns the current count.
     * @see simpledb.materialize.AggregationFn#value()
@@ -55,4 +72,16 @@ public class CountFn implements AggregationFn {
    public Constant value() {
       return new IntConstant(count);
    }
+   
+   /**
+    * Returns a new count of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new CountFn(fldname);
+   }
+   
+   public String toString() {
+      return "count(" + fldname + ")";
+   }
 }
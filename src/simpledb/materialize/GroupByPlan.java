@@ -29,24 +29,61 @@ public class GroupByPlan implements Plan {
    public GroupByPlan(Plan p, Collection<String> groupfields, Collection<AggregationFn> aggfns, Transaction tx) {
       List<String> grouplist = new ArrayList<String>();
       grouplist.addAll(groupfields);
-      this.p = new SortPlan(p, grouplist, tx);
+      if (isGrouped(p, groupfields))
+         this.p = p;
+      else
+         this.p = new SortPlan(p, grouplist, tx);
       this.groupfields = groupfields;
       this.aggfns = aggfns;
       for (String fldname : groupfields)
          sch.add(fldname, p.schema());
       for (AggregationFn fn : aggfns)
-         sch.addIntField(fn.fieldName());
+         fn.addField(sch, p.schema()); //CS4432: e.g. the max of a string is a string
    }
    
    /**
     * This method opens a sort plan for the specified plan.
     * The sort plan ensures that the underlying records
     * will be appropriately grouped.
+    * If the underlying query is already sorted on the
+    * group fields (in any order), it is opened directly.
+    * CS4432: An underlying query that supports batches is
+    * run in batches, and its records are aggregated one
+    * at a time as they are read from each batch.
     * @see simpledb.query.Plan#open()
     */
    public Scan open() {
-      Scan s = p.open();
-      return new GroupByScan(s, groupfields, aggfns);
+      Scan s = p.supportsBatches() ? new BatchRowScan((BatchScan) p.open(), p.schema()) : p.open();
+      return new GroupByScan(s, p.schema(), groupfields, aggfns);
+   }
+   
+   /**
+    * CS4432: Instantiates the underlying (grouped) plan, with new
+    * copies of the aggregation functions (which hold the
+    * values they compute, and so cannot be shared).
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = args.instantiate(p, tx);
+      if (newp == null)
+         return null;
+      return new GroupByPlan(newp, groupfields, copies(aggfns), tx);
+   }
+   
+   /**
+    * CS4432: The input is the sorted underlying query.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+   
+   /**
+    * CS4432: Describes the grouping by its group and aggregation fields.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return describe("GroupBy", groupfields, aggfns);
    }
    
    /**
@@ -99,4 +136,53 @@ public class GroupByPlan implements Plan {
    public Schema schema() {
       return sch;
    }
+   
+   /**
+    * Returns the sort order of the grouped records,
+    * which is the order of the group fields in the
+    * sorted underlying query.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return p.sortOrder().subList(0, groupfields.size());
+   }
+   
+   /**
+    * CS4432: Returns new copies of the specified aggregation functions.
+    * @param aggfns the aggregation functions
+    * @return the copies
+    */
+   static Collection<AggregationFn> copies(Collection<AggregationFn> aggfns) {
+      Collection<AggregationFn> result = new ArrayList<AggregationFn>();
+      for (AggregationFn fn : aggfns)
+         result.add(fn.copy());
+      return result;
+   }
+   
+   /**
+    * CS4432: Returns the EXPLAIN description of a grouping
+    * operator, which lists its group fields and the
+    * fields computed by its aggregation functions.
+    * @param name the name of the operator
+    * @param groupfields the group fields
+    * @param aggfns the aggregation functions
+    * @return the description
+    */
+   static String describe(String name, Collection<String> groupfields, Collection<AggregationFn> aggfns) {
+      List<String> aggfields = new ArrayList<String>();
+      for (AggregationFn fn : aggfns)
+         aggfields.add(fn.fieldName());
+      return name + " " + groupfields + " computing " + aggfields;
+   }
+   
+   /**
+    * Returns true if the group fields are, in some order,
+    * a prefix of the sort order of the specified query,
+    * so that the records of each group are adjacent.
+    */
+   private boolean isGrouped(Plan p, Collection<String> groupfields) {
+      List<String> order = p.sortOrder();
+      return groupfields.size() <= order.size()
+            && groupfields.containsAll(order.subList(0, groupfields.size()));
+   }
 }
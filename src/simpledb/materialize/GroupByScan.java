@@ -1,6 +1,7 @@
 package simpledb.materialize;
 
 import simpledb.query.*;
+import simpledb.record.Schema;
 import java.util.*;
 
 /**
@@ -11,19 +12,27 @@ public class GroupByScan implements Scan {
    private Scan s;
    private Collection<String> groupfields;
    private Collection<AggregationFn> aggfns;
+   private List<String> groupnames;  //CS4432: the group fields, in position order
+   private List<AggregationFn> fnlist;
    private GroupValue groupval;
    private boolean moregroups;
+   private Schema inputsch;
+   private boolean emptygroup;  //CS4432: an empty input still has its one group left
    
    /**
     * Creates a groupby scan, given a grouped table scan.
     * @param s the grouped scan
+    * @param inputsch the schema of the grouped records
     * @param groupfields the group fields
     * @param aggfns the aggregation functions
     */
-   public GroupByScan(Scan s, Collection<String> groupfields, Collection<AggregationFn> aggfns) {
+   public GroupByScan(Scan s, Schema inputsch, Collection<String> groupfields, Collection<AggregationFn> aggfns) {
       this.s = s;
+      this.inputsch = inputsch;
       this.groupfields = groupfields;
       this.aggfns = aggfns;
+      groupnames = new ArrayList<String>(groupfields);
+      fnlist = new ArrayList<AggregationFn>(aggfns);
       beforeFirst();
    }
    
@@ -33,11 +42,14 @@ public class GroupByScan implements Scan {
     * positioned at the first record of a group, which 
     * means that this method moves to the
     * first underlying record.
+    * CS4432: If there are no group fields, all of the records
+    * form one group, which exists even if there are no records.
     * @see simpledb.query.Scan#beforeFirst()
     */
    public void beforeFirst() {
       s.beforeFirst();
       moregroups = s.next();
+      emptygroup = !moregroups && groupfields.isEmpty();
    }
    
    /**
@@ -49,17 +61,24 @@ public class GroupByScan implements Scan {
     * The aggregation functions are called for each record
     * in the group. 
     * The values of the grouping fields for the group are saved.
+    * CS4432: The empty group of an input without records
+    * is aggregated by {@link AggregationFn#processEmpty(Schema)}.
     * @see simpledb.query.Scan#next()
     */
    public boolean next() {
+      if (emptygroup) {
+         emptygroup = false;
+         for (AggregationFn fn : aggfns)
+            fn.processEmpty(inputsch);
+         return true;
+      }
       if (!moregroups)
          return false;
       for (AggregationFn fn : aggfns)
          fn.processFirst(s);
       groupval = new GroupValue(s, groupfields);
       while(moregroups = s.next()) {
-         GroupValue gv = new GroupValue(s, groupfields);
-         if (!groupval.equals(gv))
+         if (!groupval.matches(s))
             break;
          for (AggregationFn fn : aggfns)
             fn.processNext(s);
@@ -128,5 +147,38 @@ public class GroupByScan implements Scan {
          return true;
       return false;
    }
+   
+   /**
+    * CS4432: Returns the position of the specified field:
+    * the group fields come first, in the order of the
+    * group field list, followed by the aggregation fields.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      int pos = groupnames.indexOf(fldname);
+      if (pos >= 0)
+         return pos;
+      pos = groupnames.size();
+      for (AggregationFn fn : aggfns) {
+         if (fn.fieldName().equals(fldname))
+            return pos;
+         pos++;
+      }
+      throw new RuntimeException("field " + fldname + " not found.");
+   }
+   
+   public Constant getVal(int pos) {
+      if (pos < groupnames.size())
+         return groupval.getVal(groupnames.get(pos));
+      else
+         return fnlist.get(pos - groupnames.size()).value();
+   }
+   
+   public int getInt(int pos) {
+      return (Integer)getVal(pos).asJavaVal();
+   }
+   
+   public String getString(int pos) {
+      return (String)getVal(pos).asJavaVal();
+   }
 }
-
@@ -26,6 +26,22 @@ public class GroupValue {
          vals.put(fldname, s.getVal(fldname));
    }
    
+   /**
+    * CS4432: Returns true if the current record of the specified
+    * scan belongs to this group, that is, if it has the same values
+    * for the grouping fields.
+    * This avoids creating a GroupValue (and its map)
+    * for every record just to call equals.
+    * @param s a scan
+    * @return true if the current record has this group's values
+    */
+   public boolean matches(Scan s) {
+      for (Map.Entry<String,Constant> e : vals.entrySet())
+         if (!e.getValue().equals(s.getVal(e.getKey())))
+            return false;
+      return true;
+   }
+   
    /**
     * Returns the Constant value of the specified field in the group.
     * @param fldname the name of a field
@@ -0,0 +1,178 @@
+package simpledb.materialize;
+
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import simpledb.query.*;
+import java.util.*;
+
+/**
+ * The Plan class for the hash implementation of the
+ * <i>groupby</i> operator.
+ * Instead of sorting its input, the operator aggregates
+ * each group in an in-memory hash table keyed on the group fields.
+ * If there are more groups than fit in the sort memory
+ * ({@link SimpleDB#SORT_MEMORY}), the records of the groups
+ * that do not fit are spilled into temporary partitions,
+ * which are aggregated afterwards.
+ * @author Edward Sciore
+ */
+public class HashGroupByPlan implements Plan {
+   private Plan p;
+   private Collection<String> groupfields;
+   private Collection<AggregationFn> aggfns;
+   private Transaction tx;
+   private Schema sch = new Schema();
+
+   /**
+    * Creates a hash groupby plan for the underlying query.
+    * The grouping is determined by the specified
+    * collection of group fields,
+    * and the aggregation is computed by the
+    * specified collection of aggregation functions.
+    * @param p a plan for the underlying query
+    * @param groupfields the group fields
+    * @param aggfns the aggregation functions
+    * @param tx the calling transaction
+    */
+   public HashGroupByPlan(Plan p, Collection<String> groupfields, Collection<AggregationFn> aggfns, Transaction tx) {
+      this.p = p;
+      this.groupfields = groupfields;
+      this.aggfns = aggfns;
+      this.tx = tx;
+      for (String fldname : groupfields)
+         sch.add(fldname, p.schema());
+      for (AggregationFn fn : aggfns)
+         fn.addField(sch, p.schema());
+   }
+
+   /**
+    * Chooses the cheaper implementation of the groupby operator.
+    * An input that is already sorted on the group fields is
+    * grouped by streaming over it.
+    * Otherwise, the hash implementation is chosen if
+    * the estimated number of groups (from the distinct values
+    * of the group fields) fits in memory, since the groups can
+    * then be aggregated without any disk accesses;
+    * if not, the input is sorted.
+    * @param p a plan for the underlying query
+    * @param groupfields the group fields
+    * @param aggfns the aggregation functions
+    * @param tx the calling transaction
+    * @return a plan for the groupby operator
+    */
+   public static Plan makeGroupByPlan(Plan p, Collection<String> groupfields,
+                                      Collection<AggregationFn> aggfns, Transaction tx) {
+      Plan hashplan = new HashGroupByPlan(p, groupfields, aggfns, tx);
+      List<String> grouplist = new ArrayList<String>(groupfields);
+      if (!SortPlan.isSorted(p, grouplist) && hashplan.recordsOutput() <= groupCapacity(hashplan.schema()))
+         return hashplan;
+      else
+         return new GroupByPlan(p, groupfields, aggfns, tx);
+   }
+
+   /**
+    * This method opens a hash groupby scan
+    * of the underlying query.
+    * An underlying query that supports batches is
+    * run in batches, and its records are aggregated one
+    * at a time as they are read from each batch.
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      Scan s = p.supportsBatches() ? new BatchRowScan((BatchScan) p.open(), p.schema()) : p.open();
+      return new HashGroupByScan(s, p.schema(), groupfields, aggfns,
+                                 groupCapacity(sch), tx);
+   }
+
+   /**
+    * CS4432: Instantiates the underlying plan, with new
+    * copies of the aggregation functions (which hold the
+    * values they compute, and so cannot be shared).
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = args.instantiate(p, tx);
+      if (newp == null)
+         return null;
+      return new HashGroupByPlan(newp, groupfields, GroupByPlan.copies(aggfns), tx);
+   }
+
+   /**
+    * CS4432: The input is the underlying query.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+
+   /**
+    * CS4432: Describes the grouping by its group and aggregation fields.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return GroupByPlan.describe("HashGroupBy", groupfields, aggfns);
+   }
+
+   /**
+    * Returns the number of blocks required to
+    * compute the aggregation, which is one pass
+    * through the underlying query.
+    * It does <i>not</i> include the cost of
+    * spilling groups that do not fit in memory.
+    * @see simpledb.query.Plan#blocksAccessed()
+    */
+   public int blocksAccessed() {
+      return p.blocksAccessed();
+   }
+
+   /**
+    * Returns the number of groups.  Assuming equal distribution,
+    * this is the product of the distinct values
+    * for each grouping field
+    * (but not more than the number of input records).
+    * @see simpledb.query.Plan#recordsOutput()
+    */
+   public int recordsOutput() {
+      long numgroups = 1;
+      for (String fldname : groupfields)
+         numgroups *= p.distinctValues(fldname);
+      return (int) Math.min(numgroups, p.recordsOutput());
+   }
+
+   /**
+    * Returns the number of distinct values for the
+    * specified field.  If the field is a grouping field,
+    * then the number of distinct values is the same
+    * as in the underlying query.
+    * If the field is an aggregate field, then we
+    * assume that all values are distinct.
+    * @see simpledb.query.Plan#distinctValues(java.lang.String)
+    */
+   public int distinctValues(String fldname) {
+      if (p.schema().hasField(fldname))
+         return p.distinctValues(fldname);
+      else
+         return recordsOutput();
+   }
+
+   /**
+    * Returns the schema of the output table.
+    * The schema consists of the group fields,
+    * plus one field for each aggregation function.
+    * @see simpledb.query.Plan#schema()
+    */
+   public Schema schema() {
+      return sch;
+   }
+
+   /**
+    * Returns the number of groups that can be held in memory,
+    * estimated as the number of output records that fit
+    * in the sort memory.
+    */
+   private static int groupCapacity(Schema outsch) {
+      int groupsize = Math.max(1, SortBuffer.slotSize(outsch));
+      return Math.max(1, SimpleDB.SORT_MEMORY / groupsize);
+   }
+}
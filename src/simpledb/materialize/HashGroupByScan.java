@@ -0,0 +1,274 @@
+package simpledb.materialize;
+
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import simpledb.query.*;
+import java.util.*;
+
+/**
+ * The Scan class for the hash implementation of the
+ * <i>groupby</i> operator.
+ * The scan reads its entire input when it is positioned
+ * before the first group, aggregating each record into
+ * the hash table entry of its group.
+ * Once the table holds as many groups as fit in memory,
+ * the records of any other group are written to one of several
+ * temporary partitions, chosen by hashing the group fields.
+ * After the groups in the table have been returned, each partition
+ * is aggregated in the same way (with a different hash function,
+ * so that its groups are spread over new partitions if it
+ * spills again).
+ * @author Edward Sciore
+ */
+public class HashGroupByScan implements Scan {
+   private Scan s;
+   private Schema inputsch;
+   private Collection<String> groupfields;
+   private Collection<AggregationFn> aggfns;
+   private List<String> groupnames;  //CS4432: the group fields, in position order
+   private int capacity;
+   private Transaction tx;
+   private Iterator<Map.Entry<GroupValue,List<AggregationFn>>> groups;
+   private GroupValue groupval;
+   private List<AggregationFn> groupfns;
+   private LinkedList<TempTable> pending = new LinkedList<TempTable>();
+   private LinkedList<Integer> pendinglevels = new LinkedList<Integer>();
+
+   /**
+    * Creates a hash groupby scan of the specified input scan.
+    * @param s the input scan
+    * @param inputsch the schema of the input records
+    * @param groupfields the group fields
+    * @param aggfns the aggregation functions, which are copied for each group
+    * @param capacity the number of groups that fit in memory
+    * @param tx the calling transaction
+    */
+   public HashGroupByScan(Scan s, Schema inputsch, Collection<String> groupfields,
+                          Collection<AggregationFn> aggfns, int capacity, Transaction tx) {
+      this.s = s;
+      this.inputsch = inputsch;
+      this.groupfields = groupfields;
+      this.aggfns = aggfns;
+      groupnames = new ArrayList<String>(groupfields);
+      this.capacity = capacity;
+      this.tx = tx;
+      beforeFirst();
+   }
+
+   /**
+    * Positions the scan before the first group,
+    * by aggregating the input records.
+    * @see simpledb.query.Scan#beforeFirst()
+    */
+   public void beforeFirst() {
+      pending.clear();
+      pendinglevels.clear();
+      s.beforeFirst();
+      aggregate(s, 0);
+   }
+
+   /**
+    * Moves to the next group of the hash table.
+    * When the table is exhausted, the next spilled
+    * partition (if any) is aggregated into a new table.
+    * @see simpledb.query.Scan#next()
+    */
+   public boolean next() {
+      while (!groups.hasNext()) {
+         if (pending.isEmpty())
+            return false;
+         TempTable part = pending.removeFirst();
+         int level = pendinglevels.removeFirst();
+         Scan ps = part.open();
+         aggregate(ps, level);
+         ps.close();
+      }
+      Map.Entry<GroupValue,List<AggregationFn>> entry = groups.next();
+      groupval = entry.getKey();
+      groupfns = entry.getValue();
+      return true;
+   }
+
+   /**
+    * Closes the scan by closing the input scan.
+    * @see simpledb.query.Scan#close()
+    */
+   public void close() {
+      s.close();
+   }
+
+   /**
+    * Gets the Constant value of the specified field.
+    * If the field is a group field, then its value can
+    * be obtained from the current group value.
+    * Otherwise, the value is obtained from the
+    * group's aggregation function.
+    * @see simpledb.query.Scan#getVal(java.lang.String)
+    */
+   public Constant getVal(String fldname) {
+      if (groupfields.contains(fldname))
+         return groupval.getVal(fldname);
+      for (AggregationFn fn : groupfns)
+         if (fn.fieldName().equals(fldname))
+         return fn.value();
+      throw new RuntimeException("field " + fldname + " not found.");
+   }
+
+   /**
+    * Gets the integer value of the specified field.
+    * @see simpledb.query.Scan#getInt(java.lang.String)
+    */
+   public int getInt(String fldname) {
+      return (Integer)getVal(fldname).asJavaVal();
+   }
+
+   /**
+    * Gets the string value of the specified field.
+    * @see simpledb.query.Scan#getString(java.lang.String)
+    */
+   public String getString(String fldname) {
+      return (String)getVal(fldname).asJavaVal();
+   }
+
+   /**
+    * Returns true if the specified field is either a
+    * grouping field or created by an aggregation function.
+    * @see simpledb.query.Scan#hasField(java.lang.String)
+    */
+   public boolean hasField(String fldname) {
+      if (groupfields.contains(fldname))
+         return true;
+      for (AggregationFn fn : aggfns)
+         if (fn.fieldName().equals(fldname))
+         return true;
+      return false;
+   }
+
+   /**
+    * Aggregates the records of the specified scan into a new
+    * hash table, spilling the records of the groups that do not
+    * fit into partitions, which are queued for later.
+    * CS4432: If there are no group fields and no input records,
+    * the table holds the one group of an empty input.
+    * @param src the records to aggregate
+    * @param level the number of times these records have been spilled
+    */
+   private void aggregate(Scan src, int level) {
+      Map<GroupValue,List<AggregationFn>> table = new HashMap<GroupValue,List<AggregationFn>>();
+      List<TempTable> parts = null;
+      List<UpdateScan> partscans = null;
+      RecordCopier copier = null;
+      while (src.next()) {
+         GroupValue gv = new GroupValue(src, groupfields);
+         List<AggregationFn> fns = table.get(gv);
+         if (fns != null) {
+            for (AggregationFn fn : fns)
+               fn.processNext(src);
+         }
+         else if (table.size() < capacity) {
+            fns = new ArrayList<AggregationFn>();
+            for (AggregationFn fn : aggfns) {
+               AggregationFn groupfn = fn.copy();
+               groupfn.processFirst(src);
+               fns.add(groupfn);
+            }
+            table.put(gv, fns);
+         }
+         else {
+            if (parts == null) {
+               parts = new ArrayList<TempTable>();
+               partscans = new ArrayList<UpdateScan>();
+               for (int i=0; i<numPartitions(); i++) {
+                  TempTable tt = new TempTable(inputsch, tx);
+                  parts.add(tt);
+                  partscans.add(tt.open());
+               }
+               copier = new RecordCopier(inputsch, src, partscans.get(0));
+            }
+            UpdateScan dest = partscans.get(partition(gv, level, parts.size()));
+            dest.insert();
+            copier.copy(src, dest);
+         }
+      }
+      if (parts != null) {
+         for (UpdateScan dest : partscans)
+            dest.close();
+         for (TempTable tt : parts) {
+            pending.add(tt);
+            pendinglevels.add(level + 1);
+         }
+      }
+      if (level == 0 && table.isEmpty() && parts == null && groupfields.isEmpty()) {
+         // CS4432: the one group of an empty input
+         List<AggregationFn> fns = new ArrayList<AggregationFn>();
+         for (AggregationFn fn : aggfns) {
+            AggregationFn groupfn = fn.copy();
+            groupfn.processEmpty(inputsch);
+            fns.add(groupfn);
+         }
+         table.put(new GroupValue(src, groupfields), fns);
+      }
+      groups = table.entrySet().iterator();
+   }
+
+   /**
+    * Returns the number of partitions to spill into,
+    * keeping one buffer per partition (and one for appending)
+    * within half of the available buffers.
+    */
+   private int numPartitions() {
+      int avail = SimpleDB.bufferMgr().available() / 2;
+      return Math.max(2, avail - 1);
+   }
+
+   /**
+    * Returns the partition of the specified group at the
+    * specified level. The hash value of the group is scrambled
+    * with a different seed at each level, so that the groups of
+    * one partition do not all land in the same partition again.
+    */
+   private int partition(GroupValue gv, int level, int numparts) {
+      int h = gv.hashCode() ^ (level * 0x9E3779B9);
+      h ^= h >>> 16;
+      h *= 0x85EBCA6B;
+      h ^= h >>> 13;
+      h *= 0xC2B2AE35;
+      h ^= h >>> 16;
+      return (h & Integer.MAX_VALUE) % numparts;
+   }
+   
+   /**
+    * CS4432: Returns the position of the specified field:
+    * the group fields come first, in the order of the
+    * group field list, followed by the aggregation fields.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      int pos = groupnames.indexOf(fldname);
+      if (pos >= 0)
+         return pos;
+      pos = groupnames.size();
+      for (AggregationFn fn : aggfns) {
+         if (fn.fieldName().equals(fldname))
+            return pos;
+         pos++;
+      }
+      throw new RuntimeException("field " + fldname + " not found.");
+   }
+   
+   public Constant getVal(int pos) {
+      if (pos < groupnames.size())
+         return groupval.getVal(groupnames.get(pos));
+      else
+         return groupfns.get(pos - groupnames.size()).value();
+   }
+   
+   public int getInt(int pos) {
+      return (Integer)getVal(pos).asJavaVal();
+   }
+   
+   public String getString(int pos) {
+      return (String)getVal(pos).asJavaVal();
+   }
+}
@@ -0,0 +1,217 @@
+package simpledb.materialize;
+
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+import simpledb.record.*;
+import simpledb.query.*;
+import simpledb.multibuffer.BufferNeeds;
+import java.util.*;
+
+/**
+ * The Plan class for the <i>hashjoin</i> operator.
+ * The RHS query is the build input: its records are loaded
+ * into an in-memory hash table on the join field,
+ * which the records of the LHS query then probe.
+ * If the RHS is too large to fit in the available buffers,
+ * both inputs are first partitioned on the hash of
+ * their join field into temporary tables
+ * (i.e. a grace hash join), and each pair of partitions
+ * is then joined separately.
+ * @author Edward Sciore
+ */
+public class HashJoinPlan implements Plan {
+   private Plan p1, p2;
+   private String fldname1, fldname2;
+   private Transaction tx;
+   private Schema sch = new Schema();
+
+   /**
+    * Creates a hashjoin plan for the two specified queries.
+    * The RHS query should be the smaller one.
+    * @param p1 the LHS (probe) query plan
+    * @param p2 the RHS (build) query plan
+    * @param fldname1 the LHS join field
+    * @param fldname2 the RHS join field
+    * @param tx the calling transaction
+    */
+   public HashJoinPlan(Plan p1, Plan p2, String fldname1, String fldname2, Transaction tx) {
+      this.p1 = p1;
+      this.p2 = p2;
+      this.fldname1 = fldname1;
+      this.fldname2 = fldname2;
+      this.tx = tx;
+      sch.addAll(p1.schema());
+      sch.addAll(p2.schema());
+   }
+
+   /**
+    * The method first determines whether the RHS fits
+    * in the available buffers. If so, it returns a hashjoin
+    * scan of the two underlying scans.
+    * Otherwise, it partitions both inputs into the same
+    * number of temporary tables, and returns a hashjoin
+    * scan of the partitions.
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      int numparts = numPartitions();
+      if (numparts == 1)
+         return new HashJoinScan(p1.open(), p2.open(), fldname1, fldname2, p2.schema());
+      List<TempTable> parts1 = partition(p1, fldname1, numparts);
+      List<TempTable> parts2 = partition(p2, fldname2, numparts);
+      return new HashJoinScan(parts1, parts2, fldname1, fldname2, p2.schema());
+   }
+
+   /**
+    * CS4432: Instantiates the two underlying plans.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp1 = args.instantiate(p1, tx);
+      Plan newp2 = args.instantiate(p2, tx);
+      if (newp1 == null || newp2 == null)
+         return null;
+      return new HashJoinPlan(newp1, newp2, fldname1, fldname2, tx);
+   }
+
+   /**
+    * CS4432: The inputs are the probe (LHS) and build (RHS) queries.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p1, p2);
+   }
+
+   /**
+    * CS4432: Describes the join by its join fields.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "HashJoin " + fldname1 + " = " + fldname2;
+   }
+
+   /**
+    * Returns the number of block accesses required to
+    * hashjoin the two queries.
+    * If the RHS fits in the available buffers, the formula is:
+    * <pre> B(hashjoin(p1,p2)) = B(p1) + B(p2) </pre>
+    * Otherwise, each input is also written out to
+    * its partitions and read back in, which adds
+    * twice the size of each materialized input.
+    * The method uses the current number of available buffers,
+    * and so this value may differ when the query scan is opened.
+    * @see simpledb.query.Plan#blocksAccessed()
+    */
+   public int blocksAccessed() {
+      int cost = p1.blocksAccessed() + p2.blocksAccessed();
+      if (numPartitions() > 1) {
+         cost += 2 * new MaterializePlan(p1, tx).blocksAccessed();
+         cost += 2 * new MaterializePlan(p2, tx).blocksAccessed();
+      }
+      return cost;
+   }
+
+   /**
+    * Returns the number of records in the join.
+    * Assuming uniform distribution, the formula is:
+    * <pre> R(join(p1,p2)) = R(p1)*R(p2)/max{V(p1,F1),V(p2,F2)}</pre>
+    * @see simpledb.query.Plan#recordsOutput()
+    */
+   public int recordsOutput() {
+      int maxvals = Math.max(p1.distinctValues(fldname1),
+                             p2.distinctValues(fldname2));
+      long recs = ((long) p1.recordsOutput() * p2.recordsOutput()) / Math.max(maxvals, 1); //CS4432: avoid overflow
+      return (int) Math.min(Integer.MAX_VALUE, recs);
+   }
+
+   /**
+    * Estimates the distinct number of field values in the join.
+    * Since the join does not increase or decrease field values,
+    * the estimate is the same as in the appropriate underlying query.
+    * @see simpledb.query.Plan#distinctValues(java.lang.String)
+    */
+   public int distinctValues(String fldname) {
+      if (p1.schema().hasField(fldname))
+         return p1.distinctValues(fldname);
+      else
+         return p2.distinctValues(fldname);
+   }
+
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field
+    * as in the appropriate underlying query, for the same reason.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (p1.schema().hasField(fldname))
+         return p1.rangeReductionFactor(fldname, range);
+      else
+         return p2.rangeReductionFactor(fldname, range);
+   }
+
+   /**
+    * Returns the schema of the join,
+    * which is the union of the schemas of the underlying queries.
+    * @see simpledb.query.Plan#schema()
+    */
+   public Schema schema() {
+      return sch;
+   }
+
+   /**
+    * CS4432: The join runs in batches if the LHS query does,
+    * since the LHS records are the ones probed in batches;
+    * the RHS records are loaded into the hash table one at a time.
+    * (The LHS partitions of a partitioned join are temporary
+    * tables, which can always be read in batches.)
+    * @see simpledb.query.Plan#supportsBatches()
+    */
+   public boolean supportsBatches() {
+      return p1.supportsBatches();
+   }
+
+   /**
+    * Returns the number of partitions needed for the RHS.
+    * If the materialized RHS fits in the available buffers,
+    * no partitioning is needed. Otherwise, the number of partitions
+    * is the best root of its size, leaving one buffer
+    * for the input scan and one for appending a block
+    * to a partition while the partitions are written.
+    */
+   private int numPartitions() {
+      int avail = SimpleDB.bufferMgr().available();
+      int size = new MaterializePlan(p2, tx).blocksAccessed();
+      if (size <= avail || avail <= 3)
+         return 1;
+      return Math.max(2, Math.min(BufferNeeds.bestRoot(size), avail - 2));
+   }
+
+   /**
+    * Copies the output of the specified query into the
+    * specified number of temporary tables,
+    * choosing the table of each record by the hash of its join field.
+    */
+   private List<TempTable> partition(Plan p, String fldname, int numparts) {
+      Schema psch = p.schema();
+      List<TempTable> parts = new ArrayList<TempTable>();
+      List<UpdateScan> dests = new ArrayList<UpdateScan>();
+      for (int i=0; i<numparts; i++) {
+         TempTable tt = new TempTable(psch, tx);
+         parts.add(tt);
+         dests.add(tt.open());
+      }
+      Scan src = p.open();
+      int joinpos = src.fieldPos(fldname);
+      RecordCopier copier = new RecordCopier(psch, src, dests.get(0));
+      while (src.next()) {
+         int hash = src.getVal(joinpos).hashCode() & Integer.MAX_VALUE;
+         UpdateScan dest = dests.get(hash % numparts);
+         dest.insert();
+         copier.copy(src, dest);
+      }
+      src.close();
+      for (UpdateScan dest : dests)
+         dest.close();
+      return parts;
+   }
+}
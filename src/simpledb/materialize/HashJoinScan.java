@@ -0,0 +1,289 @@
+package simpledb.materialize;
+
+import simpledb.server.SimpleDB;
+import simpledb.record.Schema;
+import simpledb.query.*;
+import java.util.*;
+
+/**
+ * The Scan class for the <i>hashjoin</i> operator.
+ * The scan loads the RHS (build) records into a hash table
+ * keyed on the join field, and then reads the LHS (probe) records,
+ * pairing each one with the build records having
+ * the same join value.
+ * If the inputs were partitioned, the partitions are
+ * joined one pair at a time, so that only one build partition
+ * is in memory at once.
+ * @author Edward Sciore
+ */
+public class HashJoinScan implements Scan, BatchScan {
+   private Scan probe;
+   private List<TempTable> parts1, parts2;
+   private int currentpart;
+   private String fldname1, fldname2;
+   private Schema buildsch;
+   private List<String> buildfields;  //CS4432: a build record holds its values in this order
+   private int probepos;
+   private Map<Constant,List<Constant[]>> table;
+   private List<Constant[]> matches = null;
+   private int matchpos;
+   private Constant[] buildrec = null;
+   private Batch probebatch = null, batch = null;  //CS4432: for batch execution
+   private int probecurrent, probecol;
+
+   /**
+    * Creates a hashjoin scan of two unpartitioned inputs.
+    * The build input is read into the hash table, and then closed.
+    * @param s1 the LHS (probe) scan
+    * @param s2 the RHS (build) scan
+    * @param fldname1 the LHS join field
+    * @param fldname2 the RHS join field
+    * @param buildsch the schema of the RHS
+    */
+   public HashJoinScan(Scan s1, Scan s2, String fldname1, String fldname2, Schema buildsch) {
+      this.fldname1 = fldname1;
+      this.fldname2 = fldname2;
+      this.buildsch = buildsch;
+      buildfields = new ArrayList<String>(buildsch.fields());
+      probe = s1;
+      probepos = probe.fieldPos(fldname1);
+      build(s2);
+      beforeFirst();
+   }
+
+   /**
+    * Creates a hashjoin scan of two inputs that have been
+    * partitioned the same way.
+    * @param parts1 the partitions of the LHS (probe) input
+    * @param parts2 the partitions of the RHS (build) input
+    * @param fldname1 the LHS join field
+    * @param fldname2 the RHS join field
+    * @param buildsch the schema of the RHS
+    */
+   public HashJoinScan(List<TempTable> parts1, List<TempTable> parts2,
+                       String fldname1, String fldname2, Schema buildsch) {
+      this.parts1 = parts1;
+      this.parts2 = parts2;
+      this.fldname1 = fldname1;
+      this.fldname2 = fldname2;
+      this.buildsch = buildsch;
+      buildfields = new ArrayList<String>(buildsch.fields());
+      beforeFirst();
+   }
+
+   /**
+    * Positions the scan before the first record.
+    * For a partitioned join, this means going back
+    * to the first pair of partitions.
+    * @see simpledb.query.Scan#beforeFirst()
+    */
+   public void beforeFirst() {
+      matches = null;
+      probebatch = null;
+      if (parts1 != null)
+         loadPartition(0);
+      else
+         probe.beforeFirst();
+   }
+
+   /**
+    * Moves to the next record.
+    * If the current probe record has another matching build
+    * record, then move to it.
+    * Otherwise, move to the next probe record and
+    * look up its join value in the hash table;
+    * when the probe input (or partition) is exhausted,
+    * move to the next pair of partitions, if any.
+    * @see simpledb.query.Scan#next()
+    */
+   public boolean next() {
+      while (true) {
+         if (matches != null && matchpos < matches.size()) {
+            buildrec = matches.get(matchpos++);
+            return true;
+         }
+         if (probe.next()) {
+            matches = table.get(probe.getVal(probepos));
+            matchpos = 0;
+         }
+         else if (parts1 != null && currentpart+1 < parts1.size())
+            loadPartition(currentpart+1);
+         else
+            return false;
+      }
+   }
+
+   /**
+    * Closes the scan by closing the probe scan.
+    * @see simpledb.query.Scan#close()
+    */
+   public void close() {
+      if (probe != null)
+         probe.close();
+   }
+
+   /**
+    * Returns the value of the specified field.
+    * The value is obtained from whichever input
+    * contains the field.
+    * @see simpledb.query.Scan#getVal(java.lang.String)
+    */
+   public Constant getVal(String fldname) {
+      if (buildsch.hasField(fldname))
+         return buildrec[buildfields.indexOf(fldname)];
+      else
+         return probe.getVal(fldname);
+   }
+
+   /**
+    * Returns the integer value of the specified field.
+    * @see simpledb.query.Scan#getInt(java.lang.String)
+    */
+   public int getInt(String fldname) {
+      return (Integer) getVal(fldname).asJavaVal();
+   }
+
+   /**
+    * Returns the string value of the specified field.
+    * @see simpledb.query.Scan#getString(java.lang.String)
+    */
+   public String getString(String fldname) {
+      return (String) getVal(fldname).asJavaVal();
+   }
+
+   /**
+    * Returns true if the specified field is in
+    * either of the inputs.
+    * @see simpledb.query.Scan#hasField(java.lang.String)
+    */
+   public boolean hasField(String fldname) {
+      return buildsch.hasField(fldname) || probe.hasField(fldname);
+   }
+
+   /**
+    * CS4432: Returns a position that identifies both the
+    * input that has the field and the field's position in it:
+    * the lowest bit is 0 for the probe input, whose positions
+    * are the same in every partition, and 1 for the build input,
+    * whose positions index the values of a build record.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      if (buildsch.hasField(fldname))
+         return (buildfields.indexOf(fldname) << 1) | 1;
+      else
+         return probe.fieldPos(fldname) << 1;
+   }
+
+   public Constant getVal(int pos) {
+      if ((pos & 1) == 0)
+         return probe.getVal(pos >>> 1);
+      else
+         return buildrec[pos >>> 1];
+   }
+
+   public int getInt(int pos) {
+      if ((pos & 1) == 0)
+         return probe.getInt(pos >>> 1);
+      else
+         return (Integer) buildrec[pos >>> 1].asJavaVal();
+   }
+
+   public String getString(int pos) {
+      if ((pos & 1) == 0)
+         return probe.getString(pos >>> 1);
+      else
+         return (String) buildrec[pos >>> 1].asJavaVal();
+   }
+
+   /**
+    * CS4432: Fills a batch with the next joined records.
+    * The probe records are read a batch at a time, and the join
+    * value of each selected probe row is looked up in the hash table;
+    * each match adds a row holding the probe values followed
+    * by the build values.
+    * A probe row whose matches do not all fit is continued
+    * in the next batch.
+    * The batch is only emptied once a new row is found, so that
+    * the last batch is left unchanged when there are no more rows.
+    * The probe scan must support batches.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      boolean filling = false;
+      while (!filling || !batch.isFull()) {
+         if (matches != null && matchpos < matches.size()) {
+            if (!filling) {
+               batch.clear();
+               filling = true;
+            }
+            addRow(matches.get(matchpos++));
+            continue;
+         }
+         if (probebatch != null && ++probecurrent < probebatch.size()) {
+            int row = probebatch.row(probecurrent);
+            matches = table.get(probebatch.getVal(probecol, row));
+            matchpos = 0;
+            continue;
+         }
+         probebatch = ((BatchScan) probe).nextBatch();
+         if (probebatch != null) {
+            probecurrent = -1;
+            probecol = probebatch.fieldPos(fldname1);
+            if (batch == null)
+               batch = new Batch(probebatch, new Batch(buildfields, buildsch, 0),
+                                 SimpleDB.BATCH_SIZE);
+         }
+         else if (parts1 != null && currentpart+1 < parts1.size())
+            loadPartition(currentpart+1);
+         else
+            break;
+      }
+      return filling ? batch : null;
+   }
+
+   private void addRow(Constant[] rec) {
+      int row = batch.addRow();
+      int probecols = probebatch.fields().size();
+      int proberow = probebatch.row(probecurrent);
+      for (int col=0; col<probecols; col++) {
+         if (probebatch.isInt(col))
+            batch.setInt(col, row, probebatch.getInt(col, proberow));
+         else
+            batch.setString(col, row, probebatch.getString(col, proberow));
+      }
+      for (int i=0; i<rec.length; i++)
+         batch.setVal(probecols + i, row, rec[i]);
+   }
+
+   private void loadPartition(int n) {
+      close();
+      currentpart = n;
+      build(parts2.get(n).open());
+      probe = parts1.get(n).open();
+      probepos = probe.fieldPos(fldname1);
+      matches = null;
+      probebatch = null;
+   }
+
+   private void build(Scan s) {
+      table = new HashMap<Constant,List<Constant[]>>();
+      int[] positions = new int[buildfields.size()];
+      for (int i=0; i<positions.length; i++)
+         positions[i] = s.fieldPos(buildfields.get(i));
+      int keypos = s.fieldPos(fldname2);
+      while (s.next()) {
+         Constant[] rec = new Constant[positions.length];
+         for (int i=0; i<positions.length; i++)
+            rec[i] = s.getVal(positions[i]);
+         Constant key = s.getVal(keypos);
+         List<Constant[]> recs = table.get(key);
+         if (recs == null) {
+            recs = new ArrayList<Constant[]>();
+            table.put(key, recs);
+         }
+         recs.add(rec);
+      }
+      s.close();
+   }
+}
@@ -0,0 +1,82 @@
+package simpledb.materialize;
+
+/**
+ * CS4432: A HyperLogLog sketch, which estimates the
+ * number of distinct values added to it.
+ * Each value is hashed; the leading bits of the hash choose
+ * one of a fixed number of registers, and the register keeps the
+ * longest run of leading zeros seen in the remaining bits.
+ * The estimate is computed from the harmonic mean of the registers.
+ * The sketch uses the same small amount of memory (one byte
+ * per register) however many distinct values there are;
+ * with 1024 registers, the estimate is typically within
+ * a few percent of the true count.
+ * The sketch is used by {@link ApproxCountFn}, and by the
+ * statistics manager to count the distinct values of each field.
+ * @author Edward Sciore
+ */
+public class HyperLogLog {
+   private static final int INDEX_BITS = 10;
+   private static final int NUM_REGISTERS = 1 << INDEX_BITS;
+   private byte[] registers = new byte[NUM_REGISTERS];
+
+   /**
+    * Adds an integer value to the sketch.
+    * @param val the value
+    */
+   public void add(int val) {
+      addHash(hash(val));
+   }
+
+   /**
+    * Adds a string value to the sketch.
+    * @param val the value
+    */
+   public void add(String val) {
+      addHash(hash(val.hashCode()));
+   }
+
+   /**
+    * Returns the estimated number of distinct values
+    * added to the sketch.
+    * Small estimates are corrected by counting the empty
+    * registers, as in the original algorithm.
+    * @return the estimated number of distinct values
+    */
+   public int estimate() {
+      double sum = 0.0;
+      int zeros = 0;
+      for (byte r : registers) {
+         sum += 1.0 / (1L << r);
+         if (r == 0)
+            zeros++;
+      }
+      double alpha = 0.7213 / (1.0 + 1.079 / NUM_REGISTERS);
+      double estimate = alpha * NUM_REGISTERS * NUM_REGISTERS / sum;
+      if (estimate <= 2.5 * NUM_REGISTERS && zeros > 0)
+         estimate = NUM_REGISTERS * Math.log((double) NUM_REGISTERS / zeros);
+      return (int) Math.round(estimate);
+   }
+
+   private void addHash(int h) {
+      int index = h >>> (32 - INDEX_BITS);
+      int rest = h << INDEX_BITS;
+      int rank = Math.min(Integer.numberOfLeadingZeros(rest), 32 - INDEX_BITS) + 1;
+      if (rank > registers[index])
+         registers[index] = (byte) rank;
+   }
+
+   /**
+    * Scrambles the bits of the value (using the
+    * finalizer of the MurmurHash3 function), so that
+    * consecutive values land in unrelated registers.
+    */
+   private static int hash(int h) {
+      h ^= h >>> 16;
+      h *= 0x85EBCA6B;
+      h ^= h >>> 13;
+      h *= 0xC2B2AE35;
+      h ^= h >>> 16;
+      return h;
+   }
+}
@@ -4,6 +4,7 @@ import static simpledb.file.Page.BLOCK_SIZE;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.query.*;
+import java.util.*;
 
 /**
  * The Plan class for the <i>materialize</i> operator.
@@ -34,16 +35,41 @@ public class MaterializePlan implements Plan {
       TempTable temp = new TempTable(sch, tx);
       Scan src = srcplan.open();
       UpdateScan dest = temp.open();
+      RecordCopier copier = new RecordCopier(sch, src, dest);  //CS4432
       while (src.next()) {
          dest.insert();
-         for (String fldname : sch.fields())
-            dest.setVal(fldname, src.getVal(fldname));
+         copier.copy(src, dest);
       }
       src.close();
       dest.beforeFirst();
       return dest;
    }
    
+   /**
+    * CS4432: Instantiates the underlying plan.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newsrc = args.instantiate(srcplan, tx);
+      return (newsrc == null) ? null : new MaterializePlan(newsrc, tx);
+   }
+   
+   /**
+    * CS4432: The input is the query being materialized.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(srcplan);
+   }
+   
+   /**
+    * CS4432: Describes the plan as a materialization.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "Materialize";
+   }
+   
    /**
     * Returns the estimated number of blocks in the 
     * materialized table.
@@ -76,6 +102,15 @@ public class MaterializePlan implements Plan {
       return srcplan.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Returns the reduction factor of a range on a field,
+    * which is the same as in the underlying plan.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      return srcplan.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the materialized table,
     * which is the same as in the underlying plan.
@@ -84,4 +119,14 @@ public class MaterializePlan implements Plan {
    public Schema schema() {
       return srcplan.schema();
    }
+   
+   /**
+    * Returns the sort order of the underlying query,
+    * since the records are copied into the
+    * temporary table in order.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return srcplan.sortOrder();
+   }
 }
@@ -1,6 +1,8 @@
 package simpledb.materialize;
 
+import static java.sql.Types.INTEGER;
 import simpledb.query.*;
+import simpledb.record.Schema;
 
 /**
  * The <i>max</i> aggregation function.
@@ -8,7 +10,10 @@ import simpledb.query.*;
  */
 public class MaxFn implements AggregationFn {
    private String fldname;
+   private int pos;
    private Constant val;
+   private boolean isint;  //CS4432: integer values are compared unboxed
+   private int intval;
    
    /**
     * Creates a max aggregation function for the specified field.
@@ -24,7 +29,11 @@ public class MaxFn implements AggregationFn {
     * @see simpledb.materialize.AggregationFn#processFirst(simpledb.query.Scan)
     */
    public void processFirst(Scan s) {
-      val = s.getVal(fldname);
+      pos = s.fieldPos(fldname);
+      val = s.getVal(pos);
+      isint = val instanceof IntConstant;
+      if (isint)
+         intval = (Integer) val.asJavaVal();
    }
    
    /**
@@ -33,9 +42,27 @@ public class MaxFn implements AggregationFn {
     * @see simpledb.materialize.AggregationFn#processNext(simpledb.query.Scan)
     */
    public void processNext(Scan s) {
-      Constant newval = s.getVal(fldname);
-      if (newval.compareTo(val) > 0)
-         val = newval;
+      if (isint) {
+         int newval = s.getInt(pos);
+         if (newval > intval)
+            intval = newval;
+      }
+      else {
+         Constant newval = s.getVal(pos);
+         if (newval.compareTo(val) > 0)
+            val = newval;
+      }
+   }
+   
+   /**
+    * CS4432: Starts a maximum of no records, which is 0 for an
+    * integer field and the empty string for a string field.
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      isint = inputsch.type(fldname) == INTEGER;
+      intval = 0;
+      val = isint ? new IntConstant(0) : new StringConstant("");
    }
    
    /**
@@ -46,11 +73,32 @@ public class MaxFn implements AggregationFn {
       return "maxof" + fldname;
    }
    
+   /**
+    * Adds the maximum field, which has the same type
+    * as the aggregated field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addField(fieldName(), inputsch.type(fldname), inputsch.length(fldname));
+   }
+   
    /**
     * Returns the current maximum.
     * @see simpledb.materialize.AggregationFn#value()
     */
    public Constant value() {
-      return val;
+      return isint ? new IntConstant(intval) : val;
+   }
+   
+   /**
+    * Returns a new maximum of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new MaxFn(fldname);
+   }
+   
+   public String toString() {
+      return "max(" + fldname + ")";
    }
 }
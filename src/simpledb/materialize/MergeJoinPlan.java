@@ -11,45 +11,85 @@ import java.util.*;
  */
 public class MergeJoinPlan implements Plan {
    private Plan p1, p2;
-   private String tblname1, tblname2, fldname1, fldname2;
+   private String fldname1, fldname2;
    private Schema sch = new Schema();
    
    /**
-    * CS4432: Store table names for the tables involved in the merge in order to get the TableInfo for both later
     * Creates a mergejoin plan for the two specified queries.
     * The RHS must be materialized after it is sorted, 
     * in order to deal with possible duplicates.
+    * The LHS is sorted only if its output is not
+    * already ordered on the join field.
     * @param p1 the LHS query plan
     * @param p2 the RHS query plan
-    * @param tblname1 the LHS table name
-    * @param tblname2 the RHS table name
-    * @param fldname the join field
+    * @param fldname1 the LHS join field
+    * @param fldname2 the RHS join field
     * @param tx the calling transaction
     */
-   public MergeJoinPlan(Plan p1, Plan p2, String tblname1, String tblname2, String fldname, Transaction tx) {
-      this.tblname1 = tblname1;
-      this.tblname2 = tblname2;
-      this.fldname1 = fldname;
+   public MergeJoinPlan(Plan p1, Plan p2, String fldname1, String fldname2, Transaction tx) {
+      this.fldname1 = fldname1;
       List<String> sortlist1 = Arrays.asList(fldname1);
-      this.p1 = new SmartSortPlan(p1, tblname1, sortlist1, tx);
+      if (SortPlan.isSorted(p1, sortlist1))
+         this.p1 = p1;
+      else
+         this.p1 = new SortPlan(p1, sortlist1, tx);
       
-      this.fldname2 = fldname;
+      this.fldname2 = fldname2;
       List<String> sortlist2 = Arrays.asList(fldname2);
-      this.p2 = new SmartSortPlan(p2, tblname2, sortlist2, tx);
+      this.p2 = new SortPlan(p2, sortlist2, tx);
       
       sch.addAll(p1.schema());
       sch.addAll(p2.schema());
    }
    
+   // CS4432: Used by instantiate, whose plans are already sorted.
+   private MergeJoinPlan(Plan p1, Plan p2, String fldname1, String fldname2) {
+      this.p1 = p1;
+      this.p2 = p2;
+      this.fldname1 = fldname1;
+      this.fldname2 = fldname2;
+      sch.addAll(p1.schema());
+      sch.addAll(p2.schema());
+   }
+   
    /** The method first sorts its two underlying scans
-     * on their join field. It then returns a mergejoin scan
+     * on their join field (unless the LHS is already sorted). It then returns a mergejoin scan
      * of the two sorted table scans.
      * @see simpledb.query.Plan#open()
      */
    public Scan open() {
       Scan s1 = p1.open();
-      SmartSortScan s2 = (SmartSortScan) p2.open();
-      return new MergeJoinScan(s1, s2, tblname1, tblname2, fldname1, fldname2);
+      SortScan s2 = (SortScan) p2.open();
+      return new MergeJoinScan(s1, s2, fldname1, fldname2);
+   }
+   
+   /**
+    * CS4432: Instantiates the two underlying plans,
+    * which are already sorted.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp1 = args.instantiate(p1, tx);
+      Plan newp2 = p2.instantiate(tx, args);  //CS4432: its scan must stay a SortScan
+      if (newp1 == null || newp2 == null)
+         return null;
+      return new MergeJoinPlan(newp1, newp2, fldname1, fldname2);
+   }
+   
+   /**
+    * CS4432: The inputs are the two sorted queries.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p1, p2);
+   }
+   
+   /**
+    * CS4432: Describes the join by its join fields.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "MergeJoin " + fldname1 + " = " + fldname2;
    }
    
    /**
@@ -76,7 +116,8 @@ public class MergeJoinPlan implements Plan {
    public int recordsOutput() {
       int maxvals = Math.max(p1.distinctValues(fldname1),
                              p2.distinctValues(fldname2));
-      return (p1.recordsOutput() * p2.recordsOutput()) / maxvals;
+      long recs = ((long) p1.recordsOutput() * p2.recordsOutput()) / Math.max(maxvals, 1); //CS4432: avoid overflow
+      return (int) Math.min(Integer.MAX_VALUE, recs);
    }
    
    /**
@@ -92,6 +133,18 @@ public class MergeJoinPlan implements Plan {
          return p2.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field
+    * as in the appropriate underlying query, for the same reason.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (p1.schema().hasField(fldname))
+         return p1.rangeReductionFactor(fldname, range);
+      else
+         return p2.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the join,
     * which is the union of the schemas of the underlying queries.
@@ -100,5 +153,14 @@ public class MergeJoinPlan implements Plan {
    public Schema schema() {
       return sch;
    }
+   
+   /**
+    * Returns the sort order of the LHS, which
+    * begins with the join field;
+    * the join reads the LHS records in order.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return p1.sortOrder();
+   }
 }
-
@@ -8,8 +8,8 @@ import simpledb.query.*;
  */
 public class MergeJoinScan implements Scan {
    private Scan s1;
-   private SmartSortScan s2;
-   private String tblname1, tblname2, fldname1, fldname2;
+   private SortScan s2;
+   private int pos1, pos2;  //CS4432: the positions of the join fields
    private Constant joinval = null;
    
    /**
@@ -19,13 +19,11 @@ public class MergeJoinScan implements Scan {
     * @param fldname1 the LHS join field
     * @param fldname2 the RHS join field
     */
-   public MergeJoinScan(Scan s1, SmartSortScan s2, String tblname1, String tblname2, String fldname1, String fldname2) {
+   public MergeJoinScan(Scan s1, SortScan s2, String fldname1, String fldname2) {
       this.s1 = s1;
       this.s2 = s2;
-      this.tblname1 = tblname1;
-      this.tblname2 = tblname2;
-      this.fldname1 = fldname1;
-      this.fldname2 = fldname2;
+      pos1 = s1.fieldPos(fldname1);
+      pos2 = s2.fieldPos(fldname2);
       beforeFirst();
    }
    
@@ -38,6 +36,7 @@ public class MergeJoinScan implements Scan {
    public void beforeFirst() {
       s1.beforeFirst();
       s2.beforeFirst();
+      joinval = null;
    }
    
    /**
@@ -56,33 +55,35 @@ public class MergeJoinScan implements Scan {
     * then move to it.
     * Otherwise, if the next LHS record has the same join value,
     * then reposition the RHS scan back to the first record
-    * having that join value.
+    * having that join value, so that each LHS record of a
+    * group of duplicates is paired with every RHS record
+    * of the matching group.
     * Otherwise, repeatedly move the scan having the smallest
     * value until a common join value is found.
     * When one of the scans runs out of records, return false.
     * @see simpledb.query.Scan#next()
     */
-   public boolean next() { //TODO: Split into runs and keep going until its time to merge the sorted runs (Use SimpleDB.mdMgr().getTableInfo(tblname, tx); to get the TableInfo)
+   public boolean next() {
       boolean hasmore2 = s2.next();
-      if (hasmore2 && s2.getVal(fldname2).equals(joinval))
+      if (hasmore2 && s2.getVal(pos2).equals(joinval))
          return true;
       
       boolean hasmore1 = s1.next();
-      if (hasmore1 && s1.getVal(fldname1).equals(joinval)) {
+      if (hasmore1 && s1.getVal(pos1).equals(joinval)) {
          s2.restorePosition();
          return true;
       }
       
       while (hasmore1 && hasmore2) {
-         Constant v1 = s1.getVal(fldname1);
-         Constant v2 = s2.getVal(fldname2);
+         Constant v1 = s1.getVal(pos1);
+         Constant v2 = s2.getVal(pos2);
          if (v1.compareTo(v2) < 0)
             hasmore1 = s1.next();
          else if (v1.compareTo(v2) > 0)
             hasmore2 = s2.next();
          else {
             s2.savePosition();
-            joinval  = s2.getVal(fldname2);
+            joinval  = s2.getVal(pos2);
             return true;
          }
       }
@@ -136,5 +137,40 @@ public class MergeJoinScan implements Scan {
    public boolean hasField(String fldname) {
       return s1.hasField(fldname) || s2.hasField(fldname);
    }
+   
+   /**
+    * CS4432: Returns a position that identifies both the
+    * underlying scan that has the field and the field's
+    * position in that scan: the lowest bit is 0 for the LHS scan
+    * and 1 for the RHS scan, and the remaining bits hold the
+    * position in that scan.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      if (s1.hasField(fldname))
+         return s1.fieldPos(fldname) << 1;
+      else
+         return (s2.fieldPos(fldname) << 1) | 1;
+   }
+   
+   public Constant getVal(int pos) {
+      if ((pos & 1) == 0)
+         return s1.getVal(pos >>> 1);
+      else
+         return s2.getVal(pos >>> 1);
+   }
+   
+   public int getInt(int pos) {
+      if ((pos & 1) == 0)
+         return s1.getInt(pos >>> 1);
+      else
+         return s2.getInt(pos >>> 1);
+   }
+   
+   public String getString(int pos) {
+      if ((pos & 1) == 0)
+         return s1.getString(pos >>> 1);
+      else
+         return s2.getString(pos >>> 1);
+   }
 }
-
@@ -0,0 +1,108 @@
+package simpledb.materialize;
+
+import static java.sql.Types.INTEGER;
+import simpledb.query.*;
+import simpledb.record.Schema;
+
+/**
+ * CS4432: The <i>min</i> aggregation function.
+ * The type of the field is determined from the first record
+ * of each group; the values of an integer field are then read
+ * with {@link Scan#getInt}, so that comparing a record
+ * with the current minimum creates no constants.
+ * @author Edward Sciore
+ */
+public class MinFn implements AggregationFn {
+   private String fldname;
+   private int pos;
+   private Constant val;
+   private boolean isint;
+   private int intval;
+   
+   /**
+    * Creates a min aggregation function for the specified field.
+    * @param fldname the name of the aggregated field
+    */
+   public MinFn(String fldname) {
+      this.fldname = fldname;
+   }
+   
+   /**
+    * Starts a new minimum to be the 
+    * field value in the current record.
+    * @see simpledb.materialize.AggregationFn#processFirst(simpledb.query.Scan)
+    */
+   public void processFirst(Scan s) {
+      pos = s.fieldPos(fldname);
+      val = s.getVal(pos);
+      isint = val instanceof IntConstant;
+      if (isint)
+         intval = (Integer) val.asJavaVal();
+   }
+   
+   /**
+    * Replaces the current minimum by the field value
+    * in the current record, if it is lower.
+    * @see simpledb.materialize.AggregationFn#processNext(simpledb.query.Scan)
+    */
+   public void processNext(Scan s) {
+      if (isint) {
+         int newval = s.getInt(pos);
+         if (newval < intval)
+            intval = newval;
+      }
+      else {
+         Constant newval = s.getVal(pos);
+         if (newval.compareTo(val) < 0)
+            val = newval;
+      }
+   }
+   
+   /**
+    * CS4432: Starts a minimum of no records, which is 0 for an
+    * integer field and the empty string for a string field.
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      isint = inputsch.type(fldname) == INTEGER;
+      intval = 0;
+      val = isint ? new IntConstant(0) : new StringConstant("");
+   }
+   
+   /**
+    * Returns the field's name, prepended by "minof".
+    * @see simpledb.materialize.AggregationFn#fieldName()
+    */
+   public String fieldName() {
+      return "minof" + fldname;
+   }
+   
+   /**
+    * Adds the minimum field, which has the same type
+    * as the aggregated field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addField(fieldName(), inputsch.type(fldname), inputsch.length(fldname));
+   }
+   
+   /**
+    * Returns the current minimum.
+    * @see simpledb.materialize.AggregationFn#value()
+    */
+   public Constant value() {
+      return isint ? new IntConstant(intval) : val;
+   }
+   
+   /**
+    * Returns a new minimum of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new MinFn(fldname);
+   }
+   
+   public String toString() {
+      return "min(" + fldname + ")";
+   }
+}
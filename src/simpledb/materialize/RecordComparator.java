@@ -41,4 +41,38 @@ public class RecordComparator implements Comparator<Scan> {
       }
       return 0;
    }
+   
+   /**
+    * CS4432: Returns the positions of the comparator's
+    * fields in the specified scan.
+    * @param s the scan
+    * @return the position of each field, in the order of the field list
+    */
+   public int[] fieldPositions(Scan s) {
+      int[] positions = new int[fields.size()];
+      for (int i=0; i<positions.length; i++)
+         positions[i] = s.fieldPos(fields.get(i));
+      return positions;
+   }
+   
+   /**
+    * CS4432: Compares the current records of two scans that
+    * assign the same positions (such as two runs of a sort),
+    * reading the fields at the specified positions
+    * instead of looking up their names.
+    * @param s1 the first scan
+    * @param s2 the second scan
+    * @param positions the positions of the fields, from fieldPositions
+    * @return the result of comparing each scan's current record according to the field list
+    */
+   public int compare(Scan s1, Scan s2, int[] positions) {
+      for (int pos : positions) {
+         Constant val1 = s1.getVal(pos);
+         Constant val2 = s2.getVal(pos);
+         int result = val1.compareTo(val2);
+         if (result != 0)
+            return result;
+      }
+      return 0;
+   }
 }
@@ -0,0 +1,57 @@
+package simpledb.materialize;
+
+import static java.sql.Types.INTEGER;
+import simpledb.record.Schema;
+import simpledb.query.*;
+import java.util.*;
+
+/**
+ * CS4432: Copies the current record of a scan into the
+ * current record of an update scan, such as a temporary table.
+ * The positions of the fields in both scans are resolved
+ * when the copier is created, so that copying a record
+ * does not look up any field names,
+ * and integer fields are copied without creating constants.
+ * @author Edward Sciore
+ */
+public class RecordCopier {
+   private int[] srcpos, destpos;
+   private boolean[] isint;
+
+   /**
+    * Creates a copier for the fields of the specified schema.
+    * The copier can also be used with other scans that assign
+    * the same positions, such as the scans of other
+    * temporary tables having the same schema.
+    * @param sch the schema of the copied fields
+    * @param src the scan to copy from
+    * @param dest the scan to copy into
+    */
+   public RecordCopier(Schema sch, Scan src, UpdateScan dest) {
+      List<String> fields = new ArrayList<String>(sch.fields());
+      srcpos = new int[fields.size()];
+      destpos = new int[fields.size()];
+      isint = new boolean[fields.size()];
+      for (int i=0; i<srcpos.length; i++) {
+         String fldname = fields.get(i);
+         srcpos[i] = src.fieldPos(fldname);
+         destpos[i] = dest.fieldPos(fldname);
+         isint[i] = sch.type(fldname) == INTEGER;
+      }
+   }
+
+   /**
+    * Copies the fields of the current record of the source scan
+    * into the current record of the destination scan.
+    * @param src the scan to copy from
+    * @param dest the scan to copy into
+    */
+   public void copy(Scan src, UpdateScan dest) {
+      for (int i=0; i<srcpos.length; i++) {
+         if (isint[i])
+            dest.setInt(destpos[i], src.getInt(srcpos[i]));
+         else
+            dest.setString(destpos[i], src.getString(srcpos[i]));
+      }
+   }
+}
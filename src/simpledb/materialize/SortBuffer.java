@@ -0,0 +1,319 @@
+package simpledb.materialize;
+
+import static java.sql.Types.INTEGER;
+import static simpledb.file.Page.*;
+import simpledb.record.*;
+import simpledb.query.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * CS4432: An in-memory area that holds records while they are sorted.
+ * The records are packed into a byte array, one fixed-size slot
+ * per record, using the same field layout as a record page;
+ * so holding a record creates no objects, and integer fields
+ * are compared without being unpacked into constants.
+ * The array starts small and grows as records are added,
+ * up to the specified number of slots.
+ * @author Edward Sciore
+ */
+public class SortBuffer {
+   private Schema sch;
+   private List<String> fields;
+   private int[] offsets;
+   private boolean[] isint;
+   private int[] sortpos;
+   private int slotsize, capacity, size = 0;
+   private ByteBuffer contents;
+   private Scan source, target;
+   private int[] sourcepos, targetpos;
+
+   /**
+    * Creates an empty sort buffer for records of the specified schema.
+    * @param sch the schema of the records
+    * @param sortfields the fields to sort by
+    * @param capacity the maximum number of records
+    */
+   public SortBuffer(Schema sch, List<String> sortfields, int capacity) {
+      this.sch = sch;
+      this.capacity = capacity;
+      TableInfo ti = new TableInfo("", sch);
+      slotsize = ti.recordLength();
+      fields = new ArrayList<String>(sch.fields());
+      offsets = new int[fields.size()];
+      isint = new boolean[fields.size()];
+      for (int i=0; i<offsets.length; i++) {
+         offsets[i] = ti.offset(fields.get(i));
+         isint[i] = sch.type(fields.get(i)) == INTEGER;
+      }
+      sortpos = new int[sortfields.size()];
+      for (int i=0; i<sortpos.length; i++)
+         sortpos[i] = fields.indexOf(sortfields.get(i));
+      contents = ByteBuffer.allocate(Math.min(capacity, 16) * Math.max(slotsize, 1));
+   }
+
+   /**
+    * Returns the number of bytes needed to hold one record
+    * of the specified schema.
+    * @param sch the schema of the records
+    * @return the size of a slot
+    */
+   public static int slotSize(Schema sch) {
+      return new TableInfo("", sch).recordLength();
+   }
+
+   /**
+    * Returns the maximum number of records in the buffer.
+    * @return the capacity of the buffer
+    */
+   public int capacity() {
+      return capacity;
+   }
+
+   /**
+    * Returns the number of records added to the buffer.
+    * @return the number of records
+    */
+   public int size() {
+      return size;
+   }
+
+   /**
+    * Copies the current record of the scan into the next free slot.
+    * @param s the scan
+    */
+   public void add(Scan s) {
+      put(size, s);
+      size++;
+   }
+
+   /**
+    * Copies the current record of the scan into the specified slot,
+    * replacing the record that was there.
+    * @param slot the slot number
+    * @param s the scan
+    */
+   public void put(int slot, Scan s) {
+      ensureRoom(slot);
+      if (s != source) {
+         sourcepos = positionsIn(s);
+         source = s;
+      }
+      for (int i=0; i<offsets.length; i++) {
+         int pos = slot*slotsize + offsets[i];
+         if (isint[i])
+            contents.putInt(pos, s.getInt(sourcepos[i]));
+         else
+            putString(pos, s.getString(sourcepos[i]));
+      }
+   }
+
+   /**
+    * Inserts a new record into the scan, holding the values
+    * of the record in the specified slot.
+    * @param slot the slot number
+    * @param dest the scan
+    */
+   public void copyTo(int slot, UpdateScan dest) {
+      if (dest != target) {
+         targetpos = positionsIn(dest);
+         target = dest;
+      }
+      dest.insert();
+      for (int i=0; i<offsets.length; i++) {
+         int pos = slot*slotsize + offsets[i];
+         if (isint[i])
+            dest.setInt(targetpos[i], contents.getInt(pos));
+         else
+            dest.setString(targetpos[i], getString(pos));
+      }
+   }
+
+   /**
+    * Returns the value of the specified field of the record
+    * in the specified slot.
+    * @param slot the slot number
+    * @param fldname the name of the field
+    * @return the value of the field
+    */
+   public Constant getVal(int slot, String fldname) {
+      int i = fields.indexOf(fldname);
+      int pos = slot*slotsize + offsets[i];
+      if (isint[i])
+         return new IntConstant(contents.getInt(pos));
+      else
+         return new StringConstant(getString(pos));
+   }
+
+   /**
+    * Returns the integer value of the specified field of the record
+    * in the specified slot.
+    * @param slot the slot number
+    * @param fldname the name of the field
+    * @return the value of the field
+    */
+   public int getInt(int slot, String fldname) {
+      return contents.getInt(slot*slotsize + offsets[fields.indexOf(fldname)]);
+   }
+
+   /**
+    * Returns the string value of the specified field of the record
+    * in the specified slot.
+    * @param slot the slot number
+    * @param fldname the name of the field
+    * @return the value of the field
+    */
+   public String getString(int slot, String fldname) {
+      return getString(slot*slotsize + offsets[fields.indexOf(fldname)]);
+   }
+
+   /**
+    * Returns the position of the specified field in the records,
+    * for use with the positional methods below.
+    * @param fldname the name of the field
+    * @return the position of the field
+    */
+   public int fieldPos(String fldname) {
+      int i = fields.indexOf(fldname);
+      if (i < 0)
+         throw new RuntimeException("field " + fldname + " not found.");
+      return i;
+   }
+   
+   /**
+    * Returns the value of the field at the specified position
+    * of the record in the specified slot.
+    * @param slot the slot number
+    * @param i the position of the field
+    * @return the value of the field
+    */
+   public Constant getVal(int slot, int i) {
+      int pos = slot*slotsize + offsets[i];
+      if (isint[i])
+         return new IntConstant(contents.getInt(pos));
+      else
+         return new StringConstant(getString(pos));
+   }
+   
+   /**
+    * Returns the integer value of the field at the specified
+    * position of the record in the specified slot.
+    * @param slot the slot number
+    * @param i the position of the field
+    * @return the value of the field
+    */
+   public int getInt(int slot, int i) {
+      return contents.getInt(slot*slotsize + offsets[i]);
+   }
+   
+   /**
+    * Returns the string value of the field at the specified
+    * position of the record in the specified slot.
+    * @param slot the slot number
+    * @param i the position of the field
+    * @return the value of the field
+    */
+   public String getString(int slot, int i) {
+      return getString(slot*slotsize + offsets[i]);
+   }
+   
+   /**
+    * Returns true if the records have the specified field.
+    * @param fldname the name of the field
+    * @return true if the field is in the schema
+    */
+   public boolean hasField(String fldname) {
+      return sch.hasField(fldname);
+   }
+
+   /**
+    * Compares the records in the two slots on the sort fields,
+    * in the same way as a RecordComparator.
+    * @param slot1 the first slot
+    * @param slot2 the second slot
+    * @return the result of comparing the two records
+    */
+   public int compare(int slot1, int slot2) {
+      for (int i : sortpos) {
+         int pos1 = slot1*slotsize + offsets[i];
+         int pos2 = slot2*slotsize + offsets[i];
+         int result;
+         if (isint[i])
+            result = Integer.compare(contents.getInt(pos1), contents.getInt(pos2));
+         else
+            result = getString(pos1).compareTo(getString(pos2));
+         if (result != 0)
+            return result;
+      }
+      return 0;
+   }
+
+   /**
+    * Sorts the records of the buffer.
+    * The records stay in their slots; the method sorts
+    * an array of slot numbers, using a merge sort so that
+    * equal records keep their input order.
+    * @return the slot numbers of the records, in sorted order
+    */
+   public int[] sortedSlots() {
+      int[] slots = new int[size];
+      for (int i=0; i<size; i++)
+         slots[i] = i;
+      int[] temp = new int[size];
+      for (int width=1; width<size; width*=2) {
+         for (int lo=0; lo<size; lo+=2*width) {
+            int mid = Math.min(lo+width, size);
+            int hi = Math.min(lo+2*width, size);
+            int i = lo, j = mid, k = lo;
+            while (i < mid && j < hi)
+               temp[k++] = (compare(slots[j], slots[i]) < 0) ? slots[j++] : slots[i++];
+            while (i < mid)
+               temp[k++] = slots[i++];
+            while (j < hi)
+               temp[k++] = slots[j++];
+         }
+         int[] t = slots;
+         slots = temp;
+         temp = t;
+      }
+      return slots;
+   }
+
+   /**
+    * Resolves the positions of the buffer's fields in the
+    * specified scan, which are reused for as long as the
+    * buffer copies records from (or into) the same scan.
+    */
+   private int[] positionsIn(Scan s) {
+      int[] positions = new int[fields.size()];
+      for (int i=0; i<positions.length; i++)
+         positions[i] = s.fieldPos(fields.get(i));
+      return positions;
+   }
+   
+   private void ensureRoom(int slot) {
+      int needed = (slot+1) * slotsize;
+      if (needed <= contents.capacity())
+         return;
+      int newsize = Math.min(Math.max(needed, 2*contents.capacity()), capacity*slotsize);
+      ByteBuffer bigger = ByteBuffer.allocate(Math.max(newsize, needed));
+      contents.position(0);
+      bigger.put(contents);
+      contents = bigger;
+   }
+
+   private String getString(int pos) {
+      int len = contents.getInt(pos);
+      byte[] byteval = new byte[len];
+      for (int i=0; i<len; i++)
+         byteval[i] = contents.get(pos + INT_SIZE + i);
+      return new String(byteval);
+   }
+
+   private void putString(int pos, String val) {
+      byte[] byteval = val.getBytes();
+      contents.putInt(pos, byteval.length);
+      for (int i=0; i<byteval.length; i++)
+         contents.put(pos + INT_SIZE + i, byteval[i]);
+   }
+}
@@ -1,10 +1,13 @@
 package simpledb.materialize;
 
+import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.query.*;
+import simpledb.multibuffer.BufferNeeds;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * The Plan class for the <i>sort</i> operator.
@@ -14,6 +17,7 @@ public class SortPlan implements Plan {
     private Plan p;
     private Transaction tx;
     private Schema sch;
+    private List<String> sortfields;
     private RecordComparator comp;
 
     /**
@@ -26,22 +30,87 @@ public class SortPlan implements Plan {
         this.p = p;
         this.tx = tx;
         sch = p.schema();
+        this.sortfields = sortfields;
         comp = new RecordComparator(sortfields);
     }
 
     /**
      * This method is where most of the action is.
-     * Up to 2 sorted temporary tables are created,
-     * and are passed into SmartSortScan for final merging.
+     * The input records are read into a sort buffer, which
+     * holds as many records as fit in the sort memory budget
+     * ({@link SimpleDB#SORT_MEMORY}).
+     * If the whole input fits, it is sorted in memory, and the
+     * SortScan reads the sorted buffer; no temporary tables are created.
+     * Otherwise, the input is split into sorted runs by replacement
+     * selection, and the runs are merged k at a time until few
+     * enough remain to be merged by a single SortScan,
+     * which does the final merging.
+     * If {@link SimpleDB#SORT_THREADS} allows more than one worker,
+     * the runs are instead generated and merged by a pool of workers.
      * @see simpledb.query.Plan#open()
      */
     public Scan open() {
         Scan src = p.open();
-        List<TempTable> runs = splitIntoRuns(src);
-        src.close();
-        while (runs.size() > 2)
-            runs = doAMergeIteration(runs);
-        return new SortScan(runs, comp);
+        SortBuffer buf = new SortBuffer(sch, sortfields, memoryCapacity(sch));
+        // fill the buffer, leaving one slot for replacement selection
+        src.beforeFirst();
+        boolean hasmore = true;
+        while (hasmore && buf.size() < buf.capacity() - 1) {
+            hasmore = src.next();
+            if (hasmore)
+                buf.add(src);
+        }
+        if (hasmore)
+            hasmore = src.next();
+        if (!hasmore) {
+            src.close();
+            return new SortScan(buf, buf.sortedSlots());
+        }
+        int dop = parallelism();
+        ForkJoinPool pool = (dop > 1) ? new ForkJoinPool(dop) : null;
+        try {
+            List<TempTable> runs;
+            if (pool == null)
+                runs = splitIntoRuns(src, buf);
+            else
+                runs = splitIntoRunsInParallel(src, buf, dop, pool);
+            src.close();
+            int k = mergeWidth(runs.size(), dop);
+            while (runs.size() > k) {
+                runs = doAMergeIteration(runs, k, pool);
+                k = mergeWidth(runs.size(), dop);
+            }
+            return new SortScan(runs, comp);
+        }
+        finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+    }
+
+    /**
+     * CS4432: Instantiates the underlying plan.
+     * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+     */
+    public Plan instantiate(Transaction tx, Bindings args) {
+        Plan newp = args.instantiate(p, tx);
+        return (newp == null) ? null : new SortPlan(newp, sortfields, tx);
+    }
+
+    /**
+     * CS4432: The input is the query being sorted.
+     * @see simpledb.query.Plan#inputs()
+     */
+    public List<Plan> inputs() {
+        return Arrays.asList(p);
+    }
+
+    /**
+     * CS4432: Describes the sort by its sort fields.
+     * @see simpledb.query.Plan#description()
+     */
+    public String description() {
+        return "Sort " + sortfields;
     }
 
     /**
@@ -77,6 +146,15 @@ public class SortPlan implements Plan {
         return p.distinctValues(fldname);
     }
 
+    /**
+     * CS4432: Returns the reduction factor of a range on a field,
+     * which is the same as in the underlying query.
+     * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+     */
+    public int rangeReductionFactor(String fldname, ConstantRange range) {
+        return p.rangeReductionFactor(fldname, range);
+    }
+
     /**
      * Returns the schema of the sorted table, which
      * is the same as in the underlying query.
@@ -86,68 +164,301 @@ public class SortPlan implements Plan {
         return sch;
     }
 
-    private List<TempTable> splitIntoRuns(Scan src) {
+    /**
+     * Returns the sort fields, which determine
+     * the order of the sorted table.
+     * @see simpledb.query.Plan#sortOrder()
+     */
+    public List<String> sortOrder() {
+        return sortfields;
+    }
+
+    /**
+     * CS4432: Returns true if the output of the specified query
+     * is already in the specified order, that is, if the
+     * sort fields are a prefix of the query's sort order.
+     * Such a query does not need to be sorted again.
+     * @param p the plan of the query
+     * @param sortfields the fields to sort by
+     * @return true if the query's output is already sorted
+     */
+    public static boolean isSorted(Plan p, List<String> sortfields) {
+        List<String> order = p.sortOrder();
+        return sortfields.size() <= order.size()
+              && order.subList(0, sortfields.size()).equals(sortfields);
+    }
+
+    /**
+     * CS4432: Returns true if the output of the specified query
+     * is expected to fit in the sort memory budget,
+     * in which case sorting it requires no disk accesses.
+     * @param p the plan of the query
+     * @return true if the query can be sorted in memory
+     */
+    public static boolean fitsInMemory(Plan p) {
+        return p.recordsOutput() < memoryCapacity(p.schema());
+    }
+
+    /**
+     * Returns the number of records of the specified schema
+     * that fit in the sort memory budget (but at least 2).
+     */
+    private static int memoryCapacity(Schema sch) {
+        int slotsize = Math.max(1, SortBuffer.slotSize(sch));
+        return Math.max(2, SimpleDB.SORT_MEMORY / slotsize);
+    }
+
+    /**
+     * Splits the input into sorted runs by replacement selection.
+     * The sort buffer is full, and the scan is positioned
+     * at the first record that did not fit.
+     * The buffered records are kept in a heap (of slot numbers).
+     * The smallest record of the current run is repeatedly removed
+     * from the heap and written to the run, and the next input record
+     * takes its place. An input record that sorts before the record
+     * just written cannot go in the current run, and so is
+     * marked for the next one.
+     * On random input, the runs average twice the buffer size.
+     */
+    private List<TempTable> splitIntoRuns(Scan src, SortBuffer buf) {
         List<TempTable> temps = new ArrayList<TempTable>();
-        src.beforeFirst();
-        if (!src.next())
-            return temps;
-        TempTable currenttemp = new TempTable(sch, tx);
-        temps.add(currenttemp);
-        UpdateScan currentscan = currenttemp.open();
-        while (copy(src, currentscan))
-            if (comp.compare(src, currentscan) < 0) {
+        int[] runof = new int[buf.capacity()];
+        PriorityQueue<Integer> heap = new PriorityQueue<Integer>(buf.capacity(), new SlotComparator(buf, runof));
+        for (int slot=0; slot<buf.size(); slot++)
+            heap.add(slot);
+        int spare = buf.size();
+        boolean hasmore = true;
+        int currentrun = -1;
+        UpdateScan currentscan = null;
+        while (!heap.isEmpty()) {
+            int slot = heap.poll();
+            if (runof[slot] != currentrun) {
                 // start a new run
-                currentscan.close();
-                currenttemp = new TempTable(sch, tx);
+                if (currentscan != null)
+                    currentscan.close();
+                TempTable currenttemp = new TempTable(sch, tx);
                 temps.add(currenttemp);
-                currentscan = (UpdateScan) currenttemp.open();
+                currentscan = currenttemp.open();
+                currentrun = runof[slot];
+            }
+            buf.copyTo(slot, currentscan);
+            if (hasmore) {
+                // the next input record goes in the spare slot,
+                // and the slot just written becomes the spare
+                buf.put(spare, src);
+                runof[spare] = (buf.compare(spare, slot) < 0) ? currentrun + 1 : currentrun;
+                heap.add(spare);
+                spare = slot;
+                hasmore = src.next();
             }
-        currentscan.close();
+        }
+        if (currentscan != null)
+            currentscan.close();
         return temps;
     }
 
-    private List<TempTable> doAMergeIteration(List<TempTable> runs) {
-        List<TempTable> result = new ArrayList<TempTable>();
-        while (runs.size() > 1) {
-            TempTable p1 = runs.remove(0);
-            TempTable p2 = runs.remove(0);
-            result.add(mergeTwoRuns(p1, p2));
+    /**
+     * CS4432: Splits the input into sorted runs using a pool of workers.
+     * The first sort buffer is full, and the scan is positioned
+     * at the first record that did not fit.
+     * The remaining records are read into further sort buffers.
+     * As each buffer fills, a worker sorts it and writes it out
+     * as a run, while the next buffer is being filled;
+     * at most dop buffers are in use at once, so the sort
+     * may use up to dop times the sort memory.
+     * (Giving each buffer only a share of the memory would
+     * produce proportionally more runs to merge.)
+     */
+    private List<TempTable> splitIntoRunsInParallel(Scan src, SortBuffer buf, int dop, ForkJoinPool pool) {
+        List<TempTable> runs = new ArrayList<TempTable>();
+        LinkedList<ForkJoinTask<?>> pending = new LinkedList<ForkJoinTask<?>>();
+        int capacity = memoryCapacity(sch);
+        boolean hasmore = true;
+        while (true) {
+            TempTable run = new TempTable(sch, tx);
+            runs.add(run);
+            pending.add(pool.submit(new RunWriter(buf, run)));
+            if (!hasmore)
+                break;
+            if (pending.size() >= dop)
+                pending.removeFirst().join();
+            buf = new SortBuffer(sch, sortfields, capacity);
+            do {
+                buf.add(src);
+                hasmore = src.next();
+            } while (hasmore && buf.size() < buf.capacity());
         }
-        if (runs.size() == 1)
-            result.add(runs.get(0));
-        return result;
+        for (ForkJoinTask<?> task : pending)
+            task.join();
+        return runs;
     }
 
-    private TempTable mergeTwoRuns(TempTable p1, TempTable p2) {
-        Scan src1 = p1.open();
-        Scan src2 = p2.open();
-        TempTable result = new TempTable(sch, tx);
-        UpdateScan dest = result.open();
+    /**
+     * Returns the number of workers for an external sort,
+     * which is the configured number of sort threads,
+     * bounded so that each worker has two buffers
+     * (for appending to a run) within half of the available buffers.
+     */
+    private int parallelism() {
+        int maxworkers = SimpleDB.bufferMgr().available() / 4;
+        return Math.max(1, Math.min(SimpleDB.SORT_THREADS, maxworkers));
+    }
+
+    /**
+     * Returns the number of runs to merge at a time.
+     * The sort uses at most half of the available buffers, leaving
+     * the rest for the operators that run alongside it
+     * (such as the other input of a mergejoin).
+     * If all of the runs can be open at once, they are merged
+     * by the SortScan. Otherwise, each merge uses one buffer
+     * per input run, plus two for appending to its output;
+     * the width is the best root of the number of runs,
+     * so that the merge passes are balanced.
+     * When dop workers merge at the same time,
+     * each gets an equal share of the buffers.
+     */
+    private int mergeWidth(int numruns, int dop) {
+        int avail = SimpleDB.bufferMgr().available() / 2;
+        if (numruns <= avail)
+            return numruns;
+        return Math.max(2, Math.min(BufferNeeds.bestRoot(numruns), avail/dop - 2));
+    }
 
-        boolean hasmore1 = src1.next();
-        boolean hasmore2 = src2.next();
-        while (hasmore1 && hasmore2)
-            if (comp.compare(src1, src2) < 0)
-                hasmore1 = copy(src1, dest);
+    /**
+     * Performs one merge pass, merging each group of
+     * k runs into a single run.
+     * If there is a pool of workers, the groups are
+     * merged concurrently.
+     */
+    private List<TempTable> doAMergeIteration(List<TempTable> runs, int k, ForkJoinPool pool) {
+        List<RunMerger> mergers = new ArrayList<RunMerger>();
+        for (int i=0; i<runs.size(); i+=k) {
+            List<TempTable> group = runs.subList(i, Math.min(i+k, runs.size()));
+            RunMerger merger = new RunMerger(group);
+            if (pool != null && group.size() > 1)
+                pool.execute(merger);
             else
-                hasmore2 = copy(src2, dest);
-
-        if (hasmore1)
-            while (hasmore1)
-                hasmore1 = copy(src1, dest);
-        else
-            while (hasmore2)
-                hasmore2 = copy(src2, dest);
-        src1.close();
-        src2.close();
+                merger.invoke();
+            mergers.add(merger);
+        }
+        List<TempTable> result = new ArrayList<TempTable>();
+        for (RunMerger merger : mergers)
+            result.add(merger.join());
+        return result;
+    }
+
+    /**
+     * Merges the specified runs into a single run,
+     * using a SortScan to choose the next record.
+     * The runs are read and written by the specified transaction.
+     */
+    private TempTable mergeRuns(List<TempTable> runs, Transaction mtx) {
+        Scan src = new SortScan(runs, comp, mtx);
+        TempTable result = new TempTable(sch, tx);
+        UpdateScan dest = new TableScan(result.getTableInfo(), mtx);
+        RecordCopier copier = new RecordCopier(sch, src, dest);
+        while (src.next()) {
+            dest.insert();
+            copier.copy(src, dest);
+        }
+        src.close();
         dest.close();
         return result;
     }
 
-    private boolean copy(Scan src, UpdateScan dest) {
-        dest.insert();
-        for (String fldname : sch.fields())
-            dest.setVal(fldname, src.getVal(fldname));
-        return src.next();
+    /**
+     * Runs the specified work in a transaction of its own,
+     * which is committed when the work is done (or rolled back
+     * if it fails).
+     * A transaction cannot be shared between threads,
+     * so each worker of a parallel sort uses one.
+     * The runs that it writes can be read by the sort's
+     * transaction once it commits.
+     */
+    @SuppressWarnings("serial")
+    private static abstract class Worker<V> extends RecursiveTask<V> {
+        protected V compute() {
+            Transaction wtx = new Transaction();
+            try {
+                V result = work(wtx);
+                wtx.commit();
+                return result;
+            }
+            catch (RuntimeException e) {
+                wtx.rollback();
+                throw e;
+            }
+        }
+
+        abstract V work(Transaction wtx);
+    }
+
+    /**
+     * Sorts a full sort buffer and writes it out as a run.
+     */
+    @SuppressWarnings("serial")
+    private class RunWriter extends Worker<TempTable> {
+        private SortBuffer buf;
+        private TempTable run;
+
+        RunWriter(SortBuffer buf, TempTable run) {
+            this.buf = buf;
+            this.run = run;
+        }
+
+        TempTable work(Transaction wtx) {
+            UpdateScan dest = new TableScan(run.getTableInfo(), wtx);
+            for (int slot : buf.sortedSlots())
+                buf.copyTo(slot, dest);
+            dest.close();
+            return run;
+        }
+    }
+
+    /**
+     * Merges a group of runs into a single run.
+     * A group of one run is returned as is.
+     * Outside of a pool of workers, the group is merged
+     * in the sort's own transaction.
+     */
+    @SuppressWarnings("serial")
+    private class RunMerger extends Worker<TempTable> {
+        private List<TempTable> group;
+
+        RunMerger(List<TempTable> group) {
+            this.group = group;
+        }
+
+        protected TempTable compute() {
+            if (group.size() == 1)
+                return group.get(0);
+            if (!inForkJoinPool())
+                return mergeRuns(group, tx);
+            return super.compute();
+        }
+
+        TempTable work(Transaction wtx) {
+            return mergeRuns(group, wtx);
+        }
+    }
+
+    /**
+     * Orders the slots of the sort buffer by run,
+     * and then by the sort fields.
+     */
+    private static class SlotComparator implements Comparator<Integer> {
+        private SortBuffer buf;
+        private int[] runof;
+
+        SlotComparator(SortBuffer buf, int[] runof) {
+            this.buf = buf;
+            this.runof = runof;
+        }
+
+        public int compare(Integer s1, Integer s2) {
+            if (runof[s1] != runof[s2])
+                return runof[s1] - runof[s2];
+            return buf.compare(s1, s2);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package simpledb.materialize;
 
+import simpledb.tx.Transaction;
 import simpledb.record.RID;
 import simpledb.query.*;
 import java.util.*;
@@ -13,83 +14,112 @@ import java.util.*;
  *
  */
 public class SortScan implements Scan {
-    private UpdateScan s1, s2=null, currentscan=null;
+    private List<UpdateScan> scans = new ArrayList<UpdateScan>();
     private RecordComparator comp;
-    private boolean hasmore1, hasmore2=false;
+    private int[] sortpos;
+    private boolean[] hasmore;
+    private PriorityQueue<Integer> heap;
+    private int current = -1;
     private List<RID> savedposition;
+    private boolean[] savedmore;
+    private int savedcurrent;
+    private SortBuffer buf = null;
+    private int[] order;
 
     /**
-     * Creates a sort scan, given a list of 1 or 2 runs.
-     * If there is only 1 run, then s2 will be null and
-     * hasmore2 will be false.
+     * Creates a sort scan, given a list of runs.
+     * The runs that still have records are kept in a heap,
+     * ordered by their current record.
      * @param runs the list of runs
      * @param comp the record comparator
      */
     public SortScan(List<TempTable> runs, RecordComparator comp) {
+        this(runs, comp, null);
+    }
+
+    /**
+     * CS4432: Creates a sort scan of the runs that reads them
+     * through the specified transaction, rather than the
+     * transaction that created them.
+     * This is used by the workers of a parallel sort, each of
+     * which has its own transaction.
+     * @param runs the list of runs
+     * @param comp the record comparator
+     * @param tx the transaction that reads the runs, or null for the runs' own
+     */
+    public SortScan(List<TempTable> runs, RecordComparator comp, Transaction tx) {
         this.comp = comp;
-        s1 = (UpdateScan) runs.get(0).open();
-        hasmore1 = s1.next();
-        if (runs.size() > 1) {
-            s2 = (UpdateScan) runs.get(1).open();
-            hasmore2 = s2.next();
-        }
+        for (TempTable run : runs)
+            scans.add(tx == null ? run.open() : new TableScan(run.getTableInfo(), tx));
+        hasmore = new boolean[scans.size()];
+        if (!scans.isEmpty())
+            sortpos = comp.fieldPositions(scans.get(0));
+        heap = new PriorityQueue<Integer>(Math.max(1, scans.size()), new RunComparator());
+        beforeFirst();
+    }
+
+    /**
+     * CS4432: Creates a sort scan of records that were sorted in memory.
+     * The scan reads the records of the sort buffer in the
+     * specified order of their slots.
+     * @param buf the sort buffer
+     * @param order the slot numbers, in sorted order
+     */
+    public SortScan(SortBuffer buf, int[] order) {
+        this.buf = buf;
+        this.order = order;
+        current = -1;
     }
 
     /**
      * Positions the scan before the first record in sorted order.
      * Internally, it moves to the first record of each underlying scan.
-     * The variable currentscan is set to null, indicating that there is
+     * The variable current is set to -1, indicating that there is
      * no current scan.
      * @see simpledb.query.Scan#beforeFirst()
      */
     public void beforeFirst() {
-        currentscan = null;
-        s1.beforeFirst();
-        hasmore1 = s1.next();
-        if (s2 != null) {
-            s2.beforeFirst();
-            hasmore2 = s2.next();
+        current = -1;
+        if (buf != null)
+            return;
+        for (int i=0; i<scans.size(); i++) {
+            scans.get(i).beforeFirst();
+            hasmore[i] = scans.get(i).next();
         }
+        rebuildHeap();
     }
 
     /**
      * Moves to the next record in sorted order.
-     * First, the current scan is moved to the next record.
-     * Then the lowest record of the two scans is found, and that
-     * scan is chosen to be the new current scan.
+     * First, the current scan is moved to the next record,
+     * and is put back in the heap if it has one.
+     * Then the scan having the lowest record is removed
+     * from the heap, and becomes the new current scan.
      * @see simpledb.query.Scan#next()
      */
     public boolean next() {
-        if (currentscan != null) {
-            if (currentscan == s1)
-                hasmore1 = s1.next();
-            else if (currentscan == s2)
-                hasmore2 = s2.next();
+        if (buf != null)
+            return ++current < order.length;
+        if (current >= 0) {
+            hasmore[current] = scans.get(current).next();
+            if (hasmore[current])
+                heap.add(current);
         }
-
-        if (!hasmore1 && !hasmore2)
+        if (heap.isEmpty()) {
+            current = -1;
             return false;
-        else if (hasmore1 && hasmore2) {
-            if (comp.compare(s1, s2) < 0)
-                currentscan = s1;
-            else
-                currentscan = s2;
         }
-        else if (hasmore1)
-            currentscan = s1;
-        else if (hasmore2)
-            currentscan = s2;
+        current = heap.poll();
         return true;
     }
 
     /**
-     * Closes the two underlying scans.
+     * Closes the underlying scans.
      * @see simpledb.query.Scan#close()
      */
     public void close() {
-        s1.close();
-        if (s2 != null)
-            s2.close();
+        for (UpdateScan s : scans)
+            s.close();
     }
 
     /**
@@ -98,7 +128,9 @@ public class SortScan implements Scan {
      * @see simpledb.query.Scan#getVal(java.lang.String)
      */
     public Constant getVal(String fldname) {
-        return currentscan.getVal(fldname);
+        if (buf != null)
+            return buf.getVal(order[current], fldname);
+        return scans.get(current).getVal(fldname);
     }
 
     /**
@@ -107,7 +139,9 @@ public class SortScan implements Scan {
      * @see simpledb.query.Scan#getInt(java.lang.String)
      */
     public int getInt(String fldname) {
-        return currentscan.getInt(fldname);
+        if (buf != null)
+            return buf.getInt(order[current], fldname);
+        return scans.get(current).getInt(fldname);
     }
 
     /**
@@ -116,35 +150,102 @@ public class SortScan implements Scan {
      * @see simpledb.query.Scan#getString(java.lang.String)
      */
     public String getString(String fldname) {
-        return currentscan.getString(fldname);
+        if (buf != null)
+            return buf.getString(order[current], fldname);
+        return scans.get(current).getString(fldname);
     }
 
     /**
-     * Returns true if the specified field is in the current scan.
+     * Returns true if the specified field is in the runs.
      * @see simpledb.query.Scan#hasField(java.lang.String)
      */
     public boolean hasField(String fldname) {
-        return currentscan.hasField(fldname);
+        if (buf != null)
+            return buf.hasField(fldname);
+        return scans.get(0).hasField(fldname);
+    }
+
+    /**
+     * CS4432: Returns the position of the specified field.
+     * The runs all have the same schema, and so
+     * assign the same positions.
+     * @see simpledb.query.Scan#fieldPos(java.lang.String)
+     */
+    public int fieldPos(String fldname) {
+        if (buf != null)
+            return buf.fieldPos(fldname);
+        return scans.get(0).fieldPos(fldname);
+    }
+
+    public Constant getVal(int pos) {
+        if (buf != null)
+            return buf.getVal(order[current], pos);
+        return scans.get(current).getVal(pos);
+    }
+
+    public int getInt(int pos) {
+        if (buf != null)
+            return buf.getInt(order[current], pos);
+        return scans.get(current).getInt(pos);
+    }
+
+    public String getString(int pos) {
+        if (buf != null)
+            return buf.getString(order[current], pos);
+        return scans.get(current).getString(pos);
     }
 
     /**
      * Saves the position of the current record,
      * so that it can be restored at a later time.
+     * Besides the position of each run, this includes
+     * which run holds the current record and which
+     * runs still have records.
      */
     public void savePosition() {
-        RID rid1 = s1.getRid();
-        RID rid2 = (s2 == null) ? null : s2.getRid();
-        savedposition = Arrays.asList(rid1,rid2);
+        savedcurrent = current;
+        if (buf != null)
+            return;
+        savedposition = new ArrayList<RID>();
+        for (int i=0; i<scans.size(); i++)
+            savedposition.add(hasmore[i] ? scans.get(i).getRid() : null);
+        savedmore = hasmore.clone();
     }
 
     /**
      * Moves the scan to its previously-saved position.
+     * The heap is rebuilt from the restored runs.
      */
     public void restorePosition() {
-        RID rid1 = savedposition.get(0);
-        RID rid2 = savedposition.get(1);
-        s1.moveToRid(rid1);
-        if (rid2 != null)
-            s2.moveToRid(rid2);
+        current = savedcurrent;
+        if (buf != null)
+            return;
+        for (int i=0; i<scans.size(); i++) {
+            RID rid = savedposition.get(i);
+            if (rid != null)
+                scans.get(i).moveToRid(rid);
+        }
+        hasmore = savedmore.clone();
+        rebuildHeap();
+    }
+
+    /**
+     * Fills the heap with the runs that have a record,
+     * other than the current one.
+     */
+    private void rebuildHeap() {
+        heap.clear();
+        for (int i=0; i<scans.size(); i++)
+            if (hasmore[i] && i != current)
+                heap.add(i);
+    }
+
+    /**
+     * Orders the runs by their current records.
+     */
+    private class RunComparator implements Comparator<Integer> {
+        public int compare(Integer i1, Integer i2) {
+            return comp.compare(scans.get(i1), scans.get(i2), sortpos);
+        }
     }
 }
\ No newline at end of file
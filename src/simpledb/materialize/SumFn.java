@@ -0,0 +1,87 @@
+package simpledb.materialize;
+
+import simpledb.query.*;
+import simpledb.record.Schema;
+
+/**
+ * CS4432: The <i>sum</i> aggregation function.
+ * The field must be an integer field; its values are read
+ * with {@link Scan#getInt}, so that adding a record
+ * to the sum creates no constants.
+ * @author Edward Sciore
+ */
+public class SumFn implements AggregationFn {
+   private String fldname;
+   private int pos;
+   private int sum;
+   
+   /**
+    * Creates a sum aggregation function for the specified field.
+    * @param fldname the name of the aggregated field
+    */
+   public SumFn(String fldname) {
+      this.fldname = fldname;
+   }
+   
+   /**
+    * Starts a new sum to be the 
+    * field value in the current record.
+    * @see simpledb.materialize.AggregationFn#processFirst(simpledb.query.Scan)
+    */
+   public void processFirst(Scan s) {
+      pos = s.fieldPos(fldname);
+      sum = s.getInt(pos);
+   }
+   
+   /**
+    * Adds the field value in the current record to the sum.
+    * @see simpledb.materialize.AggregationFn#processNext(simpledb.query.Scan)
+    */
+   public void processNext(Scan s) {
+      sum += s.getInt(pos);
+   }
+   
+   /**
+    * CS4432: Starts a sum of no records, which is 0.
+    * @see simpledb.materialize.AggregationFn#processEmpty(simpledb.record.Schema)
+    */
+   public void processEmpty(Schema inputsch) {
+      sum = 0;
+   }
+   
+   /**
+    * Returns the field's name, prepended by "sumof".
+    * @see simpledb.materialize.AggregationFn#fieldName()
+    */
+   public String fieldName() {
+      return "sumof" + fldname;
+   }
+   
+   /**
+    * Adds the sum field, which is an integer field.
+    * @see simpledb.materialize.AggregationFn#addField(simpledb.record.Schema, simpledb.record.Schema)
+    */
+   public void addField(Schema sch, Schema inputsch) {
+      sch.addIntField(fieldName());
+   }
+   
+   /**
+    * Returns the current sum.
+    * @see simpledb.materialize.AggregationFn#value()
+    */
+   public Constant value() {
+      return new IntConstant(sum);
+   }
+   
+   /**
+    * Returns a new sum of the same field.
+    * @see simpledb.materialize.AggregationFn#copy()
+    */
+   public AggregationFn copy() {
+      return new SumFn(fldname);
+   }
+   
+   public String toString() {
+      return "sum(" + fldname + ")";
+   }
+}
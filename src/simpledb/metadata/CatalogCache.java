@@ -0,0 +1,108 @@
+package simpledb.metadata;
+
+import simpledb.tx.Transaction;
+import java.util.*;
+
+/**
+ * CS4432: An in-memory cache of the metadata read from the catalog,
+ * used by the metadata manager so that looking up a table, view or
+ * index does not scan the catalog tables each time.
+ * Each entry is keyed by a string naming the kind of metadata
+ * and the table or view it describes.
+ * <p>
+ * The cache holds only committed metadata.
+ * When a transaction changes the catalog, the entries that
+ * the change affects are removed and marked as pending until
+ * the transaction commits or rolls back; while an entry is pending,
+ * every lookup of it goes to the catalog (where the usual locking
+ * applies) and nothing is cached for it.
+ * The end of each such transaction also increases the version
+ * of the cache.  A lookup that misses notes the version before
+ * reading the catalog, and its result is cached only if the
+ * version has not changed in the meantime, so that metadata read
+ * before a change cannot be cached after it.
+ * @author Edward Sciore
+ */
+class CatalogCache {
+   /**
+    * The value returned by get for an entry that is not cached.
+    */
+   public static final Object MISSING = new Object();
+
+   private Map<String,Object> entries = new HashMap<String,Object>();
+   private Map<String,Integer> pending = new HashMap<String,Integer>();
+   private int version = 0;
+
+   /**
+    * Returns the cached value of the specified entry,
+    * or MISSING if it is not cached.
+    * The value may be null.
+    * @param key the key of the entry
+    * @return the cached value, or MISSING
+    */
+   public synchronized Object get(String key) {
+      if (!entries.containsKey(key))
+         return MISSING;
+      return entries.get(key);
+   }
+
+   /**
+    * Returns the current version of the cache.
+    * @return the version
+    */
+   public synchronized int version() {
+      return version;
+   }
+
+   /**
+    * Returns true if some transaction that changed
+    * the catalog has not yet committed or rolled back.
+    * @return true if an entry is pending
+    */
+   public synchronized boolean isChanging() {
+      return !pending.isEmpty();
+   }
+
+   /**
+    * Caches the value of the specified entry, which was read from
+    * the catalog after the specified version was obtained.
+    * The value is not cached if the version has changed
+    * or the entry is pending.
+    * @param key the key of the entry
+    * @param val the value read from the catalog
+    * @param readversion the version of the cache when the read began
+    */
+   public synchronized void put(String key, Object val, int readversion) {
+      if (readversion == version && !pending.containsKey(key))
+         entries.put(key, val);
+   }
+
+   /**
+    * Notes that the specified transaction is changing the
+    * catalog in a way that affects the specified entry.
+    * The entry is removed, and stays pending until the
+    * transaction commits or rolls back.
+    * @param key the key of the entry
+    * @param tx the transaction changing the catalog
+    */
+   public synchronized void modify(final String key, Transaction tx) {
+      entries.remove(key);
+      Integer count = pending.get(key);
+      pending.put(key, (count == null) ? 1 : count + 1);
+      tx.whenDone(new Runnable() {
+         public void run() {
+            finish(key);
+         }
+      });
+   }
+
+   private synchronized void finish(String key) {
+      entries.remove(key);
+      int count = pending.get(key);
+      if (count == 1)
+         pending.remove(key);
+      else
+         pending.put(key, count - 1);
+      version++;
+   }
+}
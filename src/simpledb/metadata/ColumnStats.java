@@ -0,0 +1,201 @@
+package simpledb.metadata;
+
+import simpledb.query.*;
+
+/**
+ * CS4432: Holds the statistics about one field of a table,
+ * as computed by the statistics manager when the table is analyzed:
+ * the number of distinct values, the smallest and largest values,
+ * the number of null values, and an equi-depth histogram.
+ * <p>
+ * The histogram divides the values of the field into buckets
+ * holding about the same number of records.  Bucket i holds the
+ * records whose values lie above the upper bound of bucket i-1
+ * and at or below its own upper bound; the first bucket begins
+ * at the smallest value.  Within a bucket, integer values are
+ * assumed to be spread evenly between its bounds.
+ * The histogram also records how many records have each upper
+ * bound as their value, so that the frequency of a common value
+ * (which will be the bound of its bucket) is known;
+ * the other values are assumed to be equally frequent.
+ * @author Edward Sciore
+ */
+public class ColumnStats {
+   private int numrecs, distinct, nulls;
+   private Constant min, max;
+   private Constant[] bounds;
+   private int[] counts, boundcounts;
+
+   /**
+    * Creates the statistics of a field.
+    * @param numrecs the number of records in the table when it was analyzed
+    * @param distinct the number of distinct values of the field
+    * @param nulls the number of records in which the field is null
+    * @param min the smallest value of the field, or null if the table was empty
+    * @param max the largest value of the field, or null if the table was empty
+    * @param bounds the upper bound of each bucket of the histogram, in increasing order
+    * @param counts the number of records in each bucket
+    * @param boundcounts the number of records in each bucket whose value is its upper bound
+    */
+   public ColumnStats(int numrecs, int distinct, int nulls, Constant min, Constant max,
+                      Constant[] bounds, int[] counts, int[] boundcounts) {
+      this.numrecs = numrecs;
+      this.distinct = distinct;
+      this.nulls = nulls;
+      this.min = min;
+      this.max = max;
+      this.bounds = bounds;
+      this.counts = counts;
+      this.boundcounts = boundcounts;
+   }
+
+   /**
+    * Returns the number of records in the table
+    * at the time the statistics were computed.
+    * @return the number of records
+    */
+   public int recordsOutput() {
+      return numrecs;
+   }
+
+   /**
+    * Returns the number of distinct values of the field.
+    * @return the number of distinct values
+    */
+   public int distinctValues() {
+      return distinct;
+   }
+
+   /**
+    * Returns the number of records in which the field is null.
+    * SimpleDB has no null values, so this is currently always 0.
+    * @return the number of null values
+    */
+   public int nullCount() {
+      return nulls;
+   }
+
+   /**
+    * Returns the smallest value of the field.
+    * @return the smallest value, or null if the table was empty
+    */
+   public Constant min() {
+      return min;
+   }
+
+   /**
+    * Returns the largest value of the field.
+    * @return the largest value, or null if the table was empty
+    */
+   public Constant max() {
+      return max;
+   }
+
+   /**
+    * Returns the upper bounds of the buckets of the histogram.
+    * @return the bucket bounds, in increasing order
+    */
+   public Constant[] bucketBounds() {
+      return bounds;
+   }
+
+   /**
+    * Returns the number of records in each bucket of the histogram.
+    * @return the bucket counts
+    */
+   public int[] bucketCounts() {
+      return counts;
+   }
+
+   /**
+    * Returns the number of records in each bucket of the histogram
+    * whose value is the upper bound of the bucket.
+    * @return the bound counts
+    */
+   public int[] boundCounts() {
+      return boundcounts;
+   }
+
+   /**
+    * Estimates the fraction of the table's records whose value
+    * of the field lies in the specified range.
+    * The endpoints of the range must have the same type as the field.
+    * @param range the range of values
+    * @return the estimated fraction, between 0 and 1
+    */
+   public double fraction(ConstantRange range) {
+      if (min == null)
+         return 0.0;
+      double hifrac, lofrac;
+      if (range.high() == null)
+         hifrac = 1.0;
+      else
+         hifrac = range.highInclusive() ? atMost(range.high()) : below(range.high());
+      if (range.low() == null)
+         lofrac = 0.0;
+      else
+         lofrac = range.lowInclusive() ? below(range.low()) : atMost(range.low());
+      return Math.max(0.0, hifrac - lofrac);
+   }
+
+   /**
+    * Returns true if the specified constant can be compared
+    * with the values of the field.
+    * @param c a constant
+    * @return true if the constant has the same type as the field
+    */
+   public boolean isComparable(Constant c) {
+      return min == null || c.getClass() == min.getClass();
+   }
+
+   // The estimated fraction of records whose value is at most c.
+   private double atMost(Constant c) {
+      if (c.compareTo(min) < 0)
+         return 0.0;
+      if (c.compareTo(max) >= 0)
+         return 1.0;
+      int before = 0, i = 0;
+      while (i < bounds.length - 1 && bounds[i].compareTo(c) < 0)
+         before += counts[i++];
+      Constant lower = (i == 0) ? min : bounds[i-1];
+      return (before + counts[i] * within(lower, bounds[i], c)) / total();
+   }
+
+   // The estimated fraction of records whose value is less than c.
+   private double below(Constant c) {
+      return Math.max(0.0, atMost(c) - equal(c));
+   }
+
+   // The estimated fraction of records whose value is c.
+   private double equal(Constant c) {
+      if (c.compareTo(min) < 0 || c.compareTo(max) > 0)
+         return 0.0;
+      int boundrecs = 0;
+      for (int i=0; i<bounds.length; i++) {
+         if (bounds[i].equals(c))
+            return boundcounts[i] / total();
+         boundrecs += boundcounts[i];
+      }
+      int others = Math.max(1, distinct - bounds.length);
+      return Math.max(0.0, 1.0 - boundrecs / total()) / others;
+   }
+
+   private double total() {
+      int total = 0;
+      for (int count : counts)
+         total += count;
+      return Math.max(1, total);
+   }
+
+   // The estimated fraction of a bucket's records that are at most c,
+   // where lower <= c <= upper.
+   private static double within(Constant lower, Constant upper, Constant c) {
+      if (c.compareTo(upper) >= 0)
+         return 1.0;
+      if (!(c instanceof IntConstant))
+         return 0.5;
+      double lo = (Integer) lower.asJavaVal(), hi = (Integer) upper.asJavaVal();
+      double val = (Integer) c.asJavaVal();
+      return (val - lo) / (hi - lo);
+   }
+}
@@ -4,10 +4,14 @@ import static java.sql.Types.INTEGER;
 import static simpledb.file.Page.BLOCK_SIZE;
 
 import simpledb.index.exhash.ExHashIndex;
+import simpledb.index.linhash.LinHashIndex;
 import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
+import simpledb.query.*;
+import java.util.*;
 import simpledb.index.Index;
+import simpledb.index.IndexKey;
 import simpledb.index.hash.HashIndex; 
 import simpledb.index.btree.BTreeIndex; //in case we change to btree indexing
 
@@ -22,7 +26,9 @@ import simpledb.index.btree.BTreeIndex; //in case we change to btree indexing
  */
 public class IndexInfo {
    //CS4432: Added index type field
-   private String idxtype, idxname, fldname;
+   private String idxtype, idxname;
+   private List<String> fldnames;
+   private int numbuckets;
    private Transaction tx;
    private TableInfo ti;
    private StatInfo si;
@@ -37,15 +43,60 @@ public class IndexInfo {
     */
    public IndexInfo(String idxtype, String idxname, String tblname, String fldname,
                     Transaction tx) {
+      this(idxtype, idxname, tblname, Arrays.asList(fldname), tx);
+   }
+   
+   /**
+    * Creates an IndexInfo object for the specified
+    * (possibly multi-column) index.
+    * @param idxtype the type of the index
+    * @param idxname the name of the index
+    * @param tblname the name of the table
+    * @param fldnames the names of the indexed fields, in key order
+    * @param tx the calling transaction
+    */
+   public IndexInfo(String idxtype, String idxname, String tblname, List<String> fldnames,
+                    Transaction tx) {
+      this(idxtype, idxname, tblname, fldnames, HashIndex.NUM_BUCKETS, tx);
+   }
+   
+   /**
+    * Creates an IndexInfo object for the specified index,
+    * which (if it is a static hash index) has the
+    * specified number of buckets.
+    * @param idxtype the type of the index
+    * @param idxname the name of the index
+    * @param tblname the name of the table
+    * @param fldnames the names of the indexed fields, in key order
+    * @param numbuckets the number of buckets of a static hash index
+    * @param tx the calling transaction
+    */
+   public IndexInfo(String idxtype, String idxname, String tblname, List<String> fldnames,
+                    int numbuckets, Transaction tx) {
       //CS4432: Set index type field
       this.idxtype = idxtype;
       this.idxname = idxname;
-      this.fldname = fldname;
+      this.fldnames = fldnames;
+      this.numbuckets = numbuckets;
       this.tx = tx;
       ti = SimpleDB.mdMgr().getTableInfo(tblname, tx);
       si = SimpleDB.mdMgr().getStatInfo(tblname, ti, tx);
    }
    
+   /**
+    * CS4432: Creates a copy of the specified IndexInfo object
+    * for use by the specified transaction, with the current
+    * statistics of the table.
+    * The metadata manager caches the IndexInfo objects of each
+    * table, and gives each transaction copies of them;
+    * a cached query plan copies those of its index plans.
+    * @param ii the information about the index
+    * @param tx the calling transaction
+    */
+   public IndexInfo(IndexInfo ii, Transaction tx) {
+      this(ii.idxtype, ii.idxname, ii.ti.tableName(), ii.fldnames, ii.numbuckets, tx);
+   }
+   
    /**
     * Opens the index described by this object.
     * @return the Index object associated with this information
@@ -56,11 +107,13 @@ public class IndexInfo {
       try {
          // CS4432: Create index of correct type
          if(idxtype.equals("sh")){
-            return new HashIndex(idxname,sch, tx);
+            return new HashIndex(idxname, sch, numbuckets, tx);
          } else if (idxtype.equals("bt")){
             return new BTreeIndex(idxname, sch, tx);
          } else if (idxtype.equals("eh")){
             return new ExHashIndex(idxname, sch, tx);
+         } else if (idxtype.equals("lh")){
+            return new LinHashIndex(idxname, sch, tx);
          } else {
             throw new Exception("Not valid index type");
          }
@@ -90,11 +143,13 @@ public class IndexInfo {
       try {
          // CS4432: Return I/O cost of the correct type
          if(idxtype.equals("sh")){
-            return HashIndex.searchCost(numblocks, rpb);
+            return HashIndex.searchCost(numblocks, rpb, numbuckets);
          } else if (idxtype.equals("bt")){
             return BTreeIndex.searchCost(numblocks, rpb);
          } else if (idxtype.equals("eh")){
             return ExHashIndex.searchCost(numblocks, rpb);
+         } else if (idxtype.equals("lh")){
+            return LinHashIndex.searchCost(numblocks, rpb);
          } else {
             throw new Exception("Not valid index type");
          }
@@ -105,6 +160,160 @@ public class IndexInfo {
       }
    }
    
+   /**
+    * Estimates the number of block accesses required to
+    * scan the index records of a B-tree range.
+    * The cost is the traversal cost to the first leaf,
+    * plus the number of additional leaf blocks
+    * needed to hold the matching index records.
+    * @param matches the estimated number of index records in the range
+    * @return the number of block accesses required to scan the range
+    */
+   public int rangeBlocksAccessed(int matches) {
+      TableInfo idxti = new TableInfo("", schema());
+      int rpb = BLOCK_SIZE / idxti.recordLength();
+      return blocksAccessed() + matches / rpb;
+   }
+   
+   /**
+    * Estimates the number of records whose indexed field
+    * lies in the specified range.
+    * Without finer statistics, an equality range is
+    * estimated as for a search key, a range bounded on one side
+    * is assumed to select a third of the records, and a range
+    * bounded on both sides a quarter of them.
+    * CS4432: For a composite key, the fraction applies to the
+    * records having the prefix that both endpoints share, and
+    * an endpoint that is only that prefix does not bound the range.
+    * The fraction is that of the range on the next field of the key,
+    * which is estimated from the field's histogram
+    * if the table has been analyzed.
+    * @param range the range of search keys
+    * @return the estimated number of records in the range
+    */
+   public int rangeRecordsOutput(ConstantRange range) {
+      int numrecs = si.recordsOutput();
+      if (range.isUnbounded())
+         return numrecs;
+      else if (range.isSingleton() && range.low() instanceof CompositeConstant)
+         return prefixRecordsOutput(((CompositeConstant) range.low()).size());
+      else if (range.isSingleton())
+         return recordsOutput();
+      int prefix = commonPrefix(range.low(), range.high());
+      if (prefix > 0)
+         numrecs = prefixRecordsOutput(prefix);
+      Constant lo = component(range.low(), prefix);
+      Constant hi = component(range.high(), prefix);
+      if (lo == null && hi == null)
+         return numrecs;
+      ConstantRange fldrange = new ConstantRange(lo, range.lowInclusive(), hi, range.highInclusive());
+      return numrecs / si.rangeReductionFactor(fldnames.get(prefix), fldrange);
+   }
+   
+   // The i-th field of a search key, or null if the key has no such field.
+   private static Constant component(Constant key, int i) {
+      if (keySize(key) <= i)
+         return null;
+      else if (key instanceof CompositeConstant)
+         return ((CompositeConstant) key).get(i);
+      else
+         return key;
+   }
+   
+   // The number of fields in a search key (0 for a missing endpoint).
+   private static int keySize(Constant key) {
+      if (key == null)
+         return 0;
+      else if (key instanceof CompositeConstant)
+         return ((CompositeConstant) key).size();
+      else
+         return 1;
+   }
+   
+   // The number of leading fields that two composite keys both contain and agree on.
+   private static int commonPrefix(Constant k1, Constant k2) {
+      if (!(k1 instanceof CompositeConstant) || !(k2 instanceof CompositeConstant))
+         return 0;
+      CompositeConstant c1 = (CompositeConstant) k1, c2 = (CompositeConstant) k2;
+      int n = 0;
+      while (n < c1.size() && n < c2.size() && c1.get(n).equals(c2.get(n)))
+         n++;
+      return n;
+   }
+   
+   /**
+    * Returns true if the index records contain all of the
+    * specified fields, so that a query needing only those
+    * fields can be answered from the index alone.
+    * @param fields the names of the needed fields
+    * @return true if the index covers the fields
+    */
+   public boolean covers(Collection<String> fields) {
+      return fldnames.containsAll(fields);
+   }
+   
+   /**
+    * CS4432: Returns the name of the index.
+    * @return the index name
+    */
+   public String indexName() {
+      return idxname;
+   }
+   
+   /**
+    * Returns the type of the index
+    * ("sh", "bt", "eh" or "lh").
+    * @return the index type
+    */
+   public String indexType() {
+      return idxtype;
+   }
+   
+   /**
+    * Returns the name of the indexed field.
+    * For a multi-column index, this is the leading field.
+    * @return the name of the indexed field
+    */
+   public String fieldName() {
+      return fldnames.get(0);
+   }
+   
+   /**
+    * Returns the names of the indexed fields, in key order.
+    * @return the names of the indexed fields
+    */
+   public List<String> fieldNames() {
+      return fldnames;
+   }
+   
+   /**
+    * Creates a search key from the specified constants,
+    * which are values for the leading fields of the index.
+    * The key of a multi-column index is always composite,
+    * even if only its first field is given.
+    * @param vals the values of the leading key fields
+    * @return the search key
+    */
+   public Constant makeKey(List<Constant> vals) {
+      if (fldnames.size() == 1)
+         return vals.get(0);
+      else
+         return new CompositeConstant(vals);
+   }
+   
+   /**
+    * Returns the key of the current record of the specified 
+    * scan of the indexed table.
+    * @param s a scan of the indexed table
+    * @return the index key of the current record
+    */
+   public Constant keyOf(Scan s) {
+      List<Constant> vals = new ArrayList<Constant>();
+      for (String fname : fldnames)
+         vals.add(s.getVal(fname));
+      return makeKey(vals);
+   }
+   
    /**
     * Returns the estimated number of records having a
     * search key.  This value is the same as doing a select
@@ -113,19 +322,36 @@ public class IndexInfo {
     * @return the estimated number of records having a search key
     */
    public int recordsOutput() {
-      return si.recordsOutput() / si.distinctValues(fldname);
+      return prefixRecordsOutput(fldnames.size());
+   }
+   
+   /**
+    * Returns the estimated number of records having 
+    * given values for the leading fields of the key.
+    * The fields are assumed to be independent, so the
+    * number of distinct prefixes is the product of
+    * the fields' distinct values (but at most the number of records).
+    * @param n the number of leading key fields
+    * @return the estimated number of records having a key prefix
+    */
+   public int prefixRecordsOutput(int n) {
+      int numrecs = si.recordsOutput();
+      long distinct = 1;
+      for (int i=0; i<n; i++)
+         distinct = Math.min(distinct * si.distinctValues(fldnames.get(i)), Math.max(numrecs, 1));
+      return (int) (numrecs / distinct);
    }
    
    /** 
     * Returns the distinct values for a specified field 
-    * in the underlying table, or 1 for the indexed field.
+    * in the underlying table, or 1 for an indexed field.
     * @param fname the specified field
     */
    public int distinctValues(String fname) {
-      if (fldname.equals(fname))
+      if (fldnames.contains(fname))
          return 1;
       else 
-         return Math.min(si.distinctValues(fldname), recordsOutput());
+         return Math.min(si.distinctValues(fname), recordsOutput());
    }
    
    /**
@@ -133,7 +359,9 @@ public class IndexInfo {
     * The schema consists of the dataRID (which is
     * represented as two integers, the block number and the
     * record ID) and the dataval (which is the indexed field).
-    * Schema information about the indexed field is obtained
+    * A multi-column index has one dataval field per indexed field,
+    * named as described in {@link IndexKey}.
+    * Schema information about the indexed fields is obtained
     * via the table's metadata.
     * @return the schema of the index records
     */
@@ -141,11 +369,15 @@ public class IndexInfo {
       Schema sch = new Schema();
       sch.addIntField("block");
       sch.addIntField("id");
-      if (ti.schema().type(fldname) == INTEGER)
-         sch.addIntField("dataval");
-      else {
-         int fldlen = ti.schema().length(fldname);
-         sch.addStringField("dataval", fldlen);
+      for (int i=0; i<fldnames.size(); i++) {
+         String fldname = fldnames.get(i);
+         String keyfld = IndexKey.fieldName(i);
+         if (ti.schema().type(fldname) == INTEGER)
+            sch.addIntField(keyfld);
+         else {
+            int fldlen = ti.schema().length(fldname);
+            sch.addStringField(keyfld, fldlen);
+         }
       }
       return sch;
    }
@@ -1,6 +1,7 @@
 package simpledb.metadata;
 
 import static simpledb.metadata.TableMgr.MAX_NAME;
+import simpledb.index.hash.HashIndex;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import java.util.*;
@@ -17,6 +18,11 @@ public class IndexMgr {
     * Creates the index manager.
     * This constructor is called during system startup.
     * If the database is new, then the <i>idxcat</i> table is created.
+    * The table has one record per indexed field; the
+    * <i>fieldpos</i> field gives the position of the field
+    * within the key of a multi-column index, and the
+    * <i>buckets</i> field gives the number of buckets
+    * of a static hash index (and is 0 for other index types).
     * @param isnew indicates whether this is a new database
     * @param tx the system startup transaction
     */
@@ -27,6 +33,8 @@ public class IndexMgr {
          sch.addStringField("indexname", MAX_NAME);
          sch.addStringField("tablename", MAX_NAME);
          sch.addStringField("fieldname", MAX_NAME);
+         sch.addIntField("fieldpos");
+         sch.addIntField("buckets");
          tblmgr.createTable("idxcat", sch, tx);
       }
       ti = tblmgr.getTableInfo("idxcat", tx);
@@ -43,13 +51,51 @@ public class IndexMgr {
     * @param tx the calling transaction
     */
    public void createIndex(String idxtype, String idxname, String tblname, String fldname, Transaction tx) {
+      createIndex(idxtype, idxname, tblname, Arrays.asList(fldname), tx);
+   }
+   
+   /**
+    * Creates an index of the specified type on the specified fields.
+    * One record per field is stored in the idxcat table.
+    * @param idxtype the type of the index
+    * @param idxname the name of the index
+    * @param tblname the name of the indexed table
+    * @param fldnames the names of the indexed fields, in key order
+    * @param tx the calling transaction
+    */
+   public void createIndex(String idxtype, String idxname, String tblname, List<String> fldnames, Transaction tx) {
+      createIndex(idxtype, idxname, tblname, fldnames, 0, tx);
+   }
+   
+   /**
+    * Creates an index of the specified type on the specified fields,
+    * having the specified number of buckets.
+    * The number of buckets applies only to static hash indexes;
+    * if it is 0, the default number is used.
+    * @param idxtype the type of the index
+    * @param idxname the name of the index
+    * @param tblname the name of the indexed table
+    * @param fldnames the names of the indexed fields, in key order
+    * @param numbuckets the number of buckets, or 0 for the default
+    * @param tx the calling transaction
+    */
+   public void createIndex(String idxtype, String idxname, String tblname, List<String> fldnames,
+                           int numbuckets, Transaction tx) {
+      if (!idxtype.equals("sh"))
+         numbuckets = 0;
+      else if (numbuckets <= 0)
+         numbuckets = HashIndex.NUM_BUCKETS;
       RecordFile rf = new RecordFile(ti, tx);
-      rf.insert();
-      //CS4432: IndexType is set to the given index type
-      rf.setString("indextype", idxtype);
-      rf.setString("indexname", idxname);
-      rf.setString("tablename", tblname);
-      rf.setString("fieldname", fldname);
+      for (int pos=0; pos<fldnames.size(); pos++) {
+         rf.insert();
+         //CS4432: IndexType is set to the given index type
+         rf.setString("indextype", idxtype);
+         rf.setString("indexname", idxname);
+         rf.setString("tablename", tblname);
+         rf.setString("fieldname", fldnames.get(pos));
+         rf.setInt("fieldpos", pos);
+         rf.setInt("buckets", numbuckets);
+      }
       rf.close();
    }
    
@@ -58,22 +104,33 @@ public class IndexMgr {
     * on the specified table.
     * @param tblname the name of the table
     * @param tx the calling transaction
-    * @return a map of IndexInfo objects, keyed by their field names
+    * @return a map of IndexInfo objects, keyed by their index names
     */
    public Map<String,IndexInfo> getIndexInfo(String tblname, Transaction tx) {
-      Map<String,IndexInfo> result = new HashMap<String,IndexInfo>();
+      Map<String,String> types = new HashMap<String,String>();
+      Map<String,Integer> buckets = new HashMap<String,Integer>();
+      Map<String,SortedMap<Integer,String>> fields = new HashMap<String,SortedMap<Integer,String>>();
       RecordFile rf = new RecordFile(ti, tx);
       while (rf.next())
          if (rf.getString("tablename").equals(tblname)) {
          //CS4432: Retrieve index type from stored rf
-         String idxtype = rf.getString("indextype");
          String idxname = rf.getString("indexname");
-         String fldname = rf.getString("fieldname");
-         //CS4432: Added index type to the Index Info
-         IndexInfo ii = new IndexInfo(idxtype, idxname, tblname, fldname, tx);
-         result.put(fldname, ii);
+         types.put(idxname, rf.getString("indextype"));
+         buckets.put(idxname, rf.getInt("buckets"));
+         if (!fields.containsKey(idxname))
+            fields.put(idxname, new TreeMap<Integer,String>());
+         fields.get(idxname).put(rf.getInt("fieldpos"), rf.getString("fieldname"));
       }
       rf.close();
+      
+      Map<String,IndexInfo> result = new HashMap<String,IndexInfo>();
+      for (String idxname : types.keySet()) {
+         List<String> fldnames = new ArrayList<String>(fields.get(idxname).values());
+         //CS4432: Added index type to the Index Info
+         IndexInfo ii = new IndexInfo(types.get(idxname), idxname, tblname, fldnames,
+                                     buckets.get(idxname), tx);
+         result.put(idxname, ii);
+      }
       return result;
    }
 }
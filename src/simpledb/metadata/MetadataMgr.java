@@ -2,6 +2,8 @@ package simpledb.metadata;
 
 import simpledb.tx.Transaction;
 import simpledb.record.*;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class MetadataMgr {
@@ -9,53 +11,118 @@ public class MetadataMgr {
    private static ViewMgr   viewmgr;
    private static StatMgr   statmgr;
    private static IndexMgr  idxmgr;
+   //CS4432: Tables, views and indexes looked up in the catalog are cached here.
+   //A change to the catalog removes the entries it affects until the changing
+   //transaction ends, and then increases the catalog version (see CatalogCache).
+   private static CatalogCache cache;
    
    public MetadataMgr(boolean isnew, Transaction tx) {
+      if (statmgr != null)
+         statmgr.stopRefresh();  //CS4432: the old manager's thread must not outlive it
       tblmgr  = new TableMgr(isnew, tx);
       viewmgr = new ViewMgr(isnew, tblmgr, tx);
       statmgr = new StatMgr(tblmgr, tx);
       idxmgr  = new IndexMgr(isnew, tblmgr, tx);
+      cache   = new CatalogCache();
    }
    
    public void createTable(String tblname, Schema sch, Transaction tx) {
+      cache.modify("table " + tblname, tx);
       tblmgr.createTable(tblname, sch, tx);
-   }
-
-   /**
-    * CS4432: Update the sorted field on file for the existing TableInfo
-    */
-   public void updateTableInfo(String tblname, TableInfo info, Transaction tx) {
-      tblmgr.updateTableInfo(tblname, info, tx);
+      statmgr.tableCreated(tblname);//CS4432: start counting the new table's records
    }
    
    public TableInfo getTableInfo(String tblname, Transaction tx) {
-      return tblmgr.getTableInfo(tblname, tx);
+      String key = "table " + tblname;
+      int version = cache.version();
+      Object ti = cache.get(key);
+      if (ti == CatalogCache.MISSING) {
+         ti = tblmgr.getTableInfo(tblname, tx);
+         cache.put(key, ti, version);
+      }
+      return (TableInfo) ti;
    }
    
    public void createView(String viewname, String viewdef, Transaction tx) {
+      cache.modify("view " + viewname, tx);
       viewmgr.createView(viewname, viewdef, tx);
    }
    
    public String getViewDef(String viewname, Transaction tx) {
-      return viewmgr.getViewDef(viewname, tx);
+      String key = "view " + viewname;
+      int version = cache.version();
+      Object viewdef = cache.get(key);
+      if (viewdef == CatalogCache.MISSING) {
+         viewdef = viewmgr.getViewDef(viewname, tx);
+         cache.put(key, viewdef, version);
+      }
+      return (String) viewdef;
    }
 
    //CS4432: Overloaded create index to take the index type and give it to the createIndex called
    public void createIndex(String idxtype, String idxname, String tblname, String fldname, Transaction tx) {
+      cache.modify("index " + tblname, tx);
       idxmgr.createIndex(idxtype, idxname, tblname, fldname, tx);
    }
 
+   public void createIndex(String idxtype, String idxname, String tblname, List<String> fldnames, Transaction tx) {
+      cache.modify("index " + tblname, tx);
+      idxmgr.createIndex(idxtype, idxname, tblname, fldnames, tx);
+   }
+
+   public void createIndex(String idxtype, String idxname, String tblname, List<String> fldnames,
+                           int numbuckets, Transaction tx) {
+      cache.modify("index " + tblname, tx);
+      idxmgr.createIndex(idxtype, idxname, tblname, fldnames, numbuckets, tx);
+   }
+
    //CS4432: Since idxmgr.createIndex now requires an index type, if no index type is given, the default is a static hash
    //Not called since the UpdatePlanner was change, but would be necessary if the BasicUpdatePlanner was used again
    public void createIndex(String idxname, String tblname, String fldname, Transaction tx) {
+      cache.modify("index " + tblname, tx);
       idxmgr.createIndex("sh", idxname, tblname, fldname, tx);
    }
    
+   //CS4432: The cached IndexInfo objects are copied for the calling transaction
+   @SuppressWarnings("unchecked")
    public Map<String,IndexInfo> getIndexInfo(String tblname, Transaction tx) {
-      return idxmgr.getIndexInfo(tblname, tx);
+      String key = "index " + tblname;
+      int version = cache.version();
+      Object cached = cache.get(key);
+      if (cached == CatalogCache.MISSING) {
+         Map<String,IndexInfo> indexes = idxmgr.getIndexInfo(tblname, tx);
+         cache.put(key, indexes, version);
+         cached = indexes;
+      }
+      Map<String,IndexInfo> result = new HashMap<String,IndexInfo>();
+      for (Map.Entry<String,IndexInfo> e : ((Map<String,IndexInfo>) cached).entrySet())
+         result.put(e.getKey(), new IndexInfo(e.getValue(), tx));
+      return result;
    }
    
    public StatInfo getStatInfo(String tblname, TableInfo ti, Transaction tx) {
       return statmgr.getStatInfo(tblname, ti, tx);
    }
+   
+   //CS4432: Called when a transaction commits, for each table scan of it that inserted
+   //or deleted records, so that the record and block counts of the table stay current
+   //without reading it.
+   public void countChanges(TableInfo ti, int inserted, int deleted) {
+      statmgr.countChanges(ti, inserted, deleted);
+   }
+   
+   //CS4432: The version of the catalog, which increases whenever a transaction
+   //that created a table, view or index commits or rolls back, and whenever
+   //new statistics are installed.  It is -1 while such a transaction is running,
+   //since what the catalog holds then depends on which transaction reads it.
+   public int catalogVersion() {
+      if (cache.isChanging())
+         return -1;
+      return cache.version() + statmgr.version();
+   }
+   
+   //CS4432: Computes and saves the field statistics of the table (or of every table, if null)
+   public int analyze(String tblname, Transaction tx) {
+      return statmgr.analyze(tblname, tx);
+   }
 }
@@ -1,14 +1,20 @@
 package simpledb.metadata;
 
+import simpledb.query.*;
+import java.util.*;
+
 /**
  * Holds three pieces of statistical information about a table:
  * the number of blocks, the number of records,
  * and the number of distinct values for each field. 
+ * CS4432: If the table has been analyzed, the object also
+ * holds the statistics of each field (see {@link ColumnStats}).
  * @author Edward Sciore
  */
 public class StatInfo {
    private int numBlocks;
    private int numRecs;
+   private Map<String,ColumnStats> colstats;
    
    /**
     * Creates a StatInfo object.
@@ -19,8 +25,19 @@ public class StatInfo {
     * @param numrecs the number of records in the table
     */
    public StatInfo(int numblocks, int numrecs) {
+      this(numblocks, numrecs, new HashMap<String,ColumnStats>());
+   }
+   
+   /**
+    * CS4432: Creates a StatInfo object for an analyzed table.
+    * @param numblocks the number of blocks in the table
+    * @param numrecs the number of records in the table
+    * @param colstats the statistics of the table's fields
+    */
+   public StatInfo(int numblocks, int numrecs, Map<String,ColumnStats> colstats) {
       this.numBlocks = numblocks;
       this.numRecs   = numrecs;
+      this.colstats  = colstats;
    }
    
    /**
@@ -42,11 +59,65 @@ public class StatInfo {
    /**
     * Returns the estimated number of distinct values
     * for the specified field.
-    * In actuality, this estimate is a complete guess.
+    * CS4432: If the table has been analyzed, the estimate is
+    * the number of distinct values found then (but not more
+    * than the current number of records).
+    * Otherwise, this estimate is a complete guess.
     * @param fldname the name of the field
     * @return a guess as to the number of distinct field values
     */
    public int distinctValues(String fldname) {
-      return 1 + (numRecs / 3);
+      ColumnStats cs = colstats.get(fldname);
+      if (cs == null)
+         return 1 + (numRecs / 3);
+      return Math.max(1, Math.min(cs.distinctValues(), numRecs));
+   }
+   
+   /**
+    * CS4432: Returns the statistics of the specified field,
+    * or null if the table has not been analyzed.
+    * @param fldname the name of the field
+    * @return the statistics of the field, or null
+    */
+   public ColumnStats columnStats(String fldname) {
+      return colstats.get(fldname);
+   }
+   
+   /**
+    * CS4432: Returns the extent to which restricting the
+    * specified field to the specified range reduces the
+    * number of records in the table.
+    * If the table has been analyzed, the fraction of records
+    * in the range is estimated from the field's histogram;
+    * otherwise, a range bounded at one end is assumed
+    * to keep a third of the records, and one bounded
+    * at both ends a quarter of them.
+    * @param fldname the name of the field
+    * @param range the range of values of the field
+    * @return the estimated reduction factor
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (range.isUnbounded())
+         return 1;
+      if (range.isEmpty())
+         return Integer.MAX_VALUE;
+      ColumnStats cs = colstats.get(fldname);
+      if (cs != null && comparable(cs, range)) {
+         double fraction = cs.fraction(range);
+         if (fraction * numRecs < 1.0)
+            return Math.max(1, numRecs);
+         return Math.max(1, (int) Math.round(1.0 / fraction));
+      }
+      if (range.isSingleton())
+         return distinctValues(fldname);
+      else if (range.low() == null || range.high() == null)
+         return 3;
+      else
+         return 4;
+   }
+   
+   private static boolean comparable(ColumnStats cs, ConstantRange range) {
+      return (range.low() == null || cs.isComparable(range.low()))
+            && (range.high() == null || cs.isComparable(range.high()));
    }
 }
@@ -1,5 +1,11 @@
 package simpledb.metadata;
 
+import static java.sql.Types.INTEGER;
+import static simpledb.metadata.TableMgr.MAX_NAME;
+import simpledb.file.Block;
+import simpledb.server.SimpleDB;
+import simpledb.materialize.HyperLogLog;
+import simpledb.query.*;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import java.util.*;
@@ -10,66 +16,683 @@ import java.util.*;
  * The manager does not store this information in the database.
  * Instead, it calculates this information on system startup,
  * and periodically refreshes it.
+ * <p>
+ * CS4432: The number of records and blocks of each table
+ * are counted on system startup, and are then kept up to date
+ * by the table scans of the planner, which count the records they
+ * insert and delete and report them when their transaction commits
+ * (see {@link MetadataMgr#countChanges}); the changes of a transaction
+ * that rolls back are never counted.
+ * Asking for the statistics of a table therefore never reads it.
+ * The changes that the metadata managers make to the catalog
+ * tables are not counted, so their counts may drift until the
+ * system restarts.
+ * <p>
+ * The statistics of each field of a table
+ * (see {@link ColumnStats}) are computed when the table
+ * is analyzed, and are stored in two catalog tables:
+ * <i>colstatcat</i> has one record per field, and
+ * <i>histcat</i> has one record per bucket of a field's histogram.
+ * They are read on system startup.  Once enough of an analyzed
+ * table's records have been inserted or deleted, a background
+ * thread recomputes its statistics from a sample of its blocks.
  * @author Edward Sciore
  */
 class StatMgr {
+   /**
+    * CS4432: The number of buckets in the histogram of a field.
+    */
+   public static final int NUM_BUCKETS = 20;
+   
+   /**
+    * CS4432: The maximum number of records from which
+    * the histograms of a table are built.
+    * A larger table is sampled.
+    */
+   public static final int SAMPLE_SIZE = 10000;
+   
+   /**
+    * CS4432: The maximum number of characters of a string
+    * value that is stored as a minimum, maximum or bucket bound.
+    */
+   public static final int MAX_STATVAL = 20;
+   
+   /**
+    * CS4432: The number of milliseconds between the
+    * background thread's checks for stale statistics.
+    */
+   public static final int REFRESH_INTERVAL = 5000;
+   
+   /**
+    * CS4432: The statistics of an analyzed table are refreshed
+    * once the number of records inserted or deleted since they
+    * were computed exceeds REFRESH_THRESHOLD plus REFRESH_FRACTION
+    * of the table's records.
+    */
+   public static final int REFRESH_THRESHOLD = 50;
+   public static final double REFRESH_FRACTION = 0.1;
+   
    private TableMgr tblMgr;
-   private Map<String,StatInfo> tablestats;
-   private int numcalls;
+   private Map<String,TableCounts> tablecounts;
+   private Map<String,Map<String,ColumnStats>> colstats;
+   private int version = 0;
+   private Thread refresher;
+   private boolean stopped = false;
    
    /**
     * Creates the statistics manager.
     * The initial statistics are calculated by
     * traversing the entire database.
+    * CS4432: The catalog tables for the field statistics
+    * are created if the database does not have them yet,
+    * and the background refresh thread is started.
     * @param tx the startup transaction
     */
    public StatMgr(TableMgr tblMgr, Transaction tx) {
       this.tblMgr = tblMgr;
-      refreshStatistics(tx);
+      if (tblMgr.getTableInfo("colstatcat", tx).recordLength() < 0)
+         createCatalog(tx);
+      colstats = loadColumnStats(tx);
+      countTables(tx);
+      refresher = new Thread(new Runnable() {
+         public void run() {
+            refreshLoop();
+         }
+      }, "statistics refresh");
+      refresher.setDaemon(true);
+      refresher.start();
+   }
+   
+   /**
+    * CS4432: Stops the background refresh thread, waiting for
+    * it to finish the refresh it may be doing.
+    * The metadata manager calls this when the system is
+    * initialized again, before replacing the statistics manager.
+    */
+   public void stopRefresh() {
+      synchronized (this) {
+         stopped = true;
+         notifyAll();
+      }
+      try {
+         refresher.join();
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
    }
    
    /**
     * Returns the statistical information about the specified table.
+    * CS4432: The information comes from the maintained counts;
+    * only a table that the manager has not seen before
+    * (such as a catalog table created after startup) is read.
     * @param tblname the name of the table
     * @param ti the table's metadata
     * @param tx the calling transaction
     * @return the statistical information about the table
     */
    public synchronized StatInfo getStatInfo(String tblname, TableInfo ti, Transaction tx) {
-      numcalls++;
-      if (numcalls > 100)
-         refreshStatistics(tx);
-      StatInfo si = tablestats.get(tblname);
-      if (si == null) {
-         si = calcTableStats(ti, tx);
-         tablestats.put(tblname, si);
+      TableCounts tc = tablecounts.get(tblname);
+      if (tc == null) {
+         tc = countTable(ti, tx);
+         tablecounts.put(tblname, tc);
+      }
+      return new StatInfo(tc.numblocks, tc.numrecs, columnStats(tblname));
+   }
+   
+   /**
+    * CS4432: Starts counting the records and blocks
+    * of a newly created table.
+    * @param tblname the name of the table
+    */
+   public synchronized void tableCreated(String tblname) {
+      tablecounts.put(tblname, new TableCounts(0, 0));
+   }
+   
+   /**
+    * CS4432: Adjusts the counts of the specified table by the
+    * changes of a committed transaction.  The number of blocks is
+    * read from the file, since blocks appended by a transaction
+    * remain even if it rolls back.
+    * Tables that the manager does not count are ignored.
+    * @param ti the table's metadata
+    * @param inserted the number of records inserted
+    * @param deleted the number of records deleted
+    */
+   public void countChanges(TableInfo ti, int inserted, int deleted) {
+      int numblocks = SimpleDB.fileMgr().size(ti.fileName());
+      synchronized (this) {
+         TableCounts tc = tablecounts.get(ti.tableName());
+         if (tc == null)
+            return;
+         tc.numrecs = Math.max(0, tc.numrecs + inserted - deleted);
+         tc.numblocks = Math.max(tc.numblocks, numblocks);
+         tc.changes += inserted + deleted;
       }
-      return si;
    }
    
-   private synchronized void refreshStatistics(Transaction tx) {
-      tablestats = new HashMap<String,StatInfo>();
-      numcalls = 0;
+   /**
+    * CS4432: Computes the statistics of each field of the
+    * specified table, or of every table if the name is null,
+    * and saves them in the catalog.
+    * Each table is read once: the distinct values of each field
+    * are counted with a HyperLogLog sketch, and the histograms are
+    * built from a random sample of at most SAMPLE_SIZE records.
+    * The tables are read without holding up the planning of
+    * other queries.
+    * The new statistics are used (and the plans cached under the
+    * old ones become stale) only once the transaction commits.
+    * @param tblname the name of the table, or null
+    * @param tx the calling transaction
+    * @return the number of records read
+    */
+   public int analyze(String tblname, Transaction tx) {
+      List<String> tblnames = new ArrayList<String>();
+      if (tblname != null)
+         tblnames.add(tblname);
+      else {
+         RecordFile tcatfile = new RecordFile(tblMgr.getTableInfo("tblcat", tx), tx);
+         while (tcatfile.next())
+            tblnames.add(tcatfile.getString("tblname"));
+         tcatfile.close();
+      }
+      int count = 0;
+      for (String name : tblnames) {
+         TableInfo ti = tblMgr.getTableInfo(name, tx);
+         if (ti.recordLength() < 0)
+            throw new RuntimeException("table " + name + " not found.");
+         count += analyzeTable(name, ti, tx);
+      }
+      return count;
+   }
+   
+   private void countTables(Transaction tx) {
+      tablecounts = new HashMap<String,TableCounts>();
       TableInfo tcatmd = tblMgr.getTableInfo("tblcat", tx);
       RecordFile tcatfile = new RecordFile(tcatmd, tx);
       while(tcatfile.next()) {
          String tblname = tcatfile.getString("tblname");
          TableInfo md = tblMgr.getTableInfo(tblname, tx);
-         StatInfo si = calcTableStats(md, tx);
-         tablestats.put(tblname, si);
+         tablecounts.put(tblname, countTable(md, tx));
       }
       tcatfile.close();
    }
    
-   private synchronized StatInfo calcTableStats(TableInfo ti, Transaction tx) {
+   private static TableCounts countTable(TableInfo ti, Transaction tx) {
       int numRecs = 0;
       RecordFile rf = new RecordFile(ti, tx);
-      int numblocks = 0;
-      while (rf.next()) {
+      while (rf.next())
          numRecs++;
-         numblocks = rf.currentRid().blockNumber() + 1;
+      rf.close();
+      return new TableCounts(tx.size(ti.fileName()), numRecs);
+   }
+   
+   /**
+    * CS4432: Returns the number of times that new statistics
+    * have been installed, by ANALYZE or by the refresh thread.
+    * @return the version of the statistics
+    */
+   public synchronized int version() {
+      return version;
+   }
+   
+   private synchronized Map<String,ColumnStats> columnStats(String tblname) {
+      Map<String,ColumnStats> result = colstats.get(tblname);
+      return (result == null) ? new HashMap<String,ColumnStats>() : result;
+   }
+   
+   // Returns a copy of the counts of a table, or null if it is not counted.
+   private synchronized TableCounts snapshot(String tblname) {
+      TableCounts tc = tablecounts.get(tblname);
+      if (tc == null)
+         return null;
+      TableCounts result = new TableCounts(tc.numblocks, tc.numrecs);
+      result.changes = tc.changes;
+      return result;
+   }
+   
+   // Installs the new statistics of a table once the transaction that
+   // saved them commits; they are discarded if it rolls back.
+   private void installOnCommit(final String tblname, final Map<String,ColumnStats> stats,
+                                final int numrecs, final TableCounts before, Transaction tx) {
+      tx.whenCommitted(new Runnable() {
+         public void run() {
+            install(tblname, stats, numrecs, before);
+         }
+      });
+   }
+   
+   // Installs the new statistics of a table, given its counts from
+   // before they were computed.  If its records were counted while
+   // computing them, and no records were inserted or deleted meanwhile,
+   // the count replaces the maintained one.  Changes made meanwhile
+   // are kept towards the next refresh.
+   private synchronized void install(String tblname, Map<String,ColumnStats> stats,
+                                     int numrecs, TableCounts before) {
+      colstats.put(tblname, stats);
+      version++;
+      TableCounts tc = tablecounts.get(tblname);
+      if (tc == null || before == null)
+         return;
+      if (numrecs >= 0 && tc.changes == before.changes)
+         tc.numrecs = numrecs;
+      tc.changes = Math.max(0, tc.changes - before.changes);
+   }
+   
+   private int analyzeTable(String tblname, TableInfo ti, Transaction tx) {
+      List<String> fields = new ArrayList<String>(ti.schema().fields());
+      int n = fields.size();
+      boolean[] isint = new boolean[n];
+      HyperLogLog[] sketches = new HyperLogLog[n];
+      Constant[] mins = new Constant[n], maxs = new Constant[n];
+      for (int i=0; i<n; i++) {
+         isint[i] = ti.schema().type(fields.get(i)) == INTEGER;
+         sketches[i] = new HyperLogLog();
+      }
+
+      // read the table, keeping a uniform sample of its records
+      TableCounts before = snapshot(tblname);
+      Constant[][] sample = new Constant[SAMPLE_SIZE][];
+      Random rand = new Random(tblname.hashCode());
+      int numrecs = 0;
+      RecordFile rf = new RecordFile(ti, tx);
+      while (rf.next()) {
+         numrecs++;
+         int slot = (numrecs <= SAMPLE_SIZE) ? numrecs - 1 : rand.nextInt(numrecs);
+         Constant[] row = new Constant[n];
+         for (int i=0; i<n; i++) {
+            Constant val;
+            if (isint[i]) {
+               int ival = rf.getInt(fields.get(i));
+               sketches[i].add(ival);
+               val = new IntConstant(ival);
+            }
+            else {
+               String sval = rf.getString(fields.get(i));
+               sketches[i].add(sval);
+               val = new StringConstant(sval);
+            }
+            if (mins[i] == null || val.compareTo(mins[i]) < 0)
+               mins[i] = val;
+            if (maxs[i] == null || val.compareTo(maxs[i]) > 0)
+               maxs[i] = val;
+            row[i] = val;
+         }
+         if (slot < SAMPLE_SIZE)
+            sample[slot] = row;
       }
       rf.close();
-      return new StatInfo(numblocks, numRecs);
+
+      int samplesize = Math.min(numrecs, SAMPLE_SIZE);
+      Map<String,ColumnStats> stats = new HashMap<String,ColumnStats>();
+      for (int i=0; i<n; i++) {
+         Constant[] vals = column(sample, samplesize, i);
+         int distinct = Math.min(sketches[i].estimate(), numrecs);
+         stats.put(fields.get(i), makeStats(numrecs, distinct, mins[i], maxs[i], vals));
+      }
+      saveColumnStats(tblname, ti.schema(), stats, tx);
+      installOnCommit(tblname, stats, numrecs, before, tx);
+      return numrecs;
+   }
+   
+   /**
+    * Runs in the background thread: every REFRESH_INTERVAL
+    * milliseconds, refreshes the statistics of each analyzed
+    * table that has changed enough since they were computed,
+    * until the refresh is stopped.
+    * Each refresh is a transaction of its own; if it cannot get
+    * its locks, it is rolled back and tried again later.
+    * The refresh reads each block of the table in a transaction
+    * of its own (see refreshTable), so it never holds up the users
+    * of the table for longer than it takes to read one block.
+    */
+   private void refreshLoop() {
+      while (waitForRefresh()) {
+         for (String tblname : staleTables()) {
+            if (isStopped())
+               return;
+            Transaction tx = new Transaction();
+            try {
+               refreshTable(tblname, tx);
+               tx.commit();
+            }
+            catch (RuntimeException e) {
+               tx.rollback();
+            }
+         }
+      }
+   }
+   
+   // Waits for the next refresh; returns false once the refresh is stopped.
+   private synchronized boolean waitForRefresh() {
+      try {
+         if (!stopped)
+            wait(REFRESH_INTERVAL);
+      }
+      catch (InterruptedException e) {
+         return false;
+      }
+      return !stopped;
+   }
+   
+   private synchronized boolean isStopped() {
+      return stopped;
+   }
+   
+   private synchronized List<String> staleTables() {
+      List<String> result = new ArrayList<String>();
+      for (String tblname : colstats.keySet()) {
+         TableCounts tc = tablecounts.get(tblname);
+         if (tc != null && tc.changes > REFRESH_THRESHOLD + REFRESH_FRACTION * tc.numrecs)
+            result.add(tblname);
+      }
+      return result;
+   }
+   
+   /**
+    * Recomputes the statistics of a table from a sample of its
+    * blocks, chosen at random so that they hold about SAMPLE_SIZE
+    * records; every record of a chosen block is sampled.
+    * The histograms are built from the sample as in analyzeTable.
+    * The number of distinct values is estimated with the GEE
+    * estimator: a value seen more than once in the sample counts
+    * once, and a value seen exactly once stands for sqrt(N/n)
+    * values of the table, where N is the number of records and
+    * n is the size of the sample.  The smallest and largest values
+    * are those of the sample, widened by the previous statistics.
+    * Each chosen block is read by a transaction of its own,
+    * which commits as soon as the block has been read,
+    * so the sample may mix the table's states from before and after
+    * a concurrent change, which is good enough for statistics.
+    */
+   private void refreshTable(String tblname, Transaction tx) {
+      TableInfo ti = tblMgr.getTableInfo(tblname, tx);
+      List<String> fields = new ArrayList<String>(ti.schema().fields());
+      int n = fields.size();
+      boolean[] isint = new boolean[n];
+      for (int i=0; i<n; i++)
+         isint[i] = ti.schema().type(fields.get(i)) == INTEGER;
+      TableCounts before = snapshot(tblname);
+      int numrecs = before.numrecs, numblocks = before.numblocks;
+      Map<String,ColumnStats> old = columnStats(tblname);
+
+      // choose the blocks in file order, each with equal probability
+      int perblock = Math.max(1, numrecs / Math.max(1, numblocks));
+      int wanted = Math.min(numblocks, (SAMPLE_SIZE + perblock - 1) / perblock);
+      // and read each one in its own transaction, holding no lock in between
+      Random rand = new Random();
+      List<Constant[]> sample = new ArrayList<Constant[]>();
+      int chosen = 0;
+      for (int b=0; b<numblocks && chosen<wanted; b++) {
+         if (rand.nextInt(numblocks - b) >= wanted - chosen)
+            continue;
+         chosen++;
+         Transaction btx = new Transaction();
+         try {
+            RecordPage rp = new RecordPage(new Block(ti.fileName(), b), ti, btx);
+            while (rp.next())
+               sample.add(readRecord(rp, fields, isint));
+            rp.close();
+            btx.commit();
+         }
+         catch (RuntimeException e) {
+            btx.rollback();
+            throw e;
+         }
+      }
+
+      int samplesize = sample.size();
+      boolean whole = (wanted == numblocks);
+      if (whole)
+         numrecs = samplesize;
+      Constant[][] rows = sample.toArray(new Constant[samplesize][]);
+      Map<String,ColumnStats> stats = new HashMap<String,ColumnStats>();
+      for (int i=0; i<n; i++) {
+         Constant[] vals = column(rows, samplesize, i);
+         Map<Constant,Integer> freqs = new HashMap<Constant,Integer>();
+         Constant min = null, max = null;
+         for (Constant val : vals) {
+            Integer f = freqs.get(val);
+            freqs.put(val, (f == null) ? 1 : f + 1);
+            if (min == null || val.compareTo(min) < 0)
+               min = val;
+            if (max == null || val.compareTo(max) > 0)
+               max = val;
+         }
+         int distinct = freqs.size();
+         ColumnStats prev = old.get(fields.get(i));
+         if (!whole) {
+            int once = 0;
+            for (int f : freqs.values())
+               if (f == 1)
+                  once++;
+            double scale = Math.sqrt((double) numrecs / Math.max(1, samplesize));
+            distinct = (int) Math.min(numrecs, Math.round(scale * once + distinct - once));
+            if (prev != null && prev.min() != null && min != null) {
+               if (prev.min().compareTo(min) < 0)
+                  min = prev.min();
+               if (prev.max().compareTo(max) > 0)
+                  max = prev.max();
+            }
+         }
+         stats.put(fields.get(i), makeStats(numrecs, distinct, min, max, vals));
+      }
+      saveColumnStats(tblname, ti.schema(), stats, tx);
+      installOnCommit(tblname, stats, whole ? numrecs : -1, before, tx);
+   }
+   
+   private static Constant[] readRecord(RecordPage rp, List<String> fields, boolean[] isint) {
+      Constant[] row = new Constant[fields.size()];
+      for (int i=0; i<row.length; i++) {
+         if (isint[i])
+            row[i] = new IntConstant(rp.getInt(fields.get(i)));
+         else
+            row[i] = new StringConstant(rp.getString(fields.get(i)));
+      }
+      return row;
+   }
+   
+   private static Constant[] column(Constant[][] rows, int count, int i) {
+      Constant[] vals = new Constant[count];
+      for (int j=0; j<count; j++)
+         vals[j] = rows[j][i];
+      return vals;
+   }
+   
+   /**
+    * Builds the equi-depth histogram of a field from a sample
+    * of its values.  Each bucket ends at the value found at the
+    * next multiple of samplesize/NUM_BUCKETS in sorted order, and
+    * takes in all copies of that value, so a frequent value can
+    * fill several buckets' worth of records by itself.
+    * The number of copies of each bound is recorded as well.
+    * The counts are scaled up to the size of the table.
+    */
+   private static ColumnStats makeStats(int numrecs, int distinct, Constant min,
+                                        Constant max, Constant[] vals) {
+      Arrays.sort(vals);
+      int m = vals.length;
+      double scale = (m == 0) ? 0.0 : (double) numrecs / m;
+      List<Constant> bounds = new ArrayList<Constant>();
+      List<Integer> counts = new ArrayList<Integer>();
+      List<Integer> boundcounts = new ArrayList<Integer>();
+      int prev = 0;
+      for (int b=1; b<=NUM_BUCKETS; b++) {
+         int end = (int) ((long) b * m / NUM_BUCKETS);
+         if (end <= prev)
+            continue;
+         Constant bound = vals[end-1];
+         int first = end - 1;
+         while (first > prev && vals[first-1].equals(bound))
+            first--;
+         while (end < m && vals[end].equals(bound))
+            end++;
+         bounds.add(bound);
+         counts.add((int) Math.round((end - prev) * scale));
+         boundcounts.add((int) Math.round((end - first) * scale));
+         prev = end;
+      }
+      return new ColumnStats(numrecs, distinct, 0, min, max,
+                             bounds.toArray(new Constant[bounds.size()]),
+                             toArray(counts), toArray(boundcounts));
+   }
+   
+   private void createCatalog(Transaction tx) {
+      Schema sch = new Schema();
+      sch.addStringField("tblname", MAX_NAME);
+      sch.addStringField("fldname", MAX_NAME);
+      sch.addIntField("type");
+      sch.addIntField("numrecs");
+      sch.addIntField("numdistinct");
+      sch.addIntField("numnulls");
+      sch.addIntField("minint");
+      sch.addIntField("maxint");
+      sch.addStringField("minstr", MAX_STATVAL);
+      sch.addStringField("maxstr", MAX_STATVAL);
+      tblMgr.createTable("colstatcat", sch, tx);
+
+      sch = new Schema();
+      sch.addStringField("tblname", MAX_NAME);
+      sch.addStringField("fldname", MAX_NAME);
+      sch.addIntField("bucket");
+      sch.addIntField("boundint");
+      sch.addStringField("boundstr", MAX_STATVAL);
+      sch.addIntField("numrecs");
+      sch.addIntField("boundrecs");
+      tblMgr.createTable("histcat", sch, tx);
+   }
+   
+   private void saveColumnStats(String tblname, Schema sch, Map<String,ColumnStats> stats,
+                                Transaction tx) {
+      RecordFile cfile = new RecordFile(tblMgr.getTableInfo("colstatcat", tx), tx);
+      deleteRecords(cfile, tblname);
+      RecordFile hfile = new RecordFile(tblMgr.getTableInfo("histcat", tx), tx);
+      deleteRecords(hfile, tblname);
+      for (String fldname : stats.keySet()) {
+         ColumnStats cs = stats.get(fldname);
+         cfile.insert();
+         cfile.setString("tblname", tblname);
+         cfile.setString("fldname", fldname);
+         cfile.setInt("type", sch.type(fldname));
+         cfile.setInt("numrecs", cs.recordsOutput());
+         cfile.setInt("numdistinct", cs.distinctValues());
+         cfile.setInt("numnulls", cs.nullCount());
+         if (cs.min() != null) {
+            setValue(cfile, "minint", "minstr", cs.min());
+            setValue(cfile, "maxint", "maxstr", cs.max());
+         }
+         Constant[] bounds = cs.bucketBounds();
+         for (int b=0; b<bounds.length; b++) {
+            hfile.insert();
+            hfile.setString("tblname", tblname);
+            hfile.setString("fldname", fldname);
+            hfile.setInt("bucket", b);
+            setValue(hfile, "boundint", "boundstr", bounds[b]);
+            hfile.setInt("numrecs", cs.bucketCounts()[b]);
+            hfile.setInt("boundrecs", cs.boundCounts()[b]);
+         }
+      }
+      cfile.close();
+      hfile.close();
+   }
+   
+   private Map<String,Map<String,ColumnStats>> loadColumnStats(Transaction tx) {
+      // read the buckets of each field, in bucket order
+      Map<String,SortedMap<Integer,Constant>> bounds = new HashMap<String,SortedMap<Integer,Constant>>();
+      Map<String,SortedMap<Integer,Integer>> counts = new HashMap<String,SortedMap<Integer,Integer>>();
+      Map<String,SortedMap<Integer,Integer>> boundcounts = new HashMap<String,SortedMap<Integer,Integer>>();
+      Map<String,Integer> types = new HashMap<String,Integer>();
+      RecordFile cfile = new RecordFile(tblMgr.getTableInfo("colstatcat", tx), tx);
+      while (cfile.next())
+         types.put(cfile.getString("tblname") + "." + cfile.getString("fldname"), cfile.getInt("type"));
+      RecordFile hfile = new RecordFile(tblMgr.getTableInfo("histcat", tx), tx);
+      while (hfile.next()) {
+         String key = hfile.getString("tblname") + "." + hfile.getString("fldname");
+         if (!bounds.containsKey(key)) {
+            bounds.put(key, new TreeMap<Integer,Constant>());
+            counts.put(key, new TreeMap<Integer,Integer>());
+            boundcounts.put(key, new TreeMap<Integer,Integer>());
+         }
+         int b = hfile.getInt("bucket");
+         bounds.get(key).put(b, getValue(hfile, "boundint", "boundstr", types.get(key)));
+         counts.get(key).put(b, hfile.getInt("numrecs"));
+         boundcounts.get(key).put(b, hfile.getInt("boundrecs"));
+      }
+      hfile.close();
+
+      Map<String,Map<String,ColumnStats>> result = new HashMap<String,Map<String,ColumnStats>>();
+      cfile.beforeFirst();
+      while (cfile.next()) {
+         String tblname = cfile.getString("tblname");
+         String fldname = cfile.getString("fldname");
+         String key = tblname + "." + fldname;
+         int type = cfile.getInt("type");
+         int numrecs = cfile.getInt("numrecs");
+         Constant min = null, max = null;
+         if (numrecs > 0) {
+            min = getValue(cfile, "minint", "minstr", type);
+            max = getValue(cfile, "maxint", "maxstr", type);
+         }
+         Collection<Constant> b = new ArrayList<Constant>();
+         List<Integer> c = new ArrayList<Integer>(), bc = new ArrayList<Integer>();
+         if (bounds.containsKey(key)) {
+            b = bounds.get(key).values();
+            c.addAll(counts.get(key).values());
+            bc.addAll(boundcounts.get(key).values());
+         }
+         ColumnStats cs = new ColumnStats(numrecs, cfile.getInt("numdistinct"),
+                                          cfile.getInt("numnulls"), min, max,
+                                          b.toArray(new Constant[b.size()]),
+                                          toArray(c), toArray(bc));
+         if (!result.containsKey(tblname))
+            result.put(tblname, new HashMap<String,ColumnStats>());
+         result.get(tblname).put(fldname, cs);
+      }
+      cfile.close();
+      return result;
+   }
+   
+   private static void deleteRecords(RecordFile rf, String tblname) {
+      while (rf.next())
+         if (rf.getString("tblname").equals(tblname))
+         rf.delete();
+      rf.beforeFirst();
+   }
+   
+   private static void setValue(RecordFile rf, String intfld, String strfld, Constant val) {
+      if (val instanceof IntConstant)
+         rf.setInt(intfld, (Integer) val.asJavaVal());
+      else {
+         String s = (String) val.asJavaVal();
+         rf.setString(strfld, s.length() > MAX_STATVAL ? s.substring(0, MAX_STATVAL) : s);
+      }
+   }
+   
+   private static Constant getValue(RecordFile rf, String intfld, String strfld, int type) {
+      if (type == INTEGER)
+         return new IntConstant(rf.getInt(intfld));
+      else
+         return new StringConstant(rf.getString(strfld));
+   }
+   
+   private static int[] toArray(List<Integer> list) {
+      int[] result = new int[list.size()];
+      for (int i=0; i<result.length; i++)
+         result[i] = list.get(i);
+      return result;
+   }
+   
+   /**
+    * The maintained counts of a table, and the number of
+    * records inserted or deleted since its statistics were computed.
+    */
+   private static class TableCounts {
+      int numblocks, numrecs, changes;
+      
+      TableCounts(int numblocks, int numrecs) {
+         this.numblocks = numblocks;
+         this.numrecs = numrecs;
+      }
    }
 }
@@ -5,20 +5,19 @@ import simpledb.tx.Transaction;
 
 class ViewMgr {
    private static final int MAX_VIEWDEF = 100;
-   TableMgr tblMgr;
+   private TableInfo ti; //CS4432: read once, as the index manager does for idxcat
    
    public ViewMgr(boolean isNew, TableMgr tblMgr, Transaction tx) {
-      this.tblMgr = tblMgr;
       if (isNew) {
          Schema sch = new Schema();
          sch.addStringField("viewname", TableMgr.MAX_NAME);
          sch.addStringField("viewdef", MAX_VIEWDEF);
          tblMgr.createTable("viewcat", sch, tx);
       }
+      ti = tblMgr.getTableInfo("viewcat", tx);
    }
    
    public void createView(String vname, String vdef, Transaction tx) {
-      TableInfo ti = tblMgr.getTableInfo("viewcat", tx);
       RecordFile rf = new RecordFile(ti, tx);
       rf.insert();
       rf.setString("viewname", vname);
@@ -28,7 +27,6 @@ class ViewMgr {
    
    public String getViewDef(String vname, Transaction tx) {
       String result = null;
-      TableInfo ti = tblMgr.getTableInfo("viewcat", tx);
       RecordFile rf = new RecordFile(ti, tx);
       while (rf.next())
          if (rf.getString("viewname").equals(vname)) {
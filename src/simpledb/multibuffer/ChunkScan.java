@@ -1,6 +1,7 @@
 package simpledb.multibuffer;
 
 import static java.sql.Types.INTEGER;
+import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.file.Block;
@@ -13,11 +14,16 @@ import java.util.List;
  * The class for the <i>chunk</i> operator.
  * @author Edward Sciore
  */
-public class ChunkScan implements Scan {
+public class ChunkScan implements Scan, BatchScan {
    private List<RecordPage> pages;
    private int startbnum, endbnum, current;
    private Schema sch;
    private RecordPage rp;
+   private List<String> fields;  //CS4432: the position of a field is its index in this list
+   private int[] offsets;
+   private boolean[] isint;
+   private int[] ids;  //CS4432: the records of a block that go into the batch
+   private Batch batch = null;  //CS4432: reused for every batch of the chunk
    
    /**
     * Creates a chunk consisting of the specified pages. 
@@ -31,6 +37,13 @@ public class ChunkScan implements Scan {
       this.startbnum = startbnum;
       this.endbnum   = endbnum;
       this.sch = ti.schema();
+      fields = new ArrayList<String>(sch.fields());
+      offsets = new int[fields.size()];
+      isint = new boolean[fields.size()];
+      for (int i=0; i<offsets.length; i++) {
+         offsets[i] = ti.offset(fields.get(i));
+         isint[i] = sch.type(fields.get(i)) == INTEGER;
+      }
       String filename = ti.fileName();
       for (int i=startbnum; i<=endbnum; i++) {
          Block blk = new Block(filename, i);
@@ -103,6 +116,73 @@ public class ChunkScan implements Scan {
       return sch.hasField(fldname);
    }
    
+   /**
+    * CS4432: Returns the position of the field in the table's schema.
+    * Every chunk of the same table uses the same positions.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      int pos = fields.indexOf(fldname);
+      if (pos < 0)
+         throw new RuntimeException("field " + fldname + " not found.");
+      return pos;
+   }
+   
+   public Constant getVal(int pos) {
+      if (isint[pos])
+         return new IntConstant(rp.getInt(offsets[pos]));
+      else
+         return new StringConstant(rp.getString(offsets[pos]));
+   }
+   
+   public int getInt(int pos) {
+      return rp.getInt(offsets[pos]);
+   }
+   
+   public String getString(int pos) {
+      return rp.getString(offsets[pos]);
+   }
+   
+   /**
+    * CS4432: Fills a batch with the next records of the chunk,
+    * whose columns are in the same order as the positions of the scan.
+    * The records are read a block at a time, one field at a time.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      if (batch == null) {
+         batch = new Batch(fields, isint, SimpleDB.BATCH_SIZE);
+         ids = new int[SimpleDB.BATCH_SIZE];
+      }
+      int count = nextRecords(ids.length, ids);
+      if (count == 0)
+         return null;
+      batch.clear();
+      do {
+         int row = batch.addRows(count);
+         for (int i=0; i<offsets.length; i++) {
+            if (isint[i])
+               rp.getInts(ids, count, offsets[i], batch.intColumn(i), row);
+            else
+               rp.getStrings(ids, count, offsets[i], batch.stringColumn(i), row);
+         }
+      } while (batch.remaining() > 0 && (count = nextRecords(batch.remaining(), ids)) > 0);
+      return batch;
+   }
+   
+   /**
+    * CS4432: Finds the next records of the current block of the chunk,
+    * moving to the next block that has records when needed.
+    */
+   private int nextRecords(int max, int[] ids) {
+      while (true) {
+         int count = rp.nextRecords(max, ids);
+         if (count > 0 || max == 0 || current == endbnum)
+            return count;
+         moveToBlock(current+1);
+      }
+   }
+   
    private void moveToBlock(int blknum) {
       current = blknum;
       rp = pages.get(current - startbnum);
@@ -5,6 +5,7 @@ import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.materialize.*;
 import simpledb.query.*;
+import java.util.*;
 
 /**
  * The Plan class for the muti-buffer version of the
@@ -48,6 +49,34 @@ public class MultiBufferProductPlan implements Plan {
       return new MultiBufferProductScan(leftscan, ti, tx);
    }
    
+   /**
+    * CS4432: Instantiates the two underlying plans.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newlhs = args.instantiate(lhs, tx);
+      Plan newrhs = args.instantiate(rhs, tx);
+      if (newlhs == null || newrhs == null)
+         return null;
+      return new MultiBufferProductPlan(newlhs, newrhs, tx);
+   }
+   
+   /**
+    * CS4432: The inputs are the LHS and RHS queries.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(lhs, rhs);
+   }
+   
+   /**
+    * CS4432: Describes the plan as a multi-buffer product.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "MultiBufferProduct";
+   }
+   
    /**
     * Returns an estimate of the number of block accesses
     * required to execute the query. The formula is:
@@ -63,8 +92,9 @@ public class MultiBufferProductPlan implements Plan {
       int avail = SimpleDB.bufferMgr().available();
       int size = new MaterializePlan(rhs, tx).blocksAccessed();
       int numchunks = size / avail;
-      return rhs.blocksAccessed() +
-         (lhs.blocksAccessed() * numchunks);
+      long blocks = rhs.blocksAccessed() +
+         ((long) lhs.blocksAccessed() * numchunks); //CS4432: avoid overflow
+      return (int) Math.min(Integer.MAX_VALUE, blocks);
    }
    
    /**
@@ -74,7 +104,7 @@ public class MultiBufferProductPlan implements Plan {
     * @see simpledb.query.Plan#recordsOutput()
     */
    public int recordsOutput() {
-      return lhs.recordsOutput() * rhs.recordsOutput();
+      return (int) Math.min(Integer.MAX_VALUE, (long) lhs.recordsOutput() * rhs.recordsOutput()); //CS4432: avoid overflow
    }
    
    /**
@@ -90,6 +120,18 @@ public class MultiBufferProductPlan implements Plan {
          return rhs.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field
+    * as in the appropriate underlying query, for the same reason.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (lhs.schema().hasField(fldname))
+         return lhs.rangeReductionFactor(fldname, range);
+      else
+         return rhs.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the product,
     * which is the union of the schemas of the underlying queries.
@@ -99,15 +141,25 @@ public class MultiBufferProductPlan implements Plan {
       return schema;
    }
    
+   /**
+    * CS4432: The product runs in batches if the LHS query does;
+    * the RHS records are read from its chunks, which can
+    * always be read in batches.
+    * @see simpledb.query.Plan#supportsBatches()
+    */
+   public boolean supportsBatches() {
+      return lhs.supportsBatches();
+   }
+   
    private TempTable copyRecordsFrom(Plan p) {
       Scan   src = p.open(); 
       Schema sch = p.schema();
       TempTable tt = new TempTable(sch, tx);
       UpdateScan dest = (UpdateScan) tt.open();
+      RecordCopier copier = new RecordCopier(sch, src, dest);  //CS4432
       while (src.next()) {
          dest.insert();
-         for (String fldname : sch.fields())
-            dest.setVal(fldname, src.getVal(fldname));
+         copier.copy(src, dest);
       }
       src.close();
       dest.close();
@@ -9,7 +9,7 @@ import simpledb.query.*;
  * <i>product</i> operator.
  * @author Edward Sciore
  */
-public class MultiBufferProductScan implements Scan {
+public class MultiBufferProductScan implements Scan, BatchScan {
    private Scan lhsscan, rhsscan=null, prodscan;
    private TableInfo ti;
    private Transaction tx;
@@ -104,6 +104,42 @@ public class MultiBufferProductScan implements Scan {
       return prodscan.hasField(fldname);
    }
    
+   /**
+    * CS4432: Returns the position of the field in the product scan.
+    * The product scan of each chunk assigns the same positions,
+    * so a position stays valid when the scan moves to the next chunk.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      return prodscan.fieldPos(fldname);
+   }
+   
+   public Constant getVal(int pos) {
+      return prodscan.getVal(pos);
+   }
+   
+   public int getInt(int pos) {
+      return prodscan.getInt(pos);
+   }
+   
+   public String getString(int pos) {
+      return prodscan.getString(pos);
+   }
+   
+   /**
+    * CS4432: Returns the next batch of the product scan
+    * of the current chunk, moving to the next chunk
+    * when the current one is exhausted.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      Batch batch;
+      while ((batch = ((BatchScan) prodscan).nextBatch()) == null)
+         if (!useNextChunk())
+         return null;
+      return batch;
+   }
+   
    private boolean useNextChunk() {
       if (rhsscan != null)
          rhsscan.close();
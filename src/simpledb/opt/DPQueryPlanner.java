@@ -0,0 +1,377 @@
+package simpledb.opt;
+
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import simpledb.query.*;
+import simpledb.materialize.*;
+import simpledb.multibuffer.MultiBufferProductPlan;
+import simpledb.parse.QueryData;
+import simpledb.planner.QueryPlanner;
+import java.util.*;
+
+/**
+ * CS4432: A query planner that chooses the join order by
+ * dynamic programming, in the manner of System R.
+ * <p>
+ * The planner finds the cheapest plans for each set of the query's
+ * tables, beginning with the single tables and building each larger
+ * set from two smaller ones.  A single table is read by a table scan
+ * or by any of the index scans that the predicate allows.  Two sets
+ * are joined by an indexjoin (when one of them is a single table
+ * with an index on the join field), a hashjoin, a mergejoin, or,
+ * if the predicate does not join them, a multibuffer product.
+ * As in System R, products are avoided: unless the predicate
+ * leaves some tables unjoined, only sets of tables that it joins
+ * are planned.
+ * By default a set may be joined from any two smaller sets, giving
+ * bushy plans; a left-deep planner joins one table at a time.
+ * <p>
+ * For each set, the planner keeps the cheapest plan overall and the
+ * cheapest plan for each interesting order: an order on a join
+ * field, a group by field or an order by field.  Such a plan may be
+ * more expensive, but can save a later sort.
+ * <p>
+ * The cost of a plan is the number of blocks it is estimated to
+ * access plus a smaller cost for each record that it processes,
+ * including the one-time cost of the sorts it does.
+ * Queries that mention more than MAX_TABLES tables are
+ * planned by the heuristic planner instead, since the number of
+ * sets grows exponentially.
+ * @author Edward Sciore
+ */
+public class DPQueryPlanner implements QueryPlanner {
+   /**
+    * The largest number of tables that a query may mention
+    * for its join order to be chosen by dynamic programming.
+    */
+   public static final int MAX_TABLES = 8;
+
+   /**
+    * The cost of accessing a block.
+    */
+   public static final double IO_COST = 1.0;
+
+   /**
+    * The cost of processing a record.
+    */
+   public static final double CPU_COST = 0.01;
+
+   private boolean bushy;
+   private Predicate pred;
+   private Transaction tx;
+   private List<TablePlanner> tableplanners;
+   private Schema[] schemas;
+   private Set<String> interesting;
+   private boolean crossproducts;
+   private Map<Integer,Map<List<String>,Candidate>> best;
+
+   /**
+    * Creates a planner that considers bushy plans.
+    */
+   public DPQueryPlanner() {
+      this(true);
+   }
+
+   /**
+    * Creates a planner that considers bushy plans,
+    * or only left-deep plans.
+    * @param bushy false if the plans must be left-deep
+    */
+   public DPQueryPlanner(boolean bushy) {
+      this.bushy = bushy;
+   }
+
+   /**
+    * Creates a query plan whose join order and join methods
+    * are the cheapest that the planner finds.
+    * @see simpledb.planner.QueryPlanner#createPlan(simpledb.parse.QueryData, simpledb.tx.Transaction)
+    */
+   public Plan createPlan(QueryData data, Transaction tx) {
+      if (data.tables().size() > MAX_TABLES)
+         return new HeuristicQueryPlanner().createPlan(data, tx);
+      this.pred = data.pred();
+      this.tx = tx;
+      tableplanners = new ArrayList<TablePlanner>();
+      interesting = new HashSet<String>();
+      best = new HashMap<Integer,Map<List<String>,Candidate>>();
+
+      // Step 1:  Create a TablePlanner object for each mentioned table
+      // (for an ungrouped single-table query, the planner is told which fields
+      // the query needs, so that it can consider covering indexes)
+      for (String tblname : data.tables()) {
+         Collection<String> queryfields = null;
+         if (data.tables().size() == 1 && !data.isGrouped()) {
+            queryfields = new ArrayList<String>(data.fields());
+            queryfields.addAll(data.sortFields());
+         }
+         tableplanners.add(new TablePlanner(tblname, pred, queryfields, tx));
+      }
+      int n = tableplanners.size();
+      schemas = new Schema[1 << n];
+
+      // Step 2:  Find the interesting orders, and the access paths of each table
+      if (data.isGrouped() && !data.groupFields().isEmpty())
+         interesting.add(data.groupFields().iterator().next());
+      if (!data.sortFields().isEmpty())
+         interesting.add(data.sortFields().get(0));
+      for (int i=0; i<n; i++) {
+         for (String fldname : schemaOf(1 << i).fields())
+            if (pred.equatesWithField(fldname) != null)
+               interesting.add(fldname);
+      }
+      for (int i=0; i<n; i++)
+         addAccessPaths(i, data);
+      crossproducts = !isConnected(n);
+
+      // Step 3:  Find the cheapest plans for each larger set of tables
+      for (int size=2; size<=n; size++)
+         for (int set=1; set<(1 << n); set++)
+            if (Integer.bitCount(set) == size)
+               addJoinPlans(set);
+
+      // Step 4:  Group and sort the plans of all the tables,
+      // and choose the cheapest result
+      Plan bestplan = null;
+      double bestcost = 0;
+      for (Candidate c : candidates((1 << n) - 1)) {
+         Plan p = c.plan;
+         double cost = c.cost();
+         if (data.isGrouped()) {
+            Plan gp = HashGroupByPlan.makeGroupByPlan(p, data.groupFields(), data.aggregates(), tx);
+            cost += CPU_COST * p.recordsOutput();
+            if (gp instanceof GroupByPlan && !SortPlan.isSorted(p, new ArrayList<String>(data.groupFields())))
+               cost += sortCost(p);
+            p = gp;
+         }
+         if (!SortPlan.isSorted(p, data.sortFields())) {
+            cost += sortCost(p);
+            p = new SortPlan(p, data.sortFields(), tx);
+         }
+         if (bestplan == null || cost < bestcost) {
+            bestplan = p;
+            bestcost = cost;
+         }
+      }
+
+      // Step 5.  Project on the field names and return
+      return new ProjectPlan(bestplan, data.fields());
+   }
+
+   private void addAccessPaths(int i, QueryData data) {
+      TablePlanner tp = tableplanners.get(i);
+      Schema sch = schemaOf(1 << i);
+      Collection<List<String>> orders = new ArrayList<List<String>>();
+      for (String fldname : interesting)
+         if (sch.hasField(fldname))
+            orders.add(Arrays.asList(fldname));
+      if (!data.sortFields().isEmpty() && !data.isGrouped() && appliesTo(data.sortFields(), sch))
+         orders.add(data.sortFields());
+      for (Plan p : tp.makeAccessPaths(orders)) {
+         Candidate c = new Candidate(tp.addSelectPred(p));
+         c.io = p.blocksAccessed();
+         c.cpu = p.recordsOutput();
+         add(1 << i, c);
+      }
+   }
+
+   private void addJoinPlans(int set) {
+      for (int left = (set - 1) & set; left > 0; left = (left - 1) & set)
+         if (pred.joinPred(schemaOf(left), schemaOf(set ^ left)) != null)
+            addJoinPlans(left, set ^ left);
+      if (best.get(set) == null && crossproducts)  // the predicate does not join the tables
+         for (int left = (set - 1) & set; left > 0; left = (left - 1) & set)
+            addProductPlans(left, set ^ left);
+   }
+
+   private void addJoinPlans(int left, int right) {
+      int set = left | right;
+      boolean onetable = Integer.bitCount(right) == 1;
+      if (!bushy && !onetable)
+         return;
+      boolean joined = false;
+      for (Candidate outer : candidates(left)) {
+         if (onetable) {
+            TablePlanner tp = tableplanners.get(Integer.numberOfTrailingZeros(right));
+            Plan p = tp.makeIndexJoinPlan(outer.plan);
+            if (p != null) {
+               Candidate c = new Candidate(p);
+               c.io = outer.io + Math.max(0, c.blocks - outer.blocks);
+               c.cpu = outer.cpu + outer.records + (double) c.records;
+               c.sortcost = outer.sortcost;
+               add(set, c);
+               joined = true;
+            }
+         }
+         for (String fldname2 : schemaOf(right).fields()) {
+            String fldname1 = pred.equatesWithField(fldname2);
+            if (fldname1 == null || !schemaOf(left).hasField(fldname1))
+               continue;
+            for (Candidate inner : candidates(right)) {
+               add(set, makeHashJoin(outer, inner, fldname1, fldname2));
+               add(set, makeMergeJoin(outer, inner, fldname1, fldname2));
+               joined = true;
+            }
+         }
+      }
+      if (!joined)  // the tables are joined only by other kinds of terms
+         addProductPlans(left, right);
+   }
+
+   private void addProductPlans(int left, int right) {
+      if (!bushy && Integer.bitCount(right) > 1)
+         return;
+      for (Candidate outer : candidates(left))
+         for (Candidate inner : candidates(right))
+            add(left | right, makeProductJoin(outer, inner));
+   }
+
+   /**
+    * The inner plan is the build input of the hashjoin.
+    */
+   private Candidate makeHashJoin(Candidate outer, Candidate inner, String fldname1, String fldname2) {
+      Plan p1 = outer.plan, p2 = inner.plan;
+      Plan p = new HashJoinPlan(p1, p2, fldname1, fldname2, tx);
+      Candidate c = addJoinPred(p, outer, inner, pred.joinPred(p1.schema(), p2.schema(), fldname1, fldname2));
+      c.io += Math.max(0, p.blocksAccessed() - outer.blocks - inner.blocks);
+      c.cpu += (double) outer.records + inner.records + c.records;
+      return c;
+   }
+
+   /**
+    * A mergejoin sorts the inner plan, and the outer plan
+    * unless it is already in order.
+    */
+   private Candidate makeMergeJoin(Candidate outer, Candidate inner, String fldname1, String fldname2) {
+      Plan p1 = outer.plan, p2 = inner.plan;
+      Plan p = new MergeJoinPlan(p1, p2, fldname1, fldname2, tx);
+      Candidate c = addJoinPred(p, outer, inner, pred.joinPred(p1.schema(), p2.schema(), fldname1, fldname2));
+      if (!SortPlan.isSorted(p1, Arrays.asList(fldname1)))
+         c.sortcost += sortCost(p1);
+      c.sortcost += sortCost(p2);
+      c.cpu += (double) outer.records + inner.records + c.records;
+      return c;
+   }
+
+   /**
+    * The inner plan is materialized, and the outer plan
+    * is read once for each chunk of it.
+    */
+   private Candidate makeProductJoin(Candidate outer, Candidate inner) {
+      Plan p1 = outer.plan, p2 = inner.plan;
+      Plan p = new MultiBufferProductPlan(p1, p2, tx);
+      Candidate c = addJoinPred(p, outer, inner, pred.joinPred(p1.schema(), p2.schema()));
+      c.io += Math.max(0, p.blocksAccessed() - outer.blocks - inner.blocks);
+      c.cpu += (double) outer.records * inner.records;
+      return c;
+   }
+
+   private Candidate addJoinPred(Plan p, Candidate outer, Candidate inner, Predicate joinpred) {
+      if (joinpred != null)
+         p = new SelectPlan(p, joinpred);
+      Candidate c = new Candidate(p);
+      c.io = outer.io + inner.io;
+      c.cpu = outer.cpu + inner.cpu;
+      c.sortcost = outer.sortcost + inner.sortcost;
+      return c;
+   }
+
+   /**
+    * Estimates the one-time cost of sorting the output of a plan,
+    * apart from reading it:
+    * writing and reading back its runs (if it does not fit
+    * in the sort memory), and comparing its records.
+    */
+   private double sortCost(Plan p) {
+      double recs = Math.max(2, p.recordsOutput());
+      double cost = CPU_COST * recs * Math.log(recs) / Math.log(2);
+      if (!SortPlan.fitsInMemory(p))
+         cost += IO_COST * 2 * new MaterializePlan(p, tx).blocksAccessed();
+      return cost;
+   }
+
+   /**
+    * Keeps the candidate if it is the cheapest plan found
+    * for the set of tables, or for its order.
+    */
+   private void add(int set, Candidate c) {
+      Map<List<String>,Candidate> plans = best.get(set);
+      if (plans == null) {
+         plans = new HashMap<List<String>,Candidate>();
+         best.put(set, plans);
+      }
+      List<String> none = Collections.emptyList();
+      List<String> order = c.plan.sortOrder();
+      if (order.isEmpty() || !interesting.contains(order.get(0)))
+         order = none;
+      Candidate current = plans.get(order);
+      if (current == null || c.cost() < current.cost())
+         plans.put(order, c);
+      current = plans.get(none);
+      if (current == null || c.cost() < current.cost())
+         plans.put(none, c);
+   }
+
+   private Collection<Candidate> candidates(int set) {
+      Map<List<String>,Candidate> plans = best.get(set);
+      if (plans == null)
+         return Collections.emptyList();
+      return new LinkedHashSet<Candidate>(plans.values());
+   }
+
+   /**
+    * Returns true if the predicate joins all of the tables,
+    * directly or through other tables.
+    * If so, a set of tables that the predicate does not join
+    * is never planned, since its product cannot be useful.
+    */
+   private boolean isConnected(int n) {
+      int reached = 1, previous = 0;
+      while (reached != previous) {
+         previous = reached;
+         for (int i=0; i<n; i++)
+            if ((reached & (1 << i)) == 0
+                  && pred.joinPred(schemaOf(reached), schemaOf(1 << i)) != null)
+               reached |= 1 << i;
+      }
+      return reached == (1 << n) - 1;
+   }
+
+   private Schema schemaOf(int set) {
+      if (schemas[set] == null) {
+         Schema sch = new Schema();
+         for (int i=0; i<tableplanners.size(); i++)
+            if ((set & (1 << i)) != 0)
+               sch.addAll(tableplanners.get(i).schema());
+         schemas[set] = sch;
+      }
+      return schemas[set];
+   }
+
+   private boolean appliesTo(List<String> fields, Schema sch) {
+      for (String fldname : fields)
+         if (!sch.hasField(fldname))
+            return false;
+      return true;
+   }
+
+   /**
+    * A plan for a set of tables, with its estimated costs.
+    * The estimates of the plan are kept, since computing them
+    * again for each larger plan would take time.
+    */
+   private static class Candidate {
+      Plan plan;
+      int records, blocks;
+      double io, cpu, sortcost;
+
+      Candidate(Plan plan) {
+         this.plan = plan;
+         records = plan.recordsOutput();
+         blocks = plan.blocksAccessed();
+      }
+
+      double cost() {
+         return IO_COST * io + CPU_COST * cpu + sortcost;
+      }
+   }
+}
@@ -2,6 +2,7 @@ package simpledb.opt;
 
 import simpledb.tx.Transaction;
 import simpledb.query.*;
+import simpledb.materialize.*;
 import simpledb.opt.TablePlanner;
 import simpledb.parse.QueryData;
 import simpledb.planner.QueryPlanner;
@@ -25,7 +26,7 @@ public class ExploitSortQueryPlanner implements QueryPlanner {
 
         // Step 1:  Create a TablePlanner object for each mentioned table
         for (String tblname : data.tables()) {
-            TablePlanner tp = new TablePlanner(tblname, data.pred(), tx); //TODO: Get table names from here (HAVE TO PASS THIS ALL THE WAY DOWN TO SORTSCAN)
+            TablePlanner tp = new TablePlanner(tblname, data.pred(), tx);
             tableplanners.add(tp);
         }
 
@@ -41,7 +42,18 @@ public class ExploitSortQueryPlanner implements QueryPlanner {
                 currentplan = getLowestProductPlan(currentplan);
         }
 
-        // Step 4.  Project on the field names and return
+        // Step 4.  Group on the group by fields, if the query is grouped
+        // (a merge join may already have produced the group order)
+        if (data.isGrouped())
+            currentplan = HashGroupByPlan.makeGroupByPlan(currentplan, data.groupFields(),
+                                                          data.aggregates(), tx);
+
+        // Step 5.  Sort on the order by fields, if any
+        // (a merge join may already have produced that order)
+        if (!SortPlan.isSorted(currentplan, data.sortFields()))
+            currentplan = new SortPlan(currentplan, data.sortFields(), tx);
+
+        // Step 6.  Project on the field names and return
         return new ProjectPlan(currentplan, data.fields());
     }
 
@@ -59,11 +71,11 @@ public class ExploitSortQueryPlanner implements QueryPlanner {
         return bestplan;
     }
 
-    private Plan getLowestJoinPlan(Plan current) { //TODO: Use this method to call the SmartMergeJoinPlan which calls the SmartMergeJoinScan which calls the SmartSortScan
+    private Plan getLowestJoinPlan(Plan current) {
         TablePlanner besttp = null;
         Plan bestplan = null;
         for (TablePlanner tp : tableplanners) {
-            Plan plan = tp.makeMergeJoinPlan(current); // CS4432: Create the MergeJoinPlan for the smart merge join
+            Plan plan = tp.makeJoinPlan(current); // CS4432: Uses a mergejoin when it is the cheapest join
             if (plan != null && (bestplan == null || plan.recordsOutput() < bestplan.recordsOutput())) {
                 besttp = tp;
                 bestplan = plan;
@@ -2,6 +2,7 @@ package simpledb.opt;
 
 import simpledb.tx.Transaction;
 import simpledb.query.*;
+import simpledb.materialize.*;
 import simpledb.opt.TablePlanner;
 import simpledb.parse.QueryData;
 import simpledb.planner.QueryPlanner;
@@ -25,12 +26,25 @@ public class HeuristicQueryPlanner implements QueryPlanner {
    public Plan createPlan(QueryData data, Transaction tx) {
       
       // Step 1:  Create a TablePlanner object for each mentioned table
+      // (for an ungrouped single-table query, the planner is told which fields
+      // the query needs, so that it can consider covering indexes)
       for (String tblname : data.tables()) {
-         TablePlanner tp = new TablePlanner(tblname, data.pred(), tx);
+         Collection<String> queryfields = null;
+         if (data.tables().size() == 1 && !data.isGrouped()) {
+            queryfields = new ArrayList<String>(data.fields());
+            queryfields.addAll(data.sortFields());
+         }
+         TablePlanner tp = new TablePlanner(tblname, data.pred(), queryfields, tx);
          tableplanners.add(tp);
       }
       
       // Step 2:  Choose the lowest-size plan to begin the join order
+      // (for a single-table query, also consider reading the table
+      // in the order by order through an index, unless the
+      // records are grouped before they are sorted)
+      Plan orderedplan = null;
+      if (tableplanners.size() == 1 && !data.sortFields().isEmpty() && !data.isGrouped())
+         orderedplan = tableplanners.iterator().next().makeOrderedPlan(data.sortFields());
       Plan currentplan = getLowestSelectPlan();
       
       // Step 3:  Repeatedly add a plan to the join order
@@ -42,10 +56,44 @@ public class HeuristicQueryPlanner implements QueryPlanner {
             currentplan = getLowestProductPlan(currentplan);
       }
       
-      // Step 4.  Project on the field names and return
+      // Step 4.  Group on the group by fields, if the query is grouped
+      if (data.isGrouped())
+         currentplan = HashGroupByPlan.makeGroupByPlan(currentplan, data.groupFields(),
+                                                       data.aggregates(), tx);
+      
+      // Step 5.  Sort on the order by fields, if any
+      if (!data.sortFields().isEmpty())
+         currentplan = getCheapestSortPlan(currentplan, orderedplan, data.sortFields(), tx);
+      
+      // Step 6.  Project on the field names and return
       return new ProjectPlan(currentplan, data.fields());
    }
    
+   /**
+    * Chooses between sorting the current plan and
+    * using the ordered index plan (if there is one).
+    * No sort is needed if the current plan is already
+    * in the order by order.
+    * The cost of the sort is estimated as reading the input, 
+    * writing and reading back the runs, and reading the output;
+    * an input that fits in the sort memory is just read.
+    */
+   private Plan getCheapestSortPlan(Plan current, Plan ordered, List<String> sortfields,
+                                    Transaction tx) {
+      if (SortPlan.isSorted(current, sortfields))
+         return current;
+      Plan sortplan = new SortPlan(current, sortfields, tx);
+      if (ordered == null)
+         return sortplan;
+      int sortcost = current.blocksAccessed();
+      if (!SortPlan.fitsInMemory(current))
+         sortcost += 3 * sortplan.blocksAccessed();
+      if (ordered.blocksAccessed() < sortcost)
+         return ordered;
+      else
+         return sortplan;
+   }
+   
    private Plan getLowestSelectPlan() {
       TablePlanner besttp = null;
       Plan bestplan = null;
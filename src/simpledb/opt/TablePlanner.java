@@ -1,6 +1,9 @@
 package simpledb.opt;
 
+import simpledb.materialize.HashJoinPlan;
+import simpledb.materialize.MaterializePlan;
 import simpledb.materialize.MergeJoinPlan;
+import simpledb.materialize.SortPlan;
 import simpledb.tx.Transaction;
 import simpledb.record.Schema;
 import simpledb.query.*;
@@ -8,7 +11,7 @@ import simpledb.index.query.*;
 import simpledb.metadata.IndexInfo;
 import simpledb.multibuffer.MultiBufferProductPlan;
 import simpledb.server.SimpleDB;
-import java.util.Map;
+import java.util.*;
 
 /**
  * This class contains methods for planning a single table.
@@ -19,6 +22,7 @@ class TablePlanner {
    private Predicate mypred;
    private Schema myschema;
    private Map<String,IndexInfo> indexes;
+   private Collection<String> queryfields;
    private Transaction tx;
    
    /**
@@ -32,30 +36,99 @@ class TablePlanner {
     * @param tx the calling transaction
     */
    public TablePlanner(String tblname, Predicate mypred, Transaction tx) {
+      this(tblname, mypred, null, tx);
+   }
+   
+   /**
+    * Creates a new table planner that also knows which
+    * of the table's fields the query needs 
+    * (apart from those in the predicate).
+    * If an index holds all of those fields, the planner
+    * can answer the query from the index alone.
+    * @param tblname the name of the table
+    * @param mypred the query predicate
+    * @param queryfields the fields needed from the table, or null if unknown
+    * @param tx the calling transaction
+    */
+   public TablePlanner(String tblname, Predicate mypred, Collection<String> queryfields,
+                       Transaction tx) {
       this.mypred  = mypred;
+      this.queryfields = queryfields;
       this.tx  = tx;
       myplan   = new TablePlan(tblname, tx);
       myschema = myplan.schema();
       indexes  = SimpleDB.mdMgr().getIndexInfo(tblname, tx);
    }
    
+   /**
+    * CS4432: Returns the schema of the table.
+    * @return the table's schema
+    */
+   public Schema schema() {
+      return myschema;
+   }
+   
    /**
     * Constructs a select plan for the table.
-    * The plan will use an indexselect, if possible.
+    * The plan will use an index-only scan if a covering
+    * index makes that worthwhile, and otherwise
+    * an indexselect, if possible.
     * @return a select plan for the table.
     */
    public Plan makeSelectPlan() {
-      Plan p = makeIndexSelect();
+      Plan p = makeIndexOnlySelect();
+      if (p == null)
+         p = makeIndexSelect();
       if (p == null)
          p = myplan;
       return addSelectPred(p);
    }
    
+   /**
+    * Constructs a select plan for the table whose output 
+    * is in the order of the specified sort fields.
+    * This is possible only when the table has a B-tree
+    * index whose key begins with the sort fields, in which 
+    * case the plan is an index range scan over that index.
+    * If the predicate equates leading fields of the key 
+    * with constants, the range is restricted to that prefix
+    * (CS4432: and to any range that the predicate
+    * places on the next field of the key);
+    * otherwise the entire index is scanned.
+    * If the index covers the query, the data records are not read.
+    * The method returns null if no such plan is possible.
+    * @param sortfields the fields the output must be ordered by
+    * @return an ordered select plan for the table, or null
+    */
+   public Plan makeOrderedPlan(List<String> sortfields) {
+      Plan bestplan = null;
+      for (IndexInfo ii : indexes.values()) {
+         List<String> keyfields = ii.fieldNames();
+         if (!ii.indexType().equals("bt") || sortfields.size() > keyfields.size()
+               || !keyfields.subList(0, sortfields.size()).equals(sortfields))
+            continue;
+         ConstantRange range = indexRange(ii);
+         Plan p;
+         if (isCovering(ii))
+            p = new IndexOnlyPlan(myplan, ii, range);
+         else
+            p = new IndexRangePlan(myplan, ii, range);
+         if (bestplan == null || p.blocksAccessed() < bestplan.blocksAccessed())
+            bestplan = p;
+      }
+      return (bestplan == null) ? null : addSelectPred(bestplan);
+   }
+   
    /**
     * Constructs a join plan of the specified plan
     * and the table.  The plan will use an indexjoin, if possible.
     * (Which means that if an indexselect is also possible,
     * the indexjoin operator takes precedence.)
+    * If the join predicate equates a field of the table with
+    * a field of the plan, a hashjoin and a mergejoin are also
+    * considered, and the cheapest of the joins (by estimated
+    * block accesses) is chosen; a product join is used only
+    * if none of them is possible.
     * The method returns null if no join is possible.
     * @param current the specified plan
     * @return a join plan of the plan and this table
@@ -63,29 +136,28 @@ class TablePlanner {
    public Plan makeJoinPlan(Plan current) {
       Schema currsch = current.schema();
       Predicate joinpred = mypred.joinPred(myschema, currsch);
-      if (joinpred == null)
+      String joinfield = joinField(currsch);
+      if (joinpred == null && joinfield == null)
          return null;
       Plan p = makeIndexJoin(current, currsch);
+      if (joinfield != null) {
+         Plan hp = makeHashJoin(current, currsch, joinfield);
+         if (p == null || hp.blocksAccessed() < p.blocksAccessed())
+            p = hp;
+         Plan mp = makeMergeJoin(current, currsch, joinfield);
+         int mergecost = mp.blocksAccessed() + sortCost(addSelectPred(myplan));
+         // the mergejoin does not re-sort a plan that is already in order
+         List<String> outerorder = Arrays.asList(mypred.equatesWithField(joinfield));
+         if (!SortPlan.isSorted(current, outerorder))
+            mergecost += sortCost(current);
+         if (mergecost < p.blocksAccessed())
+            p = mp;
+      }
       if (p == null)
          p = makeProductJoin(current, currsch);
       return p;
    }
 
-   /**
-    * Constructs a join plan of the specified plan
-    * and the table. The plan will use an MergeJoinPlan.
-    * The method returns null if no join is possible.
-    * @param current the specified plan
-    * @return a join plan of the plan and this table
-    */
-   public Plan makeMergeJoinPlan(Plan current) {
-      Schema currsch = current.schema();
-      String tblname1 = myplan.tableName(); // Get the table name to pass down to SmartSortScan
-      String tblname2 = current.tableName(); // Get the table name to pass down to SmartSortScan
-      Plan p = makeMergeJoin(current, currsch, tblname1, tblname2);
-      return p;
-   }
-
    /**
     * Constructs a product plan of the specified plan and
     * this table.
@@ -97,51 +169,272 @@ class TablePlanner {
       return new MultiBufferProductPlan(current, p, tx);
    }
    
-   private Plan makeIndexSelect() {
-      for (String fldname : indexes.keySet()) {
-         Constant val = mypred.equatesWithConstant(fldname);
-         if (val != null) {
-            IndexInfo ii = indexes.get(fldname);
-            return new IndexSelectPlan(myplan, ii, val, tx);
+   /**
+    * CS4432: Returns each way of reading the table that the
+    * dynamic-programming planner chooses among, without the
+    * table's selection predicate (see {@link #addSelectPred(Plan)}):
+    * a table scan, and for each index that the predicate can use,
+    * an index-only scan if the index covers the query and
+    * an indexselect or index range scan otherwise.
+    * A B-tree index whose key begins with one of the specified
+    * orders is also scanned in that order when the predicate
+    * does not restrict it.
+    * @param orders the orders in which the output may be useful
+    * @return the access paths of the table
+    */
+   public List<Plan> makeAccessPaths(Collection<List<String>> orders) {
+      List<Plan> result = new ArrayList<Plan>();
+      result.add(myplan);
+      for (IndexInfo ii : indexes.values()) {
+         Constant key = searchKey(ii);
+         boolean isbtree = ii.indexType().equals("bt");
+         ConstantRange range = indexRange(ii);
+         if (isCovering(ii) && (key != null || isbtree))
+            result.add(new IndexOnlyPlan(myplan, ii, range));
+         else if (key != null && equalityPrefix(ii).size() == ii.fieldNames().size())
+            result.add(new IndexSelectPlan(myplan, ii, key, tx));
+         else if (isbtree && (!range.isUnbounded() || beginsWithOrder(ii, orders)))
+            result.add(new IndexRangePlan(myplan, ii, range));
+      }
+      return result;
+   }
+   
+   /**
+    * CS4432: Constructs an indexjoin of the specified plan and the
+    * table, with the table's selection predicate and the join predicate,
+    * or returns null if no index of the table applies.
+    * @param current the specified plan
+    * @return an indexjoin of the plan and this table, or null
+    */
+   public Plan makeIndexJoinPlan(Plan current) {
+      return makeIndexJoin(current, current.schema());
+   }
+   
+   /**
+    * Looks for an index that covers the query.
+    * With an equality predicate on the indexed fields,
+    * the index-only lookup is always preferable.
+    * Otherwise, a covering B-tree can be scanned
+    * over the range of keys that the predicate allows
+    * (CS4432: possibly its entirety), which is chosen if
+    * those leaves are cheaper to read than the table.
+    */
+   private Plan makeIndexOnlySelect() {
+      for (IndexInfo ii : indexes.values()) {
+         if (!isCovering(ii))
+            continue;
+         if (searchKey(ii) != null)
+            return new IndexOnlyPlan(myplan, ii, indexRange(ii));
+         if (ii.indexType().equals("bt")) {
+            Plan p = new IndexOnlyPlan(myplan, ii, indexRange(ii));
+            if (p.blocksAccessed() < myplan.blocksAccessed())
+               return p;
          }
       }
       return null;
    }
    
+   /**
+    * Returns true if the index contains every field that
+    * the query needs from this table, including
+    * the fields mentioned in the table's selection predicate.
+    */
+   private boolean isCovering(IndexInfo ii) {
+      if (queryfields == null || !ii.covers(queryfields))
+         return false;
+      Schema keysch = new Schema();
+      for (String fldname : ii.fieldNames())
+         keysch.add(fldname, myschema);
+      Predicate selectpred = mypred.selectPred(myschema);
+      return selectpred == null || selectpred.appliesTo(keysch);
+   }
+   
+   /**
+    * Chooses the cheapest index lookup that the predicate allows.
+    * A lookup on the entire key is an indexselect;
+    * a lookup on a prefix of a B-tree key is a range scan
+    * over the records having that prefix.
+    * CS4432: A range on the B-tree key field that follows the
+    * prefix narrows the range scan.  A range scan without an
+    * equality prefix is chosen only if it is estimated to be
+    * cheaper than scanning the table.
+    */
+   private Plan makeIndexSelect() {
+      Plan bestplan = null;
+      for (IndexInfo ii : indexes.values()) {
+         Constant key = searchKey(ii);
+         Plan p;
+         if (key != null && equalityPrefix(ii).size() == ii.fieldNames().size())
+            p = new IndexSelectPlan(myplan, ii, key, tx);
+         else if (ii.indexType().equals("bt") && !indexRange(ii).isUnbounded())
+            p = new IndexRangePlan(myplan, ii, indexRange(ii));
+         else
+            continue;
+         if (key == null && p.blocksAccessed() >= myplan.blocksAccessed())
+            continue;
+         if (bestplan == null || p.blocksAccessed() < bestplan.blocksAccessed())
+            bestplan = p;
+      }
+      return bestplan;
+   }
+   
+   /**
+    * Returns the search key for an equality lookup 
+    * using the specified index, or null if the predicate
+    * does not provide one.
+    * A hash index needs a value for every field of its key,
+    * but a B-tree can search on any prefix of its key.
+    */
+   private Constant searchKey(IndexInfo ii) {
+      List<Constant> vals = equalityPrefix(ii);
+      if (vals.isEmpty())
+         return null;
+      if (vals.size() < ii.fieldNames().size() && !ii.indexType().equals("bt"))
+         return null;
+      return ii.makeKey(vals);
+   }
+   
+   /**
+    * CS4432: Returns the range of keys of the specified index
+    * that the predicate allows.
+    * The range consists of the keys that begin with the equality
+    * prefix; for a B-tree, it is narrowed by the range that the
+    * predicate places on the next field of the key, if any.
+    * A range over a composite key compares only the fields that
+    * its endpoints contain.
+    */
+   private ConstantRange indexRange(IndexInfo ii) {
+      List<Constant> vals = equalityPrefix(ii);
+      List<String> keyfields = ii.fieldNames();
+      ConstantRange r = new ConstantRange();
+      if (vals.size() < keyfields.size() && ii.indexType().equals("bt"))
+         r = mypred.rangeFor(keyfields.get(vals.size()));
+      if (vals.isEmpty() && r.isUnbounded())
+         return r;
+      Constant lo = vals.isEmpty() ? null : ii.makeKey(vals), hi = lo;
+      boolean loincl = !vals.isEmpty(), hiincl = loincl;
+      if (r.low() != null) {
+         List<Constant> lovals = new ArrayList<Constant>(vals);
+         lovals.add(r.low());
+         lo = ii.makeKey(lovals);
+         loincl = r.lowInclusive();
+      }
+      if (r.high() != null) {
+         List<Constant> hivals = new ArrayList<Constant>(vals);
+         hivals.add(r.high());
+         hi = ii.makeKey(hivals);
+         hiincl = r.highInclusive();
+      }
+      return new ConstantRange(lo, loincl, hi, hiincl);
+   }
+   
+   /**
+    * Returns the constants that the predicate equates with
+    * the leading fields of the index key, stopping at the
+    * first field that is not equated with a constant.
+    */
+   private List<Constant> equalityPrefix(IndexInfo ii) {
+      List<Constant> vals = new ArrayList<Constant>();
+      for (String fldname : ii.fieldNames()) {
+         Constant val = mypred.equatesWithConstant(fldname);
+         if (val == null)
+            break;
+         vals.add(val);
+      }
+      return vals;
+   }
+   
+   private boolean beginsWithOrder(IndexInfo ii, Collection<List<String>> orders) {
+      List<String> keyfields = ii.fieldNames();
+      for (List<String> order : orders)
+         if (!order.isEmpty() && order.size() <= keyfields.size()
+               && keyfields.subList(0, order.size()).equals(order))
+            return true;
+      return false;
+   }
+   
    private Plan makeIndexJoin(Plan current, Schema currsch) {
-      for (String fldname : indexes.keySet()) {
-         String outerfield = mypred.equatesWithField(fldname);
+      for (IndexInfo ii : indexes.values()) {
+         // the join value is a single constant,
+         // so only single-field indexes apply
+         if (ii.fieldNames().size() > 1)
+            continue;
+         String outerfield = mypred.equatesWithField(ii.fieldName());
          if (outerfield != null && currsch.hasField(outerfield)) {
-            IndexInfo ii = indexes.get(fldname);
             Plan p = new IndexJoinPlan(current, myplan, ii, outerfield, tx);
             p = addSelectPred(p);
-            return addJoinPred(p, currsch);
+            return addJoinPred(p, currsch, outerfield, ii.fieldName());
          }
       }
       return null;
    }
    
-   private Plan makeProductJoin(Plan current, Schema currsch) {
-      Plan p = makeProductPlan(current);
-      return addJoinPred(p, currsch);
-   }
-
    /**
-    * CS4432: Creates the MergeJoinPlan.
-    * @return A MergeJoinPlan to merge on, or null if no merge is possible (No like fields)
+    * Returns a field of the table that the predicate
+    * equates with a field of the current plan, or null if
+    * there is none.
+    * (A term equating a field with itself is taken to join
+    * the like-named fields of the table and the plan.)
     */
-   private Plan makeMergeJoin(Plan current, Schema currsch, String tblname1, String tblname2) {
+   private String joinField(Schema currsch) {
       for (String fldname : myschema.fields()) {
-         if (currsch.hasField(fldname)) {
-            Plan p = new MergeJoinPlan(myplan, current, tblname1, tblname2, fldname, tx); // Create the MergeJoinPlan on the matching fields
-            p = addSelectPred(p);
-            return addJoinPred(p, currsch);
-         }
+         String outerfield = mypred.equatesWithField(fldname);
+         if (outerfield != null && currsch.hasField(outerfield))
+            return fldname;
       }
       return null;
    }
    
-   private Plan addSelectPred(Plan p) {
+   /**
+    * Creates a hashjoin of the current plan and the table
+    * on the specified join field.
+    * The smaller of the two inputs is the build input.
+    */
+   private Plan makeHashJoin(Plan current, Schema currsch, String fldname) {
+      String outerfield = mypred.equatesWithField(fldname);
+      Plan tp = addSelectPred(myplan);
+      Plan p;
+      if (tp.blocksAccessed() <= current.blocksAccessed())
+         p = new HashJoinPlan(current, tp, outerfield, fldname, tx);
+      else
+         p = new HashJoinPlan(tp, current, fldname, outerfield, tx);
+      return addJoinPred(p, currsch, outerfield, fldname);
+   }
+   
+   /**
+    * Creates a mergejoin of the current plan and the table
+    * on the specified join field.
+    */
+   private Plan makeMergeJoin(Plan current, Schema currsch, String fldname) {
+      String outerfield = mypred.equatesWithField(fldname);
+      Plan p = new MergeJoinPlan(current, addSelectPred(myplan), outerfield, fldname, tx);
+      return addJoinPred(p, currsch, outerfield, fldname);
+   }
+   
+   /**
+    * Estimates the one-time cost of sorting the specified plan
+    * as reading its input, and writing and reading back its runs.
+    * (Reading the sorted output is part of the cost of the join.)
+    * A plan whose output fits in the sort memory is sorted
+    * without writing any runs.
+    */
+   private int sortCost(Plan p) {
+      if (SortPlan.fitsInMemory(p))
+         return p.blocksAccessed();
+      return p.blocksAccessed() + 2 * new MaterializePlan(p, tx).blocksAccessed();
+   }
+   
+   private Plan makeProductJoin(Plan current, Schema currsch) {
+      Plan p = makeProductPlan(current);
+      return addJoinPred(p, currsch);
+   }
+
+   /**
+    * Adds the part of the predicate that applies to the table alone.
+    * @param p a plan reading the table
+    * @return the plan, with the table's selection predicate
+    */
+   public Plan addSelectPred(Plan p) {
       Predicate selectpred = mypred.selectPred(myschema);
       if (selectpred != null)
          return new SelectPlan(p, selectpred);
@@ -156,4 +449,14 @@ class TablePlanner {
       else
          return p;
    }
+   
+   // CS4432: The join predicate, apart from the terms that a join
+   // of the plan and the table on the specified fields enforces.
+   private Plan addJoinPred(Plan p, Schema currsch, String outerfield, String fldname) {
+      Predicate joinpred = mypred.joinPred(currsch, myschema, outerfield, fldname);
+      if (joinpred != null)
+         return new SelectPlan(p, joinpred);
+      else
+         return p;
+   }
 }
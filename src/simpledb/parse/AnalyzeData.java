@@ -0,0 +1,28 @@
+package simpledb.parse;
+
+/**
+ * CS4432: Data for the SQL <i>analyze</i> statement,
+ * which computes the statistics of the fields of a table
+ * (or of every table, if no table is named).
+ * @author Edward Sciore
+ */
+public class AnalyzeData {
+   private String tblname;
+   
+   /**
+    * Saves the table name, which is null
+    * if every table is to be analyzed.
+    */
+   public AnalyzeData(String tblname) {
+      this.tblname = tblname;
+   }
+   
+   /**
+    * Returns the name of the table to be analyzed,
+    * or null if every table is to be analyzed.
+    * @return the name of the table, or null
+    */
+   public String tableName() {
+      return tblname;
+   }
+}
@@ -1,5 +1,7 @@
 package simpledb.parse;
 
+import java.util.*;
+
 /**
  * The parser for the <i>create index</i> statement.
  * @author Edward Sciore
@@ -7,18 +9,39 @@ package simpledb.parse;
  */
 public class CreateIndexData {
    //CS4432: Added idxtype field
-   private String idxtype, idxname, tblname, fldname;
+   private String idxtype, idxname, tblname;
+   private List<String> fldnames;
+   private int numbuckets;
    
    /**
     * Saves the table and field names of the specified index.
     * CS4432: Added idxtype to the constructor
     */
    public CreateIndexData(String idxtype, String idxname, String tblname, String fldname) {
+      this(idxtype, idxname, tblname, Arrays.asList(fldname));
+   }
+   
+   /**
+    * Saves the table and field names of the specified
+    * multi-column index.
+    */
+   public CreateIndexData(String idxtype, String idxname, String tblname, List<String> fldnames) {
+      this(idxtype, idxname, tblname, fldnames, 0);
+   }
+   
+   /**
+    * Saves the table and field names of the specified index,
+    * together with the number of buckets requested
+    * for a static hash index.
+    */
+   public CreateIndexData(String idxtype, String idxname, String tblname, List<String> fldnames,
+                          int numbuckets) {
       //CS4432: sets idxtype
       this.idxtype = idxtype;
       this.idxname = idxname;
       this.tblname = tblname;
-      this.fldname = fldname;
+      this.fldnames = fldnames;
+      this.numbuckets = numbuckets;
    }
 
    /**
@@ -47,10 +70,28 @@ public class CreateIndexData {
    
    /**
     * Returns the name of the indexed field.
+    * For a multi-column index, this is the first field.
     * @return the name of the indexed field
     */
    public String fieldName() {
-      return fldname;
+      return fldnames.get(0);
+   }
+   
+   /**
+    * Returns the names of the indexed fields, in key order.
+    * @return the names of the indexed fields
+    */
+   public List<String> fieldNames() {
+      return fldnames;
+   }
+   
+   /**
+    * Returns the number of buckets requested for the index,
+    * or 0 if the statement did not specify one.
+    * @return the number of buckets, or 0 for the default
+    */
+   public int numBuckets() {
+      return numbuckets;
    }
 }
 
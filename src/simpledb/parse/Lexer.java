@@ -68,6 +68,14 @@ public class Lexer {
       return  tok.ttype==StreamTokenizer.TT_WORD && !keywords.contains(tok.sval);
    }
    
+   /**
+    * CS4432: Returns true if there are no more tokens.
+    * @return true if the statement has been read
+    */
+   public boolean atEnd() {
+      return tok.ttype == StreamTokenizer.TT_EOF;
+   }
+   
 //Methods to "eat" the current token
    
    /**
@@ -137,6 +145,24 @@ public class Lexer {
       return s;
    }
    
+   /**
+    * CS4432: Returns the current token, which must be a
+    * keyword, an identifier or a delimiter, as a string,
+    * and moves to the next token.
+    * @return the string form of the current token
+    */
+   public String eatToken() {
+      String s;
+      if (tok.ttype == StreamTokenizer.TT_WORD)
+         s = tok.sval;
+      else if (tok.ttype >= 0 && !matchStringConstant())
+         s = String.valueOf((char) tok.ttype);
+      else
+         throw new BadSyntaxException();
+      nextToken();
+      return s;
+   }
+   
    private void nextToken() {
       try {
          tok.nextToken();
@@ -149,6 +175,7 @@ public class Lexer {
    private void initKeywords() {
       keywords = Arrays.asList("select", "from", "where", "and",
                                "insert", "into", "values", "delete", "update", "set", 
-                               "create", "table", "int", "varchar", "view", "as", "index", "on");
+                               "create", "table", "int", "varchar", "view", "as", "index", "on",
+                               "order", "by", "group", "distinct", "between", "in", "analyze", "explain");
    }
 }
\ No newline at end of file
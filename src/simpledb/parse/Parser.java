@@ -2,6 +2,7 @@ package simpledb.parse;
 
 import java.util.*;
 import simpledb.query.*;
+import simpledb.materialize.*;
 import simpledb.record.Schema;
 
 /**
@@ -9,10 +10,49 @@ import simpledb.record.Schema;
  * @author Edward Sciore
  */
 public class Parser {
+   /**
+    * CS4432: The values returned by {@link #explain()}.
+    */
+   public static final int NO_EXPLAIN = 0, EXPLAIN = 1, EXPLAIN_ANALYZE = 2;
+   
    private Lexer lex;
+   private List<Constant> args;  //CS4432: the values of the ? parameters
+   private int argcount = 0;
+   private List<Constant> consts = new ArrayList<Constant>();
    
    public Parser(String s) {
+      this(s, new ArrayList<Constant>());
+   }
+   
+   /**
+    * CS4432: Creates a parser for a statement having ? parameters,
+    * whose values are given in order.
+    * @param s the statement
+    * @param args the values of the parameters
+    */
+   public Parser(String s, List<Constant> args) {
       lex = new Lexer(s);
+      this.args = args;
+   }
+   
+   /**
+    * CS4432: Returns the constants of the parsed statement,
+    * in the order they appear; the value of a parameter
+    * appears in its place.  Each constant is a distinct object,
+    * so that the plan cache can tell them apart
+    * (see {@link simpledb.query.Bindings}).
+    * @return the list of constants
+    */
+   public List<Constant> constants() {
+      return consts;
+   }
+   
+   /**
+    * CS4432: Returns the number of ? parameters in the parsed statement.
+    * @return the number of parameters
+    */
+   public int parameterCount() {
+      return argcount;
    }
    
 // Methods for parsing predicates, terms, expressions, constants, and fields
@@ -22,10 +62,23 @@ public class Parser {
    }
    
    public Constant constant() {
-      if (lex.matchStringConstant())
-         return new StringConstant(lex.eatStringConstant());
+      Constant c;
+      if (lex.matchDelim('?')) {  //CS4432: a parameter stands for the next value
+         lex.eatDelim('?');
+         if (argcount >= args.size())
+            throw new BadSyntaxException();
+         Constant arg = args.get(argcount++);
+         if (arg instanceof IntConstant)
+            c = new IntConstant((Integer) arg.asJavaVal());
+         else
+            c = new StringConstant((String) arg.asJavaVal());
+      }
+      else if (lex.matchStringConstant())
+         c = new StringConstant(lex.eatStringConstant());
       else
-         return new IntConstant(lex.eatIntConstant());
+         c = new IntConstant(lex.eatIntConstant());
+      consts.add(c);
+      return c;
    }
    
    public Expression expression() {
@@ -36,14 +89,54 @@ public class Parser {
    }
    
    public Term term() {
-      Expression lhs = expression();
-      lex.eatDelim('=');
+      return term(expression());
+   }
+   
+   /**
+    * CS4432: Parses the rest of a term whose LHS has been parsed:
+    * a comparison operator and the RHS expression,
+    * or "in" and a parenthesized list of constants.
+    */
+   private Term term(Expression lhs) {
+      if (lex.matchKeyword("in")) {
+         lex.eatKeyword("in");
+         lex.eatDelim('(');
+         List<Constant> vals = constList();
+         lex.eatDelim(')');
+         return new Term(lhs, vals);
+      }
+      int op = operator();
       Expression rhs = expression();
-      return new Term(lhs, rhs);
+      return new Term(lhs, op, rhs);
+   }
+   
+   private int operator() {
+      if (lex.matchDelim('=')) {
+         lex.eatDelim('=');
+         return Term.EQ;
+      }
+      if (lex.matchDelim('<')) {
+         lex.eatDelim('<');
+         if (lex.matchDelim('=')) {
+            lex.eatDelim('=');
+            return Term.LE;
+         }
+         if (lex.matchDelim('>')) {
+            lex.eatDelim('>');
+            return Term.NE;
+         }
+         return Term.LT;
+      }
+      lex.eatDelim('>');
+      if (lex.matchDelim('=')) {
+         lex.eatDelim('=');
+         return Term.GE;
+      }
+      return Term.GT;
    }
    
    public Predicate predicate() {
-      Predicate pred = new Predicate(term());
+      Predicate pred = condition();
       if (lex.matchKeyword("and")) {
          lex.eatKeyword("and");
          pred.conjoinWith(predicate());
@@ -51,11 +144,45 @@ public class Parser {
       return pred;
    }
    
+   /**
+    * CS4432: Parses a term, or "E between E1 and E2",
+    * which is the predicate "E >= E1 and E <= E2".
+    */
+   private Predicate condition() {
+      Expression lhs = expression();
+      if (!lex.matchKeyword("between"))
+         return new Predicate(term(lhs));
+      lex.eatKeyword("between");
+      Expression lo = expression();
+      lex.eatKeyword("and");
+      Expression hi = expression();
+      Predicate pred = new Predicate(new Term(lhs, Term.GE, lo));
+      pred.conjoinWith(new Predicate(new Term(lhs, Term.LE, hi)));
+      return pred;
+   }
+   
 // Methods for parsing queries
    
+   /**
+    * CS4432: Parses the optional "explain" or "explain analyze"
+    * that may precede a query.
+    * @return NO_EXPLAIN, EXPLAIN or EXPLAIN_ANALYZE
+    */
+   public int explain() {
+      if (!lex.matchKeyword("explain"))
+         return NO_EXPLAIN;
+      lex.eatKeyword("explain");
+      if (!lex.matchKeyword("analyze"))
+         return EXPLAIN;
+      lex.eatKeyword("analyze");
+      return EXPLAIN_ANALYZE;
+   }
+   
    public QueryData query() {
       lex.eatKeyword("select");
-      Collection<String> fields = selectList();
+      Collection<String> fields = new ArrayList<String>();
+      Collection<AggregationFn> aggfns = new ArrayList<AggregationFn>();
+      selectList(fields, aggfns);
       lex.eatKeyword("from");
       Collection<String> tables = tableList();
       Predicate pred = new Predicate();
@@ -63,17 +190,80 @@ public class Parser {
          lex.eatKeyword("where");
          pred = predicate();
       }
-      return new QueryData(fields, tables, pred);
+      Collection<String> groupfields = new ArrayList<String>();
+      if (lex.matchKeyword("group")) {
+         lex.eatKeyword("group");
+         lex.eatKeyword("by");
+         groupfields = fieldList();
+      }
+      List<String> sortfields = new ArrayList<String>();
+      if (lex.matchKeyword("order")) {
+         lex.eatKeyword("order");
+         lex.eatKeyword("by");
+         sortfields = fieldList();
+      }
+      // CS4432: in a grouped query, every selected field
+      // must be a group field or an aggregation field
+      if (!groupfields.isEmpty() || !aggfns.isEmpty())
+         for (String fldname : fields)
+            if (!groupfields.contains(fldname) && !isAggregate(fldname, aggfns))
+               throw new BadSyntaxException();
+      return new QueryData(fields, tables, pred, groupfields, aggfns, sortfields);
    }
    
-   private Collection<String> selectList() {
-      Collection<String> L = new ArrayList<String>();
-      L.add(field());
+   /**
+    * CS4432: Parses the select list into the fields
+    * and aggregation functions it contains.
+    * An aggregation function is written as the function name
+    * followed by a parenthesized field name,
+    * and is represented in the field list by the
+    * name of its aggregation field.
+    */
+   private void selectList(Collection<String> fields, Collection<AggregationFn> aggfns) {
+      String name = field();
+      if (lex.matchDelim('(')) {
+         AggregationFn fn = aggregate(name);
+         aggfns.add(fn);
+         fields.add(fn.fieldName());
+      }
+      else
+         fields.add(name);
       if (lex.matchDelim(',')) {
          lex.eatDelim(',');
-         L.addAll(selectList());
+         selectList(fields, aggfns);
       }
-      return L;
+   }
+   
+   private AggregationFn aggregate(String fnname) {
+      lex.eatDelim('(');
+      boolean distinct = lex.matchKeyword("distinct");
+      if (distinct)
+         lex.eatKeyword("distinct");
+      String fldname = field();
+      lex.eatDelim(')');
+      if (fnname.equals("count"))
+         return distinct ? new CountDistinctFn(fldname) : new CountFn(fldname);
+      else if (distinct)
+         throw new BadSyntaxException();
+      else if (fnname.equals("sum"))
+         return new SumFn(fldname);
+      else if (fnname.equals("avg"))
+         return new AvgFn(fldname);
+      else if (fnname.equals("min"))
+         return new MinFn(fldname);
+      else if (fnname.equals("max"))
+         return new MaxFn(fldname);
+      else if (fnname.equals("approxcount"))
+         return new ApproxCountFn(fldname);
+      else
+         throw new BadSyntaxException();
+   }
+   
+   private boolean isAggregate(String fldname, Collection<AggregationFn> aggfns) {
+      for (AggregationFn fn : aggfns)
+         if (fn.fieldName().equals(fldname))
+            return true;
+      return false;
    }
    
    private Collection<String> tableList() {
@@ -95,10 +285,21 @@ public class Parser {
          return delete();
       else if (lex.matchKeyword("update"))
          return modify();
+      else if (lex.matchKeyword("analyze"))
+         return analyze();
       else
          return create();
    }
    
+   /**
+    * CS4432: Parses "analyze", optionally followed by a table name.
+    */
+   private AnalyzeData analyze() {
+      lex.eatKeyword("analyze");
+      String tblname = lex.matchId() ? lex.eatId() : null;
+      return new AnalyzeData(tblname);
+   }
+   
    private Object create() {
       lex.eatKeyword("create");
       if (lex.matchKeyword("table"))
@@ -239,10 +440,18 @@ public class Parser {
       lex.eatKeyword("on");
       String tblname = lex.eatId();
       lex.eatDelim('(');
-      String fldname = field();
+      List<String> fldnames = fieldList();
       lex.eatDelim(')');
+      // the number of buckets of a static hash index is optional
+      int numbuckets = 0;
+      if (lex.matchKeyword("buckets")) {
+         lex.eatKeyword("buckets");
+         numbuckets = lex.eatIntConstant();
+         if (numbuckets <= 0)
+            throw new BadSyntaxException();
+      }
       //CS4432: Creates Index Data that includes the index type
-      return new CreateIndexData(idxtype, idxname, tblname, fldname);
+      return new CreateIndexData(idxtype, idxname, tblname, fldnames, numbuckets);
    }
 }
 
@@ -1,6 +1,7 @@
 package simpledb.parse;
 
 import simpledb.query.*;
+import simpledb.materialize.AggregationFn;
 import java.util.*;
 
 /**
@@ -11,14 +12,44 @@ public class QueryData {
    private Collection<String> fields;
    private Collection<String> tables;
    private Predicate pred;
+   private List<String> sortfields;
+   private Collection<String> groupfields;
+   private Collection<AggregationFn> aggfns;
    
    /**
     * Saves the field and table list and predicate.
     */
    public QueryData(Collection<String> fields, Collection<String> tables, Predicate pred) {
+      this(fields, tables, pred, new ArrayList<String>());
+   }
+   
+   /**
+    * Saves the field and table list, predicate,
+    * and the fields of the order by clause.
+    */
+   public QueryData(Collection<String> fields, Collection<String> tables, Predicate pred,
+                    List<String> sortfields) {
+      this(fields, tables, pred, new ArrayList<String>(),
+           new ArrayList<AggregationFn>(), sortfields);
+   }
+   
+   /**
+    * CS4432: Saves the field and table list, predicate,
+    * the fields of the group by clause, the aggregation
+    * functions of the select clause,
+    * and the fields of the order by clause.
+    * The field list holds the name of each aggregation
+    * field in place of the function.
+    */
+   public QueryData(Collection<String> fields, Collection<String> tables, Predicate pred,
+                    Collection<String> groupfields, Collection<AggregationFn> aggfns,
+                    List<String> sortfields) {
       this.fields = fields;
       this.tables = tables;
       this.pred = pred;
+      this.groupfields = groupfields;
+      this.aggfns = aggfns;
+      this.sortfields = sortfields;
    }
    
    /**
@@ -46,10 +77,49 @@ public class QueryData {
       return pred;
    }
    
+   /**
+    * Returns the fields mentioned in the order by clause,
+    * most significant first.
+    * The list is empty if the query has no order by clause.
+    * @return a list of field names
+    */
+   public List<String> sortFields() {
+      return sortfields;
+   }
+   
+   /**
+    * CS4432: Returns the fields mentioned in the group by clause.
+    * The collection is empty if the query has no group by clause.
+    * @return a collection of field names
+    */
+   public Collection<String> groupFields() {
+      return groupfields;
+   }
+   
+   /**
+    * CS4432: Returns the aggregation functions
+    * mentioned in the select clause.
+    * @return a collection of aggregation functions
+    */
+   public Collection<AggregationFn> aggregates() {
+      return aggfns;
+   }
+   
+   /**
+    * CS4432: Returns true if the query groups its records,
+    * which it does if it has a group by clause or
+    * if its select clause mentions an aggregation function
+    * (in which case all records form a single group).
+    * @return true if the query needs a groupby operator
+    */
+   public boolean isGrouped() {
+      return !groupfields.isEmpty() || !aggfns.isEmpty();
+   }
+   
    public String toString() {
       String result = "select ";
       for (String fldname : fields)
-         result += fldname + ", ";
+         result += selectItem(fldname) + ", ";
       result = result.substring(0, result.length()-2); //remove final comma
       result += " from ";
       for (String tblname : tables)
@@ -58,6 +128,25 @@ public class QueryData {
       String predstring = pred.toString();
       if (!predstring.equals(""))
          result += " where " + predstring;
+      if (!groupfields.isEmpty()) {
+         result += " group by ";
+         for (String fldname : groupfields)
+            result += fldname + ", ";
+         result = result.substring(0, result.length()-2); //remove final comma
+      }
+      if (!sortfields.isEmpty()) {
+         result += " order by ";
+         for (String fldname : sortfields)
+            result += fldname + ", ";
+         result = result.substring(0, result.length()-2); //remove final comma
+      }
       return result;
    }
+   
+   private String selectItem(String fldname) {
+      for (AggregationFn fn : aggfns)
+         if (fn.fieldName().equals(fldname))
+            return fn.toString();
+      return fldname;
+   }
 }
@@ -2,6 +2,7 @@ package simpledb.planner;
 
 import simpledb.tx.Transaction;
 import simpledb.query.*;
+import simpledb.materialize.*;
 import simpledb.parse.*;
 import simpledb.server.SimpleDB;
 import java.util.*;
@@ -15,6 +16,8 @@ public class BasicQueryPlanner implements QueryPlanner {
    /**
     * Creates a query plan as follows.  It first takes
     * the product of all tables and views; it then selects on the predicate;
+    * it groups on the group by fields, if the query is grouped;
+    * it sorts on the order by fields, if any;
     * and finally it projects on the field list. 
     */
    public Plan createPlan(QueryData data, Transaction tx) {
@@ -36,7 +39,15 @@ public class BasicQueryPlanner implements QueryPlanner {
       //Step 3: Add a selection plan for the predicate
       p = new SelectPlan(p, data.pred());
       
-      //Step 4: Project on the field names
+      //Step 4: Group on the group by fields, computing the aggregates
+      if (data.isGrouped())
+         p = HashGroupByPlan.makeGroupByPlan(p, data.groupFields(), data.aggregates(), tx);
+      
+      //Step 5: Sort on the order by fields, unless already in that order
+      if (!SortPlan.isSorted(p, data.sortFields()))
+         p = new SortPlan(p, data.sortFields(), tx);
+      
+      //Step 6: Project on the field names
       p = new ProjectPlan(p, data.fields());
       return p;
    }
@@ -62,7 +62,12 @@ public class BasicUpdatePlanner implements UpdatePlanner {
       return 0;
    }
    public int executeCreateIndex(CreateIndexData data, Transaction tx) {
-      SimpleDB.mdMgr().createIndex(data.indexName(), data.tableName(), data.fieldName(), tx);
+      SimpleDB.mdMgr().createIndex("sh", data.indexName(), data.tableName(), data.fieldNames(),
+                                   data.numBuckets(), tx);
       return 0;  
    }
+   
+   public int executeAnalyze(AnalyzeData data, Transaction tx) {
+      return SimpleDB.mdMgr().analyze(data.tableName(), tx);
+   }
 }
@@ -0,0 +1,136 @@
+package simpledb.planner;
+
+import simpledb.parse.*;
+import simpledb.query.*;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+import java.util.*;
+
+/**
+ * CS4432: A cache of query plans, shared by the planners of the server,
+ * which holds the plans of the {@link SimpleDB#PLAN_CACHE_SIZE}
+ * most recently used queries.
+ * <p>
+ * A query is cached under its normalized text: its tokens
+ * (with identifiers and keywords in lower case) separated by
+ * single spaces, and with each constant, whether a literal or
+ * a ? parameter, replaced by ?.  Queries that differ only in
+ * their constants therefore share a plan.
+ * <p>
+ * A plan belongs to the transaction that created it, so the cache
+ * keeps the plan as a template, together with the constants it was
+ * planned with.  Each use of the plan instantiates the template for
+ * the calling transaction, replacing those constants with the
+ * values of the query (see {@link Plan#instantiate}).
+ * The template is chosen using the values of the first query
+ * that is planned, which may make it a poor plan for others.
+ * <p>
+ * A cached plan is used only while the catalog version that
+ * it was planned under is current; a new table, view or index,
+ * or new statistics, make every cached plan stale.
+ * @author Edward Sciore
+ */
+public class PlanCache {
+   @SuppressWarnings("serial")
+   private Map<String,Entry> plans = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<String,Entry> eldest) {
+         return size() > SimpleDB.PLAN_CACHE_SIZE;
+      }
+   };
+   
+   /**
+    * Returns the normalized text of the specified query, and adds
+    * the values of its constants (literals and parameters),
+    * in order, to the specified list.
+    * @param qry the query
+    * @param args the values of its ? parameters
+    * @param vals the list to which the values of the constants are added
+    * @return the key of the query in the cache
+    */
+   static String key(String qry, List<Constant> args, List<Constant> vals) {
+      Lexer lex = new Lexer(qry);
+      StringBuilder result = new StringBuilder();
+      int argcount = 0;
+      while (!lex.atEnd()) {
+         if (result.length() > 0)
+            result.append(' ');
+         if (lex.matchDelim('?')) {
+            lex.eatDelim('?');
+            if (argcount >= args.size())
+               throw new BadSyntaxException();
+            vals.add(args.get(argcount++));
+            result.append('?');
+         }
+         else if (lex.matchStringConstant()) {
+            vals.add(new StringConstant(lex.eatStringConstant()));
+            result.append('?');
+         }
+         else if (lex.matchIntConstant()) {
+            vals.add(new IntConstant(lex.eatIntConstant()));
+            result.append('?');
+         }
+         else
+            result.append(lex.eatToken());
+      }
+      if (argcount != args.size())
+         throw new BadSyntaxException();
+      return result.toString();
+   }
+   
+   /**
+    * Returns a plan for the query cached under the specified key,
+    * instantiated for the specified transaction with the specified
+    * values of its constants.
+    * The method returns null if no plan is cached for the key,
+    * if the plan was made under another catalog version,
+    * or if the values do not have the types of those it was planned with.
+    * @param key the normalized query
+    * @param vals the values of the query's constants
+    * @param version the current catalog version
+    * @param tx the calling transaction
+    * @return the plan, or null
+    */
+   Plan get(String key, List<Constant> vals, int version, Transaction tx) {
+      Entry e;
+      synchronized(this) {
+         e = plans.get(key);
+      }
+      if (e == null || e.version != version)
+         return null;
+      for (int i=0; i<vals.size(); i++)
+         if (vals.get(i).getClass() != e.consts.get(i).getClass())
+            return null;
+      return e.plan.instantiate(tx, new Bindings(e.consts, vals));
+   }
+   
+   /**
+    * Caches the plan of the query having the specified key.
+    * The plan is not cached if the parser did not see exactly the
+    * constants that the key was made from, or if the catalog was
+    * being changed when it was made.
+    * @param key the normalized query
+    * @param p the plan
+    * @param consts the constants of the query, as returned by the parser
+    * @param vals the values of the constants, as found by key
+    * @param version the catalog version under which the plan was made
+    */
+   void put(String key, Plan p, List<Constant> consts, List<Constant> vals, int version) {
+      if (version < 0 || consts.size() != vals.size())
+         return;
+      synchronized(this) {
+         plans.put(key, new Entry(p, consts, version));
+      }
+   }
+   
+   private static class Entry {
+      Plan plan;
+      List<Constant> consts;
+      int version;
+      
+      Entry(Plan plan, List<Constant> consts, int version) {
+         this.plan = plan;
+         this.consts = consts;
+         this.version = version;
+      }
+   }
+}
@@ -3,6 +3,8 @@ package simpledb.planner;
 import simpledb.tx.Transaction;
 import simpledb.parse.*;
 import simpledb.query.*;
+import simpledb.server.SimpleDB;
+import java.util.*;
 
 /**
  * The object that executes SQL statements.
@@ -24,14 +26,56 @@ public class Planner {
     * @return the scan corresponding to the query plan
     */
    public Plan createQueryPlan(String qry, Transaction tx) {
-      Parser parser = new Parser(qry);
+      return createQueryPlan(qry, new ArrayList<Constant>(), tx);
+   }
+   
+   /**
+    * CS4432: Creates a plan for an SQL select statement
+    * having ? parameters, whose values are given in order.
+    * A statement beginning with "explain" or "explain analyze"
+    * gets a plan that describes the plan of its query
+    * (see {@link ExplainPlan}).
+    * The plan is taken from the server's plan cache if a query
+    * differing only in its constants was planned before
+    * under the current catalog version;
+    * otherwise the query is planned and the plan is cached.
+    * @param qry the SQL query string
+    * @param args the values of the parameters
+    * @param tx the transaction
+    * @return the scan corresponding to the query plan
+    */
+   public Plan createQueryPlan(String qry, List<Constant> args, Transaction tx) {
+      PlanCache pc = SimpleDB.planCache();
+      int version = SimpleDB.mdMgr().catalogVersion();
+      if (pc == null || SimpleDB.PLAN_CACHE_SIZE <= 0 || version < 0)
+         return makeQueryPlan(new Parser(qry, args), args, tx);
+      List<Constant> vals = new ArrayList<Constant>();
+      String key = qplanner.getClass().getName() + ": " + PlanCache.key(qry, args, vals);
+      Plan p = pc.get(key, vals, version, tx);
+      if (p == null) {
+         Parser parser = new Parser(qry, args);
+         p = makeQueryPlan(parser, args, tx);
+         pc.put(key, p, parser.constants(), vals, version);
+      }
+      return p;
+   }
+   
+   private Plan makeQueryPlan(Parser parser, List<Constant> args, Transaction tx) {
+      int explain = parser.explain();
       QueryData data = parser.query();
-      return qplanner.createPlan(data, tx);
+      if (parser.parameterCount() != args.size())
+         throw new BadSyntaxException();
+      Plan p = qplanner.createPlan(data, tx);
+      if (p.supportsBatches())  //CS4432: run the query in batches when it can
+         p = new BatchPlan(p);
+      if (explain != Parser.NO_EXPLAIN)  //CS4432: describe the plan instead
+         p = new ExplainPlan(p, explain == Parser.EXPLAIN_ANALYZE, tx);
+      return p;
    }
    
    /**
-    * Executes an SQL insert, delete, modify, or
-    * create statement.
+    * Executes an SQL insert, delete, modify,
+    * create, or (CS4432) analyze statement.
     * The method dispatches to the appropriate method of the
     * supplied update planner,
     * depending on what the parser returns.
@@ -40,8 +84,22 @@ public class Planner {
     * @return an integer denoting the number of affected records
     */
    public int executeUpdate(String cmd, Transaction tx) {
-      Parser parser = new Parser(cmd);
+      return executeUpdate(cmd, new ArrayList<Constant>(), tx);
+   }
+   
+   /**
+    * CS4432: Executes an SQL update statement
+    * having ? parameters, whose values are given in order.
+    * @param cmd the SQL update string
+    * @param args the values of the parameters
+    * @param tx the transaction
+    * @return an integer denoting the number of affected records
+    */
+   public int executeUpdate(String cmd, List<Constant> args, Transaction tx) {
+      Parser parser = new Parser(cmd, args);
       Object obj = parser.updateCmd();
+      if (parser.parameterCount() != args.size())
+         throw new BadSyntaxException();
       if (obj instanceof InsertData)
          return uplanner.executeInsert((InsertData)obj, tx);
       else if (obj instanceof DeleteData)
@@ -54,6 +112,8 @@ public class Planner {
          return uplanner.executeCreateView((CreateViewData)obj, tx);
       else if (obj instanceof CreateIndexData)
          return uplanner.executeCreateIndex((CreateIndexData)obj, tx);
+      else if (obj instanceof AnalyzeData)
+         return uplanner.executeAnalyze((AnalyzeData)obj, tx);
       else
          return 0;
    }
@@ -63,4 +63,13 @@ public interface UpdatePlanner {
     * @return the number of affected records
     */
    public int executeCreateIndex(CreateIndexData data, Transaction tx);
+   
+   /**
+    * CS4432: Executes the specified analyze statement, and
+    * returns the number of records that were read.
+    * @param data the parsed representation of the analyze statement
+    * @param tx the calling transaction
+    * @return the number of records read
+    */
+   public int executeAnalyze(AnalyzeData data, Transaction tx);
 }
@@ -0,0 +1,265 @@
+package simpledb.query;
+
+import static java.sql.Types.INTEGER;
+import simpledb.record.Schema;
+import java.util.*;
+
+/**
+ * CS4432: A batch of records, held column by column.
+ * Each field has a column, which is an int array for an
+ * integer field and a String array for a string field,
+ * with one entry per row of the batch.
+ * The selection vector lists the rows that are in the batch,
+ * in row order; a selection removes rows from the batch by
+ * shortening the vector, without moving any values.
+ * Batches are passed between the scans that implement
+ * {@link BatchScan}, so that an operator handles many records
+ * per call, and integer values are not wrapped in constants.
+ * @author Edward Sciore
+ */
+public class Batch {
+   private List<String> fields;
+   private boolean[] isint;
+   private int[][] ints;
+   private String[][] strings;
+   private int[] sel;
+   private int rows = 0, size = 0;
+
+   /**
+    * Creates an empty batch having the specified fields.
+    * @param fields the fields, in column order
+    * @param isint whether each field is an integer field
+    * @param capacity the maximum number of rows
+    */
+   public Batch(List<String> fields, boolean[] isint, int capacity) {
+      this.fields = fields;
+      this.isint = isint;
+      ints = new int[fields.size()][];
+      strings = new String[fields.size()][];
+      for (int i=0; i<isint.length; i++) {
+         if (isint[i])
+            ints[i] = new int[capacity];
+         else
+            strings[i] = new String[capacity];
+      }
+      sel = new int[capacity];
+   }
+
+   /**
+    * Creates an empty batch having the specified fields,
+    * whose types are taken from the schema.
+    * @param fields the fields, in column order
+    * @param sch a schema containing the fields
+    * @param capacity the maximum number of rows
+    */
+   public Batch(List<String> fields, Schema sch, int capacity) {
+      this(fields, types(fields, sch), capacity);
+   }
+
+   /**
+    * Creates an empty batch having the columns of the first
+    * batch followed by the columns of the second,
+    * for holding the rows of their product.
+    * @param b1 the first batch
+    * @param b2 the second batch
+    * @param capacity the maximum number of rows
+    */
+   public Batch(Batch b1, Batch b2, int capacity) {
+      this(concat(b1.fields, b2.fields), concat(b1.isint, b2.isint), capacity);
+   }
+
+   /**
+    * Returns the fields of the batch, in column order.
+    * @return the list of fields
+    */
+   public List<String> fields() {
+      return fields;
+   }
+
+   /**
+    * Returns the column of the specified field.
+    * @param fldname the name of the field
+    * @return the column of the field
+    */
+   public int fieldPos(String fldname) {
+      int col = fields.indexOf(fldname);
+      if (col < 0)
+         throw new RuntimeException("field " + fldname + " not found.");
+      return col;
+   }
+
+   /**
+    * Returns true if the specified column holds integers.
+    * @param col the column
+    * @return true if the column is an integer column
+    */
+   public boolean isInt(int col) {
+      return isint[col];
+   }
+
+   /**
+    * Returns the values of the specified integer column,
+    * indexed by row.
+    * @param col the column
+    * @return the values of the column
+    */
+   public int[] intColumn(int col) {
+      return ints[col];
+   }
+
+   /**
+    * Returns the values of the specified string column,
+    * indexed by row.
+    * @param col the column
+    * @return the values of the column
+    */
+   public String[] stringColumn(int col) {
+      return strings[col];
+   }
+
+   /**
+    * Returns the selection vector of the batch,
+    * whose first {@link #size()} entries are the
+    * selected rows.
+    * @return the selection vector
+    */
+   public int[] selection() {
+      return sel;
+   }
+
+   /**
+    * Returns the number of selected rows.
+    * @return the number of rows in the batch
+    */
+   public int size() {
+      return size;
+   }
+
+   /**
+    * Keeps only the first n entries of the selection vector.
+    * A selection compacts the rows it keeps to the front of
+    * the vector and then calls this method.
+    * @param n the number of selected rows
+    */
+   public void setSize(int n) {
+      size = n;
+   }
+
+   /**
+    * Returns the row of the i-th selected record.
+    * @param i an index into the selection vector
+    * @return the row of that record
+    */
+   public int row(int i) {
+      return sel[i];
+   }
+
+   /**
+    * Returns true if every row of the batch has been filled.
+    * @return true if no more rows can be added
+    */
+   public boolean isFull() {
+      return rows == sel.length;
+   }
+
+   /**
+    * Empties the batch.
+    */
+   public void clear() {
+      rows = 0;
+      size = 0;
+   }
+
+   /**
+    * Adds a row to the batch, and selects it.
+    * The caller then sets the values of the row.
+    * @return the new row
+    */
+   public int addRow() {
+      sel[size++] = rows;
+      return rows++;
+   }
+
+   /**
+    * Returns the number of rows that can still be added.
+    * @return the number of unfilled rows
+    */
+   public int remaining() {
+      return sel.length - rows;
+   }
+
+   /**
+    * Adds the specified number of rows to the batch,
+    * and selects them.
+    * The caller then fills the columns of those rows directly.
+    * @param n the number of rows
+    * @return the first new row
+    */
+   public int addRows(int n) {
+      int first = rows;
+      for (int i=0; i<n; i++)
+         sel[size++] = rows++;
+      return first;
+   }
+
+   /**
+    * Makes the batch consist of the first n rows, all selected.
+    * The caller fills the columns of those rows directly.
+    * @param n the number of rows
+    */
+   public void fill(int n) {
+      for (int i=0; i<n; i++)
+         sel[i] = i;
+      rows = n;
+      size = n;
+   }
+
+   public Constant getVal(int col, int row) {
+      if (isint[col])
+         return new IntConstant(ints[col][row]);
+      else
+         return new StringConstant(strings[col][row]);
+   }
+
+   public int getInt(int col, int row) {
+      return ints[col][row];
+   }
+
+   public String getString(int col, int row) {
+      return strings[col][row];
+   }
+
+   public void setVal(int col, int row, Constant val) {
+      if (isint[col])
+         ints[col][row] = (Integer) val.asJavaVal();
+      else
+         strings[col][row] = (String) val.asJavaVal();
+   }
+
+   public void setInt(int col, int row, int val) {
+      ints[col][row] = val;
+   }
+
+   public void setString(int col, int row, String val) {
+      strings[col][row] = val;
+   }
+
+   private static boolean[] types(List<String> fields, Schema sch) {
+      boolean[] isint = new boolean[fields.size()];
+      for (int i=0; i<isint.length; i++)
+         isint[i] = sch.type(fields.get(i)) == INTEGER;
+      return isint;
+   }
+
+   private static List<String> concat(List<String> l1, List<String> l2) {
+      List<String> result = new ArrayList<String>(l1);
+      result.addAll(l2);
+      return result;
+   }
+
+   private static boolean[] concat(boolean[] a1, boolean[] a2) {
+      boolean[] result = Arrays.copyOf(a1, a1.length + a2.length);
+      System.arraycopy(a2, 0, result, a1.length, a2.length);
+      return result;
+   }
+}
@@ -0,0 +1,87 @@
+package simpledb.query;
+
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import java.util.*;
+
+/**
+ * CS4432: The Plan class that runs its underlying query in batches.
+ * The underlying plan must support batches; this plan opens
+ * its scan and reads the batches one record at a time,
+ * so that the caller sees an ordinary scan.
+ * All of its estimates are those of the underlying plan.
+ * @author Edward Sciore
+ */
+public class BatchPlan implements Plan {
+   private Plan p;
+
+   /**
+    * Creates a plan that runs the specified query in batches.
+    * @param p a plan that supports batches
+    */
+   public BatchPlan(Plan p) {
+      this.p = p;
+   }
+
+   /**
+    * Opens the underlying scan, and wraps it in a
+    * scan that reads its batches a record at a time.
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      return new BatchRowScan((BatchScan) p.open(), p.schema());
+   }
+
+   /**
+    * CS4432: Instantiates the underlying plan.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = args.instantiate(p, tx);
+      return (newp == null) ? null : new BatchPlan(newp);
+   }
+
+   /**
+    * CS4432: The input is the query run in batches.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+
+   /**
+    * CS4432: Describes the plan as running its input in batches.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "Batch";
+   }
+
+   public int blocksAccessed() {
+      return p.blocksAccessed();
+   }
+
+   public int recordsOutput() {
+      return p.recordsOutput();
+   }
+
+   public int distinctValues(String fldname) {
+      return p.distinctValues(fldname);
+   }
+
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      return p.rangeReductionFactor(fldname, range);
+   }
+
+   public Schema schema() {
+      return p.schema();
+   }
+
+   public List<String> sortOrder() {
+      return p.sortOrder();
+   }
+
+   public boolean supportsBatches() {
+      return true;
+   }
+}
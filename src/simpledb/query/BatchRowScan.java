@@ -0,0 +1,118 @@
+package simpledb.query;
+
+import simpledb.record.Schema;
+import java.util.*;
+
+/**
+ * CS4432: A scan that reads the batches of a batch scan
+ * one record at a time.
+ * It lets an operator that processes records one at a time
+ * (such as the client's result set, or an aggregation)
+ * sit above operators that run in batches.
+ * The positions of the scan are the indexes of the fields
+ * in its schema; they are mapped to the columns of the
+ * underlying batches whenever a different batch object appears,
+ * which is normally only for the first batch.
+ * @author Edward Sciore
+ */
+public class BatchRowScan implements Scan, BatchScan {
+   private BatchScan s;
+   private Schema sch;
+   private List<String> fields;
+   private int[] cols;
+   private Batch batch = null, mapped = null;
+   private int current, row;
+
+   /**
+    * Creates a scan of the records of the specified batch scan.
+    * @param s the underlying batch scan
+    * @param sch the schema of the records
+    */
+   public BatchRowScan(BatchScan s, Schema sch) {
+      this.s = s;
+      this.sch = sch;
+      fields = new ArrayList<String>(sch.fields());
+      cols = new int[fields.size()];
+      beforeFirst();
+   }
+
+   public void beforeFirst() {
+      s.beforeFirst();
+      batch = null;
+      current = -1;
+   }
+
+   /**
+    * Moves to the next selected row of the current batch,
+    * reading the next batch when the current one is exhausted.
+    * @see simpledb.query.Scan#next()
+    */
+   public boolean next() {
+      current++;
+      while (batch == null || current >= batch.size()) {
+         batch = s.nextBatch();
+         if (batch == null)
+            return false;
+         current = 0;
+         if (batch != mapped) {
+            for (int i=0; i<cols.length; i++)
+               cols[i] = batch.fieldPos(fields.get(i));
+            mapped = batch;
+         }
+      }
+      row = batch.row(current);
+      return true;
+   }
+
+   public void close() {
+      s.close();
+   }
+
+   /**
+    * Returns the next batch of the underlying scan,
+    * so that batch execution can continue through this scan.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      return s.nextBatch();
+   }
+
+   public Constant getVal(String fldname) {
+      return getVal(fieldPos(fldname));
+   }
+
+   public int getInt(String fldname) {
+      return getInt(fieldPos(fldname));
+   }
+
+   public String getString(String fldname) {
+      return getString(fieldPos(fldname));
+   }
+
+   public boolean hasField(String fldname) {
+      return sch.hasField(fldname);
+   }
+
+   /**
+    * Returns the position of the field in the schema.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      int pos = fields.indexOf(fldname);
+      if (pos < 0)
+         throw new RuntimeException("field " + fldname + " not found.");
+      return pos;
+   }
+
+   public Constant getVal(int pos) {
+      return batch.getVal(cols[pos], row);
+   }
+
+   public int getInt(int pos) {
+      return batch.getInt(cols[pos], row);
+   }
+
+   public String getString(int pos) {
+      return batch.getString(cols[pos], row);
+   }
+}
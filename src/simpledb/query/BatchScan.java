@@ -0,0 +1,36 @@
+package simpledb.query;
+
+/**
+ * CS4432: The interface implemented by scans that can
+ * produce their records a batch at a time.
+ * A scan implements this interface in addition to Scan;
+ * a given open scan is read either one way or the other.
+ * A plan whose scan can be read in batches says so
+ * through {@link Plan#supportsBatches()}.
+ * @author Edward Sciore
+ */
+public interface BatchScan {
+
+   /**
+    * Positions the scan before its first batch.
+    */
+   public void     beforeFirst();
+
+   /**
+    * Returns the next batch of records.
+    * The batch has at least one selected row.
+    * It belongs to the scan, and its contents are replaced
+    * by the next call to this method;
+    * the caller may, however, shorten its selection vector.
+    * A call that returns null leaves the previous batch unchanged,
+    * so a caller that has read all of the records in a single
+    * batch can keep using it.
+    * @return the next batch, or null if there are no more records
+    */
+   public Batch    nextBatch();
+
+   /**
+    * Closes the scan and its subscans, if any.
+    */
+   public void     close();
+}
@@ -0,0 +1,99 @@
+package simpledb.query;
+
+import simpledb.tx.Transaction;
+import java.util.*;
+
+/**
+ * CS4432: The new values of the constants of a cached query plan.
+ * When a query is planned, each of its constants (a literal,
+ * or the value given to a ? parameter) is a distinct object.
+ * The plan cache remembers these objects; when the query is run
+ * again with other values, each node of the plan replaces the
+ * constants it holds by asking a Bindings object,
+ * which maps the remembered objects (by identity) to the new values.
+ * Constants that do not come from the query,
+ * and fields, are left unchanged.
+ * <p>
+ * Each plan instantiates its inputs by calling
+ * {@link #instantiate(Plan, Transaction)}, so that a subclass
+ * can change every node of the new plan tree
+ * (as EXPLAIN ANALYZE does, to measure each node).
+ * @author Edward Sciore
+ */
+public class Bindings {
+   private Map<Constant,Constant> vals = new IdentityHashMap<Constant,Constant>();
+
+   /**
+    * Creates the bindings that replace each of the
+    * specified constants by the corresponding value.
+    * @param consts the constants of the query when it was planned
+    * @param newvals the new values, in the same order
+    */
+   public Bindings(List<Constant> consts, List<Constant> newvals) {
+      for (int i=0; i<consts.size(); i++)
+         vals.put(consts.get(i), newvals.get(i));
+   }
+
+   /**
+    * Creates bindings that replace no constants,
+    * so that a plan instantiated with them is
+    * a copy of the original.
+    */
+   public Bindings() {
+   }
+
+   /**
+    * Instantiates the specified plan, which is
+    * an input of a plan being instantiated.
+    * @param p an input plan
+    * @param tx the transaction that will run the plan
+    * @return the new plan, or null if it cannot be instantiated
+    */
+   public Plan instantiate(Plan p, Transaction tx) {
+      return p.instantiate(tx, this);
+   }
+
+   /**
+    * Returns the new value of the specified constant.
+    * The components of a composite constant are replaced one by one.
+    * @param c a constant of the plan, or null
+    * @return its new value, or c itself if it does not change
+    */
+   public Constant bind(Constant c) {
+      if (c == null)
+         return null;
+      Constant val = vals.get(c);
+      if (val != null)
+         return val;
+      if (c instanceof CompositeConstant) {
+         CompositeConstant cc = (CompositeConstant) c;
+         List<Constant> components = new ArrayList<Constant>();
+         for (int i=0; i<cc.size(); i++)
+            components.add(bind(cc.get(i)));
+         return new CompositeConstant(components);
+      }
+      return c;
+   }
+
+   /**
+    * Returns the specified range, with its endpoints replaced.
+    * @param r a range of the plan
+    * @return the new range
+    */
+   public ConstantRange bind(ConstantRange r) {
+      return new ConstantRange(bind(r.low()), r.lowInclusive(), bind(r.high()), r.highInclusive());
+   }
+
+   /**
+    * Returns the specified expression, with its constant replaced.
+    * @param e an expression of the plan
+    * @return the new expression, or e itself if it does not change
+    */
+   public Expression bind(Expression e) {
+      if (!e.isConstant())
+         return e;
+      Constant c = e.asConstant();
+      Constant val = bind(c);
+      return (val == c) ? e : new ConstantExpression(val);
+   }
+}
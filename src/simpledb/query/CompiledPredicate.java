@@ -0,0 +1,47 @@
+package simpledb.query;
+
+import java.util.*;
+
+/**
+ * CS4432: A predicate that has been compiled for a particular scan.
+ * Its terms are evaluated in order, using their compiled form;
+ * terms that are always true are dropped, and a term that is
+ * never true replaces all of the others.
+ * A predicate is compiled by
+ * {@link Predicate#compile(Scan, simpledb.record.Schema)}.
+ * @author Edward Sciore
+ */
+public class CompiledPredicate {
+   private CompiledTerm[] terms;
+
+   /**
+    * Creates a compiled predicate that is the conjunction
+    * of the specified compiled terms.
+    * @param compiled the compiled terms, in evaluation order
+    */
+   public CompiledPredicate(List<CompiledTerm> compiled) {
+      List<CompiledTerm> needed = new ArrayList<CompiledTerm>();
+      for (CompiledTerm t : compiled) {
+         if (t == CompiledTerm.FALSE) {
+            needed = Collections.singletonList(t);
+            break;
+         }
+         if (t != CompiledTerm.TRUE)
+            needed.add(t);
+      }
+      terms = needed.toArray(new CompiledTerm[needed.size()]);
+   }
+
+   /**
+    * Returns true if the current record of the scan
+    * satisfies every term.
+    * @param s the scan that the predicate was compiled for
+    * @return true if the predicate is true of the current record
+    */
+   public boolean isSatisfied(Scan s) {
+      for (CompiledTerm t : terms)
+         if (!t.isSatisfied(s))
+         return false;
+      return true;
+   }
+}
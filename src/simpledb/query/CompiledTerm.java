@@ -0,0 +1,158 @@
+package simpledb.query;
+
+import java.util.*;
+
+/**
+ * CS4432: A term that has been compiled for a particular scan.
+ * The fields of the term are resolved to positions in the scan,
+ * and their types are known, so each kind of comparison has
+ * its own subclass: an integer field is compared as an int,
+ * without creating a Constant for its value.
+ * Terms are compiled by {@link Term#compile(Scan, simpledb.record.Schema)}.
+ * @author Edward Sciore
+ */
+public abstract class CompiledTerm {
+   /**
+    * A term that is satisfied by every record.
+    */
+   public static final CompiledTerm TRUE = new ConstantTerm(true);
+
+   /**
+    * A term that is satisfied by no record.
+    */
+   public static final CompiledTerm FALSE = new ConstantTerm(false);
+
+   /**
+    * Returns true if the current record of the scan
+    * satisfies the term.
+    * The scan must be the one that the term was compiled for.
+    * @param s the scan
+    * @return true if the term is true of the current record
+    */
+   public abstract boolean isSatisfied(Scan s);
+
+   /**
+    * The term F op c, for an integer field F.
+    */
+   static class IntFieldConstant extends CompiledTerm {
+      private int pos, op, val;
+
+      IntFieldConstant(int pos, int op, int val) {
+         this.pos = pos;
+         this.op = op;
+         this.val = val;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         int fldval = s.getInt(pos);
+         if (op == Term.EQ)
+            return fldval == val;
+         return Term.satisfies(op, Integer.compare(fldval, val));
+      }
+   }
+
+   /**
+    * The term F op c, for a string field F.
+    */
+   static class StringFieldConstant extends CompiledTerm {
+      private int pos, op;
+      private String val;
+
+      StringFieldConstant(int pos, int op, String val) {
+         this.pos = pos;
+         this.op = op;
+         this.val = val;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         if (op == Term.EQ)
+            return val.equals(s.getString(pos));
+         return Term.satisfies(op, s.getString(pos).compareTo(val));
+      }
+   }
+
+   /**
+    * The term F1 op F2, for two integer fields.
+    */
+   static class IntFields extends CompiledTerm {
+      private int pos1, op, pos2;
+
+      IntFields(int pos1, int op, int pos2) {
+         this.pos1 = pos1;
+         this.op = op;
+         this.pos2 = pos2;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         return Term.satisfies(op, Integer.compare(s.getInt(pos1), s.getInt(pos2)));
+      }
+   }
+
+   /**
+    * The term F1 op F2, for two string fields.
+    */
+   static class StringFields extends CompiledTerm {
+      private int pos1, op, pos2;
+
+      StringFields(int pos1, int op, int pos2) {
+         this.pos1 = pos1;
+         this.op = op;
+         this.pos2 = pos2;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         return Term.satisfies(op, s.getString(pos1).compareTo(s.getString(pos2)));
+      }
+   }
+
+   /**
+    * The term F in (c1, ..., ck), for an integer field F.
+    * The values are held in a sorted array.
+    */
+   static class IntFieldIn extends CompiledTerm {
+      private int pos;
+      private int[] vals;
+
+      IntFieldIn(int pos, int[] vals) {
+         this.pos = pos;
+         this.vals = vals;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         return Arrays.binarySearch(vals, s.getInt(pos)) >= 0;
+      }
+   }
+
+   /**
+    * The term F in (c1, ..., ck), for a string field F.
+    */
+   static class StringFieldIn extends CompiledTerm {
+      private int pos;
+      private Set<String> vals;
+
+      StringFieldIn(int pos, Set<String> vals) {
+         this.pos = pos;
+         this.vals = vals;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         return vals.contains(s.getString(pos));
+      }
+   }
+
+   /**
+    * A term whose value does not depend on the record,
+    * such as c1<c2, or a comparison of values of different types.
+    */
+   static class ConstantTerm extends CompiledTerm {
+      private boolean val;
+
+      ConstantTerm(boolean val) {
+         this.val = val;
+      }
+
+      public boolean isSatisfied(Scan s) {
+         return val;
+      }
+   }
+}
@@ -0,0 +1,84 @@
+package simpledb.query;
+
+import java.util.*;
+
+/**
+ * The class that denotes the search key of a multi-column index,
+ * which is a list of constants, one per indexed field.
+ * <P>
+ * Composite keys compare lexicographically.
+ * When one key is shorter than the other, only the common 
+ * prefix is compared; thus a key for the leading fields
+ * of the index compares equal to every full key having that prefix,
+ * which is what a B-tree needs in order to find all records
+ * matching a prefix.
+ * Equality, on the other hand, requires the keys to be identical.
+ * @author Edward Sciore
+ */
+public class CompositeConstant implements Constant {
+   private List<Constant> vals;
+   
+   /**
+    * Create a composite constant from the specified
+    * list of constants.
+    * @param vals the constants, in index field order
+    */
+   public CompositeConstant(List<Constant> vals) {
+      this.vals = vals;
+   }
+   
+   /**
+    * Returns the constant for the specified key position.
+    * @param i the position of the field in the key
+    * @return the constant at that position
+    */
+   public Constant get(int i) {
+      return vals.get(i);
+   }
+   
+   /**
+    * Returns the number of constants in the key.
+    * @return the number of constants in the key
+    */
+   public int size() {
+      return vals.size();
+   }
+   
+   /**
+    * Returns a list of the Java values of the constants.
+    * @see simpledb.query.Constant#asJavaVal()
+    */
+   public Object asJavaVal() {
+      List<Object> result = new ArrayList<Object>();
+      for (Constant c : vals)
+         result.add(c.asJavaVal());
+      return result;
+   }
+   
+   public boolean equals(Object obj) {
+      CompositeConstant cc = (CompositeConstant) obj;
+      return cc != null && vals.equals(cc.vals);
+   }
+   
+   public int compareTo(Constant c) {
+      CompositeConstant cc = (CompositeConstant) c;
+      int n = Math.min(vals.size(), cc.vals.size());
+      for (int i=0; i<n; i++) {
+         int cmp = vals.get(i).compareTo(cc.vals.get(i));
+         if (cmp != 0)
+            return cmp;
+      }
+      return 0;
+   }
+   
+   public int hashCode() {
+      return vals.hashCode();
+   }
+   
+   public String toString() {
+      String result = "(";
+      for (Constant c : vals)
+         result += c.toString() + ", ";
+      return result.substring(0, result.length()-2) + ")";
+   }
+}
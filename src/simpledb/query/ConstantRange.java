@@ -0,0 +1,175 @@
+package simpledb.query;
+
+/**
+ * An interval of constants, as used by index range scans.
+ * Either end of the interval may be missing, in which case
+ * the interval is unbounded in that direction;
+ * each end that is present may be inclusive or exclusive.
+ * @author Edward Sciore
+ */
+public class ConstantRange {
+   private Constant lo, hi;
+   private boolean loincl, hiincl;
+
+   /**
+    * Creates a range having the specified endpoints.
+    * A null endpoint denotes an unbounded end.
+    * @param lo the lower endpoint, or null
+    * @param loincl true if the lower endpoint is in the range
+    * @param hi the upper endpoint, or null
+    * @param hiincl true if the upper endpoint is in the range
+    */
+   public ConstantRange(Constant lo, boolean loincl, Constant hi, boolean hiincl) {
+      this.lo = lo;
+      this.loincl = loincl;
+      this.hi = hi;
+      this.hiincl = hiincl;
+   }
+
+   /**
+    * Creates the range containing every constant.
+    */
+   public ConstantRange() {
+      this(null, false, null, false);
+   }
+
+   /**
+    * Returns the lower endpoint of the range,
+    * or null if the range has no lower bound.
+    * @return the lower endpoint
+    */
+   public Constant low() {
+      return lo;
+   }
+
+   /**
+    * Returns true if the lower endpoint belongs to the range.
+    * @return true if the lower endpoint is inclusive
+    */
+   public boolean lowInclusive() {
+      return loincl;
+   }
+
+   /**
+    * Returns the upper endpoint of the range,
+    * or null if the range has no upper bound.
+    * @return the upper endpoint
+    */
+   public Constant high() {
+      return hi;
+   }
+
+   /**
+    * Returns true if the upper endpoint belongs to the range.
+    * @return true if the upper endpoint is inclusive
+    */
+   public boolean highInclusive() {
+      return hiincl;
+   }
+
+   /**
+    * Returns true if the range has neither a lower
+    * nor an upper bound.
+    * @return true if the range is unbounded in both directions
+    */
+   public boolean isUnbounded() {
+      return lo == null && hi == null;
+   }
+
+   /**
+    * Returns true if the range consists of a single constant,
+    * that is, if its endpoints are equal and inclusive.
+    * @return true if the range contains exactly one constant
+    */
+   public boolean isSingleton() {
+      return lo != null && hi != null && loincl && hiincl && lo.equals(hi);
+   }
+
+   /**
+    * Returns true if the specified constant lies
+    * below the lower end of the range.
+    * @param c the constant
+    * @return true if the constant is less than every constant in the range
+    */
+   public boolean isBelow(Constant c) {
+      if (lo == null)
+         return false;
+      int cmp = c.compareTo(lo);
+      return cmp < 0 || (cmp == 0 && !loincl);
+   }
+
+   /**
+    * Returns true if the specified constant lies
+    * above the upper end of the range.
+    * @param c the constant
+    * @return true if the constant is greater than every constant in the range
+    */
+   public boolean isAbove(Constant c) {
+      if (hi == null)
+         return false;
+      int cmp = c.compareTo(hi);
+      return cmp > 0 || (cmp == 0 && !hiincl);
+   }
+
+   /**
+    * Returns true if the specified constant lies within the range.
+    * @param c the constant
+    * @return true if the constant is in the range
+    */
+   public boolean contains(Constant c) {
+      return !isBelow(c) && !isAbove(c);
+   }
+
+   /**
+    * CS4432: Returns true if no constant lies within the range,
+    * that is, if its lower endpoint is above its upper endpoint,
+    * or they are equal and one of them is exclusive.
+    * @return true if the range is empty
+    */
+   public boolean isEmpty() {
+      if (lo == null || hi == null)
+         return false;
+      int cmp = lo.compareTo(hi);
+      return cmp > 0 || (cmp == 0 && !(loincl && hiincl));
+   }
+
+   /**
+    * CS4432: Returns the range of constants that lie
+    * within both this range and the specified one.
+    * Each end of the result is the tighter of the two ends,
+    * taken whole (the constant together with its inclusiveness)
+    * from one of the ranges; of two equal ends, an exclusive one
+    * is tighter.  So each end of the result is an end of one of the
+    * ranges, which the plan cache relies on when the constants
+    * are later replaced (see {@link Bindings}).
+    * @param r the other range
+    * @return the intersection of the ranges
+    */
+   public ConstantRange intersect(ConstantRange r) {
+      Constant newlo = lo, newhi = hi;
+      boolean newloincl = loincl, newhiincl = hiincl;
+      if (r.lo != null) {
+         int cmp = (newlo == null) ? 1 : r.lo.compareTo(newlo);
+         if (cmp > 0 || (cmp == 0 && !r.loincl)) {
+            newlo = r.lo;
+            newloincl = r.loincl;
+         }
+      }
+      if (r.hi != null) {
+         int cmp = (newhi == null) ? -1 : r.hi.compareTo(newhi);
+         if (cmp < 0 || (cmp == 0 && !r.hiincl)) {
+            newhi = r.hi;
+            newhiincl = r.hiincl;
+         }
+      }
+      return new ConstantRange(newlo, newloincl, newhi, newhiincl);
+   }
+
+   public String toString() {
+      String result = loincl ? "[" : "(";
+      result += (lo == null) ? "" : lo.toString();
+      result += ", ";
+      result += (hi == null) ? "" : hi.toString();
+      return result + (hiincl ? "]" : ")");
+   }
+}
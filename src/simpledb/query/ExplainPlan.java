@@ -0,0 +1,145 @@
+package simpledb.query;
+
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import java.util.*;
+
+/**
+ * CS4432: The Plan class for EXPLAIN and EXPLAIN ANALYZE.
+ * Its output has one string field, named "plan",
+ * and one record for each node of the underlying plan tree,
+ * in preorder; each input is indented below the node that reads it.
+ * A record gives the description of the node and
+ * its estimated block accesses and output records.
+ * <p>
+ * For EXPLAIN ANALYZE, opening the plan runs the query to completion
+ * with every node measured (see {@link InstrumentedPlan}),
+ * and discards its output; each record also gives the actual number
+ * of loops, output records and calls to the node, its elapsed time,
+ * and its buffer pins, buffer hits, and blocks read and written.
+ * The actual values are inclusive of the node's inputs, and the
+ * actual records are the total over all loops, whereas the estimates
+ * are for a single loop.
+ * @author Edward Sciore
+ */
+public class ExplainPlan implements Plan {
+   /**
+    * The declared length of the "plan" field.
+    */
+   public static final int LINE_LENGTH = 500;
+
+   private Plan p;
+   private boolean analyze;
+   private Transaction tx;
+   private Schema sch = new Schema();
+
+   /**
+    * Creates a plan that explains the specified plan.
+    * @param p the plan of the query being explained
+    * @param analyze true if the query is to be run and measured
+    * @param tx the calling transaction
+    */
+   public ExplainPlan(Plan p, boolean analyze, Transaction tx) {
+      this.p = p;
+      this.analyze = analyze;
+      this.tx = tx;
+      sch.addStringField("plan", LINE_LENGTH);
+   }
+
+   /**
+    * Describes the plan tree, first running the query if it
+    * is to be analyzed, and returns a scan of the description.
+    * If the plan cannot be instantiated with each node measured,
+    * only the query as a whole is measured.
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      Plan explained = p;
+      if (analyze) {
+         InstrumentedPlan ip = InstrumentedPlan.instrument(p, tx);
+         if (ip == null)
+            ip = new InstrumentedPlan(p);
+         Scan s = ip.open();
+         while (s.next())
+            ;
+         s.close();
+         explained = ip;
+      }
+      List<String> lines = new ArrayList<String>();
+      explain(explained, 0, lines);
+      return new ExplainScan(lines);
+   }
+
+   /**
+    * Instantiates the plan being explained.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = args.instantiate(p, tx);
+      return (newp == null) ? null : new ExplainPlan(newp, analyze, tx);
+   }
+
+   /**
+    * The input is the plan being explained.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+
+   public String description() {
+      return analyze ? "ExplainAnalyze" : "Explain";
+   }
+
+   /**
+    * Returns the block accesses of the explained query
+    * if it is run, and 0 otherwise.
+    * @see simpledb.query.Plan#blocksAccessed()
+    */
+   public int blocksAccessed() {
+      return analyze ? p.blocksAccessed() : 0;
+   }
+
+   /**
+    * Returns the number of nodes in the plan tree.
+    * @see simpledb.query.Plan#recordsOutput()
+    */
+   public int recordsOutput() {
+      return countNodes(p);
+   }
+
+   public int distinctValues(String fldname) {
+      return recordsOutput();
+   }
+
+   public Schema schema() {
+      return sch;
+   }
+
+   private void explain(Plan p, int depth, List<String> lines) {
+      String line = "";
+      for (int i=0; i<depth; i++)
+         line += "   ";
+      if (depth > 0)
+         line += "-> ";
+      line += p.description();
+      line += "  (estimated: blocks=" + p.blocksAccessed() + " rows=" + p.recordsOutput() + ")";
+      if (p instanceof InstrumentedPlan) {
+         InstrumentedPlan ip = (InstrumentedPlan) p;
+         line += String.format("  (actual: loops=%d rows=%d calls=%d time=%.3f ms"
+                                  + " pins=%d hits=%d reads=%d writes=%d)",
+                               ip.loops(), ip.rows(), ip.calls(), ip.time() / 1e6,
+                               ip.pins(), ip.hits(), ip.reads(), ip.writes());
+      }
+      lines.add(line);
+      for (Plan input : p.inputs())
+         explain(input, depth+1, lines);
+   }
+
+   private int countNodes(Plan p) {
+      int count = 1;
+      for (Plan input : p.inputs())
+         count += countNodes(input);
+      return count;
+   }
+}
@@ -0,0 +1,69 @@
+package simpledb.query;
+
+import java.util.*;
+
+/**
+ * CS4432: The scan class corresponding to an {@link ExplainPlan}.
+ * It reads the lines of the description from memory;
+ * each line is the value of the field "plan" of one record.
+ * @author Edward Sciore
+ */
+public class ExplainScan implements Scan {
+   private List<String> lines;
+   private int current = -1;
+
+   /**
+    * Creates a scan of the specified lines.
+    * @param lines the lines of the description
+    */
+   public ExplainScan(List<String> lines) {
+      this.lines = lines;
+   }
+
+   public void beforeFirst() {
+      current = -1;
+   }
+
+   public boolean next() {
+      current++;
+      return current < lines.size();
+   }
+
+   public void close() {
+   }
+
+   public Constant getVal(String fldname) {
+      return getVal(fieldPos(fldname));
+   }
+
+   public int getInt(String fldname) {
+      return getInt(fieldPos(fldname));
+   }
+
+   public String getString(String fldname) {
+      return getString(fieldPos(fldname));
+   }
+
+   public boolean hasField(String fldname) {
+      return fldname.equals("plan");
+   }
+
+   public int fieldPos(String fldname) {
+      if (hasField(fldname))
+         return 0;
+      else
+         throw new RuntimeException("field " + fldname + " not found.");
+   }
+
+   public Constant getVal(int pos) {
+      return new StringConstant(getString(pos));
+   }
+
+   public int getInt(int pos) {
+      throw new RuntimeException("field plan is not an int field.");
+   }
+
+   public String getString(int pos) {
+      return lines.get(current);
+   }
+}
@@ -0,0 +1,236 @@
+package simpledb.query;
+
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+import simpledb.record.Schema;
+import java.util.*;
+
+/**
+ * CS4432: A plan that measures the execution of its
+ * underlying plan, for EXPLAIN ANALYZE.
+ * The scans it opens are {@link InstrumentedScan}s, which count
+ * the records they output and the calls made to them, and
+ * time each call.  Around each timed call the plan also reads
+ * the counters of the buffer manager (pins and hits) and of the
+ * file manager (blocks read and written), and adds the increase.
+ * <p>
+ * All of the measurements are inclusive: since the scan of a node
+ * calls the scans of its inputs, the time and I/O of a node
+ * include those of its inputs.
+ * The counters are global, so the I/O of concurrent transactions
+ * (and of the log manager) is included as well.
+ * All of the estimates of the plan are those of the underlying plan.
+ * @author Edward Sciore
+ */
+public class InstrumentedPlan implements Plan {
+   private Plan p;
+   private long loops = 0, rows = 0, calls = 0;
+   private long time = 0, pins = 0, hits = 0, reads = 0, writes = 0;
+
+   /**
+    * Creates a plan that measures the specified plan.
+    * @param p the underlying plan
+    */
+   public InstrumentedPlan(Plan p) {
+      this.p = p;
+   }
+
+   /**
+    * Returns a copy of the specified plan in which every node
+    * is measured, for the specified transaction.
+    * The nodes are wrapped as the plan is instantiated,
+    * except for the few inputs whose scans must keep their class
+    * (such as the table of an index selection);
+    * those are measured as part of the node above them.
+    * @param p the plan to measure
+    * @param tx the transaction that will run the plan
+    * @return the measured plan, or null if p cannot be instantiated
+    */
+   public static InstrumentedPlan instrument(Plan p, Transaction tx) {
+      Bindings args = new Bindings() {
+         public Plan instantiate(Plan p, Transaction tx) {
+            Plan newp = p.instantiate(tx, this);
+            return (newp == null) ? null : new InstrumentedPlan(newp);
+         }
+      };
+      return (InstrumentedPlan) args.instantiate(p, tx);
+   }
+
+   /**
+    * Opens the underlying scan, and wraps it in a scan
+    * that measures it.
+    * The opening itself is measured, since a
+    * materializing operator does its work when it is opened.
+    * @see simpledb.query.Plan#open()
+    */
+   public Scan open() {
+      long[] start = start();
+      Scan s = p.open();
+      stop(start);
+      loops++;
+      return new InstrumentedScan(s, this);
+   }
+
+   /**
+    * Instantiates the underlying plan.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      return args.instantiate(p, tx);
+   }
+
+   /**
+    * Returns the inputs of the underlying plan.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return p.inputs();
+   }
+
+   /**
+    * Returns the description of the underlying plan.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return p.description();
+   }
+
+   public int blocksAccessed() {
+      return p.blocksAccessed();
+   }
+
+   public int recordsOutput() {
+      return p.recordsOutput();
+   }
+
+   public int distinctValues(String fldname) {
+      return p.distinctValues(fldname);
+   }
+
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      return p.rangeReductionFactor(fldname, range);
+   }
+
+   public Schema schema() {
+      return p.schema();
+   }
+
+   public List<String> sortOrder() {
+      return p.sortOrder();
+   }
+
+   public boolean supportsBatches() {
+      return p.supportsBatches();
+   }
+
+   /**
+    * Returns the number of times the node was read from the start:
+    * once for each time it was opened, and once more
+    * for each time it was rewound after being read.
+    * @return the number of loops
+    */
+   public long loops() {
+      return loops;
+   }
+
+   /**
+    * Returns the number of records output by the node,
+    * over all of its loops.
+    * @return the number of records
+    */
+   public long rows() {
+      return rows;
+   }
+
+   /**
+    * Returns the number of calls to next
+    * (or, in batch execution, to nextBatch).
+    * @return the number of calls
+    */
+   public long calls() {
+      return calls;
+   }
+
+   /**
+    * Returns the time spent in the node and its inputs,
+    * in nanoseconds.
+    * @return the elapsed time
+    */
+   public long time() {
+      return time;
+   }
+
+   /**
+    * Returns the number of buffer pins made by the node and its inputs.
+    * @return the number of pins
+    */
+   public long pins() {
+      return pins;
+   }
+
+   /**
+    * Returns the number of those pins that found their block in a buffer.
+    * @return the number of buffer hits
+    */
+   public long hits() {
+      return hits;
+   }
+
+   /**
+    * Returns the number of blocks read from disk by the node and its inputs.
+    * @return the number of blocks read
+    */
+   public long reads() {
+      return reads;
+   }
+
+   /**
+    * Returns the number of blocks written to disk by the node and its inputs.
+    * @return the number of blocks written
+    */
+   public long writes() {
+      return writes;
+   }
+
+   /**
+    * Notes that the node was rewound after being read.
+    */
+   void addLoop() {
+      loops++;
+   }
+
+   /**
+    * Notes a call to next (or nextBatch) that
+    * output the specified number of records.
+    * @param n the number of records output
+    */
+   void addCall(int n) {
+      calls++;
+      rows += n;
+   }
+
+   /**
+    * Reads the clock and the I/O counters
+    * at the start of a measured call.
+    * @return the values read
+    */
+   long[] start() {
+      return new long[] {
+         SimpleDB.bufferMgr().pins(), SimpleDB.bufferMgr().hits(),
+         SimpleDB.fileMgr().blocksRead(), SimpleDB.fileMgr().blocksWritten(),
+         System.nanoTime() };
+   }
+
+   /**
+    * Adds the increase in the clock and the I/O counters
+    * since the start of a measured call.
+    * @param start the values read at the start of the call
+    */
+   void stop(long[] start) {
+      time   += System.nanoTime() - start[4];
+      pins   += SimpleDB.bufferMgr().pins() - start[0];
+      hits   += SimpleDB.bufferMgr().hits() - start[1];
+      reads  += SimpleDB.fileMgr().blocksRead() - start[2];
+      writes += SimpleDB.fileMgr().blocksWritten() - start[3];
+   }
+}
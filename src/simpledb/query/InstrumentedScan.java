@@ -0,0 +1,99 @@
+package simpledb.query;
+
+/**
+ * CS4432: The scan class corresponding to an {@link InstrumentedPlan}.
+ * It passes each call to the underlying scan, and reports the calls
+ * that move the scan (beforeFirst, next, nextBatch and close)
+ * to its plan, which measures them.
+ * Reading the fields of the current record is not measured
+ * separately; it is part of the time of the node that reads them.
+ * The scan implements {@link BatchScan} as well, so that
+ * it can sit in a plan that runs in batches.
+ * @author Edward Sciore
+ */
+public class InstrumentedScan implements Scan, BatchScan {
+   private Scan s;
+   private InstrumentedPlan p;
+   private boolean moved = false;
+
+   /**
+    * Creates a scan that measures the specified scan.
+    * @param s the underlying scan
+    * @param p the plan that collects the measurements
+    */
+   public InstrumentedScan(Scan s, InstrumentedPlan p) {
+      this.s = s;
+      this.p = p;
+   }
+
+   /**
+    * Rewinds the underlying scan.
+    * If the scan has been read since it was opened or last rewound,
+    * this starts another loop.
+    * @see simpledb.query.Scan#beforeFirst()
+    */
+   public void beforeFirst() {
+      long[] start = p.start();
+      s.beforeFirst();
+      p.stop(start);
+      if (moved)
+         p.addLoop();
+      moved = false;
+   }
+
+   public boolean next() {
+      long[] start = p.start();
+      boolean found = s.next();
+      p.stop(start);
+      p.addCall(found ? 1 : 0);
+      moved = true;
+      return found;
+   }
+
+   public Batch nextBatch() {
+      long[] start = p.start();
+      Batch batch = ((BatchScan) s).nextBatch();
+      p.stop(start);
+      p.addCall((batch == null) ? 0 : batch.size());
+      moved = true;
+      return batch;
+   }
+
+   public void close() {
+      long[] start = p.start();
+      s.close();
+      p.stop(start);
+   }
+
+   public Constant getVal(String fldname) {
+      return s.getVal(fldname);
+   }
+
+   public int getInt(String fldname) {
+      return s.getInt(fldname);
+   }
+
+   public String getString(String fldname) {
+      return s.getString(fldname);
+   }
+
+   public boolean hasField(String fldname) {
+      return s.hasField(fldname);
+   }
+
+   public int fieldPos(String fldname) {
+      return s.fieldPos(fldname);
+   }
+
+   public Constant getVal(int pos) {
+      return s.getVal(pos);
+   }
+
+   public int getInt(int pos) {
+      return s.getInt(pos);
+   }
+
+   public String getString(int pos) {
+      return s.getString(pos);
+   }
+}
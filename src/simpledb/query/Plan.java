@@ -1,6 +1,8 @@
 package simpledb.query;
 
+import simpledb.tx.Transaction;
 import simpledb.record.Schema;
+import java.util.*;
 
 /**
  * The interface implemented by each query plan.
@@ -46,11 +48,92 @@ public interface Plan {
    public Schema schema();
 
    /**
-    * CS4432: Get the table name for this plan.
-    * This is a default implementation since it is only really needed for TablePlan
-    * @return the table name for this plan
+    * CS4432: Returns the fields on which the query's output
+    * records are sorted, most significant first.
+    * An empty list means that the output has no known order,
+    * which is the default.
+    * @return the sort fields of the query's output
     */
-   default public String tableName() {
+   default public List<String> sortOrder() {
+      return Collections.emptyList();
+   }
+
+   /**
+    * CS4432: Returns true if the scan opened by this plan
+    * also implements {@link BatchScan}, and can be read in
+    * batches all the way down to its tables.
+    * The default is false.
+    * @return true if the query can run in batches
+    */
+   default public boolean supportsBatches() {
+      return false;
+   }
+
+   /**
+    * CS4432: Returns the extent to which restricting the
+    * specified field to the specified range reduces the
+    * number of records output by the query.
+    * The default estimate follows the one used for index
+    * range scans: a range bounded at one end keeps a third
+    * of the records, and one bounded at both ends keeps a quarter.
+    * A plan that knows the distribution of the field's values
+    * can estimate more closely.
+    * @param fldname the name of a field
+    * @param range the range of values of the field
+    * @return the estimated reduction factor
+    */
+   default public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (range.isUnbounded())
+         return 1;
+      else if (range.isEmpty())
+         return Integer.MAX_VALUE;
+      else if (range.isSingleton())
+         return Math.max(1, distinctValues(fldname));
+      else if (range.low() == null || range.high() == null)
+         return 3;
+      else
+         return 4;
+   }
+   
+   /**
+    * CS4432: Returns a plan that does the same as this one,
+    * for the specified transaction, with each constant that came
+    * from the query replaced by its new value.
+    * The plan cache uses this to run a query again
+    * without planning it again.
+    * The new plan makes the same choices as this one, but its
+    * estimates are based on the current statistics.
+    * Since the constants of a query can change, a plan must not
+    * depend on their values, except to estimate its cost.
+    * The default returns null, meaning the plan cannot be reused.
+    * @param tx the transaction that will run the plan
+    * @param args the new values of the query's constants
+    * @return the new plan, or null
+    */
+   default public Plan instantiate(Transaction tx, Bindings args) {
       return null;
    }
+
+   /**
+    * CS4432: Returns the plans whose scans this plan reads,
+    * so that EXPLAIN can print the whole plan tree.
+    * The default is no inputs, as for a table.
+    * @return the input plans
+    */
+   default public List<Plan> inputs() {
+      return Collections.emptyList();
+   }
+
+   /**
+    * CS4432: Returns a one-line description of this node
+    * of the plan tree, as printed by EXPLAIN.
+    * The description names the operator and gives the
+    * tables, indexes, predicates and fields it uses,
+    * but not the description of its inputs.
+    * The default is the name of the plan's class.
+    * @return the description of the node
+    */
+   default public String description() {
+      return getClass().getSimpleName();
+   }
 }
@@ -32,6 +32,19 @@ public class Predicate {
       terms.addAll(pred.terms);
    }
    
+   /**
+    * CS4432: Returns a copy of the predicate in which
+    * each constant is replaced by its new value.
+    * @param args the new values of the query's constants
+    * @return the new predicate
+    */
+   public Predicate bind(Bindings args) {
+      Predicate result = new Predicate();
+      for (Term t : terms)
+         result.terms.add(t.bind(args));
+      return result;
+   }
+   
    /**
     * Returns true if the predicate evaluates to true
     * with respect to the specified scan.
@@ -45,6 +58,60 @@ public class Predicate {
       return true;
    }
    
+   /**
+    * CS4432: Compiles the predicate for the specified scan,
+    * by compiling each of its terms in order.
+    * @param s the scan that the predicate will be evaluated on
+    * @param sch the schema of the scan
+    * @return the compiled predicate
+    * @see Term#compile(Scan, Schema)
+    */
+   public CompiledPredicate compile(Scan s, Schema sch) {
+      List<CompiledTerm> compiled = new ArrayList<CompiledTerm>();
+      for (Term t : terms)
+         compiled.add(t.compile(s, sch));
+      return new CompiledPredicate(compiled);
+   }
+   
+   /**
+    * CS4432: Returns a predicate having the same terms, ordered
+    * from the most selective (the largest reduction factor
+    * with respect to the specified plan) to the least.
+    * A record that fails a term is rejected without evaluating
+    * the rest, so the terms that reject the most records go first.
+    * Terms having the same reduction factor keep their order.
+    * @param p the plan whose records the predicate selects
+    * @return the reordered predicate
+    */
+   public Predicate orderBySelectivity(Plan p) {
+      final Map<Term,Integer> factors = new HashMap<Term,Integer>();
+      for (Term t : terms)
+         factors.put(t, t.reductionFactor(p));
+      Predicate result = new Predicate();
+      result.terms.addAll(terms);
+      Collections.sort(result.terms, new Comparator<Term>() {
+         public int compare(Term t1, Term t2) {
+            return factors.get(t2).compareTo(factors.get(t1));
+         }
+      });
+      return result;
+   }
+   
+   /**
+    * CS4432: Removes from the batch the records that do not
+    * satisfy the predicate.
+    * Each term shortens the selection vector in turn, so later
+    * terms only look at the records that passed the earlier ones.
+    * @param batch the batch
+    */
+   public void select(Batch batch) {
+      for (Term t : terms) {
+         if (batch.size() == 0)
+            return;
+         t.select(batch);
+      }
+   }
+   
    /** 
     * Calculates the extent to which selecting on the predicate 
     * reduces the number of records output by a query.
@@ -55,11 +122,32 @@ public class Predicate {
     */ 
    public int reductionFactor(Plan p) {
       int factor = 1;
-      for (Term t : terms)
-         factor *= t.reductionFactor(p);
+      // CS4432: the range terms on a field are estimated together,
+      // so that "F > c1 and F < c2" counts as one range
+      Set<String> rangefields = new HashSet<String>();
+      for (Term t : terms) {
+         String fldname = rangeField(t, p.schema());
+         if (fldname == null)
+            factor *= t.reductionFactor(p);
+         else if (rangefields.add(fldname))
+            factor *= p.rangeReductionFactor(fldname, rangeFor(fldname));
+      }
       return factor;
    }
    
+   /**
+    * Returns true if every term of the predicate
+    * applies to the specified schema.
+    * @param sch the schema
+    * @return true if the whole predicate applies to the schema
+    */
+   public boolean appliesTo(Schema sch) {
+      for (Term t : terms)
+         if (!t.appliesTo(sch))
+         return false;
+      return true;
+   }
+   
    /**
     * Returns the subpredicate that applies to the specified schema.
     * @param sch the schema
@@ -100,6 +188,32 @@ public class Predicate {
          return result;
    }
    
+   /**
+    * CS4432: Returns the subpredicate of {@link #joinPred(Schema, Schema)}
+    * without the terms that equate the two specified fields.
+    * A join on those fields already enforces those terms,
+    * so selecting on them again would only make the estimated
+    * output of the join too small.
+    * @param sch1 the first schema
+    * @param sch2 the second schema
+    * @param fldname1 the join field of the first schema
+    * @param fldname2 the join field of the second schema
+    * @return the rest of the join predicate, or null
+    */
+   public Predicate joinPred(Schema sch1, Schema sch2, String fldname1, String fldname2) {
+      Predicate joinpred = joinPred(sch1, sch2);
+      if (joinpred == null)
+         return null;
+      Predicate result = new Predicate();
+      for (Term t : joinpred.terms)
+         if (!fldname1.equals(t.equatesWithField(fldname2)))
+            result.terms.add(t);
+      if (result.terms.size() == 0)
+         return null;
+      else
+         return result;
+   }
+   
    /**
     * Determines if there is a term of the form "F=c"
     * where F is the specified field and c is some constant.
@@ -134,6 +248,32 @@ public class Predicate {
       return null;
    }
    
+   /**
+    * CS4432: Returns the range of values of the specified field
+    * that satisfy the terms of the form "F op c", where
+    * op is one of <, <=, > and >=.
+    * If there are no such terms, the range is unbounded.
+    * @param fldname the name of the field
+    * @return the intersection of the ranges of those terms
+    */
+   public ConstantRange rangeFor(String fldname) {
+      ConstantRange range = new ConstantRange();
+      for (Term t : terms) {
+         ConstantRange r = t.rangeFor(fldname);
+         if (r != null)
+            range = range.intersect(r);
+      }
+      return range;
+   }
+   
+   // Returns the field that the term restricts to a range, or null.
+   private static String rangeField(Term t, Schema sch) {
+      for (String fldname : sch.fields())
+         if (t.rangeFor(fldname) != null)
+         return fldname;
+      return null;
+   }
+   
    public String toString() {
       Iterator<Term> iter = terms.iterator();
       if (!iter.hasNext()) 
@@ -1,6 +1,8 @@
 package simpledb.query;
 
+import simpledb.tx.Transaction;
 import simpledb.record.Schema;
+import java.util.*;
 
 /** The Plan class corresponding to the <i>product</i>
   * relational algebra operator.
@@ -33,6 +35,34 @@ public class ProductPlan implements Plan {
       return new ProductScan(s1, s2);
    }
    
+   /**
+    * CS4432: Instantiates the two underlying plans.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp1 = args.instantiate(p1, tx);
+      Plan newp2 = args.instantiate(p2, tx);
+      if (newp1 == null || newp2 == null)
+         return null;
+      return new ProductPlan(newp1, newp2);
+   }
+   
+   /**
+    * CS4432: The inputs of a product are its two queries.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p1, p2);
+   }
+   
+   /**
+    * CS4432: Describes the plan as a product.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "Product";
+   }
+   
    /**
     * Estimates the number of block accesses in the product.
     * The formula is:
@@ -40,7 +70,8 @@ public class ProductPlan implements Plan {
     * @see simpledb.query.Plan#blocksAccessed()
     */
    public int blocksAccessed() {
-      return p1.blocksAccessed() + (p1.recordsOutput() * p2.blocksAccessed());
+      long blocks = p1.blocksAccessed() + ((long) p1.recordsOutput() * p2.blocksAccessed()); //CS4432: avoid overflow
+      return (int) Math.min(Integer.MAX_VALUE, blocks);
    }
    
    /**
@@ -50,7 +81,7 @@ public class ProductPlan implements Plan {
     * @see simpledb.query.Plan#recordsOutput()
     */
    public int recordsOutput() {
-      return p1.recordsOutput() * p2.recordsOutput();
+      return (int) Math.min(Integer.MAX_VALUE, (long) p1.recordsOutput() * p2.recordsOutput()); //CS4432: avoid overflow
    }
    
    /**
@@ -66,6 +97,18 @@ public class ProductPlan implements Plan {
          return p2.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field
+    * as in the appropriate underlying query, for the same reason.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      if (p1.schema().hasField(fldname))
+         return p1.rangeReductionFactor(fldname, range);
+      else
+         return p2.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the product,
     * which is the union of the schemas of the underlying queries.
@@ -74,4 +117,23 @@ public class ProductPlan implements Plan {
    public Schema schema() {
       return schema;
    }
+   
+   /**
+    * Returns the sort order of the LHS query,
+    * since the product reads the LHS records in order
+    * and pairs each one with every RHS record.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return p1.sortOrder();
+   }
+   
+   /**
+    * CS4432: A product runs in batches if both
+    * of its underlying queries do.
+    * @see simpledb.query.Plan#supportsBatches()
+    */
+   public boolean supportsBatches() {
+      return p1.supportsBatches() && p2.supportsBatches();
+   }
 }
@@ -1,12 +1,19 @@
 package simpledb.query;
 
+import simpledb.server.SimpleDB;
+import java.util.Arrays;
+
 /**
  * The scan class corresponding to the <i>product</i> relational
  * algebra operator.
  * @author Edward Sciore
  */
-public class ProductScan implements Scan {
+public class ProductScan implements Scan, BatchScan {
    private Scan s1, s2;
+   private boolean batchmode = false;  //CS4432: set by the first call to nextBatch
+   private Batch lhsbatch = null, rhsbatch = null, batch = null;
+   private int lhscurrent, rhscount = 0;
+   private boolean rhskept = false, rhsused = false;
    
    /**
     * Creates a product scan having the two underlying scans.
@@ -28,8 +35,13 @@ public class ProductScan implements Scan {
     */
    public void beforeFirst() {
       s1.beforeFirst();
-      s1.next();
+      if (!batchmode)
+         s1.next();
       s2.beforeFirst();
+      lhsbatch = null;
+      rhscount = 0;
+      rhskept = false;
+      rhsused = false;
    }
    
    /**
@@ -105,4 +117,124 @@ public class ProductScan implements Scan {
    public boolean hasField(String fldname) {
       return s1.hasField(fldname) || s2.hasField(fldname);
    }
+   
+   /**
+    * CS4432: Returns a position that identifies both the
+    * underlying scan that has the field and the field's
+    * position in that scan: the lowest bit is 0 for the LHS scan
+    * and 1 for the RHS scan, and the remaining bits hold the
+    * position in that scan.
+    * So reading a field by position does not have to ask
+    * the LHS scan whether it has the field.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      if (s1.hasField(fldname))
+         return s1.fieldPos(fldname) << 1;
+      else
+         return (s2.fieldPos(fldname) << 1) | 1;
+   }
+   
+   public Constant getVal(int pos) {
+      if ((pos & 1) == 0)
+         return s1.getVal(pos >>> 1);
+      else
+         return s2.getVal(pos >>> 1);
+   }
+   
+   public int getInt(int pos) {
+      if ((pos & 1) == 0)
+         return s1.getInt(pos >>> 1);
+      else
+         return s2.getInt(pos >>> 1);
+   }
+   
+   public String getString(int pos) {
+      if ((pos & 1) == 0)
+         return s1.getString(pos >>> 1);
+      else
+         return s2.getString(pos >>> 1);
+   }
+   
+   /**
+    * CS4432: Returns the product of the current LHS record
+    * with the next RHS batch.
+    * When the RHS is exhausted, the method moves to the next
+    * LHS record (reading the next LHS batch when needed) and
+    * starts the RHS again.
+    * Each column of the result is filled in a single loop:
+    * an LHS column repeats the value of the LHS record, and an
+    * RHS column copies the selected rows of the RHS batch.
+    * If the RHS records fit in a single batch, that batch is
+    * kept and reused for every LHS record, instead of
+    * reading the RHS scan again.
+    * Both underlying scans must support batches.
+    * The LHS scan is reset the first time this method is called,
+    * since the constructor has already moved it to its first record.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      if (!batchmode) {
+         batchmode = true;
+         beforeFirst();
+      }
+      while (true) {
+         if (lhsbatch == null || lhscurrent >= lhsbatch.size()) {
+            lhsbatch = ((BatchScan) s1).nextBatch();
+            if (lhsbatch == null)
+               return null;
+            lhscurrent = 0;
+         }
+         Batch rhs;
+         if (rhskept) {
+            rhs = rhsused ? null : rhsbatch;
+            rhsused = !rhsused;
+         }
+         else {
+            rhs = ((BatchScan) s2).nextBatch();
+            if (rhs != null) {
+               rhsbatch = rhs;
+               rhscount++;
+            }
+            else if (rhscount == 1)
+               rhskept = true;
+         }
+         if (rhs == null) {
+            lhscurrent++;
+            if (!rhskept) {
+               s2.beforeFirst();
+               rhscount = 0;
+            }
+            continue;
+         }
+         if (batch == null)
+            batch = new Batch(lhsbatch, rhsbatch, SimpleDB.BATCH_SIZE);
+         int n = rhsbatch.size();
+         int lhsrow = lhsbatch.row(lhscurrent);
+         int lhscols = lhsbatch.fields().size();
+         for (int col=0; col<lhscols; col++) {
+            if (lhsbatch.isInt(col))
+               Arrays.fill(batch.intColumn(col), 0, n, lhsbatch.getInt(col, lhsrow));
+            else
+               Arrays.fill(batch.stringColumn(col), 0, n, lhsbatch.getString(col, lhsrow));
+         }
+         int[] sel = rhsbatch.selection();
+         for (int col=0; col<rhsbatch.fields().size(); col++) {
+            if (rhsbatch.isInt(col)) {
+               int[] src = rhsbatch.intColumn(col);
+               int[] dest = batch.intColumn(lhscols + col);
+               for (int i=0; i<n; i++)
+                  dest[i] = src[sel[i]];
+            }
+            else {
+               String[] src = rhsbatch.stringColumn(col);
+               String[] dest = batch.stringColumn(lhscols + col);
+               for (int i=0; i<n; i++)
+                  dest[i] = src[sel[i]];
+            }
+         }
+         batch.fill(n);
+         return batch;
+      }
+   }
 }
@@ -1,7 +1,8 @@
 package simpledb.query;
 
+import simpledb.tx.Transaction;
 import simpledb.record.Schema;
-import java.util.Collection;
+import java.util.*;
 
 /** The Plan class corresponding to the <i>project</i>
   * relational algebra operator.
@@ -32,6 +33,31 @@ public class ProjectPlan implements Plan {
       return new ProjectScan(s, schema.fields());
    }
    
+   /**
+    * CS4432: Instantiates the underlying plan.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = args.instantiate(p, tx);
+      return (newp == null) ? null : new ProjectPlan(newp, schema.fields());
+   }
+   
+   /**
+    * CS4432: The input of a projection is its underlying query.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+   
+   /**
+    * CS4432: Describes the projection by its fields.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "Project " + schema.fields();
+   }
+   
    /**
     * Estimates the number of block accesses in the projection,
     * which is the same as in the underlying query.
@@ -60,6 +86,15 @@ public class ProjectPlan implements Plan {
       return p.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field,
+    * which is the same as in the underlying query.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      return p.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Returns the schema of the projection,
     * which is taken from the field list.
@@ -68,4 +103,28 @@ public class ProjectPlan implements Plan {
    public Schema schema() {
       return schema;
    }
+   
+   /**
+    * Returns the longest prefix of the underlying
+    * query's sort order that is in the projection.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      List<String> order = new ArrayList<String>();
+      for (String fldname : p.sortOrder()) {
+         if (!schema.hasField(fldname))
+            break;
+         order.add(fldname);
+      }
+      return order;
+   }
+   
+   /**
+    * CS4432: A projection runs in batches if its
+    * underlying query does.
+    * @see simpledb.query.Plan#supportsBatches()
+    */
+   public boolean supportsBatches() {
+      return p.supportsBatches();
+   }
 }
@@ -9,7 +9,7 @@ import java.util.*;
  * underlying scan.
  * @author Edward Sciore
  */
-public class ProjectScan implements Scan {
+public class ProjectScan implements Scan, BatchScan {
    private Scan s;
    private Collection<String> fieldlist;
    
@@ -65,4 +65,41 @@ public class ProjectScan implements Scan {
    public boolean hasField(String fldname) {
       return fieldlist.contains(fldname);
    }
+   
+   /**
+    * CS4432: Returns the position of the field in the underlying scan,
+    * if the field is in the projection list.
+    * The list is checked only here, and not when the field is read.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      if (hasField(fldname))
+         return s.fieldPos(fldname);
+      else
+         throw new RuntimeException("field " + fldname + " not found.");
+   }
+   
+   public Constant getVal(int pos) {
+      return s.getVal(pos);
+   }
+   
+   public int getInt(int pos) {
+      return s.getInt(pos);
+   }
+   
+   public String getString(int pos) {
+      return s.getString(pos);
+   }
+   
+   /**
+    * CS4432: Returns the next batch of the underlying scan.
+    * The batch still holds the fields that are not in the
+    * projection list; the scan that reads the batch
+    * only asks for the fields of the projection.
+    * The underlying scan must support batches.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      return ((BatchScan) s).nextBatch();
+   }
 }
@@ -54,4 +54,41 @@ public interface Scan {
     * @return true if the scan has that field
     */
    public boolean  hasField(String fldname);
+   
+   /**
+    * CS4432: Returns the position of the specified field in this scan.
+    * Reading a field by name costs one or more hash lookups
+    * per record (in each operator that the value passes through),
+    * so a client that reads the same field of many records should
+    * resolve its position once, when the scan is opened,
+    * and then read the field with the positional methods below.
+    * A position is only meaningful to the scan that returned it.
+    * @param fldname the name of the field
+    * @return the position of that field in this scan
+    */
+   public int      fieldPos(String fldname);
+   
+   /**
+    * CS4432: Returns the value of the field at the specified position
+    * in the current record, expressed as a Constant.
+    * @param pos the position of the field, as returned by fieldPos
+    * @return the value of that field, expressed as a Constant.
+    */
+   public Constant getVal(int pos);
+   
+   /**
+    * CS4432: Returns the value of the integer field at the
+    * specified position in the current record.
+    * @param pos the position of the field, as returned by fieldPos
+    * @return the field's integer value in the current record
+    */
+   public int      getInt(int pos);
+   
+   /**
+    * CS4432: Returns the value of the string field at the
+    * specified position in the current record.
+    * @param pos the position of the field, as returned by fieldPos
+    * @return the field's string value in the current record
+    */
+   public String   getString(int pos);
 }
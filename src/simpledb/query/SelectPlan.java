@@ -1,6 +1,8 @@
 package simpledb.query;
 
+import simpledb.tx.Transaction;
 import simpledb.record.Schema;
+import java.util.*;
 
 /** The Plan class corresponding to the <i>select</i>
   * relational algebra operator.
@@ -18,16 +20,44 @@ public class SelectPlan implements Plan {
     */
    public SelectPlan(Plan p, Predicate pred) {
       this.p = p;
-      this.pred = pred;
+      this.pred = pred.orderBySelectivity(p);  //CS4432: most selective terms first
    }
    
    /**
     * Creates a select scan for this query.
+    * CS4432: The scan compiles the predicate for the
+    * underlying scan.
     * @see simpledb.query.Plan#open()
     */
    public Scan open() {
       Scan s = p.open();
-      return new SelectScan(s, pred);
+      return new SelectScan(s, pred, p.schema());
+   }
+   
+   /**
+    * CS4432: Instantiates the underlying plan, and replaces
+    * the constants of the predicate.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      Plan newp = args.instantiate(p, tx);
+      return (newp == null) ? null : new SelectPlan(newp, pred.bind(args));
+   }
+   
+   /**
+    * CS4432: The input of a selection is its underlying query.
+    * @see simpledb.query.Plan#inputs()
+    */
+   public List<Plan> inputs() {
+      return Arrays.asList(p);
+   }
+   
+   /**
+    * CS4432: Describes the selection by its predicate.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "Select " + pred;
    }
    
    /**
@@ -73,6 +103,24 @@ public class SelectPlan implements Plan {
       }
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field.
+    * If the predicate already restricts the field to a range,
+    * only the part of the reduction that the predicate has not
+    * made yet is counted; that is, the factor is that of the
+    * intersection of the two ranges in the underlying query,
+    * divided by that of the predicate's range.
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      ConstantRange predrange = pred.rangeFor(fldname);
+      if (predrange.isUnbounded())
+         return p.rangeReductionFactor(fldname, range);
+      int done = p.rangeReductionFactor(fldname, predrange);
+      int total = p.rangeReductionFactor(fldname, range.intersect(predrange));
+      return Math.max(1, total / done);
+   }
+   
    /**
     * Returns the schema of the selection,
     * which is the same as in the underlying query.
@@ -81,4 +129,22 @@ public class SelectPlan implements Plan {
    public Schema schema() {
       return p.schema();
    }
+   
+   /**
+    * Returns the sort order of the underlying query,
+    * since a selection keeps its records in the same order.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return p.sortOrder();
+   }
+   
+   /**
+    * CS4432: A selection runs in batches if its
+    * underlying query does.
+    * @see simpledb.query.Plan#supportsBatches()
+    */
+   public boolean supportsBatches() {
+      return p.supportsBatches();
+   }
 }
@@ -9,19 +9,24 @@ import simpledb.record.*;
  * underlying scan.
  * @author Edward Sciore
  */
-public class SelectScan implements UpdateScan {
+public class SelectScan implements UpdateScan, BatchScan {
    private Scan s;
    private Predicate pred;
+   private CompiledPredicate compiled;  //CS4432: the predicate, compiled for the underlying scan
    
    /**
     * Creates a select scan having the specified underlying
     * scan and predicate.
+    * CS4432: The predicate is compiled for the underlying scan,
+    * whose schema gives the types of its fields.
     * @param s the scan of the underlying query
     * @param pred the selection predicate
+    * @param sch the schema of the underlying query
     */
-   public SelectScan(Scan s, Predicate pred) {
+   public SelectScan(Scan s, Predicate pred, Schema sch) {
       this.s = s;
       this.pred = pred;
+      compiled = pred.compile(s, sch);
    }
    
    // Scan methods
@@ -35,11 +40,12 @@ public class SelectScan implements UpdateScan {
     * The method repeatedly calls next on the underlying scan
     * until a suitable record is found, or the underlying scan
     * contains no more records.
+    * CS4432: Records are tested with the compiled predicate.
     * @see simpledb.query.Scan#next()
     */
    public boolean next() {
       while (s.next())
-         if (pred.isSatisfied(s))
+         if (compiled.isSatisfied(s))
          return true;
       return false;
    }
@@ -64,6 +70,48 @@ public class SelectScan implements UpdateScan {
       return s.hasField(fldname);
    }
    
+   /**
+    * CS4432: A select scan has the same records as its
+    * underlying scan, and so uses the same positions.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      return s.fieldPos(fldname);
+   }
+   
+   public Constant getVal(int pos) {
+      return s.getVal(pos);
+   }
+   
+   public int getInt(int pos) {
+      return s.getInt(pos);
+   }
+   
+   public String getString(int pos) {
+      return s.getString(pos);
+   }
+   
+   // BatchScan methods
+   
+   /**
+    * CS4432: Returns the next batch of the underlying scan
+    * that has records satisfying the predicate.
+    * The predicate removes the other records from the batch
+    * by shortening its selection vector.
+    * The underlying scan must support batches.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      BatchScan bs = (BatchScan) s;
+      Batch batch;
+      while ((batch = bs.nextBatch()) != null) {
+         pred.select(batch);
+         if (batch.size() > 0)
+            return batch;
+      }
+      return null;
+   }
+   
    // UpdateScan methods
    
    public void setVal(String fldname, Constant val) {
@@ -81,6 +129,21 @@ public class SelectScan implements UpdateScan {
       us.setString(fldname, val);
    }
    
+   public void setVal(int pos, Constant val) {
+      UpdateScan us = (UpdateScan) s;
+      us.setVal(pos, val);
+   }
+   
+   public void setInt(int pos, int val) {
+      UpdateScan us = (UpdateScan) s;
+      us.setInt(pos, val);
+   }
+   
+   public void setString(int pos, String val) {
+      UpdateScan us = (UpdateScan) s;
+      us.setString(pos, val);
+   }
+   
    public void delete() {
       UpdateScan us = (UpdateScan) s;
       us.delete();
@@ -4,6 +4,7 @@ import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
 import simpledb.metadata.*;
 import simpledb.record.*;
+import java.util.*;
 
 /** The Plan class corresponding to a table.
   * @author Edward Sciore
@@ -12,7 +13,6 @@ public class TablePlan implements Plan {
    private Transaction tx;
    private TableInfo ti;
    private StatInfo si;
-   private String tblname;
    
    /**
     * Creates a leaf node in the query tree corresponding
@@ -22,17 +22,35 @@ public class TablePlan implements Plan {
     */
    public TablePlan(String tblname, Transaction tx) {
       this.tx = tx;
-      this.tblname = tblname;
       ti = SimpleDB.mdMgr().getTableInfo(tblname, tx);
       si = SimpleDB.mdMgr().getStatInfo(tblname, ti, tx);
    }
    
    /**
     * Creates a table scan for this query.
+    * CS4432: The scan counts the records it inserts and deletes
+    * for the table's statistics.
     * @see simpledb.query.Plan#open()
     */
    public Scan open() {
-      return new TableScan(ti, tx);
+      return new TableScan(ti, tx, true);
+   }
+   
+   /**
+    * CS4432: Creates a plan for the same table,
+    * for the specified transaction.
+    * @see simpledb.query.Plan#instantiate(Transaction, Bindings)
+    */
+   public Plan instantiate(Transaction tx, Bindings args) {
+      return new TablePlan(ti.tableName(), tx);
+   }
+   
+   /**
+    * CS4432: Describes the plan by its table.
+    * @see simpledb.query.Plan#description()
+    */
+   public String description() {
+      return "Table " + ti.tableName();
    }
    
    /**
@@ -62,6 +80,16 @@ public class TablePlan implements Plan {
       return si.distinctValues(fldname);
    }
    
+   /**
+    * CS4432: Estimates the reduction factor of a range on a field,
+    * which is obtainable from the statistics manager
+    * (from the field's histogram, if the table has been analyzed).
+    * @see simpledb.query.Plan#rangeReductionFactor(java.lang.String, simpledb.query.ConstantRange)
+    */
+   public int rangeReductionFactor(String fldname, ConstantRange range) {
+      return si.rangeReductionFactor(fldname, range);
+   }
+   
    /**
     * Determines the schema of the table,
     * which is obtainable from the catalog manager.
@@ -72,8 +100,21 @@ public class TablePlan implements Plan {
    }
 
    /**
-    * CS4432: Get the table name for this plan
-    * @see simpledb.query.Plan#tableName()
+    * CS4432: The records of a table are kept in no particular
+    * order, since an insertion may go into any free slot.
+    * @see simpledb.query.Plan#sortOrder()
+    */
+   public List<String> sortOrder() {
+      return Collections.emptyList();
+   }
+
+   /**
+    * CS4432: A table scan can always be read in batches,
+    * unless batch execution has been turned off
+    * (see {@link SimpleDB#BATCH_SIZE}).
+    * @see simpledb.query.Plan#supportsBatches()
     */
-   public String tableName() { return tblname; }
+   public boolean supportsBatches() {
+      return SimpleDB.BATCH_SIZE > 0;
+   }
 }
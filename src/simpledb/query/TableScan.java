@@ -1,8 +1,10 @@
 package simpledb.query;
 
 import static java.sql.Types.INTEGER;
+import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
+import java.util.*;
 
 /**
  * The Scan class corresponding to a table.
@@ -12,9 +14,19 @@ import simpledb.record.*;
  * @author Edward Sciore
  *
  */
-public class TableScan implements UpdateScan {
+public class TableScan implements UpdateScan, BatchScan {
    private RecordFile rf;
    private Schema sch;
+   private List<String> fields;  //CS4432: the position of a field is its index in this list
+   private int[] offsets;
+   private boolean[] isint;
+   private int[] ids;  //CS4432: the records of a block that go into the batch
+   private Batch batch = null;  //CS4432: reused for every batch of the scan
+   private TableInfo ti;
+   private Transaction tx;
+   private boolean counted;
+   private int inserted = 0, deleted = 0;  //CS4432: the changes to report when tx commits
+   private boolean reporting = false;
    
    /**
     * Creates a new table scan,
@@ -23,8 +35,32 @@ public class TableScan implements UpdateScan {
     * @param tx the calling transaction
     */
    public TableScan(TableInfo ti, Transaction tx) {
+      this(ti, tx, false);
+   }
+   
+   /**
+    * CS4432: Creates a new table scan, which counts
+    * the records it inserts and deletes if so specified.
+    * The counts are reported to the statistics manager
+    * when the transaction commits, and are discarded if it
+    * rolls back.  A scan of a temporary table does not count.
+    * @param ti the table's metadata
+    * @param tx the calling transaction
+    * @param counted true if the changes to the table are counted
+    */
+   public TableScan(TableInfo ti, Transaction tx, boolean counted) {
+      this.ti = ti;
+      this.tx = tx;
+      this.counted = counted;
       rf  = new RecordFile(ti, tx);
       sch = ti.schema();
+      fields = new ArrayList<String>(sch.fields());
+      offsets = new int[fields.size()];
+      isint = new boolean[fields.size()];
+      for (int i=0; i<offsets.length; i++) {
+         offsets[i] = ti.offset(fields.get(i));
+         isint[i] = sch.type(fields.get(i)) == INTEGER;
+      }
    }
    
    // Scan methods
@@ -67,6 +103,65 @@ public class TableScan implements UpdateScan {
       return sch.hasField(fldname);
    }
    
+   /**
+    * CS4432: Returns the position of the field in the table's schema.
+    * Positional access goes straight to the field's offset in the record,
+    * without looking up its name.
+    * @see simpledb.query.Scan#fieldPos(java.lang.String)
+    */
+   public int fieldPos(String fldname) {
+      int pos = fields.indexOf(fldname);
+      if (pos < 0)
+         throw new RuntimeException("field " + fldname + " not found.");
+      return pos;
+   }
+   
+   public Constant getVal(int pos) {
+      if (isint[pos])
+         return new IntConstant(rf.getInt(offsets[pos]));
+      else
+         return new StringConstant(rf.getString(offsets[pos]));
+   }
+   
+   public int getInt(int pos) {
+      return rf.getInt(offsets[pos]);
+   }
+   
+   public String getString(int pos) {
+      return rf.getString(offsets[pos]);
+   }
+   
+   // BatchScan methods
+   
+   /**
+    * CS4432: Fills a batch with the next records of the table,
+    * whose columns are in the same order as the positions of the scan.
+    * The records are read a block at a time, one field at a time,
+    * so that the lock and buffer of a block are looked up once
+    * per field instead of once per value.
+    * @see simpledb.query.BatchScan#nextBatch()
+    */
+   public Batch nextBatch() {
+      if (batch == null) {
+         batch = new Batch(fields, isint, SimpleDB.BATCH_SIZE);
+         ids = new int[SimpleDB.BATCH_SIZE];
+      }
+      int count = rf.nextRecords(ids.length, ids);
+      if (count == 0)
+         return null;
+      batch.clear();
+      do {
+         int row = batch.addRows(count);
+         for (int i=0; i<offsets.length; i++) {
+            if (isint[i])
+               rf.getInts(ids, count, offsets[i], batch.intColumn(i), row);
+            else
+               rf.getStrings(ids, count, offsets[i], batch.stringColumn(i), row);
+         }
+      } while (batch.remaining() > 0 && (count = rf.nextRecords(batch.remaining(), ids)) > 0);
+      return batch;
+   }
+   
    // UpdateScan methods
    
    /**
@@ -91,12 +186,31 @@ public class TableScan implements UpdateScan {
       rf.setString(fldname, val);
    }
    
+   public void setVal(int pos, Constant val) {
+      if (isint[pos])
+         rf.setInt(offsets[pos], (Integer)val.asJavaVal());
+      else
+         rf.setString(offsets[pos], (String)val.asJavaVal());
+   }
+   
+   public void setInt(int pos, int val) {
+      rf.setInt(offsets[pos], val);
+   }
+   
+   public void setString(int pos, String val) {
+      rf.setString(offsets[pos], val);
+   }
+   
    public void delete() {
       rf.delete();
+      if (counted)
+         countChange(0, 1);
    }
    
    public void insert() {
       rf.insert();
+      if (counted)
+         countChange(1, 0);
    }
    
    public RID getRid() {
@@ -106,4 +220,19 @@ public class TableScan implements UpdateScan {
    public void moveToRid(RID rid) {
       rf.moveToRid(rid);
    }
+   
+   // CS4432: Counts an insertion or deletion.  The first change
+   // arranges for the scan's totals to be reported at commit.
+   private void countChange(int ins, int del) {
+      if (!reporting) {
+         reporting = true;
+         tx.whenCommitted(new Runnable() {
+            public void run() {
+               SimpleDB.mdMgr().countChanges(ti, inserted, deleted);
+            }
+         });
+      }
+      inserted += ins;
+      deleted += del;
+   }
 }
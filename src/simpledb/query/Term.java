@@ -1,14 +1,26 @@
 package simpledb.query;
 
+import static java.sql.Types.INTEGER;
 import simpledb.record.Schema;
+import java.util.*;
 
 /**
  * A term is a comparison between two expressions.
+ * CS4432: The comparison is one of =, <>, <, <=, > and >=,
+ * or is the membership of an expression in a list of constants.
  * @author Edward Sciore
  *
  */
 public class Term {
+   /**
+    * CS4432: The comparison operators.
+    */
+   public static final int EQ = 0, NE = 1, LT = 2, LE = 3, GT = 4, GE = 5, IN = 6;
+   private static final String[] OPS = {"=", "<>", "<", "<=", ">", ">="};
+   
    private Expression lhs, rhs;
+   private int op;
+   private List<Constant> vals;
    
    /**
     * Creates a new term that compares two expressions
@@ -17,10 +29,34 @@ public class Term {
     * @param rhs  the RHS expression
     */
    public Term(Expression lhs, Expression rhs) {
+      this(lhs, EQ, rhs);
+   }
+   
+   /**
+    * CS4432: Creates a new term that compares two expressions
+    * using the specified operator.
+    * @param lhs  the LHS expression
+    * @param op   the operator, one of EQ, NE, LT, LE, GT and GE
+    * @param rhs  the RHS expression
+    */
+   public Term(Expression lhs, int op, Expression rhs) {
       this.lhs = lhs;
+      this.op = op;
       this.rhs = rhs;
    }
    
+   /**
+    * CS4432: Creates a new term that is true when the
+    * expression has one of the specified values.
+    * @param lhs  the expression
+    * @param vals the list of values
+    */
+   public Term(Expression lhs, List<Constant> vals) {
+      this.lhs = lhs;
+      this.op = IN;
+      this.vals = vals;
+   }
+   
    /**
     * Calculates the extent to which selecting on the term reduces 
     * the number of records output by a query.
@@ -31,25 +67,50 @@ public class Term {
     */
    public int reductionFactor(Plan p) {
       String lhsName, rhsName;
+      if (op == IN) {
+         // CS4432: the fractions of the records selected by each value are added
+         if (!lhs.isFieldName())
+            return vals.contains(lhs.asConstant()) ? 1 : Integer.MAX_VALUE;
+         double fraction = 0.0;
+         for (Constant c : vals)
+            fraction += 1.0 / p.rangeReductionFactor(lhs.asFieldName(), new ConstantRange(c, true, c, true));
+         return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(1.0 / fraction)));
+      }
+      if (lhs.isConstant() && rhs.isConstant()) {
+         // otherwise, the term compares constants
+         if (satisfies(op, lhs.asConstant().compareTo(rhs.asConstant())))
+            return 1;
+         else
+            return Integer.MAX_VALUE;
+      }
+      if (op == NE)
+         return 1;
+      if (op != EQ) {
+         // CS4432: a range on a field is estimated by the plan;
+         // a comparison of two fields is assumed to keep a third
+         if (lhs.isFieldName() && rhs.isFieldName())
+            return 3;
+         String fldname = lhs.isFieldName() ? lhs.asFieldName() : rhs.asFieldName();
+         return p.rangeReductionFactor(fldname, rangeFor(fldname));
+      }
+      // CS4432: a plan that expects no records has no distinct values,
+      // but the factor must still be at least 1
       if (lhs.isFieldName() && rhs.isFieldName()) {
          lhsName = lhs.asFieldName();
          rhsName = rhs.asFieldName();
-         return Math.max(p.distinctValues(lhsName),
-                         p.distinctValues(rhsName));
+         return Math.max(1, Math.max(p.distinctValues(lhsName),
+                                     p.distinctValues(rhsName)));
       }
+      // CS4432: F=c is estimated as the range [c, c], which takes
+      // the frequency of c into account if the plan knows it
       if (lhs.isFieldName()) {
          lhsName = lhs.asFieldName();
-         return p.distinctValues(lhsName);
+         Constant c = rhs.asConstant();
+         return Math.max(1, p.rangeReductionFactor(lhsName, new ConstantRange(c, true, c, true)));
       }
-      if (rhs.isFieldName()) {
-         rhsName = rhs.asFieldName();
-         return p.distinctValues(rhsName);
-      }
-      // otherwise, the term equates constants
-      if (lhs.asConstant().equals(rhs.asConstant()))
-         return 1;
-      else
-         return Integer.MAX_VALUE;
+      rhsName = rhs.asFieldName();
+      Constant c = lhs.asConstant();
+      return Math.max(1, p.rangeReductionFactor(rhsName, new ConstantRange(c, true, c, true)));
    }
    
    /**
@@ -61,7 +122,9 @@ public class Term {
     * @return either the constant or null
     */
    public Constant equatesWithConstant(String fldname) {
-      if (lhs.isFieldName() &&
+      if (op != EQ)
+         return null;
+      else if (lhs.isFieldName() &&
           lhs.asFieldName().equals(fldname) &&
           rhs.isConstant())
          return rhs.asConstant();
@@ -82,7 +145,9 @@ public class Term {
     * @return either the name of the other field, or null
     */
    public String equatesWithField(String fldname) {
-      if (lhs.isFieldName() &&
+      if (op != EQ)
+         return null;
+      else if (lhs.isFieldName() &&
           lhs.asFieldName().equals(fldname) &&
           rhs.isFieldName())
          return rhs.asFieldName();
@@ -94,6 +159,31 @@ public class Term {
          return null;
    }
    
+   /**
+    * CS4432: Determines if this term is of the form "F op c",
+    * where F is the specified field, c is some constant and
+    * op is one of <, <=, > and >= (or the term is "c op F").
+    * If so, the method returns the range of values of F
+    * that satisfy the term.
+    * If not, the method returns null.
+    * @param fldname the name of the field
+    * @return either the range or null
+    */
+   public ConstantRange rangeFor(String fldname) {
+      if (op == EQ || op == NE || op == IN)
+         return null;
+      else if (lhs.isFieldName() &&
+               lhs.asFieldName().equals(fldname) &&
+               rhs.isConstant())
+         return range(op, rhs.asConstant());
+      else if (rhs.isFieldName() &&
+               rhs.asFieldName().equals(fldname) &&
+               lhs.isConstant())
+         return range(flip(op), lhs.asConstant());
+      else
+         return null;
+   }
+   
    /**
     * Returns true if both of the term's expressions
     * apply to the specified schema.
@@ -101,23 +191,267 @@ public class Term {
     * @return true if both expressions apply to the schema
     */
    public boolean appliesTo(Schema sch) {
+      if (op == IN)
+         return lhs.appliesTo(sch);
       return lhs.appliesTo(sch) && rhs.appliesTo(sch);
    }
    
    /**
-    * Returns true if both of the term's expressions
-    * evaluate to the same constant,
+    * Returns true if the term's expressions
+    * satisfy its comparison,
     * with respect to the specified scan.
     * @param s the scan
-    * @return true if both expressions have the same value in the scan
+    * @return true if the comparison holds in the scan
     */
    public boolean isSatisfied(Scan s) {
       Constant lhsval = lhs.evaluate(s);
+      if (op == IN)
+         return vals.contains(lhsval);
       Constant rhsval = rhs.evaluate(s);
-      return rhsval.equals(lhsval);
+      if (op == EQ)
+         return rhsval.equals(lhsval);
+      return satisfies(op, lhsval.compareTo(rhsval));
+   }
+   
+   /**
+    * CS4432: Compiles the term for the specified scan.
+    * The fields of the term are resolved to their positions
+    * in the scan, and their types are looked up in the schema,
+    * so that the compiled term compares the values directly.
+    * A term that compares constants is evaluated now, as is a
+    * term that compares values of different types (which is never true).
+    * @param s the scan that the term will be evaluated on
+    * @param sch the schema of the scan
+    * @return the compiled term
+    */
+   public CompiledTerm compile(Scan s, Schema sch) {
+      if (op == IN) {
+         if (!lhs.isFieldName())
+            return vals.contains(lhs.asConstant()) ? CompiledTerm.TRUE : CompiledTerm.FALSE;
+         String fldname = lhs.asFieldName();
+         int pos = s.fieldPos(fldname);
+         if (sch.type(fldname) == INTEGER)
+            return new CompiledTerm.IntFieldIn(pos, intValues());
+         else
+            return new CompiledTerm.StringFieldIn(pos, stringValues());
+      }
+      if (lhs.isFieldName() && rhs.isFieldName()) {
+         String fld1 = lhs.asFieldName(), fld2 = rhs.asFieldName();
+         boolean isint = sch.type(fld1) == INTEGER;
+         if (isint != (sch.type(fld2) == INTEGER))
+            return CompiledTerm.FALSE;
+         int pos1 = s.fieldPos(fld1), pos2 = s.fieldPos(fld2);
+         if (isint)
+            return new CompiledTerm.IntFields(pos1, op, pos2);
+         else
+            return new CompiledTerm.StringFields(pos1, op, pos2);
+      }
+      if (lhs.isFieldName() || rhs.isFieldName()) {
+         String fldname = lhs.isFieldName() ? lhs.asFieldName() : rhs.asFieldName();
+         Constant c = lhs.isFieldName() ? rhs.asConstant() : lhs.asConstant();
+         int fldop = lhs.isFieldName() ? op : flip(op);
+         int pos = s.fieldPos(fldname);
+         if (sch.type(fldname) == INTEGER && c instanceof IntConstant)
+            return new CompiledTerm.IntFieldConstant(pos, fldop, (Integer) c.asJavaVal());
+         else if (sch.type(fldname) != INTEGER && c instanceof StringConstant)
+            return new CompiledTerm.StringFieldConstant(pos, fldop, (String) c.asJavaVal());
+         else
+            return CompiledTerm.FALSE;
+      }
+      Constant c1 = lhs.asConstant(), c2 = rhs.asConstant();
+      if (c1.getClass() == c2.getClass() && satisfies(op, c1.compareTo(c2)))
+         return CompiledTerm.TRUE;
+      else
+         return CompiledTerm.FALSE;
+   }
+   
+   /**
+    * CS4432: Removes from the batch the records for which
+    * the comparison does not hold.
+    * The comparison runs in a loop over the selected rows of
+    * the columns involved, comparing integer columns as ints.
+    * Values of different types never satisfy a comparison.
+    * @param batch the batch
+    */
+   public void select(Batch batch) {
+      if (op == IN) {
+         if (lhs.isFieldName())
+            selectIn(batch, batch.fieldPos(lhs.asFieldName()));
+         else if (!vals.contains(lhs.asConstant()))
+            batch.setSize(0);
+      }
+      else if (lhs.isFieldName() && rhs.isFieldName())
+         selectFields(batch, batch.fieldPos(lhs.asFieldName()), op,
+                      batch.fieldPos(rhs.asFieldName()));
+      else if (lhs.isFieldName())
+         selectConstant(batch, batch.fieldPos(lhs.asFieldName()), op, rhs.asConstant());
+      else if (rhs.isFieldName())
+         selectConstant(batch, batch.fieldPos(rhs.asFieldName()), flip(op), lhs.asConstant());
+      else if (!satisfies(op, lhs.asConstant().compareTo(rhs.asConstant())))
+         batch.setSize(0);
+   }
+   
+   /**
+    * CS4432: Returns a copy of the term in which
+    * each constant is replaced by its new value.
+    * @param args the new values of the query's constants
+    * @return the new term
+    */
+   public Term bind(Bindings args) {
+      if (op == IN) {
+         List<Constant> newvals = new ArrayList<Constant>();
+         for (Constant c : vals)
+            newvals.add(args.bind(c));
+         return new Term(lhs, newvals);
+      }
+      return new Term(args.bind(lhs), op, args.bind(rhs));
    }
    
    public String toString() {
-      return lhs.toString() + "=" + rhs.toString();
+      if (op == IN) {
+         String result = lhs.toString() + " in (";
+         for (int i=0; i<vals.size(); i++)
+            result += (i > 0 ? ", " : "") + vals.get(i).toString();
+         return result + ")";
+      }
+      return lhs.toString() + OPS[op] + rhs.toString();
+   }
+   
+   /**
+    * CS4432: Returns true if a comparison whose result is cmp
+    * (negative, zero or positive, as returned by compareTo)
+    * satisfies the specified operator.
+    */
+   static boolean satisfies(int op, int cmp) {
+      switch (op) {
+         case EQ: return cmp == 0;
+         case NE: return cmp != 0;
+         case LT: return cmp < 0;
+         case LE: return cmp <= 0;
+         case GT: return cmp > 0;
+         default: return cmp >= 0;
+      }
+   }
+   
+   // Returns the operator that compares the sides in the other order,
+   // so that "c op F" can be evaluated as "F flip(op) c".
+   private static int flip(int op) {
+      switch (op) {
+         case LT: return GT;
+         case LE: return GE;
+         case GT: return LT;
+         case GE: return LE;
+         default: return op;
+      }
+   }
+   
+   private static ConstantRange range(int op, Constant c) {
+      switch (op) {
+         case LT: return new ConstantRange(null, false, c, false);
+         case LE: return new ConstantRange(null, false, c, true);
+         case GT: return new ConstantRange(c, false, null, false);
+         default: return new ConstantRange(c, true, null, false);
+      }
+   }
+   
+   // The integer values of the list, sorted; values of other types are never equal to an int.
+   private int[] intValues() {
+      int[] result = new int[vals.size()];
+      int n = 0;
+      for (Constant c : vals)
+         if (c instanceof IntConstant)
+         result[n++] = (Integer) c.asJavaVal();
+      result = Arrays.copyOf(result, n);
+      Arrays.sort(result);
+      return result;
+   }
+   
+   private Set<String> stringValues() {
+      Set<String> result = new HashSet<String>();
+      for (Constant c : vals)
+         if (c instanceof StringConstant)
+         result.add((String) c.asJavaVal());
+      return result;
+   }
+   
+   private void selectIn(Batch batch, int col) {
+      int[] sel = batch.selection();
+      int n = batch.size(), k = 0;
+      if (batch.isInt(col)) {
+         int[] vals = batch.intColumn(col);
+         int[] wanted = intValues();
+         for (int i=0; i<n; i++) {
+            int row = sel[i];
+            if (Arrays.binarySearch(wanted, vals[row]) >= 0)
+               sel[k++] = row;
+         }
+      }
+      else {
+         String[] vals = batch.stringColumn(col);
+         Set<String> wanted = stringValues();
+         for (int i=0; i<n; i++) {
+            int row = sel[i];
+            if (wanted.contains(vals[row]))
+               sel[k++] = row;
+         }
+      }
+      batch.setSize(k);
+   }
+   
+   private static void selectConstant(Batch batch, int col, int op, Constant c) {
+      int[] sel = batch.selection();
+      int n = batch.size(), k = 0;
+      if (batch.isInt(col) && c instanceof IntConstant) {
+         int[] vals = batch.intColumn(col);
+         int val = (Integer) c.asJavaVal();
+         if (op == EQ) {
+            for (int i=0; i<n; i++) {
+               int row = sel[i];
+               if (vals[row] == val)
+                  sel[k++] = row;
+            }
+         }
+         else {
+            for (int i=0; i<n; i++) {
+               int row = sel[i];
+               if (satisfies(op, Integer.compare(vals[row], val)))
+                  sel[k++] = row;
+            }
+         }
+      }
+      else if (!batch.isInt(col) && c instanceof StringConstant) {
+         String[] vals = batch.stringColumn(col);
+         String val = (String) c.asJavaVal();
+         for (int i=0; i<n; i++) {
+            int row = sel[i];
+            if (op == EQ ? val.equals(vals[row]) : satisfies(op, vals[row].compareTo(val)))
+               sel[k++] = row;
+         }
+      }
+      batch.setSize(k);
+   }
+   
+   private static void selectFields(Batch batch, int col1, int op, int col2) {
+      int[] sel = batch.selection();
+      int n = batch.size(), k = 0;
+      if (batch.isInt(col1) && batch.isInt(col2)) {
+         int[] vals1 = batch.intColumn(col1);
+         int[] vals2 = batch.intColumn(col2);
+         for (int i=0; i<n; i++) {
+            int row = sel[i];
+            if (satisfies(op, Integer.compare(vals1[row], vals2[row])))
+               sel[k++] = row;
+         }
+      }
+      else if (!batch.isInt(col1) && !batch.isInt(col2)) {
+         String[] vals1 = batch.stringColumn(col1);
+         String[] vals2 = batch.stringColumn(col2);
+         for (int i=0; i<n; i++) {
+            int row = sel[i];
+            if (satisfies(op, vals1[row].compareTo(vals2[row])))
+               sel[k++] = row;
+         }
+      }
+      batch.setSize(k);
    }
 }
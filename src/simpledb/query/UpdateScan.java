@@ -28,6 +28,30 @@ public interface UpdateScan extends Scan {
     */
    public void setString(String fldname, String val);
    
+   /**
+    * CS4432: Modifies the value of the field at the specified position
+    * of the current record.
+    * @param pos the position of the field, as returned by fieldPos
+    * @param val the new value, expressed as a Constant
+    */
+   public void setVal(int pos, Constant val);
+   
+   /**
+    * CS4432: Modifies the value of the field at the specified position
+    * of the current record.
+    * @param pos the position of the field, as returned by fieldPos
+    * @param val the new integer value
+    */
+   public void setInt(int pos, int val);
+   
+   /**
+    * CS4432: Modifies the value of the field at the specified position
+    * of the current record.
+    * @param pos the position of the field, as returned by fieldPos
+    * @param val the new string value
+    */
+   public void setString(int pos, String val);
+   
    /**
     * Inserts a new record somewhere in the scan.
     */
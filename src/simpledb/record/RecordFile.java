@@ -61,6 +61,52 @@ public class RecordFile {
       }
    }
    
+   /**
+    * CS4432: Moves past the next records of the current block,
+    * up to the specified number, saving their ids in an array.
+    * If the current block has no more records, the method
+    * moves to the next block that has one.
+    * The records can then be read a field at a time
+    * with the getInts and getStrings methods.
+    * @param max the maximum number of records
+    * @param ids the array that receives the record ids
+    * @return the number of records found; 0 if there are no more records
+    */
+   public int nextRecords(int max, int[] ids) {
+      while (true) {
+         int count = rp.nextRecords(max, ids);
+         if (count > 0 || max == 0 || atLastBlock())
+            return count;
+         moveTo(currentblknum + 1);
+      }
+   }
+   
+   /**
+    * CS4432: Reads the integer field at the specified offset
+    * of the specified records of the current block into an array.
+    * @param ids the ids of the records
+    * @param count the number of records
+    * @param offset the offset of the field within a record
+    * @param vals the array that receives the values
+    * @param start the index in the array of the first value
+    */
+   public void getInts(int[] ids, int count, int offset, int[] vals, int start) {
+      rp.getInts(ids, count, offset, vals, start);
+   }
+   
+   /**
+    * CS4432: Reads the string field at the specified offset
+    * of the specified records of the current block into an array.
+    * @param ids the ids of the records
+    * @param count the number of records
+    * @param offset the offset of the field within a record
+    * @param vals the array that receives the values
+    * @param start the index in the array of the first value
+    */
+   public void getStrings(int[] ids, int count, int offset, String[] vals, int start) {
+      rp.getStrings(ids, count, offset, vals, start);
+   }
+   
    /**
     * Returns the value of the specified field
     * in the current record.
@@ -101,6 +147,46 @@ public class RecordFile {
       rp.setString(fldname, val);
    }
    
+   /**
+    * CS4432: Returns the value stored at the specified
+    * offset of the current record.
+    * @param offset the offset of the field within a record
+    * @return the integer value at that field
+    */
+   public int getInt(int offset) {
+      return rp.getInt(offset);
+   }
+   
+   /**
+    * CS4432: Returns the value stored at the specified
+    * offset of the current record.
+    * @param offset the offset of the field within a record
+    * @return the string value at that field
+    */
+   public String getString(int offset) {
+      return rp.getString(offset);
+   }
+   
+   /**
+    * CS4432: Sets the value stored at the specified
+    * offset of the current record.
+    * @param offset the offset of the field within a record
+    * @param val the new value for the field
+    */
+   public void setInt(int offset, int val) {
+      rp.setInt(offset, val);
+   }
+   
+   /**
+    * CS4432: Sets the value stored at the specified
+    * offset of the current record.
+    * @param offset the offset of the field within a record
+    * @param val the new value for the field
+    */
+   public void setString(int offset, String val) {
+      rp.setString(offset, val);
+   }
+   
    /**
     * Deletes the current record.
     * The client must call next() to move to
@@ -16,6 +16,7 @@ public class RecordPage {
    private Transaction tx;
    private int slotsize;
    private int currentslot = -1;
+   private int[] positions, flags;  //CS4432: scratch arrays for reading many slots at once
    
    /** Creates the record manager for the specified block.
      * The current record is set to be prior to the first one.
@@ -93,6 +94,111 @@ public class RecordPage {
       tx.setString(blk, position, val);
    }
    
+   /**
+    * CS4432: Returns the integer value stored at the
+    * specified offset of the current record.
+    * Callers that read many records look up the offset
+    * of a field (see {@link TableInfo#offset}) once,
+    * instead of once per record.
+    * @param offset the offset of the field within a record
+    * @return the integer stored in that field
+    */
+   public int getInt(int offset) {
+      return tx.getInt(blk, currentpos() + INT_SIZE + offset);
+   }
+   
+   /**
+    * CS4432: Returns the string value stored at the
+    * specified offset of the current record.
+    * @param offset the offset of the field within a record
+    * @return the string stored in that field
+    */
+   public String getString(int offset) {
+      return tx.getString(blk, currentpos() + INT_SIZE + offset);
+   }
+   
+   /**
+    * CS4432: Stores an integer at the specified offset
+    * of the current record.
+    * @param offset the offset of the field within a record
+    * @param val the integer value stored in that field
+    */
+   public void setInt(int offset, int val) {
+      tx.setInt(blk, currentpos() + INT_SIZE + offset, val);
+   }
+   
+   /**
+    * CS4432: Stores a string at the specified offset
+    * of the current record.
+    * @param offset the offset of the field within a record
+    * @param val the string value stored in that field
+    */
+   public void setString(int offset, String val) {
+      tx.setString(blk, currentpos() + INT_SIZE + offset, val);
+   }
+   
+   /**
+    * CS4432: Moves past the next in-use records of the page,
+    * up to the specified number, saving their ids in an array.
+    * The in-use flags of the remaining slots are read all at once.
+    * Afterwards, the current record is the last one found;
+    * if fewer records were found, the page is positioned
+    * after its last slot.
+    * @param max the maximum number of records
+    * @param ids the array that receives the record ids
+    * @return the number of records found
+    */
+   public int nextRecords(int max, int[] ids) {
+      int numslots = BLOCK_SIZE / slotsize;
+      allocateScratch(numslots);
+      int first = currentslot + 1;
+      int remaining = Math.max(0, numslots - first);
+      for (int i=0; i<remaining; i++)
+         positions[i] = (first + i) * slotsize;
+      tx.getInts(blk, positions, remaining, flags, 0);
+      int count = 0;
+      for (int i=0; i<remaining && count<max; i++)
+         if (flags[i] == INUSE)
+         ids[count++] = first + i;
+      if (count == max && count > 0)
+         currentslot = ids[count-1];
+      else if (count < max)
+         currentslot = Math.max(currentslot, numslots - 1);
+      return count;
+   }
+   
+   /**
+    * CS4432: Reads the integer field at the specified offset
+    * of the specified records into an array.
+    * @param ids the ids of the records
+    * @param count the number of records
+    * @param offset the offset of the field within a record
+    * @param vals the array that receives the values
+    * @param start the index in the array of the first value
+    */
+   public void getInts(int[] ids, int count, int offset, int[] vals, int start) {
+      allocateScratch(BLOCK_SIZE / slotsize);
+      for (int i=0; i<count; i++)
+         positions[i] = ids[i] * slotsize + INT_SIZE + offset;
+      tx.getInts(blk, positions, count, vals, start);
+   }
+   
+   /**
+    * CS4432: Reads the string field at the specified offset
+    * of the specified records into an array.
+    * @param ids the ids of the records
+    * @param count the number of records
+    * @param offset the offset of the field within a record
+    * @param vals the array that receives the values
+    * @param start the index in the array of the first value
+    */
+   public void getStrings(int[] ids, int count, int offset, String[] vals, int start) {
+      allocateScratch(BLOCK_SIZE / slotsize);
+      for (int i=0; i<count; i++)
+         positions[i] = ids[i] * slotsize + INT_SIZE + offset;
+      tx.getStrings(blk, positions, count, vals, start);
+   }
+   
    /**
     * Deletes the current record.
     * Deletion is performed by just marking the record
@@ -145,6 +251,13 @@ public class RecordPage {
       return currentpos() + offset;
    }
    
+   private void allocateScratch(int numslots) {
+      if (positions == null) {
+         positions = new int[numslots];
+         flags = new int[numslots];
+      }
+   }
+   
    private boolean isValidSlot() {
       return currentpos() + slotsize <= BLOCK_SIZE;
    }
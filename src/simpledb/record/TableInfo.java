@@ -14,7 +14,6 @@ public class TableInfo {
    private Schema schema;
    private Map<String,Integer> offsets;
    private int recordlen;
-   public String sorted;
    private String tblname;
    
    /**
@@ -52,18 +51,6 @@ public class TableInfo {
       this.schema    = schema;
       this.offsets   = offsets;
       this.recordlen = recordlen;
-      this.sorted = null;
-   }
-
-   /**
-    * CS4432: Added an override constructor to set the field that the table is sorted on.
-    */
-   public TableInfo(String tblname, Schema schema, Map<String,Integer> offsets, int recordlen, String sorted) {
-      this.tblname   = tblname;
-      this.schema    = schema;
-      this.offsets   = offsets;
-      this.recordlen = recordlen;
-      this.sorted = sorted;
    }
    
    /**
@@ -76,6 +63,14 @@ public class TableInfo {
       return tblname + ".tbl";
    }
    
+   /**
+    * CS4432: Returns the name of the table.
+    * @return the name of the table
+    */
+   public String tableName() {
+      return tblname;
+   }
+   
    /**
     * Returns the schema of the table's records
     * @return the table's record schema
@@ -0,0 +1,237 @@
+package simpledb.remote;
+
+import java.sql.*;
+import java.util.Calendar;
+import java.io.*;
+import java.math.BigDecimal;
+import java.net.URL;
+
+/**
+ * CS4432: This class implements all of the methods of the
+ * PreparedStatement interface that are not in Statement,
+ * by throwing an exception for each one.
+ * Subclasses (such as SimplePreparedStatement) can override those
+ * methods that they want to implement.
+ * @author Edward Sciore
+ */
+public abstract class PreparedStatementAdapter extends StatementAdapter implements PreparedStatement {
+   public void addBatch() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void clearParameters() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public boolean execute() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public ResultSet executeQuery() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public int executeUpdate() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public ResultSetMetaData getMetaData() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public ParameterMetaData getParameterMetaData() throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setArray(int parameterIndex, Array x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBlob(int parameterIndex, InputStream x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBlob(int parameterIndex, Blob x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setByte(int parameterIndex, byte x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setCharacterStream(int parameterIndex, Reader x, int length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setCharacterStream(int parameterIndex, Reader x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setClob(int parameterIndex, Reader x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setClob(int parameterIndex, Reader x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setClob(int parameterIndex, Clob x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setDate(int parameterIndex, Date x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setDouble(int parameterIndex, double x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setFloat(int parameterIndex, float x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setInt(int parameterIndex, int x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setLong(int parameterIndex, long x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNCharacterStream(int parameterIndex, Reader x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNClob(int parameterIndex, Reader x, long length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNClob(int parameterIndex, Reader x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNClob(int parameterIndex, NClob x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNString(int parameterIndex, String x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setNull(int parameterIndex, int sqlType) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setObject(int parameterIndex, Object x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setRef(int parameterIndex, Ref x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setRowId(int parameterIndex, RowId x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setShort(int parameterIndex, short x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setString(int parameterIndex, String x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setTime(int parameterIndex, Time x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setURL(int parameterIndex, URL x) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+   
+   public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+      throw new SQLException("operation not implemented");
+   }
+}
@@ -10,6 +10,7 @@ import java.rmi.*;
  */
 public interface RemoteConnection extends Remote {
    public RemoteStatement createStatement() throws RemoteException;
+   public RemotePreparedStatement prepareStatement(String sql) throws RemoteException; //CS4432
    public void close() throws RemoteException;
 }
 
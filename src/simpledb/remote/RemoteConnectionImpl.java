@@ -29,6 +29,15 @@ class RemoteConnectionImpl extends UnicastRemoteObject implements RemoteConnecti
       return new RemoteStatementImpl(this);
    }
    
+   /**
+    * CS4432: Creates a new RemotePreparedStatement
+    * for the specified SQL statement.
+    * @see simpledb.remote.RemoteConnection#prepareStatement(String)
+    */
+   public RemotePreparedStatement prepareStatement(String sql) throws RemoteException {
+      return new RemotePreparedStatementImpl(this, sql);
+   }
+   
    /**
     * Closes the connection.
     * The current transaction is committed.
@@ -0,0 +1,17 @@
+package simpledb.remote;
+
+import java.rmi.*;
+
+/**
+ * CS4432: The RMI remote interface corresponding to PreparedStatement.
+ * The values of the statement's ? parameters are passed
+ * with each execution, in order; each must be an
+ * Integer or a String.
+ * The methods throw RemoteExceptions instead of SQLExceptions.
+ * @author Edward Sciore
+ */
+public interface RemotePreparedStatement extends Remote {
+   public RemoteResultSet executeQuery(Object[] args) throws RemoteException;
+   public int            executeUpdate(Object[] args) throws RemoteException;
+}
+
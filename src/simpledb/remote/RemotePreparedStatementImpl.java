@@ -0,0 +1,71 @@
+package simpledb.remote;
+
+import simpledb.tx.Transaction;
+import simpledb.query.*;
+import simpledb.server.SimpleDB;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.*;
+
+/**
+ * CS4432: The RMI server-side implementation of RemotePreparedStatement.
+ * Each execution of a query goes through the planner's plan cache,
+ * so that only the first execution of the statement is planned.
+ * @author Edward Sciore
+ */
+@SuppressWarnings("serial")
+class RemotePreparedStatementImpl extends UnicastRemoteObject implements RemotePreparedStatement {
+   private RemoteConnectionImpl rconn;
+   private String sql;
+   
+   public RemotePreparedStatementImpl(RemoteConnectionImpl rconn, String sql) throws RemoteException {
+      this.rconn = rconn;
+      this.sql = sql;
+   }
+   
+   /**
+    * Executes the query with the specified parameter values.
+    * @see simpledb.remote.RemotePreparedStatement#executeQuery(java.lang.Object[])
+    */
+   public RemoteResultSet executeQuery(Object[] args) throws RemoteException {
+      try {
+         Transaction tx = rconn.getTransaction();
+         Plan pln = SimpleDB.planner().createQueryPlan(sql, constants(args), tx);
+         return new RemoteResultSetImpl(pln, rconn);
+      }
+      catch(RuntimeException e) {
+         rconn.rollback();
+         throw e;
+      }
+   }
+   
+   /**
+    * Executes the update command with the specified parameter values.
+    * @see simpledb.remote.RemotePreparedStatement#executeUpdate(java.lang.Object[])
+    */
+   public int executeUpdate(Object[] args) throws RemoteException {
+      try {
+         Transaction tx = rconn.getTransaction();
+         int result = SimpleDB.planner().executeUpdate(sql, constants(args), tx);
+         rconn.commit();
+         return result;
+      }
+      catch(RuntimeException e) {
+         rconn.rollback();
+         throw e;
+      }
+   }
+   
+   private List<Constant> constants(Object[] args) {
+      List<Constant> result = new ArrayList<Constant>();
+      for (Object arg : args) {
+         if (arg instanceof Integer)
+            result.add(new IntConstant((Integer) arg));
+         else if (arg instanceof String)
+            result.add(new StringConstant((String) arg));
+         else
+            throw new IllegalArgumentException("parameter value must be an int or a string");
+      }
+      return result;
+   }
+}
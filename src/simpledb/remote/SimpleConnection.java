@@ -25,6 +25,20 @@ public class SimpleConnection extends ConnectionAdapter {
       }
    }
    
+   /**
+    * CS4432: Creates a prepared statement, whose ? parameters
+    * are given values with setInt and setString.
+    */
+   public PreparedStatement prepareStatement(String sql) throws SQLException {
+      try {
+         RemotePreparedStatement rstmt = rconn.prepareStatement(sql);
+         return new SimplePreparedStatement(rstmt);
+      }
+      catch(Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
    public void close() throws SQLException {
       try {
          rconn.close();
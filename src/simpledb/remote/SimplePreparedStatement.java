@@ -0,0 +1,64 @@
+package simpledb.remote;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * CS4432: An adapter class that wraps RemotePreparedStatement.
+ * It holds the values of the ? parameters, which are numbered
+ * from 1 and sent to the server with each execution.
+ * @author Edward Sciore
+ */
+public class SimplePreparedStatement extends PreparedStatementAdapter {
+   private RemotePreparedStatement rstmt;
+   private List<Object> args = new ArrayList<Object>();
+   
+   public SimplePreparedStatement(RemotePreparedStatement s) {
+      rstmt = s;
+   }
+   
+   public void setInt(int parameterIndex, int x) throws SQLException {
+      setArg(parameterIndex, x);
+   }
+   
+   public void setString(int parameterIndex, String x) throws SQLException {
+      setArg(parameterIndex, x);
+   }
+   
+   public void clearParameters() throws SQLException {
+      args.clear();
+   }
+   
+   public ResultSet executeQuery() throws SQLException {
+      try {
+         RemoteResultSet rrs = rstmt.executeQuery(arguments());
+         return new SimpleResultSet(rrs);
+      }
+      catch(Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
+   public int executeUpdate() throws SQLException {
+      try {
+         return rstmt.executeUpdate(arguments());
+      }
+      catch(Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
+   private void setArg(int parameterIndex, Object x) throws SQLException {
+      if (parameterIndex < 1)
+         throw new SQLException("invalid parameter index " + parameterIndex);
+      while (args.size() < parameterIndex)
+         args.add(null);
+      args.set(parameterIndex-1, x);
+   }
+   
+   private Object[] arguments() throws SQLException {
+      if (args.contains(null))
+         throw new SQLException("a parameter has no value");
+      return args.toArray();
+   }
+}
@@ -4,6 +4,7 @@ import simpledb.file.FileMgr;
 import simpledb.buffer.*;
 import simpledb.opt.ExploitSortQueryPlanner;
 import simpledb.opt.HeuristicQueryPlanner;
+import simpledb.opt.DPQueryPlanner;
 import simpledb.tx.Transaction;
 import simpledb.log.LogMgr;
 import simpledb.metadata.MetadataMgr;
@@ -25,12 +26,17 @@ import simpledb.index.planner.IndexUpdatePlanner;
  */
 public class SimpleDB {
    public static int BUFFER_SIZE = 100;//CS4432: Changed buffer size from 8 to 100
+   public static int SORT_MEMORY = 64 * 1024;//CS4432: Bytes of memory a sort may use to hold records
+   public static int SORT_THREADS = 1;//CS4432: Worker threads for an external sort; 1 sorts sequentially
+   public static int BATCH_SIZE = 1024;//CS4432: Records per batch in batch execution; 0 turns batch execution off
+   public static int PLAN_CACHE_SIZE = 100;//CS4432: Query plans kept by the plan cache; 0 turns the cache off
    public static String LOG_FILE = "simpledb.log";
    
    private static FileMgr     fm;
    private static BufferMgr   bm;
    private static LogMgr      logm;
    private static MetadataMgr mdm;
+   private static PlanCache   pc;
    
    /**
     * Initializes the system.
@@ -89,12 +95,14 @@ public class SimpleDB {
     */
    public static void initMetadataMgr(boolean isnew, Transaction tx) {
       mdm = new MetadataMgr(isnew, tx);
+      pc  = new PlanCache(); //CS4432: the plans of another database are of no use
    }
    
    public static FileMgr     fileMgr()   { return fm; }
    public static BufferMgr   bufferMgr() { return bm; }
    public static LogMgr      logMgr()    { return logm; }
    public static MetadataMgr mdMgr()     { return mdm; }
+   public static PlanCache   planCache() { return pc; } //CS4432
    
    /**
     * Creates a planner for SQL commands.
@@ -102,7 +110,8 @@ public class SimpleDB {
     * @return the system's planner for SQL commands
     */public static Planner planner() {
       //Uncomment a qplanner implementation to use it
-      QueryPlanner  qplanner = new HeuristicQueryPlanner();//CS4432: switched BasicQueryPlanner to HeuristicQueryPlanner
+      //QueryPlanner  qplanner = new HeuristicQueryPlanner();//CS4432: switched BasicQueryPlanner to HeuristicQueryPlanner
+      QueryPlanner  qplanner = new DPQueryPlanner();//CS4432: switched HeuristicQueryPlanner to DPQueryPlanner, which falls back to it for large joins
       //QueryPlanner  qplanner = new ExploitSortQueryPlanner(); //CS4432: switched BasicQueryPlanner to ExploitSortQueryPlanner
       UpdatePlanner uplanner = new IndexUpdatePlanner(); //CS4432: switched BasicUpdatePlanner to IndexUpdatePlanner
       return new Planner(qplanner, uplanner);
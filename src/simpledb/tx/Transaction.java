@@ -5,6 +5,7 @@ import simpledb.file.Block;
 import simpledb.buffer.*;
 import simpledb.tx.recovery.RecoveryMgr;
 import simpledb.tx.concurrency.ConcurrencyMgr;
+import java.util.*;
 
 /**
  * Provides transaction management for clients,
@@ -19,6 +20,8 @@ public class Transaction {
    private ConcurrencyMgr concurMgr;
    private int txnum;
    private BufferList myBuffers = new BufferList();
+   private List<Runnable> endActions = new ArrayList<Runnable>(); //CS4432: run by commit and rollback
+   private List<Runnable> commitActions = new ArrayList<Runnable>(); //CS4432: run by commit only
    
    /**
     * Creates a new transaction and its associated 
@@ -48,6 +51,8 @@ public class Transaction {
       recoveryMgr.commit();
       concurMgr.release();
       myBuffers.unpinAll();
+      runCommitActions();
+      runEndActions();
       System.out.println("transaction " + txnum + " committed");
    }
    
@@ -62,9 +67,34 @@ public class Transaction {
       recoveryMgr.rollback();
       concurMgr.release();
       myBuffers.unpinAll();
+      commitActions = new ArrayList<Runnable>();
+      runEndActions();
       System.out.println("transaction " + txnum + " rolled back");
    }
    
+   /**
+    * CS4432: Registers an action to be run when the transaction
+    * commits or rolls back, after its locks have been released.
+    * The metadata cache uses this to learn when a change
+    * to the catalog becomes visible (or is undone).
+    * @param action the action to run
+    */
+   public void whenDone(Runnable action) {
+      endActions.add(action);
+   }
+   
+   /**
+    * CS4432: Registers an action to be run if the transaction
+    * commits, after its locks have been released;
+    * the action is discarded if the transaction rolls back.
+    * The statistics manager uses this so that new statistics
+    * are used only once they are committed.
+    * @param action the action to run
+    */
+   public void whenCommitted(Runnable action) {
+      commitActions.add(action);
+   }
+   
    /**
     * Flushes all modified buffers.
     * Then goes through the log, rolling back all
@@ -127,6 +157,42 @@ public class Transaction {
       return buff.getString(offset);
    }
    
+   /**
+    * CS4432: Reads the integer values stored at the
+    * specified offsets of the specified block into an array.
+    * The SLock and the buffer are obtained once,
+    * instead of once per value.
+    * @param blk a reference to a disk block
+    * @param offsets the byte offsets within the block
+    * @param count the number of offsets to read
+    * @param vals the array that receives the values
+    * @param start the index in the array of the first value
+    */
+   public void getInts(Block blk, int[] offsets, int count, int[] vals, int start) {
+      concurMgr.sLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      for (int i=0; i<count; i++)
+         vals[start+i] = buff.getInt(offsets[i]);
+   }
+   
+   /**
+    * CS4432: Reads the string values stored at the
+    * specified offsets of the specified block into an array.
+    * The SLock and the buffer are obtained once,
+    * instead of once per value.
+    * @param blk a reference to a disk block
+    * @param offsets the byte offsets within the block
+    * @param count the number of offsets to read
+    * @param vals the array that receives the values
+    * @param start the index in the array of the first value
+    */
+   public void getStrings(Block blk, int[] offsets, int count, String[] vals, int start) {
+      concurMgr.sLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      for (int i=0; i<count; i++)
+         vals[start+i] = buff.getString(offsets[i]);
+   }
+   
    /**
     * Stores an integer at the specified offset 
     * of the specified block.
@@ -198,6 +264,20 @@ public class Transaction {
       return blk;
    }
    
+   private void runCommitActions() {
+      List<Runnable> actions = commitActions;
+      commitActions = new ArrayList<Runnable>();
+      for (Runnable action : actions)
+         action.run();
+   }
+   
+   private void runEndActions() {
+      List<Runnable> actions = endActions;
+      endActions = new ArrayList<Runnable>();
+      for (Runnable action : actions)
+         action.run();
+   }
+   
    private static synchronized int nextTxNumber() {
       nextTxNum++;
       System.out.println("new transaction: " + nextTxNum);
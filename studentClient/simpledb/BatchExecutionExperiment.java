@@ -0,0 +1,91 @@
+import simpledb.query.*;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//CS4432: Measures the time per output record of analytical queries over tables
+//shaped like the test tables (two int fields), with batch execution turned off
+//(one record at a time) and on (SimpleDB.BATCH_SIZE records at a time).
+//Like ScanPositionExperiment, it warms up the JIT before timing, and reports the
+//median of several timed passes. It runs against its own database, without the server.
+public class BatchExecutionExperiment {
+    private static final int WARMUP = 5, PASSES = 15;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        SimpleDB.init("batchdb");
+        Transaction tx = new Transaction();
+        if (SimpleDB.mdMgr().getTableInfo("batch1", tx).recordLength() < 0)
+            createTables(size, tx);
+
+        String[] queries = {
+            "select a1, a2 from batch1 where a2 = 7",
+            "select a1, b2 from batch1, batch2 where a1 = b1",
+            "select a1, b2 from batch1, batch2 where a2 = 7 and b2 = 3",
+            "select a2, count(a1), sum(a1) from batch1 group by a2",
+            "select b2, count(a1) from batch1, batch2 where a1 = b1 group by b2"
+        };
+        int batchsize = SimpleDB.BATCH_SIZE;
+        System.out.println("Row (ns/record)\tBatch (ns/record)\tQuery");
+        for (String qry : queries) {
+            SimpleDB.BATCH_SIZE = 0;
+            double rowtime = time(qry, tx);
+            SimpleDB.BATCH_SIZE = batchsize;
+            double batchtime = time(qry, tx);
+            System.out.println(String.format("%.1f\t\t%.1f\t\t\t%s", rowtime, batchtime, qry));
+        }
+        tx.commit();
+    }
+
+    private static void createTables(int size, Transaction tx) {
+        SimpleDB.planner().executeUpdate("create table batch1 (a1 int, a2 int)", tx);
+        SimpleDB.planner().executeUpdate("create table batch2 (b1 int, b2 int)", tx);
+        Random rand = new Random(1);
+        UpdateScan us = (UpdateScan) new TablePlan("batch1", tx).open();
+        for (int i = 0; i < size; i++) {
+            us.insert();
+            us.setInt("a1", rand.nextInt(1000));
+            us.setInt("a2", rand.nextInt(1000));
+        }
+        us.close();
+        us = (UpdateScan) new TablePlan("batch2", tx).open();
+        for (int i = 0; i < size / 20; i++) {
+            us.insert();
+            us.setInt("b1", rand.nextInt(1000));
+            us.setInt("b2", rand.nextInt(10));
+        }
+        us.close();
+    }
+
+    // Returns the median time per output record of planning and running the query.
+    private static double time(String qry, Transaction tx) {
+        double[] results = new double[PASSES];
+        for (int pass = -WARMUP; pass < PASSES; pass++) {
+            long start = System.nanoTime();
+            long records = read(qry, tx);
+            double nsPerRecord = (double) (System.nanoTime() - start) / Math.max(1, records);
+            if (pass >= 0)
+                results[pass] = nsPerRecord;
+        }
+        Arrays.sort(results);
+        return results[PASSES / 2];
+    }
+
+    private static long read(String qry, Transaction tx) {
+        Plan p = SimpleDB.planner().createQueryPlan(qry, tx);
+        Scan s = p.open();
+        String[] fields = p.schema().fields().toArray(new String[0]);
+        long records = 0, checksum = 0;
+        while (s.next()) {
+            records++;
+            for (String fldname : fields)
+                checksum += s.getVal(fldname).hashCode();
+        }
+        s.close();
+        if (checksum == 42)
+            System.out.print("");  // keeps the reads from being optimized away
+        return records;
+    }
+}
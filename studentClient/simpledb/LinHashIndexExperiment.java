@@ -0,0 +1,73 @@
+import simpledb.remote.SimpleDriver;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+//CS4432: Added a class to compare the insert and lookup times of the extensible and linear hash indexes
+public class LinHashIndexExperiment {
+    final static int maxSize=5000;
+
+    public static void main (String [] args){
+
+        Connection conn=null;
+        Driver d = new SimpleDriver();
+        String host = "localhost"; //you may change it if your SimpleDB server is running on a different machine
+        String url = "jdbc:simpledb://" + host;
+        Statement s = null;
+
+        try {
+            BufferedWriter file = new BufferedWriter(new FileWriter("LinHashIndexExperimentResults.txt"));
+            conn = d.connect(url, null);
+            s=conn.createStatement();
+
+            s.executeUpdate("create table ehtest (a1 int, a2 int)");
+            s.executeUpdate("create table lhtest (a1 int, a2 int)");
+            s.executeUpdate("create eh index ehidx on ehtest (a1)");
+            s.executeUpdate("create lh index lhidx on lhtest (a1)");
+
+            String[] tables = {"ehtest", "lhtest"};
+            String[] names = {"Extensible Hash Index", "Linear Hash Index"};
+            for (int t=0; t<tables.length; t++){
+                file.append(names[t] + ":\n");
+
+                //time each insert, since a directory doubling shows up as a slow insert
+                Random rand = new Random(1); // ensure both tables get the same data
+                long maxTime = 0;
+                long startTime = System.currentTimeMillis();
+                for (int j=0; j<maxSize; j++){
+                    long insertStart = System.nanoTime();
+                    s.executeUpdate("insert into " + tables[t] + " (a1,a2) values(" + rand.nextInt(100000) + "," + j + ")");
+                    maxTime = Math.max(maxTime, System.nanoTime() - insertStart);
+                }
+                long endTime = System.currentTimeMillis();
+                file.append(String.format("\tInsert time: %d milliseconds\n", endTime - startTime));
+                file.append(String.format("\tSlowest insert: %d milliseconds\n", maxTime / 1000000));
+
+                rand = new Random(2);
+                int found = 0;
+                startTime = System.currentTimeMillis();
+                for (int j=0; j<maxSize/10; j++){
+                    ResultSet rs = s.executeQuery("select a2 from " + tables[t] + " where a1 = " + rand.nextInt(100000));
+                    while (rs.next())
+                        found++;
+                    rs.close();
+                }
+                endTime = System.currentTimeMillis();
+                file.append(String.format("\tLookup time: %d milliseconds (%d records found)\n", endTime - startTime, found));
+            }
+
+            file.close();
+            conn.close();
+        } catch (IOException|SQLException e){
+            e.printStackTrace();
+        }
+
+    }
+}
@@ -0,0 +1,90 @@
+import simpledb.query.*;
+import simpledb.server.SimpleDB;
+import simpledb.tx.Transaction;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//CS4432: Measures the per-record cost of reading fields by name and by position,
+//through a table scan and through a project/select/product pipeline.
+//Like a microbenchmark harness, it warms up the JIT before timing, and reports the
+//median of several timed passes. It runs against its own database, without the server.
+public class ScanPositionExperiment {
+    private static final int WARMUP = 5, PASSES = 15;
+
+    public static void main(String[] args) {
+        int rsize = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int ssize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        SimpleDB.init("scanposdb");
+        Transaction tx = new Transaction();
+        if (SimpleDB.mdMgr().getTableInfo("bench1", tx).recordLength() < 0)
+            createTables(rsize, ssize, tx);
+
+        Plan table = new TablePlan("bench1", tx);
+        Plan pipeline = new ProjectPlan(
+                new SelectPlan(new ProductPlan(new TablePlan("bench1", tx), new TablePlan("bench2", tx)),
+                               new Predicate()),
+                Arrays.asList("a1", "a3", "b2"));
+        String[] tablefields = {"a1", "a2", "a3"};
+        String[] pipefields = {"a1", "a3", "b2"};
+
+        System.out.println("Plan\t\tBy name (ns/record)\tBy position (ns/record)");
+        System.out.println(String.format("table scan\t%.1f\t\t\t%.1f",
+                time(table, tablefields, false), time(table, tablefields, true)));
+        System.out.println(String.format("pipeline\t%.1f\t\t\t%.1f",
+                time(pipeline, pipefields, false), time(pipeline, pipefields, true)));
+        tx.commit();
+    }
+
+    private static void createTables(int rsize, int ssize, Transaction tx) {
+        SimpleDB.planner().executeUpdate("create table bench1 (a1 int, a2 int, a3 varchar(10))", tx);
+        SimpleDB.planner().executeUpdate("create table bench2 (b1 int, b2 int)", tx);
+        Random rand = new Random(1);
+        UpdateScan us = (UpdateScan) new TablePlan("bench1", tx).open();
+        for (int i = 0; i < rsize; i++) {
+            us.insert();
+            us.setInt("a1", rand.nextInt(1000));
+            us.setInt("a2", i);
+            us.setString("a3", "rec" + i);
+        }
+        us.close();
+        us = (UpdateScan) new TablePlan("bench2", tx).open();
+        for (int i = 0; i < ssize; i++) {
+            us.insert();
+            us.setInt("b1", i);
+            us.setInt("b2", rand.nextInt(1000));
+        }
+        us.close();
+    }
+
+    // Returns the median time per record of reading the fields of every record of the plan.
+    private static double time(Plan p, String[] fields, boolean bypos) {
+        double[] results = new double[PASSES];
+        for (int pass = -WARMUP; pass < PASSES; pass++) {
+            long start = System.nanoTime();
+            long records = read(p, fields, bypos);
+            double nsPerRecord = (double) (System.nanoTime() - start) / Math.max(1, records);
+            if (pass >= 0)
+                results[pass] = nsPerRecord;
+        }
+        Arrays.sort(results);
+        return results[PASSES / 2];
+    }
+
+    private static long read(Plan p, String[] fields, boolean bypos) {
+        Scan s = p.open();
+        int[] pos = new int[fields.length];
+        for (int i = 0; i < fields.length; i++)
+            pos[i] = s.fieldPos(fields[i]);
+        long records = 0, checksum = 0;
+        while (s.next()) {
+            records++;
+            for (int i = 0; i < fields.length; i++)
+                checksum += bypos ? s.getVal(pos[i]).hashCode() : s.getVal(fields[i]).hashCode();
+        }
+        s.close();
+        if (checksum == 42)
+            System.out.print("");  // keeps the reads from being optimized away
+        return records;
+    }
+}
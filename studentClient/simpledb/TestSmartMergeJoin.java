@@ -63,9 +63,9 @@ public class TestSmartMergeJoin {
 //            }
             rs.close();
 
-            System.out.println("Perform First Join: 'select a1,a2,a3 from test1,test2'");
+            System.out.println("Perform First Join: 'select a1,a2,a3 from test1,test2 where a2 = a2'");
             long startTime = System.currentTimeMillis();
-            rs = s.executeQuery("select a1,a2,a3 from test1,test2");
+            rs = s.executeQuery("select a1,a2,a3 from test1,test2 where a2 = a2");
             long endTime = System.currentTimeMillis();
             System.out.println(String.format("Time to perform join: %d milliseconds", endTime - startTime));
 //            while (rs.next()) {
@@ -76,9 +76,9 @@ public class TestSmartMergeJoin {
 //            }
             rs.close();
 
-            System.out.println("Perform Second Join: 'select a1,a2,a3 from test1,test2'");
+            System.out.println("Perform Second Join: 'select a1,a2,a3 from test1,test2 where a2 = a2'");
             startTime = System.currentTimeMillis();
-            rs = s.executeQuery("select a1,a2,a3 from test1,test2");
+            rs = s.executeQuery("select a1,a2,a3 from test1,test2 where a2 = a2");
             endTime = System.currentTimeMillis();
             System.out.println(String.format("Time to perform join: %d milliseconds", endTime - startTime));
 //            while (rs.next()) {